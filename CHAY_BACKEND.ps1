@@ -29,6 +29,17 @@ if ($portsInUse.Count -gt 0) {
 $env:JAVA_HOME = "C:\Program Files\Java\jdk-23"
 $env:PATH = "C:\Program Files\apache-maven-3.9.12\bin;$env:PATH"
 
+# Shared secret for /internal/** service-to-service calls; a random one is generated per run when not set
+# (set INTERNAL_AUTH_TOKEN permanently if single services are restarted separately)
+if (-not $env:INTERNAL_AUTH_TOKEN) {
+    $env:INTERNAL_AUTH_TOKEN = [Convert]::ToBase64String([byte[]](1..32 | ForEach-Object { Get-Random -Maximum 256 }))
+}
+
+# ai-service needs at least one AI provider key
+if (-not $env:GEMINI_API_KEY -and -not $env:OPENROUTER_API_KEY) {
+    Write-Host "Warning: neither GEMINI_API_KEY nor OPENROUTER_API_KEY is set, AI Service will fail to start" -ForegroundColor Yellow
+}
+
 # Check if Java is available
 $javaVersion = java -version 2>&1 | Select-String "version"
 if (-not $javaVersion) {
@@ -5,13 +5,18 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import vn.careermate.common.config.InternalAuthConfiguration;
 
 @SpringBootApplication
 @EnableDiscoveryClient
 @EnableFeignClients(basePackages = "vn.careermate.common.client")
 @EnableJpaAuditing
+@EnableScheduling
+@Import(InternalAuthConfiguration.class)
 @EntityScan("vn.careermate.aiservice.model")
 @EnableJpaRepositories("vn.careermate.aiservice.repository")
 public class AIServiceApplication {
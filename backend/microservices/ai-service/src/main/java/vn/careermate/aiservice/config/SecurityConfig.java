@@ -24,7 +24,9 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/actuator/**").permitAll()
+                .requestMatchers("/actuator/health/**", "/actuator/info").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN") // metrics expose provider latency / errors
+                .requestMatchers("/internal/**").permitAll() // Service-to-service, X-Internal-Token checked by InternalAuthConfiguration
                 .requestMatchers("/ai/cv/**").permitAll() // Allow CV analysis
                 .requestMatchers("/ai/students/mock-interview/**").permitAll() // Explicitly allow mock interview
                 .requestMatchers("/ai/**").permitAll() // Allow all AI endpoints without auth
@@ -1,21 +1,40 @@
 package vn.careermate.aiservice.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import lombok.extern.slf4j.Slf4j;
+import vn.careermate.aiservice.service.AIProviderLimiter;
+import vn.careermate.aiservice.service.AIProviderRouter;
+import vn.careermate.aiservice.service.AIResponseCache;
 import vn.careermate.aiservice.service.AIService;
+import vn.careermate.aiservice.service.BulkCVAnalysisService;
+import vn.careermate.aiservice.service.CVAnalysisQueueService;
+import vn.careermate.aiservice.service.CandidateRankingService;
 import vn.careermate.aiservice.service.VectorDBService;
 import vn.careermate.common.client.UserServiceClient;
 import vn.careermate.common.client.JobServiceClient;
 import vn.careermate.common.dto.JobDTO;
 import vn.careermate.common.dto.CVDTO;
 import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 /**
@@ -29,96 +48,226 @@ import java.util.stream.Collectors;
 public class AIController {
 
     private final AIService aiService;
+    private final CandidateRankingService candidateRankingService;
+    private final CVAnalysisQueueService cvAnalysisQueueService;
+    private final BulkCVAnalysisService bulkCVAnalysisService;
+    private final AIResponseCache responseCache;
+    private final AIProviderLimiter providerLimiter;
+    private final AIProviderRouter providerRouter;
     private final VectorDBService vectorDBService;
     private final UserServiceClient userServiceClient;
     private final JobServiceClient jobServiceClient;
 
+    // SSE endpoints use their own timeout instead of spring.mvc.async.request-timeout
+    @Value("${ai.streaming.timeout-ms:300000}")
+    private long streamTimeoutMs;
+
+    // Longest gap between two events of a stream before it is ended with an error event
+    @Value("${ai.streaming.idle-timeout-ms:180000}")
+    private long streamIdleTimeoutMs;
+
     /**
      * Analyze CV
      * POST /ai/cv/analyze/{cvId}
      * Requires CV content in request body
      */
     @PostMapping("/cv/analyze/{cvId}")
-    public ResponseEntity<Map<String, Object>> analyzeCV(
+    public Mono<ResponseEntity<Map<String, Object>>> analyzeCV(
             @PathVariable String cvId,
             @RequestBody(required = false) Map<String, String> request) {
-        try {
-            log.info("Analyzing CV with ID: {}", cvId);
-            
-            // Get CV content from request body
-            String cvContent = "";
-            if (request != null && request.containsKey("content")) {
-                cvContent = request.get("content");
-            } else if (request != null && !request.isEmpty()) {
-                // Try to build CV content from structured fields
-                StringBuilder sb = new StringBuilder();
-                if (request.containsKey("profile")) sb.append(request.get("profile")).append("\n\n");
-                if (request.containsKey("experience")) sb.append("Experience:\n").append(request.get("experience")).append("\n\n");
-                if (request.containsKey("education")) sb.append("Education:\n").append(request.get("education")).append("\n\n");
-                if (request.containsKey("skills")) sb.append("Skills:\n").append(request.get("skills")).append("\n\n");
-                if (request.containsKey("certifications")) sb.append("Certifications:\n").append(request.get("certifications")).append("\n\n");
-                if (request.containsKey("fileName")) sb.append("File: ").append(request.get("fileName")).append("\n\n");
-                cvContent = sb.toString();
-            } else {
-                // Request body is empty, try to fetch CV from User Service
-                try {
-                    log.info("Request body empty. Fetching CV {} from User Service...", cvId);
-                    CVDTO cv = userServiceClient.getCVById(UUID.fromString(cvId));
-                    if (cv != null && cv.getExtractedContent() != null) {
-                        cvContent = cv.getExtractedContent();
-                        log.info("Successfully fetched CV content from User Service. Length: {}", cvContent.length());
-                    } else {
-                        log.warn("CV fetched but content is null or empty");
-                    }
-                } catch (Exception e) {
-                    log.error("Failed to fetch CV from User Service", e);
+        log.info("Analyzing CV with ID: {}", cvId);
+
+        // Get CV content from request body
+        String requestContent = "";
+        if (request != null && request.containsKey("content")) {
+            requestContent = request.get("content");
+        } else if (request != null && !request.isEmpty()) {
+            // Try to build CV content from structured fields
+            StringBuilder sb = new StringBuilder();
+            if (request.containsKey("profile")) sb.append(request.get("profile")).append("\n\n");
+            if (request.containsKey("experience")) sb.append("Experience:\n").append(request.get("experience")).append("\n\n");
+            if (request.containsKey("education")) sb.append("Education:\n").append(request.get("education")).append("\n\n");
+            if (request.containsKey("skills")) sb.append("Skills:\n").append(request.get("skills")).append("\n\n");
+            if (request.containsKey("certifications")) sb.append("Certifications:\n").append(request.get("certifications")).append("\n\n");
+            if (request.containsKey("fileName")) sb.append("File: ").append(request.get("fileName")).append("\n\n");
+            requestContent = sb.toString();
+        }
+
+        // Request body is empty, try to fetch CV from User Service (Feign is blocking, so off the request thread)
+        Mono<String> cvContent = request == null || request.isEmpty()
+            ? fetchCVContent(cvId)
+            : Mono.just(requestContent != null ? requestContent : "");
+
+        return cvContent
+            .flatMap(content -> {
+                if (!content.trim().isEmpty()) {
+                    return aiService.analyzeCVReactive(content)
+                        .map(analysis -> {
+                            // Keep the vector index in sync so job matching can find this CV
+                            indexCVInBackground(cvId, content);
+                            log.info("CV analysis completed for CV ID: {}", cvId);
+                            return ResponseEntity.ok(analysis);
+                        });
                 }
-            }
 
-            // If still empty, try to download file and use multimodal
-            if (cvContent == null || cvContent.trim().isEmpty()) {
-                try {
-                    log.info("Extracted content is empty. Attempting multimodal analysis for CV: {}", cvId);
-                    feign.Response feignResponse = userServiceClient.downloadCV(UUID.fromString(cvId));
-                    if (feignResponse.status() == 200) {
-                        byte[] fileBytes = StreamUtils.copyToByteArray(feignResponse.body().asInputStream());
-                        String contentType = feignResponse.headers().get("Content-Type").stream().findFirst().orElse("application/pdf");
-                        
-                        log.info("Successfully downloaded raw CV file. Size: {}, Type: {}", fileBytes.length, contentType);
-                        Map<String, Object> result = aiService.analyzeCV(contentType, fileBytes);
-                        return ResponseEntity.ok(result);
-                    } else {
+                // If still empty, try to download file and use multimodal
+                return analyzeDownloadedCV(cvId)
+                    .map(ResponseEntity::ok)
+                    .switchIfEmpty(Mono.fromSupplier(() -> cvContentRequired(cvId)));
+            })
+            .onErrorResume(e -> {
+                log.error("Error analyzing CV", e);
+                return Mono.just(ResponseEntity.status(500)
+                    .body(Map.of("error", "Error analyzing CV: " + e.getMessage())));
+            });
+    }
+
+    /**
+     * Analyze a list of CVs (e.g. all applicants of a job)
+     * POST /ai/cv/analyze/bulk  { "jobId": "...", "cvIds": [...], "reuseExisting": true }
+     * cvIds must belong to applications of the caller's job (all applicants when omitted).
+     * Returns when every CV is done, so it is capped at ai.bulk-analysis.max-sync-cvs;
+     * larger pools and per-item progress go through /ai/cv/analyze/bulk/stream
+     */
+    @PostMapping("/cv/analyze/bulk")
+    @PreAuthorize("hasAnyRole('RECRUITER', 'ADMIN')")
+    public Mono<ResponseEntity<Map<String, Object>>> analyzeCVsBulk(@RequestBody Map<String, Object> request) {
+        return Flux.defer(() -> bulkCVAnalysisService.analyze(bulkJobId(request), bulkIds(request), bulkReuse(request), false))
+            .collectList()
+            .map(items -> ResponseEntity.ok(bulkSummary(items)))
+            .onErrorResume(e -> {
+                log.error("Error in bulk CV analysis: {}", e.getMessage());
+                int status = e instanceof AccessDeniedException ? 403 : 400;
+                return Mono.just(ResponseEntity.status(status).body(Map.of("error", String.valueOf(e.getMessage()))));
+            });
+    }
+
+    /**
+     * Bulk CV analysis with progress
+     * POST /ai/cv/analyze/bulk/stream  (same body as /ai/cv/analyze/bulk)
+     * Events: "progress" (one finished CV with completed/total), "done" (summary), "error"
+     */
+    @PostMapping(value = "/cv/analyze/bulk/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('RECRUITER', 'ADMIN')")
+    public SseEmitter streamCVsBulk(@RequestBody Map<String, Object> request) {
+        return toEmitter(Flux.defer(() -> {
+            List<Map<String, Object>> items = new java.util.concurrent.CopyOnWriteArrayList<>();
+            return bulkCVAnalysisService.analyze(bulkJobId(request), bulkIds(request), bulkReuse(request), true)
+                .doOnNext(items::add)
+                .map(item -> ServerSentEvent.<Map<String, Object>>builder().event("progress").data(item).build())
+                .concatWith(Mono.fromSupplier(() -> ServerSentEvent.<Map<String, Object>>builder()
+                    .event("done")
+                    .data(bulkSummary(items))
+                    .build()))
+                .onErrorResume(e -> {
+                    log.error("Error streaming bulk CV analysis", e);
+                    return Flux.just(errorEvent("Error analyzing CVs: " + e.getMessage()));
+                });
+        }));
+    }
+
+    private UUID bulkJobId(Map<String, Object> request) {
+        Object jobId = request.get("jobId");
+        return jobId == null ? null : UUID.fromString(String.valueOf(jobId));
+    }
+
+    private List<UUID> bulkIds(Map<String, Object> request) {
+        Object ids = request.get("cvIds");
+        if (!(ids instanceof List<?> list)) {
+            return List.of();
+        }
+        return list.stream().map(id -> UUID.fromString(String.valueOf(id))).collect(Collectors.toList());
+    }
+
+    private boolean bulkReuse(Map<String, Object> request) {
+        Object reuse = request.get("reuseExisting");
+        return reuse == null || Boolean.parseBoolean(String.valueOf(reuse));
+    }
+
+    private Map<String, Object> bulkSummary(List<Map<String, Object>> items) {
+        List<Map<String, Object>> results = items.stream()
+            .sorted(java.util.Comparator.comparingInt(item -> (Integer) item.get("index")))
+            .collect(Collectors.toList());
+        long failed = results.stream().filter(item -> "FAILED".equals(item.get("status"))).count();
+        return Map.of(
+            "total", results.size(),
+            "succeeded", results.size() - failed,
+            "failed", failed,
+            "results", results
+        );
+    }
+
+    private Mono<String> fetchCVContent(String cvId) {
+        return Mono.fromCallable(() -> {
+                log.info("Request body empty. Fetching CV {} from User Service...", cvId);
+                CVDTO cv = userServiceClient.getCVById(UUID.fromString(cvId));
+                if (cv != null && cv.getExtractedContent() != null) {
+                    log.info("Successfully fetched CV content from User Service. Length: {}", cv.getExtractedContent().length());
+                    return cv.getExtractedContent();
+                }
+                log.warn("CV fetched but content is null or empty");
+                return "";
+            })
+            .subscribeOn(Schedulers.boundedElastic())
+            .onErrorResume(e -> {
+                log.error("Failed to fetch CV from User Service", e);
+                return Mono.just("");
+            });
+    }
+
+    /**
+     * Download the raw CV file and analyze it multimodally; empty when the file is unavailable
+     */
+    private Mono<Map<String, Object>> analyzeDownloadedCV(String cvId) {
+        return Mono.fromCallable(() -> {
+                log.info("Extracted content is empty. Attempting multimodal analysis for CV: {}", cvId);
+                try (feign.Response feignResponse = userServiceClient.downloadCV(UUID.fromString(cvId))) {
+                    if (feignResponse.status() != 200) {
                         log.warn("Failed to download CV file from User Service. Status: {}", feignResponse.status());
+                        return null;
                     }
-                } catch (Exception e) {
-                    log.error("Error during multimodal CV analysis", e);
+                    byte[] fileBytes = StreamUtils.copyToByteArray(feignResponse.body().asInputStream());
+                    String contentType = feignResponse.headers().get("Content-Type").stream().findFirst().orElse("application/pdf");
+
+                    log.info("Successfully downloaded raw CV file. Size: {}, Type: {}", fileBytes.length, contentType);
+                    return Map.entry(contentType, fileBytes);
                 }
-            }
+            })
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(file -> aiService.analyzeCVReactive(file.getKey(), file.getValue()))
+            .onErrorResume(e -> {
+                log.error("Error during multimodal CV analysis", e);
+                return Mono.empty();
+            });
+    }
 
-            // If still empty or multimodal failed, return error with helpful message
-            if (cvContent == null || cvContent.trim().isEmpty()) {
-                log.warn("CV analysis requested for cvId {} but no content provided and multimodal failed", cvId);
-                return ResponseEntity.badRequest()
-                    .body(Map.of(
-                        "error", "CV content is required for analysis",
-                        "message", "Please provide CV content in one of these formats:",
-                        "format1", "{ \"content\": \"full CV text\" }",
-                        "format2", "{ \"profile\": \"...\", \"experience\": \"...\", \"education\": \"...\", \"skills\": \"...\", \"certifications\": \"...\" }",
-                        "cvId", cvId
-                    ));
-            }
+    private void indexCVInBackground(String cvId, String cvContent) {
+        Mono.fromRunnable(() -> vectorDBService.storeCV(cvId, cvContent))
+            .subscribeOn(Schedulers.boundedElastic())
+            .subscribe(null, e -> log.warn("Could not index CV {}: {}", cvId, e.getMessage()));
+    }
 
-            // Analyze CV using AI service
-            Map<String, Object> analysis = aiService.analyzeCV(cvContent);
-            
-            log.info("CV analysis completed for CV ID: {}", cvId);
-            return ResponseEntity.ok(analysis);
-            
-        } catch (Exception e) {
-            log.error("Error analyzing CV", e);
-            return ResponseEntity.status(500)
-                .body(Map.of("error", "Error analyzing CV: " + e.getMessage()));
-        }
+    private ResponseEntity<Map<String, Object>> cvContentRequired(String cvId) {
+        // If still empty or multimodal failed, return error with helpful message
+        log.warn("CV analysis requested for cvId {} but no content provided and multimodal failed", cvId);
+        return ResponseEntity.badRequest()
+            .body(Map.of(
+                "error", "CV content is required for analysis",
+                "message", "Please provide CV content in one of these formats:",
+                "format1", "{ \"content\": \"full CV text\" }",
+                "format2", "{ \"profile\": \"...\", \"experience\": \"...\", \"education\": \"...\", \"skills\": \"...\", \"certifications\": \"...\" }",
+                "cvId", cvId
+            ));
+    }
+
+    /**
+     * CV analysis queue statistics
+     * GET /ai/analyze-cv/queue/stats
+     */
+    @GetMapping("/analyze-cv/queue/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getCVAnalysisQueueStats() {
+        return ResponseEntity.ok(cvAnalysisQueueService.getQueueStats());
     }
 
     /**
@@ -141,36 +290,33 @@ public class AIController {
                 return ResponseEntity.notFound().build();
             }
 
-            // Build job description for matching
-            StringBuilder jobDescBuilder = new StringBuilder();
-            jobDescBuilder.append(job.getTitle()).append(". ");
-            if (job.getDescription() != null) {
-                jobDescBuilder.append(job.getDescription()).append(". ");
-            }
-            // Note: JobDTO may not have requirements field, or it might be in description
-            // TODO: Add requirements field to JobDTO if needed
-            
-            String jobDescription = jobDescBuilder.toString();
-
-            // Use vector DB for semantic search if enabled
-            if (vectorDBService.isEnabled()) {
-                List<String> matchingCVIds = vectorDBService.findMatchingCVs(jobDescription, 10);
+            String jobDescription = buildJobDescription(job);
+
+            // Use vector DB for semantic search if enabled and populated
+            if (vectorDBService.hasCVs()) {
+                List<Map<String, Object>> matchingCVs = vectorDBService.searchCVs(jobDescription, 10).stream()
+                    .map(match -> Map.<String, Object>of(
+                        "cvId", match.getId(),
+                        "score", Math.round(Math.max(0f, match.getScore()) * 100),
+                        "similarity", match.getScore()
+                    ))
+                    .collect(Collectors.toList());
                 return ResponseEntity.ok(Map.of(
                     "jobId", jobId,
-                    "matchingCVs", matchingCVIds,
+                    "matchingCVs", matchingCVs,
                     "method", "vector-db"
                 ));
             } else {
                 // Fallback to AI-based matching
                 try {
                     List<vn.careermate.common.dto.CVDTO> allCVs = userServiceClient.getAllCVs();
-                    List<Map<String, Object>> rankedCandidates = aiService.rankCandidates(jobDescription, allCVs);
+                    List<Map<String, Object>> rankedCandidates = candidateRankingService.rankCandidates(jobDescription, allCVs);
                     
                     return ResponseEntity.ok(Map.of(
                         "jobId", jobId,
                         "matchingCVs", rankedCandidates,
                         "method", "ai-ranking-fallback",
-                        "message", "Vector DB not enabled, using AI-based ranking"
+                        "message", "Vector DB not enabled or empty, using AI-based ranking"
                     ));
                 } catch (Exception e) {
                     log.error("AI matching fallback failed: {}", e.getMessage());
@@ -188,6 +334,132 @@ public class AIController {
         }
     }
 
+    /**
+     * Rank all candidates for a job with AI, streaming partial rankings as batches complete
+     * GET /ai/jobs/{jobId}/matching/stream
+     * Events: "progress" (ranking so far), "done" (final ranking), "error"
+     */
+    @GetMapping(value = "/jobs/{jobId}/matching/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('RECRUITER')")
+    public SseEmitter streamJobMatching(@PathVariable String jobId) {
+        return toEmitter(Flux.create(sink -> {
+            JobDTO job;
+            List<CVDTO> allCVs;
+            try {
+                job = jobServiceClient.getJobById(UUID.fromString(jobId));
+                allCVs = userServiceClient.getAllCVs();
+            } catch (Exception e) {
+                log.error("Error loading job {} or CVs for streaming ranking: {}", jobId, e.getMessage());
+                sink.next(errorEvent("Error loading job or candidates: " + e.getMessage()));
+                sink.complete();
+                return;
+            }
+            if (job == null) {
+                sink.next(errorEvent("Job not found"));
+                sink.complete();
+                return;
+            }
+
+            CompletableFuture<List<Map<String, Object>>> ranking = candidateRankingService.rankCandidatesAsync(
+                buildJobDescription(job), allCVs,
+                partial -> sink.next(matchingEvent("progress", matchingData(jobId, partial))));
+            // Timeout or client disconnect: batches that have not started are skipped
+            sink.onDispose(() -> ranking.cancel(false));
+            ranking.whenComplete((result, error) -> {
+                if (error != null) {
+                    log.error("Streaming ranking failed for job {}", jobId, error);
+                    sink.next(errorEvent("Error ranking candidates: " + error.getMessage()));
+                } else {
+                    Map<String, Object> done = matchingData(jobId, result);
+                    done.put("method", "ai-ranking");
+                    sink.next(matchingEvent("done", done));
+                }
+                sink.complete();
+            });
+        }));
+    }
+
+    private Map<String, Object> matchingData(String jobId, List<Map<String, Object>> ranking) {
+        Map<String, Object> data = new java.util.LinkedHashMap<>();
+        data.put("jobId", jobId);
+        data.put("matchingCVs", ranking);
+        return data;
+    }
+
+    private ServerSentEvent<Map<String, Object>> matchingEvent(String name, Map<String, Object> data) {
+        return ServerSentEvent.<Map<String, Object>>builder().event(name).data(data).build();
+    }
+
+    /**
+     * Rebuild CV vectors from User Service
+     * POST /ai/vector/reindex
+     */
+    @PostMapping("/vector/reindex")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> reindexCVs() {
+        if (!vectorDBService.isEnabled()) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "Vector DB is not enabled"));
+        }
+
+        try {
+            List<CVDTO> allCVs = userServiceClient.getAllCVs();
+            Map<String, String> contentByCvId = new java.util.LinkedHashMap<>();
+            for (CVDTO cv : allCVs) {
+                if (cv.getExtractedContent() != null && !cv.getExtractedContent().isBlank()) {
+                    contentByCvId.put(cv.getId().toString(), cv.getExtractedContent());
+                }
+            }
+            int indexed = vectorDBService.storeCVs(contentByCvId);
+            int skipped = allCVs.size() - indexed;
+            vectorDBService.flush();
+
+            log.info("Vector reindex finished: {} CVs indexed, {} skipped", indexed, skipped);
+            return ResponseEntity.ok(Map.of(
+                "indexed", indexed,
+                "skipped", skipped
+            ));
+        } catch (Exception e) {
+            log.error("Error reindexing CVs", e);
+            return ResponseEntity.status(500)
+                .body(Map.of("error", "Error reindexing CVs: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * AI response cache statistics
+     * GET /ai/cache/stats
+     */
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(responseCache.getStats());
+    }
+
+    /**
+     * Clear AI response cache
+     * DELETE /ai/cache
+     */
+    @DeleteMapping("/cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> clearCache() {
+        responseCache.clear();
+        return ResponseEntity.ok(Map.of("message", "AI response cache cleared"));
+    }
+
+    /**
+     * Upstream AI provider load (in flight + queued) and routing health (circuit state, latency percentiles)
+     * GET /ai/providers/stats
+     */
+    @GetMapping("/providers/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getProviderStats() {
+        Map<String, Object> stats = new java.util.LinkedHashMap<>();
+        stats.put("limits", providerLimiter.getStats());
+        stats.put("routing", providerRouter.getStats());
+        return ResponseEntity.ok(stats);
+    }
+
     // Note: Mock Interview endpoints moved to MockInterviewController
     // Keeping startMockInterview as a redirect/deprecated if needed or just remove it
 
@@ -197,13 +469,41 @@ public class AIController {
      */
     @PostMapping("/career/roadmap")
     @PreAuthorize("hasRole('STUDENT')")
-    public ResponseEntity<Map<String, Object>> getCareerRoadmap(
+    public Mono<ResponseEntity<Map<String, Object>>> getCareerRoadmap(
             @RequestBody Map<String, String> request) {
         String currentSkills = request.get("currentSkills");
         String targetRole = request.get("targetRole");
         
-        Map<String, Object> roadmap = aiService.getCareerRoadmap(currentSkills, targetRole);
-        return ResponseEntity.ok(roadmap);
+        return aiService.getCareerRoadmapAsync(currentSkills, targetRole)
+            .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Stream career roadmap generation
+     * POST /ai/career/roadmap/stream
+     * Events: "token" (raw JSON text chunk), "done" (parsed roadmap), "error"
+     */
+    @PostMapping(value = "/career/roadmap/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('STUDENT')")
+    public SseEmitter streamCareerRoadmap(
+            @RequestBody Map<String, String> request) {
+        String currentSkills = request.get("currentSkills");
+        String targetRole = request.get("targetRole");
+
+        return toEmitter(Flux.defer(() -> {
+            StringBuilder fullText = new StringBuilder();
+            return aiService.streamCareerRoadmap(currentSkills != null ? currentSkills : "", targetRole)
+                .doOnNext(fullText::append)
+                .map(chunk -> tokenEvent(chunk))
+                .concatWith(Mono.fromCallable(() -> ServerSentEvent.<Map<String, Object>>builder()
+                    .event("done")
+                    .data(aiService.parseRoadmapResponse(fullText.toString(), targetRole))
+                    .build()))
+                .onErrorResume(e -> {
+                    log.error("Error streaming career roadmap", e);
+                    return Flux.just(errorEvent("Error generating roadmap: " + e.getMessage()));
+                });
+        }));
     }
 
     /**
@@ -211,32 +511,120 @@ public class AIController {
      * POST /ai/chat
      */
     @PostMapping("/chat")
-    public ResponseEntity<Map<String, Object>> chat(@RequestBody Map<String, String> request) {
-        try {
-            String message = request.get("message");
-            String context = request.getOrDefault("context", "general");
-            String role = request.getOrDefault("role", "STUDENT");
-            
-            if (message == null || message.trim().isEmpty()) {
-                return ResponseEntity.badRequest()
-                    .body(Map.of("error", "Message is required"));
-            }
-            
-            String response = aiService.chat(message, context, role);
-            
-            return ResponseEntity.ok(Map.of(
+    public Mono<ResponseEntity<Map<String, Object>>> chat(@RequestBody Map<String, String> request) {
+        String message = request.get("message");
+        String context = request.getOrDefault("context", "general");
+        String role = request.getOrDefault("role", "STUDENT");
+
+        if (message == null || message.trim().isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest()
+                .body(Map.of("error", "Message is required")));
+        }
+
+        return aiService.chatAsync(message, context, role)
+            .map(response -> ResponseEntity.ok(Map.<String, Object>of(
                 "response", response,
                 "context", context,
                 "role", role
-            ));
-        } catch (RuntimeException e) {
-            log.error("Error in chat", e);
-            return ResponseEntity.status(500)
-                .body(Map.of("error", "Error processing chat: " + e.getMessage()));
+            )))
+            .onErrorResume(e -> {
+                log.error("Error in chat", e);
+                return Mono.just(ResponseEntity.status(500)
+                    .body(Map.of("error", "Error processing chat: " + e.getMessage())));
+            });
+    }
+
+    /**
+     * Stream AI chat answer
+     * POST /ai/chat/stream
+     * Events: "token" (text chunk), "done" (full response), "error"
+     */
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChat(@RequestBody Map<String, String> request) {
+        String message = request.get("message");
+        String context = request.getOrDefault("context", "general");
+        String role = request.getOrDefault("role", "STUDENT");
+
+        if (message == null || message.trim().isEmpty()) {
+            return toEmitter(Flux.just(errorEvent("Message is required")));
+        }
+
+        return toEmitter(Flux.defer(() -> {
+            StringBuilder fullText = new StringBuilder();
+            return aiService.streamChat(message, context, role)
+                .doOnNext(fullText::append)
+                .map(chunk -> tokenEvent(chunk))
+                .concatWith(Mono.fromSupplier(() -> ServerSentEvent.<Map<String, Object>>builder()
+                    .event("done")
+                    .data(Map.of(
+                        "response", fullText.toString(),
+                        "context", context,
+                        "role", role
+                    ))
+                    .build()))
+                .onErrorResume(e -> {
+                    log.error("Error streaming chat", e);
+                    return Flux.just(errorEvent("Error processing chat: " + e.getMessage()));
+                });
+        }));
+    }
+
+    private String buildJobDescription(JobDTO job) {
+        // Build job description for matching
+        StringBuilder jobDescBuilder = new StringBuilder();
+        jobDescBuilder.append(job.getTitle()).append(". ");
+        if (job.getDescription() != null) {
+            jobDescBuilder.append(job.getDescription()).append(". ");
+        }
+        if (job.getRequirements() != null) {
+            jobDescBuilder.append(job.getRequirements()).append(". ");
+        }
+        if (job.getRequiredSkills() != null && !job.getRequiredSkills().isEmpty()) {
+            jobDescBuilder.append("Skills: ").append(String.join(", ", job.getRequiredSkills())).append(". ");
+        }
+        return jobDescBuilder.toString();
+    }
+
+    private void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            synchronized (emitter) {
+                emitter.send(SseEmitter.event().name(name).data(data));
+            }
         } catch (Exception e) {
-            log.error("Unexpected error in chat", e);
-            return ResponseEntity.status(500)
-                .body(Map.of("error", "Internal server error: " + e.getClass().getSimpleName()));
+            log.debug("Could not send SSE event {}: {}", name, e.getMessage());
         }
     }
+
+    /**
+     * Forward an event stream to an emitter with the streaming timeout; a timeout or client disconnect cancels the stream
+     * A stream that stays silent for the idle timeout ends with an error event.
+     */
+    private SseEmitter toEmitter(Flux<ServerSentEvent<Map<String, Object>>> events) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Disposable subscription = events
+            .timeout(Duration.ofMillis(streamIdleTimeoutMs))
+            .onErrorResume(TimeoutException.class, e -> Flux.just(errorEvent("AI stream timed out")))
+            .subscribe(
+            event -> sendEvent(emitter, event.event(), event.data()),
+            error -> emitter.completeWithError(error),
+            emitter::complete);
+        emitter.onTimeout(subscription::dispose);
+        emitter.onError(error -> subscription.dispose());
+        emitter.onCompletion(subscription::dispose);
+        return emitter;
+    }
+
+    private ServerSentEvent<Map<String, Object>> tokenEvent(String text) {
+        return ServerSentEvent.<Map<String, Object>>builder()
+            .event("token")
+            .data(Map.of("text", text))
+            .build();
+    }
+
+    private ServerSentEvent<Map<String, Object>> errorEvent(String message) {
+        return ServerSentEvent.<Map<String, Object>>builder()
+            .event("error")
+            .data(Map.of("error", message))
+            .build();
+    }
 }
@@ -0,0 +1,118 @@
+package vn.careermate.aiservice.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import vn.careermate.aiservice.model.AIChatConversation;
+import vn.careermate.aiservice.model.AIChatMessage;
+import vn.careermate.aiservice.service.ChatConversationService;
+import vn.careermate.common.client.UserServiceClient;
+import vn.careermate.common.dto.UserDTO;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Persistent AI chat conversations of the current user
+ * The stateless POST /ai/chat stays in AIController; service-to-service access is in InternalAIController
+ */
+@Slf4j
+@RestController
+@RequestMapping("/ai/chat")
+@RequiredArgsConstructor
+public class ChatConversationController {
+
+    private final ChatConversationService chatService;
+    private final UserServiceClient userServiceClient;
+
+    /**
+     * Conversations of the current user
+     * GET /ai/chat/conversations
+     */
+    @GetMapping("/conversations")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<AIChatConversation>> getMyConversations() {
+        return ResponseEntity.ok(chatService.getConversations(getCurrentUserId()));
+    }
+
+    /**
+     * POST /ai/chat/conversations  {role, context, title}
+     */
+    @PostMapping("/conversations")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<AIChatConversation> createConversation(@RequestBody(required = false) Map<String, String> body) {
+        Map<String, String> request = body != null ? body : Map.of();
+        return ResponseEntity.ok(chatService.createConversation(getCurrentUserId(),
+            request.get("role"), request.get("context"), request.get("title")));
+    }
+
+    @GetMapping("/conversations/{conversationId}/messages")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<AIChatMessage>> getMyMessages(@PathVariable UUID conversationId) {
+        return ResponseEntity.ok(chatService.getMessages(conversationId, getCurrentUserId()));
+    }
+
+    /**
+     * Send a message and get the answer
+     * POST /ai/chat/conversations/{conversationId}/messages  {message}
+     */
+    @PostMapping("/conversations/{conversationId}/messages")
+    @PreAuthorize("isAuthenticated()")
+    public Mono<ResponseEntity<Map<String, Object>>> sendMessage(
+            @PathVariable UUID conversationId,
+            @RequestBody Map<String, String> body
+    ) {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        return Mono.fromCallable(() -> resolveUserId(email))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(userId -> chatService.sendMessage(conversationId, userId, body.get("message")))
+            .map(ResponseEntity::ok)
+            .onErrorResume(ChatConversationController::chatError);
+    }
+
+    @DeleteMapping("/conversations/{conversationId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Void> deleteConversation(@PathVariable UUID conversationId) {
+        chatService.deleteConversation(conversationId, getCurrentUserId());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Window cache stats
+     * GET /ai/chat/stats
+     */
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(chatService.getStats());
+    }
+
+    static Mono<ResponseEntity<Map<String, Object>>> chatError(Throwable e) {
+        log.error("Error in chat conversation: {}", e.getMessage());
+        String message = String.valueOf(e.getMessage());
+        if (message.contains("402") || message.contains("429") || message.contains("Quota")) {
+            return Mono.just(ResponseEntity.status(429).body(Map.of("error", "Hết hạn mức sử dụng AI. Vui lòng thử lại sau.")));
+        }
+        return Mono.just(ResponseEntity.status(500).body(Map.of("error", "Error processing chat: " + message)));
+    }
+
+    private UUID getCurrentUserId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return resolveUserId(auth.getName());
+    }
+
+    private UUID resolveUserId(String email) {
+        UserDTO user = userServiceClient.getUserByEmail(email);
+        if (user == null) {
+            throw new RuntimeException("User not found");
+        }
+        return user.getId();
+    }
+}
@@ -0,0 +1,118 @@
+package vn.careermate.aiservice.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import vn.careermate.aiservice.model.AIChatConversation;
+import vn.careermate.aiservice.model.AIChatMessage;
+import vn.careermate.aiservice.model.CVAnalysisJob;
+import vn.careermate.aiservice.service.CVAnalysisQueueService;
+import vn.careermate.aiservice.service.ChatConversationService;
+import vn.careermate.aiservice.service.JobRecommendationService;
+import vn.careermate.common.dto.JobRecommendationDTO;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Service-to-service endpoints (user-service queues CV analyses and reads recommendations and chats,
+ * job-service reports job changes)
+ * Not routed by the API gateway; callers authenticate with the internal service token.
+ */
+@RestController
+@RequestMapping("/internal/ai")
+@RequiredArgsConstructor
+public class InternalAIController {
+
+    private final JobRecommendationService recommendationService;
+    private final ChatConversationService chatService;
+    private final CVAnalysisQueueService cvAnalysisQueueService;
+
+    /**
+     * Queue CV analysis (user-service, after upload)
+     * POST /internal/ai/analyze-cv?cvId=...
+     * Body: { "content": "CV text" } - returns immediately, poll GET /internal/ai/analyze-cv/{cvId} for the result
+     */
+    @PostMapping("/analyze-cv")
+    public ResponseEntity<Map<String, Object>> queueCVAnalysis(
+            @RequestParam UUID cvId,
+            @RequestBody(required = false) Map<String, String> request) {
+        String content = request != null ? request.get("content") : null;
+        if (content == null || content.trim().isEmpty()) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "CV content is required for analysis", "cvId", cvId));
+        }
+
+        CVAnalysisJob job = cvAnalysisQueueService.enqueue(cvId, content);
+        return ResponseEntity.accepted().body(cvAnalysisQueueService.describe(job));
+    }
+
+    /**
+     * Status (and result once completed) of the latest queued analysis for a CV
+     * GET /internal/ai/analyze-cv/{cvId}
+     */
+    @GetMapping("/analyze-cv/{cvId}")
+    public ResponseEntity<Map<String, Object>> getCVAnalysisStatus(@PathVariable UUID cvId) {
+        return cvAnalysisQueueService.getLatestJob(cvId)
+            .map(job -> ResponseEntity.ok(cvAnalysisQueueService.describe(job)))
+            .orElseGet(() -> ResponseEntity.status(404)
+                .body(Map.of("error", "No analysis queued for this CV", "cvId", cvId)));
+    }
+
+    /**
+     * Recommendations of a student
+     * GET /internal/ai/job-recommendations/{studentId}
+     */
+    @GetMapping("/job-recommendations/{studentId}")
+    public ResponseEntity<List<JobRecommendationDTO>> getRecommendations(@PathVariable UUID studentId) {
+        return ResponseEntity.ok(recommendationService.getRecommendations(studentId));
+    }
+
+    /**
+     * Job change event from job-service; the job is rescored in the background
+     * POST /internal/ai/job-recommendations/events/job/{jobId}
+     */
+    @PostMapping("/job-recommendations/events/job/{jobId}")
+    public ResponseEntity<Void> onJobChanged(@PathVariable UUID jobId) {
+        recommendationService.onJobChanged(jobId);
+        return ResponseEntity.accepted().build();
+    }
+
+    // ========== Chat conversations of a user (userId is required, conversations are checked against it) ==========
+
+    @GetMapping("/chat/conversations/{userId}")
+    public ResponseEntity<List<AIChatConversation>> getConversations(@PathVariable UUID userId) {
+        return ResponseEntity.ok(chatService.getConversations(userId));
+    }
+
+    @PostMapping("/chat/conversations/{userId}")
+    public ResponseEntity<AIChatConversation> createConversation(
+            @PathVariable UUID userId,
+            @RequestBody(required = false) Map<String, String> body
+    ) {
+        Map<String, String> request = body != null ? body : Map.of();
+        return ResponseEntity.ok(chatService.createConversation(userId,
+            request.get("role"), request.get("context"), request.get("title")));
+    }
+
+    @GetMapping("/chat/messages/{conversationId}")
+    public ResponseEntity<List<AIChatMessage>> getMessages(
+            @PathVariable UUID conversationId,
+            @RequestParam UUID userId
+    ) {
+        return ResponseEntity.ok(chatService.getMessages(conversationId, userId));
+    }
+
+    @PostMapping("/chat/messages/{conversationId}")
+    public Mono<ResponseEntity<Map<String, Object>>> sendMessage(
+            @PathVariable UUID conversationId,
+            @RequestParam UUID userId,
+            @RequestBody Map<String, String> body
+    ) {
+        return chatService.sendMessage(conversationId, userId, body.get("message"))
+            .map(ResponseEntity::ok)
+            .onErrorResume(ChatConversationController::chatError);
+    }
+}
@@ -0,0 +1,87 @@
+package vn.careermate.aiservice.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import vn.careermate.aiservice.model.JobRecommendation;
+import vn.careermate.aiservice.service.JobRecommendationService;
+import vn.careermate.common.client.UserServiceClient;
+import vn.careermate.common.dto.JobRecommendationDTO;
+import vn.careermate.common.dto.StudentProfileDTO;
+import vn.careermate.common.dto.UserDTO;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/ai/job-recommendations")
+@RequiredArgsConstructor
+public class JobRecommendationController {
+
+    private final JobRecommendationService recommendationService;
+    private final UserServiceClient userServiceClient;
+
+    /**
+     * Precomputed recommendations of the current student
+     * GET /ai/job-recommendations
+     */
+    @GetMapping
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<List<JobRecommendationDTO>> getMyRecommendations() {
+        return ResponseEntity.ok(recommendationService.getRecommendations(getCurrentStudentId()));
+    }
+
+    @GetMapping("/unviewed")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<List<JobRecommendation>> getMyUnviewedRecommendations() {
+        return ResponseEntity.ok(recommendationService.getUnviewedRecommendations(getCurrentStudentId()));
+    }
+
+    @PutMapping("/{recommendationId}/viewed")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<JobRecommendation> markAsViewed(@PathVariable UUID recommendationId) {
+        return ResponseEntity.ok(recommendationService.markAsViewed(recommendationId, getCurrentStudentId()));
+    }
+
+    @PutMapping("/{recommendationId}/applied")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<JobRecommendation> markAsApplied(@PathVariable UUID recommendationId) {
+        return ResponseEntity.ok(recommendationService.markAsApplied(recommendationId, getCurrentStudentId()));
+    }
+
+    /**
+     * Recompute recommendations for every active job
+     * POST /ai/job-recommendations/rebuild
+     */
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuild() {
+        int scheduled = recommendationService.rebuildAll();
+        return ResponseEntity.accepted().body(Map.of("scheduledJobs", scheduled));
+    }
+
+    private UUID getCurrentStudentId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String email = auth.getName();
+
+        try {
+            UserDTO user = userServiceClient.getUserByEmail(email);
+            if (user == null) {
+                throw new RuntimeException("User not found");
+            }
+
+            StudentProfileDTO studentProfile = userServiceClient.getStudentProfileByUserId(user.getId());
+            if (studentProfile == null) {
+                throw new RuntimeException("Student profile not found");
+            }
+
+            return studentProfile.getId();
+        } catch (Exception e) {
+            throw new RuntimeException("Student profile not found");
+        }
+    }
+}
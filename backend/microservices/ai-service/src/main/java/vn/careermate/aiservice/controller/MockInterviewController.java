@@ -3,11 +3,16 @@ package vn.careermate.aiservice.controller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import vn.careermate.aiservice.service.InterviewSessionService;
 import vn.careermate.aiservice.service.MockInterviewService;
 import vn.careermate.common.client.JobServiceClient;
+import vn.careermate.common.client.UserServiceClient;
 import vn.careermate.common.dto.JobDTO;
+import vn.careermate.common.dto.UserDTO;
+import reactor.core.publisher.Mono;
 
 import java.util.Map;
 import java.util.UUID;
@@ -20,10 +25,12 @@ public class MockInterviewController {
 
     private final MockInterviewService mockInterviewService;
     private final JobServiceClient jobServiceClient;
+    private final InterviewSessionService sessionService;
+    private final UserServiceClient userServiceClient;
 
     // @PreAuthorize("isAuthenticated()")
     @PostMapping("/start/{jobId}")
-    public ResponseEntity<Map<String, Object>> startInterview(
+    public Mono<ResponseEntity<Map<String, Object>>> startInterview(
             @PathVariable String jobId,
             @RequestBody(required = false) Map<String, String> body
     ) {
@@ -34,47 +41,49 @@ public class MockInterviewController {
             uuid = UUID.fromString(jobId);
         } catch (IllegalArgumentException e) {
             log.error("Invalid UUID format: {}", jobId);
-            return ResponseEntity.badRequest().body(Map.of("error", "Invalid Job ID format: " + jobId));
+            return Mono.just(ResponseEntity.badRequest().body(Map.of("error", "Invalid Job ID format: " + jobId)));
         }
 
         org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
         log.info("Current user authorities: {}", auth != null ? auth.getAuthorities() : "null");
-        try {
-            String profile = body != null ? body.get("profile") : "";
-            Map<String, Object> interview = mockInterviewService.startMockInterview(uuid, profile);
-            log.info("Successfully started mock interview for job: {}", uuid);
-            return ResponseEntity.ok(interview);
-        } catch (Exception e) {
-            log.error("Error in startInterview controller: {}", e.getMessage(), e);
-            if (e.getMessage().contains("429") || e.getMessage().contains("Quota")) {
-                 return ResponseEntity.status(429).body(Map.of("error", "AI Quota Exhausted. Please try again later."));
-            }
-            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
-        }
+        String profile = body != null ? body.get("profile") : "";
+        return mockInterviewService.startMockInterview(uuid, profile)
+            .map(interview -> {
+                log.info("Successfully started mock interview for job: {}", uuid);
+                return ResponseEntity.ok(interview);
+            })
+            .onErrorResume(e -> {
+                log.error("Error in startInterview controller: {}", e.getMessage(), e);
+                String message = String.valueOf(e.getMessage());
+                if (message.contains("429") || message.contains("Quota")) {
+                    return Mono.just(ResponseEntity.status(429).body(Map.of("error", "AI Quota Exhausted. Please try again later.")));
+                }
+                return Mono.just(ResponseEntity.status(500).body(Map.of("error", message)));
+            });
     }
 
     // @PreAuthorize("isAuthenticated()")
     @PostMapping("/start-custom")
-    public ResponseEntity<Map<String, Object>> startCustomInterview(
+    public Mono<ResponseEntity<Map<String, Object>>> startCustomInterview(
             @RequestBody Map<String, String> body
     ) {
         String jobTitle = body.get("jobTitle");
         String jobDescription = body.get("jobDescription");
-        Map<String, Object> interview = mockInterviewService.startCustomMockInterview(jobTitle, jobDescription);
-        return ResponseEntity.ok(interview);
+        return mockInterviewService.startCustomMockInterview(jobTitle, jobDescription)
+            .map(ResponseEntity::ok);
     }
 
     // @PreAuthorize("isAuthenticated()")
     @PostMapping("/evaluate")
-    public ResponseEntity<Map<String, Object>> evaluateAnswer(
+    public Mono<ResponseEntity<Map<String, Object>>> evaluateAnswer(
             @RequestBody Map<String, String> request
     ) {
         String question = request.get("question");
         String answer = request.get("answer");
         String jobContext = request.get("jobContext");
 
-        Map<String, Object> evaluation = mockInterviewService.evaluateAnswer(question, answer, jobContext);
-        return ResponseEntity.ok(evaluation);
+        return mockInterviewService.evaluateAnswer(question, answer, jobContext)
+            .map(ResponseEntity::ok);
     }
     
     @PostMapping("/finish")
@@ -93,4 +102,88 @@ public class MockInterviewController {
     public ResponseEntity<?> getAdminHistory() {
         return ResponseEntity.ok(mockInterviewService.getAllHistory());
     }
+
+    /**
+     * Start a stateful session: body {jobId} or {jobTitle, jobDescription}, optional questionCount
+     * POST /ai/students/mock-interview/sessions
+     */
+    @PostMapping("/sessions")
+    @PreAuthorize("isAuthenticated()")
+    public Mono<ResponseEntity<Map<String, Object>>> startSession(@RequestBody Map<String, Object> body) {
+        return currentUserId()
+            .flatMap(userId -> {
+                Integer questionCount = body.get("questionCount") instanceof Number n ? n.intValue() : null;
+                Object jobId = body.get("jobId");
+                if (jobId != null && !String.valueOf(jobId).isBlank()) {
+                    return sessionService.startForJob(userId, UUID.fromString(String.valueOf(jobId)), questionCount);
+                }
+                return sessionService.startCustom(userId, (String) body.get("jobTitle"), (String) body.get("jobDescription"), questionCount);
+            })
+            .map(ResponseEntity::ok)
+            .onErrorResume(this::sessionError);
+    }
+
+    @GetMapping("/sessions/{sessionId}")
+    @PreAuthorize("isAuthenticated()")
+    public Mono<ResponseEntity<Map<String, Object>>> getSession(@PathVariable UUID sessionId) {
+        return currentUserId()
+            .flatMap(userId -> sessionService.getSession(sessionId, userId))
+            .map(ResponseEntity::ok)
+            .onErrorResume(this::sessionError);
+    }
+
+    /**
+     * Answer a question: body {questionOrder, answer}; evaluations come back once a round is complete
+     * POST /ai/students/mock-interview/sessions/{sessionId}/answers
+     */
+    @PostMapping("/sessions/{sessionId}/answers")
+    @PreAuthorize("isAuthenticated()")
+    public Mono<ResponseEntity<Map<String, Object>>> submitAnswer(
+            @PathVariable UUID sessionId,
+            @RequestBody Map<String, Object> body
+    ) {
+        if (!(body.get("questionOrder") instanceof Number questionOrder)) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.of("error", "questionOrder is required")));
+        }
+        return currentUserId()
+            .flatMap(userId -> sessionService.submitAnswer(sessionId, userId, questionOrder.intValue(), (String) body.get("answer")))
+            .map(ResponseEntity::ok)
+            .onErrorResume(this::sessionError);
+    }
+
+    @PostMapping("/sessions/{sessionId}/finish")
+    @PreAuthorize("isAuthenticated()")
+    public Mono<ResponseEntity<Map<String, Object>>> finishSession(@PathVariable UUID sessionId) {
+        return currentUserId()
+            .flatMap(userId -> sessionService.finish(sessionId, userId))
+            .map(ResponseEntity::ok)
+            .onErrorResume(this::sessionError);
+    }
+
+    private Mono<ResponseEntity<Map<String, Object>>> sessionError(Throwable e) {
+        log.error("Mock interview session error: {}", e.getMessage());
+        String message = String.valueOf(e.getMessage());
+        if (e instanceof AccessDeniedException) {
+            return Mono.just(ResponseEntity.status(403).body(Map.of("error", message)));
+        }
+        if (message.contains("429") || message.contains("Quota")) {
+            return Mono.just(ResponseEntity.status(429).body(Map.of("error", "AI Quota Exhausted. Please try again later.")));
+        }
+        return Mono.just(ResponseEntity.badRequest().body(Map.of("error", message)));
+    }
+
+    // Mock interview history is keyed by the user id (see AIMockInterviewRoom / finish).
+    // The email is read on the request thread; the Feign lookup runs off it.
+    private Mono<UUID> currentUserId() {
+        org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
+        String email = auth.getName();
+        return Mono.fromCallable(() -> {
+                UserDTO user = userServiceClient.getUserByEmail(email);
+                if (user == null) {
+                    throw new RuntimeException("User not found");
+                }
+                return user.getId();
+            })
+            .subscribeOn(reactor.core.scheduler.Schedulers.boundedElastic());
+    }
 }
@@ -114,3 +114,37 @@ CREATE TABLE IF NOT EXISTS aiservice.job_recommendations (
 CREATE INDEX IF NOT EXISTS idx_job_recommendations_student ON aiservice.job_recommendations(student_id);
 CREATE INDEX IF NOT EXISTS idx_job_recommendations_job ON aiservice.job_recommendations(job_id);
 CREATE INDEX IF NOT EXISTS idx_job_recommendations_score ON aiservice.job_recommendations(student_id, match_score DESC);
+
+-- ============================================
+-- EMBEDDING CACHE
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS aiservice.embedding_cache (
+    content_hash VARCHAR(64) PRIMARY KEY, -- SHA-256 of model + normalized text
+    model VARCHAR(100) NOT NULL,
+    dimension INTEGER NOT NULL,
+    vector BYTEA NOT NULL, -- little-endian float32 array
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- ============================================
+-- CV ANALYSIS QUEUE
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS aiservice.cv_analysis_jobs (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    cv_id UUID NOT NULL, -- References userservice.cvs(id) - cross-schema reference
+    cv_content TEXT,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING', -- PENDING, RUNNING, COMPLETED, FAILED
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_at TIMESTAMP,
+    result JSONB,
+    last_error TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_cv_analysis_jobs_cv ON aiservice.cv_analysis_jobs(cv_id);
+CREATE INDEX IF NOT EXISTS idx_cv_analysis_jobs_status_next ON aiservice.cv_analysis_jobs(status, next_attempt_at);
@@ -38,7 +38,7 @@ public class AIChatConversation {
     private UUID id;
 
     @Column(name = "student_id", nullable = false)
-    private UUID studentId; // Changed from StudentProfile entity to UUID
+    private UUID studentId; // Owner's user id (students, recruiters and admins all chat)
 
     @Column(name = "conversation_title")
     private String conversationTitle; // Auto-generated from first message
@@ -49,6 +49,12 @@ public class AIChatConversation {
     @Column(name = "context", columnDefinition = "TEXT")
     private String context; // Additional context for the conversation
 
+    @Column(name = "summary", columnDefinition = "TEXT")
+    private String summary; // Rolling summary of the turns that left the prompt window
+
+    @Column(name = "summarized_until")
+    private LocalDateTime summarizedUntil; // Messages created up to here are covered by the summary
+
     @CreatedDate
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,41 @@
+package vn.careermate.aiservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persisted embedding vector, keyed by SHA-256 of (model + normalized text)
+ */
+@Entity
+@Table(name = "embedding_cache", schema = "aiservice")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class EmbeddingCacheEntry {
+
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "model", nullable = false, length = 100)
+    private String model;
+
+    @Column(name = "dimension", nullable = false)
+    private Integer dimension;
+
+    @Column(name = "vector", nullable = false, columnDefinition = "BYTEA")
+    private byte[] vector; // little-endian float32
+
+    @CreatedDate
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
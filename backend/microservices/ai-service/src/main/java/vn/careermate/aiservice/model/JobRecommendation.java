@@ -39,6 +39,9 @@ public class JobRecommendation {
     @Column(name = "job_id", nullable = false)
     private UUID jobId; // Changed from Job entity to UUID
 
+    @Column(name = "job_title")
+    private String jobTitle; // Snapshot so the dashboard does not need a job-service call per row
+
     @Column(name = "match_score", nullable = false, precision = 5, scale = 2)
     private BigDecimal matchScore; // 0-100
 
@@ -59,5 +62,8 @@ public class JobRecommendation {
 
     @Column(name = "viewed_at")
     private LocalDateTime viewedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt; // Last time the engine rescored this row
 }
 
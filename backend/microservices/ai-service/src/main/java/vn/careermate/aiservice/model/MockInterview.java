@@ -80,6 +80,12 @@ public class MockInterview {
     @Column(name = "transcript", columnDefinition = "jsonb")
     private String transcript; // Full conversation JSON string or list
 
+    @Column(name = "job_context", columnDefinition = "TEXT")
+    private String jobContext; // Job title/description/requirements fetched once per session
+
+    @Column(name = "context_summary", columnDefinition = "TEXT")
+    private String contextSummary; // Rolling summary of the rounds evaluated so far
+
     @CreatedDate
     @Column(name = "started_at", updatable = false)
     private LocalDateTime startedAt;
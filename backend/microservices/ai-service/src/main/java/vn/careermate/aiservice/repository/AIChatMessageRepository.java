@@ -22,6 +22,11 @@ public interface AIChatMessageRepository extends JpaRepository<AIChatMessage, UU
     List<AIChatMessage> findAllByConversationId(@Param("conversationId") UUID conversationId);
     
     long countByConversationId(UUID conversationId);
+
+    // Most recent turns first; used to rebuild a conversation's prompt window
+    List<AIChatMessage> findTop50ByConversationIdOrderByCreatedAtDesc(UUID conversationId);
+
+    List<AIChatMessage> findTop50ByConversationIdAndCreatedAtAfterOrderByCreatedAtDesc(UUID conversationId, java.time.LocalDateTime after);
     
     void deleteByConversationId(UUID conversationId);
 }
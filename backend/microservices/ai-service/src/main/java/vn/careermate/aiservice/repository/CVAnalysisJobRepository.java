@@ -0,0 +1,35 @@
+package vn.careermate.aiservice.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import vn.careermate.aiservice.model.CVAnalysisJob;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface CVAnalysisJobRepository extends JpaRepository<CVAnalysisJob, UUID> {
+
+    Optional<CVAnalysisJob> findFirstByCvIdOrderByCreatedAtDesc(UUID cvId);
+
+    Optional<CVAnalysisJob> findFirstByCvIdAndStatus(UUID cvId, CVAnalysisJob.JobStatus status);
+
+    long countByStatus(CVAnalysisJob.JobStatus status);
+
+    // Row locks are skipped, so several workers (or instances) never claim the same job
+    @Query(value = "SELECT * FROM aiservice.cv_analysis_jobs WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+                   "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<CVAnalysisJob> findDueForUpdate(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE CVAnalysisJob j SET j.status = :pending, j.lockedAt = null " +
+           "WHERE j.status = :running AND j.lockedAt < :staleBefore")
+    int releaseStale(@Param("pending") CVAnalysisJob.JobStatus pending,
+                     @Param("running") CVAnalysisJob.JobStatus running,
+                     @Param("staleBefore") LocalDateTime staleBefore);
+}
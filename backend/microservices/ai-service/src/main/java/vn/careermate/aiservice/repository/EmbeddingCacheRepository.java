@@ -0,0 +1,9 @@
+package vn.careermate.aiservice.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import vn.careermate.aiservice.model.EmbeddingCacheEntry;
+
+@Repository
+public interface EmbeddingCacheRepository extends JpaRepository<EmbeddingCacheEntry, String> {
+}
@@ -21,6 +21,8 @@ public interface JobRecommendationRepository extends JpaRepository<JobRecommenda
     List<JobRecommendation> findByStudentIdOrderByMatchScoreDescCreatedAtDesc(UUID studentId);
     
     Optional<JobRecommendation> findByStudentIdAndJobId(UUID studentId, UUID jobId);
+
+    Optional<JobRecommendation> findByIdAndStudentId(UUID id, UUID studentId);
     
     // Note: JobRecommendation now uses studentId (UUID) directly, not student entity
     @Query("SELECT jr FROM JobRecommendation jr WHERE jr.studentId = :studentId AND jr.isViewed = false ORDER BY jr.matchScore DESC, jr.createdAt DESC")
@@ -33,6 +35,12 @@ public interface JobRecommendationRepository extends JpaRepository<JobRecommenda
     
     long countByStudentIdAndIsViewed(UUID studentId, Boolean isViewed);
     
+    List<JobRecommendation> findByJobId(UUID jobId);
+
+    @Modifying
+    @Query("DELETE FROM JobRecommendation jr WHERE jr.jobId = :jobId")
+    int deleteByJobId(@Param("jobId") UUID jobId);
+
     @Modifying
     @Query("UPDATE JobRecommendation jr SET jr.isViewed = true, jr.viewedAt = CURRENT_TIMESTAMP WHERE jr.studentId = :studentId AND jr.isViewed = false")
     void markAllAsViewedByStudentId(@Param("studentId") UUID studentId);
@@ -3,6 +3,7 @@ package vn.careermate.aiservice.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -25,6 +26,11 @@ public interface MockInterviewRepository extends JpaRepository<MockInterview, UU
     @Query("SELECT mi FROM MockInterview mi WHERE mi.studentId = :studentId AND mi.status = :status ORDER BY mi.startedAt DESC")
     List<MockInterview> findByStudentIdAndStatus(@Param("studentId") UUID studentId, @Param("status") MockInterview.InterviewStatus status);
     
+    // Answer submission and round results lock the session so a round never scores an answer replaced meanwhile
+    @Lock(jakarta.persistence.LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT mi FROM MockInterview mi WHERE mi.id = :id")
+    Optional<MockInterview> findByIdForUpdate(@Param("id") UUID id);
+
     long countByStudentId(UUID studentId);
     
     long countByStudentIdAndStatus(UUID studentId, MockInterview.InterviewStatus status);
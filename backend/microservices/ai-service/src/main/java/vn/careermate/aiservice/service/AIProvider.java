@@ -0,0 +1,31 @@
+package vn.careermate.aiservice.service;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Text generation backend that AIProviderRouter can route prompts to
+ */
+public interface AIProvider {
+
+    /**
+     * Provider name, also used as the AIProviderLimiter key
+     */
+    String getName();
+
+    Mono<String> generate(String prompt);
+
+    /**
+     * Deterministic variant for structured extraction (scores, JSON analyses): temperature 0 where the
+     * provider supports it, so the answer may be cached. Defaults to the normal call.
+     */
+    default Mono<String> generate(String prompt, boolean deterministic) {
+        return generate(prompt);
+    }
+
+    /**
+     * False when the provider is missing credentials and should not be routed to
+     */
+    default boolean isConfigured() {
+        return true;
+    }
+}
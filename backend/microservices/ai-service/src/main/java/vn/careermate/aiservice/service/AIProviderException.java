@@ -0,0 +1,28 @@
+package vn.careermate.aiservice.service;
+
+import lombok.Getter;
+
+/**
+ * HTTP error returned by an upstream AI provider; the status lets the router tell
+ * rate limits and outages (429/5xx) apart from bad requests
+ */
+@Getter
+public class AIProviderException extends RuntimeException {
+
+    private final String provider;
+    private final int statusCode;
+
+    public AIProviderException(String provider, int statusCode, String message) {
+        super(message);
+        this.provider = provider;
+        this.statusCode = statusCode;
+    }
+
+    public boolean isRateLimited() {
+        return statusCode == 429;
+    }
+
+    public boolean isServerError() {
+        return statusCode >= 500;
+    }
+}
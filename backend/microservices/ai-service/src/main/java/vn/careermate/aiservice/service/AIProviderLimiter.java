@@ -0,0 +1,153 @@
+package vn.careermate.aiservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-provider concurrency limiter for upstream AI calls
+ * At most max-concurrent calls run per provider; up to max-pending more wait in a queue without holding a thread.
+ * Beyond that, calls fail fast with "AI provider busy" instead of piling up.
+ * Streams hold their permit until they complete, fail or are cancelled by the client.
+ */
+@Slf4j
+@Component
+public class AIProviderLimiter {
+
+    public static final String GEMINI = "gemini";
+    public static final String OPENROUTER = "openrouter";
+
+    @Value("${ai.limits.gemini.max-concurrent:16}")
+    private int geminiMaxConcurrent;
+
+    @Value("${ai.limits.gemini.max-pending:200}")
+    private int geminiMaxPending;
+
+    @Value("${ai.limits.openrouter.max-concurrent:8}")
+    private int openRouterMaxConcurrent;
+
+    @Value("${ai.limits.openrouter.max-pending:100}")
+    private int openRouterMaxPending;
+
+    private final Map<String, ProviderGate> gates = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        gates.put(GEMINI, new ProviderGate(GEMINI, geminiMaxConcurrent, geminiMaxPending));
+        gates.put(OPENROUTER, new ProviderGate(OPENROUTER, openRouterMaxConcurrent, openRouterMaxPending));
+        log.info("AI provider limits (concurrent/pending): gemini {}/{}, openrouter {}/{}",
+            geminiMaxConcurrent, geminiMaxPending, openRouterMaxConcurrent, openRouterMaxPending);
+    }
+
+    /**
+     * Run the call once a permit for the provider is available
+     */
+    public <T> Mono<T> limit(String provider, Mono<T> call) {
+        ProviderGate gate = gates.get(provider);
+        return gate != null ? gate.submit(call) : call;
+    }
+
+    /**
+     * Run the stream once a permit for the provider is available; the permit is held for the whole stream
+     */
+    public <T> Flux<T> limitStream(String provider, Flux<T> stream) {
+        ProviderGate gate = gates.get(provider);
+        return gate != null ? gate.submitStream(stream) : stream;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new ConcurrentHashMap<>();
+        gates.forEach((name, gate) -> stats.put(name, Map.of(
+            "inFlightOrQueued", gate.pending.get(),
+            "maxConcurrent", gate.maxConcurrent,
+            "maxPending", gate.maxPending
+        )));
+        return stats;
+    }
+
+    private static final class ProviderGate {
+        private final String name;
+        private final int maxConcurrent;
+        private final int maxPending;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final Sinks.Many<Mono<Void>> queue = Sinks.many().unicast().onBackpressureBuffer();
+
+        ProviderGate(String name, int maxConcurrent, int maxPending) {
+            this.name = name;
+            this.maxConcurrent = Math.max(1, maxConcurrent);
+            this.maxPending = Math.max(0, maxPending);
+            // flatMap concurrency is the permit count; queued tasks wait here without blocking threads
+            queue.asFlux()
+                .flatMap(task -> task.onErrorResume(e -> Mono.empty()), this.maxConcurrent)
+                .subscribe();
+        }
+
+        <T> Mono<T> submit(Mono<T> call) {
+            return Mono.create(sink -> {
+                if (pending.incrementAndGet() > maxConcurrent + maxPending) {
+                    pending.decrementAndGet();
+                    sink.error(new RuntimeException("AI provider busy (" + name + "), please retry shortly"));
+                    return;
+                }
+
+                // A caller that cancels (disconnect, upstream timeout) also cancels a running call and frees the permit
+                AtomicBoolean cancelled = new AtomicBoolean();
+                Sinks.One<Boolean> cancelSignal = Sinks.one();
+                sink.onCancel(() -> {
+                    cancelled.set(true);
+                    cancelSignal.tryEmitValue(true);
+                });
+
+                Mono<Void> task = Mono.defer(() -> cancelled.get()
+                        ? Mono.<T>empty()
+                        : call.takeUntilOther(cancelSignal.asMono()).doOnSuccess(value -> {
+                            if (value != null) sink.success(value);
+                            else sink.success();
+                        }).doOnError(sink::error))
+                    .doFinally(signal -> pending.decrementAndGet())
+                    .then();
+
+                queue.emitNext(task, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+            });
+        }
+
+        <T> Flux<T> submitStream(Flux<T> stream) {
+            return Flux.create(sink -> {
+                if (pending.incrementAndGet() > maxConcurrent + maxPending) {
+                    pending.decrementAndGet();
+                    sink.error(new RuntimeException("AI provider busy (" + name + "), please retry shortly"));
+                    return;
+                }
+
+                // A client that disconnects mid-stream cancels the upstream call and frees the permit
+                AtomicBoolean cancelled = new AtomicBoolean();
+                Sinks.One<Boolean> cancelSignal = Sinks.one();
+                sink.onCancel(() -> {
+                    cancelled.set(true);
+                    cancelSignal.tryEmitValue(true);
+                });
+
+                Mono<Void> task = Mono.defer(() -> cancelled.get()
+                        ? Mono.<Void>empty()
+                        : stream.takeUntilOther(cancelSignal.asMono())
+                            .doOnNext(sink::next)
+                            .doOnComplete(sink::complete)
+                            .doOnError(sink::error)
+                            .then())
+                    .doFinally(signal -> pending.decrementAndGet());
+
+                queue.emitNext(task, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+            });
+        }
+    }
+}
@@ -0,0 +1,459 @@
+package vn.careermate.aiservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Routes prompts across the configured AI providers
+ * Tracks latency percentiles and error rates per provider. A circuit opens on 429 or when 5xx/timeouts
+ * exceed the error-rate threshold, and requests go to the next healthy provider. If the primary is still
+ * running after its p95 latency, a hedge request is sent to the next provider and the first answer wins.
+ */
+@Slf4j
+@Component
+public class AIProviderRouter {
+
+    @Value("${ai.provider:gemini}")
+    private String preferredProvider;
+
+    @Value("${ai.router.hedge.enabled:true}")
+    private boolean hedgeEnabled;
+
+    @Value("${ai.router.hedge.min-delay-ms:1500}")
+    private long hedgeMinDelayMs;
+
+    @Value("${ai.router.hedge.initial-delay-ms:10000}")
+    private long hedgeInitialDelayMs;
+
+    @Value("${ai.router.breaker.window:20}")
+    private int breakerWindow;
+
+    @Value("${ai.router.breaker.min-calls:5}")
+    private int breakerMinCalls;
+
+    @Value("${ai.router.breaker.error-rate:0.5}")
+    private double breakerErrorRate;
+
+    @Value("${ai.router.breaker.open-ms:30000}")
+    private long breakerOpenMs;
+
+    @Value("${ai.router.latency-samples:256}")
+    private int latencySamples;
+
+    // A stream that has not produced its first chunk by then counts as a timeout and falls back
+    @Value("${ai.router.stream.first-chunk-timeout-ms:30000}")
+    private long firstChunkTimeoutMs;
+
+    // With ai.provider=stub, never fall back / hedge to the network providers
+    @Value("${ai.stub.exclusive:true}")
+    private boolean stubExclusive;
+
+    // Percentiles are only trusted once the provider has this many samples
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    private final List<AIProvider> availableProviders;
+    private final List<AIProvider> providers = new ArrayList<>();
+    private final Map<String, ProviderHealth> health = new LinkedHashMap<>();
+    private final AtomicLong hedgesSent = new AtomicLong();
+    private final AtomicLong backupWins = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    public AIProviderRouter(List<AIProvider> availableProviders) {
+        this.availableProviders = availableProviders;
+    }
+
+    @PostConstruct
+    public void init() {
+        // Preferred provider first, then the others in bean order; providers without credentials are skipped
+        availableProviders.stream()
+            .filter(p -> p.getName().equalsIgnoreCase(preferredProvider) && p.isConfigured())
+            .findFirst()
+            .ifPresent(providers::add);
+        if (!(stubExclusive && isStubOnly())) {
+            for (AIProvider provider : availableProviders) {
+                if (!providers.contains(provider) && provider.isConfigured()) {
+                    providers.add(provider);
+                }
+            }
+        }
+        if (providers.isEmpty()) {
+            // One key is enough; none at all is a misconfiguration worth failing the startup for
+            throw new IllegalStateException("No AI provider configured: set GEMINI_API_KEY and/or OPENROUTER_API_KEY"
+                + " (or ai.provider=stub with ai.stub.enabled=true)");
+        }
+        for (AIProvider provider : providers) {
+            health.put(provider.getName(), new ProviderHealth(provider.getName(), latencySamples, breakerWindow));
+        }
+        log.info("AI provider routing order: {} (hedging {})",
+            providers.stream().map(AIProvider::getName).toList(), hedgeEnabled ? "enabled" : "disabled");
+    }
+
+    /**
+     * Send the prompt to the fastest healthy provider, with hedging and fallback to the others
+     */
+    public Mono<String> call(String prompt) {
+        return call(prompt, false);
+    }
+
+    /**
+     * Same routing; deterministic calls ask providers for temperature 0 (see AIProvider#generate(String, boolean))
+     */
+    public Mono<String> call(String prompt, boolean deterministic) {
+        return Mono.defer(() -> {
+            List<AIProvider> candidates = availableCandidates();
+            if (candidates.isEmpty()) {
+                return Mono.error(new RuntimeException("All AI providers are unavailable (circuit open), please retry shortly"));
+            }
+            return callWithHedge(candidates, prompt, deterministic);
+        });
+    }
+
+    /**
+     * Run a provider-specific call (e.g. multimodal Gemini) so it feeds and respects the provider's circuit
+     */
+    public Mono<String> track(String providerName, Mono<String> call) {
+        ProviderHealth providerHealth = health.get(providerName);
+        if (providerHealth == null) {
+            return call;
+        }
+        return Mono.defer(() -> providerHealth.tryAcquire(System.currentTimeMillis(), breakerOpenMs)
+            ? instrument(providerHealth, call)
+            : Mono.error(new RuntimeException("AI provider " + providerName + " is unavailable (circuit open), please retry shortly")));
+    }
+
+    /**
+     * Run a provider's native stream so it feeds and respects the provider's circuit
+     * Errors (and no first chunk within first-chunk-timeout-ms) count against the provider; if that happens before
+     * the first chunk, the prompt goes to the other healthy providers and their answer is emitted as one chunk.
+     */
+    public Flux<String> stream(String providerName, Flux<String> stream, String prompt, boolean deterministic) {
+        AtomicBoolean emitted = new AtomicBoolean();
+        return trackStream(providerName, stream)
+            .doOnNext(chunk -> emitted.set(true))
+            .onErrorResume(e -> !emitted.get(), e -> {
+                List<AIProvider> rest = availableCandidates().stream()
+                    .filter(provider -> !provider.getName().equals(providerName))
+                    .toList();
+                if (rest.isEmpty()) {
+                    return Flux.error(e);
+                }
+                fallbacks.incrementAndGet();
+                log.warn("AI provider {} failed before streaming, falling back: {}", providerName, e.getMessage());
+                return fallbackChain(rest, prompt, deterministic).flux();
+            });
+    }
+
+    private Flux<String> trackStream(String providerName, Flux<String> stream) {
+        ProviderHealth providerHealth = health.get(providerName);
+        if (providerHealth == null) {
+            return stream;
+        }
+        return Flux.defer(() -> {
+            if (!providerHealth.tryAcquire(System.currentTimeMillis(), breakerOpenMs)) {
+                return Flux.error(new RuntimeException("AI provider " + providerName + " is unavailable (circuit open), please retry shortly"));
+            }
+            long start = System.nanoTime();
+            // Only the first chunk is bounded here; the provider bounds the gaps between chunks
+            return stream
+                .timeout(Mono.delay(Duration.ofMillis(firstChunkTimeoutMs)), chunk -> Mono.never())
+                .doOnComplete(() -> providerHealth.recordSuccess((System.nanoTime() - start) / 1_000_000))
+                .doOnError(e -> {
+                    Outcome outcome = classify(e);
+                    if (providerHealth.recordFailure(outcome, System.currentTimeMillis(),
+                            breakerMinCalls, breakerErrorRate)) {
+                        log.warn("Circuit opened for AI provider {} ({}): {}", providerHealth.name, outcome, e.getMessage());
+                    }
+                })
+                .doOnCancel(providerHealth::releaseTrial);
+        });
+    }
+
+    /**
+     * True when every request goes to the local stub provider (offline / load-test runs)
+     */
+    public boolean isStubOnly() {
+        return providers.size() == 1 && StubAIProvider.NAME.equals(providers.get(0).getName());
+    }
+
+    /**
+     * Name of the provider a non-hedged request (e.g. a stream) should use right now
+     */
+    public String selectProvider() {
+        long now = System.currentTimeMillis();
+        for (AIProvider provider : providers) {
+            if (health.get(provider.getName()).isAvailable(now, breakerOpenMs)) {
+                return provider.getName();
+            }
+        }
+        return providers.isEmpty() ? preferredProvider : providers.get(0).getName();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        health.forEach((name, providerHealth) -> stats.put(name, providerHealth.snapshot()));
+        stats.put("hedgesSent", hedgesSent.get());
+        stats.put("backupWins", backupWins.get());
+        stats.put("fallbacks", fallbacks.get());
+        return stats;
+    }
+
+    private List<AIProvider> availableCandidates() {
+        long now = System.currentTimeMillis();
+        List<AIProvider> candidates = new ArrayList<>();
+        for (AIProvider provider : providers) {
+            if (health.get(provider.getName()).isAvailable(now, breakerOpenMs)) {
+                candidates.add(provider);
+            }
+        }
+        return candidates;
+    }
+
+    private Mono<String> callWithHedge(List<AIProvider> candidates, String prompt, boolean deterministic) {
+        AIProvider primary = candidates.get(0);
+        if (candidates.size() == 1) {
+            return invoke(primary, prompt, deterministic);
+        }
+
+        // The backup chain starts when the primary fails or, with hedging, when it is slower than its p95
+        Sinks.Empty<Void> primaryFailed = Sinks.empty();
+        Mono<String> first = invoke(primary, prompt, deterministic).doOnError(e -> {
+            fallbacks.incrementAndGet();
+            log.warn("AI provider {} failed, falling back: {}", primary.getName(), e.getMessage());
+            primaryFailed.tryEmitEmpty();
+        });
+
+        List<AIProvider> rest = candidates.subList(1, candidates.size());
+        Mono<Void> trigger = primaryFailed.asMono();
+        if (hedgeEnabled) {
+            long delay = hedgeDelayMs(health.get(primary.getName()));
+            Mono<Void> hedgeTimer = Mono.delay(Duration.ofMillis(delay))
+                .doOnNext(tick -> {
+                    hedgesSent.incrementAndGet();
+                    log.debug("AI provider {} slower than {}ms, hedging to {}", primary.getName(), delay, rest.get(0).getName());
+                })
+                .then();
+            trigger = Mono.firstWithSignal(trigger, hedgeTimer);
+        }
+
+        // First value wins; the losing request is cancelled
+        Mono<String> backup = trigger.then(Mono.defer(() -> fallbackChain(rest, prompt, deterministic)));
+        return Mono.firstWithValue(first, backup)
+            .onErrorMap(NoSuchElementException.class, e -> {
+                String causes = Arrays.stream(e.getSuppressed())
+                    .map(Throwable::getMessage)
+                    .reduce((a, b) -> a + "; " + b)
+                    .orElse(e.getMessage());
+                return new RuntimeException("All AI providers failed: " + causes, e);
+            });
+    }
+
+    private Mono<String> fallbackChain(List<AIProvider> providersInOrder, String prompt, boolean deterministic) {
+        Mono<String> chain = invoke(providersInOrder.get(0), prompt, deterministic).doOnNext(value -> backupWins.incrementAndGet());
+        for (AIProvider next : providersInOrder.subList(1, providersInOrder.size())) {
+            chain = chain.onErrorResume(e -> {
+                fallbacks.incrementAndGet();
+                return invoke(next, prompt, deterministic).doOnNext(value -> backupWins.incrementAndGet());
+            });
+        }
+        return chain;
+    }
+
+    private Mono<String> invoke(AIProvider provider, String prompt, boolean deterministic) {
+        return track(provider.getName(), Mono.defer(() -> provider.generate(prompt, deterministic)));
+    }
+
+    private Mono<String> instrument(ProviderHealth providerHealth, Mono<String> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call
+                .doOnSuccess(value -> providerHealth.recordSuccess((System.nanoTime() - start) / 1_000_000))
+                .doOnError(e -> {
+                    Outcome outcome = classify(e);
+                    if (providerHealth.recordFailure(outcome, System.currentTimeMillis(),
+                            breakerMinCalls, breakerErrorRate)) {
+                        log.warn("Circuit opened for AI provider {} ({}): {}", providerHealth.name, outcome, e.getMessage());
+                    }
+                })
+                .doOnCancel(providerHealth::releaseTrial);
+        });
+    }
+
+    private long hedgeDelayMs(ProviderHealth providerHealth) {
+        long p95 = providerHealth.percentile(0.95, MIN_LATENCY_SAMPLES);
+        return p95 < 0 ? hedgeInitialDelayMs : Math.max(hedgeMinDelayMs, p95);
+    }
+
+    private Outcome classify(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof AIProviderException providerError) {
+                if (providerError.isRateLimited()) return Outcome.RATE_LIMITED;
+                if (providerError.isServerError()) return Outcome.SERVER_ERROR;
+                // Bad request: the prompt, not the provider - except auth/billing errors
+                return providerError.getStatusCode() == 400 ? Outcome.IGNORED : Outcome.SERVER_ERROR;
+            }
+            if (e instanceof TimeoutException) {
+                return Outcome.TIMEOUT;
+            }
+            if (e.getMessage() != null && e.getMessage().startsWith("AI provider busy")) {
+                // Local limiter saturation, the provider itself is fine
+                return Outcome.IGNORED;
+            }
+        }
+        return Outcome.SERVER_ERROR;
+    }
+
+    private enum Outcome {
+        RATE_LIMITED, SERVER_ERROR, TIMEOUT, IGNORED
+    }
+
+    private enum CircuitState {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Latency ring buffer, outcome window and circuit state of one provider
+     */
+    private static final class ProviderHealth {
+        private final String name;
+        private final long[] latencies;
+        private final boolean[] failures;
+        private int latencyCount;
+        private int latencyNext;
+        private int outcomeCount;
+        private int outcomeNext;
+        private int failureCount;
+        private CircuitState state = CircuitState.CLOSED;
+        private long openedAt;
+        private boolean trialInFlight;
+        private long calls;
+        private long errors;
+
+        ProviderHealth(String name, int latencySamples, int window) {
+            this.name = name;
+            this.latencies = new long[Math.max(1, latencySamples)];
+            this.failures = new boolean[Math.max(1, window)];
+        }
+
+        synchronized boolean isAvailable(long now, long openMs) {
+            return switch (state) {
+                case CLOSED -> true;
+                case OPEN -> now - openedAt >= openMs;
+                case HALF_OPEN -> !trialInFlight;
+            };
+        }
+
+        /**
+         * True if a request may go to this provider; after the open period one trial request is let through
+         */
+        synchronized boolean tryAcquire(long now, long openMs) {
+            if (state == CircuitState.OPEN && now - openedAt >= openMs) {
+                state = CircuitState.HALF_OPEN;
+                trialInFlight = false;
+            }
+            if (state == CircuitState.HALF_OPEN) {
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+            }
+            return state == CircuitState.CLOSED;
+        }
+
+        synchronized void releaseTrial() {
+            trialInFlight = false;
+        }
+
+        synchronized void recordSuccess(long latencyMs) {
+            calls++;
+            latencies[latencyNext] = latencyMs;
+            latencyNext = (latencyNext + 1) % latencies.length;
+            latencyCount = Math.min(latencyCount + 1, latencies.length);
+            recordOutcome(false);
+            if (state == CircuitState.HALF_OPEN) {
+                state = CircuitState.CLOSED;
+                trialInFlight = false;
+                resetWindow();
+            }
+        }
+
+        /**
+         * Returns true if this failure opened the circuit
+         */
+        synchronized boolean recordFailure(Outcome outcome, long now, int minCalls, double errorRate) {
+            calls++;
+            if (outcome == Outcome.IGNORED) {
+                trialInFlight = false;
+                return false;
+            }
+            errors++;
+            recordOutcome(true);
+            boolean open = state == CircuitState.HALF_OPEN
+                || outcome == Outcome.RATE_LIMITED
+                || (outcomeCount >= minCalls && (double) failureCount / outcomeCount >= errorRate);
+            if (open && state != CircuitState.OPEN) {
+                state = CircuitState.OPEN;
+                openedAt = now;
+                trialInFlight = false;
+                resetWindow();
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Latency percentile in ms, or -1 with fewer than minSamples samples
+         */
+        synchronized long percentile(double p, int minSamples) {
+            if (latencyCount < minSamples) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(latencies, latencyCount);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+
+        synchronized Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("state", state);
+            snapshot.put("calls", calls);
+            snapshot.put("errors", errors);
+            snapshot.put("windowErrorRate", outcomeCount == 0 ? 0.0 : (double) failureCount / outcomeCount);
+            snapshot.put("p50Ms", percentile(0.50, 1));
+            snapshot.put("p95Ms", percentile(0.95, 1));
+            snapshot.put("p99Ms", percentile(0.99, 1));
+            return snapshot;
+        }
+
+        private void recordOutcome(boolean failed) {
+            if (outcomeCount == failures.length && failures[outcomeNext]) {
+                failureCount--;
+            }
+            failures[outcomeNext] = failed;
+            if (failed) {
+                failureCount++;
+            }
+            outcomeNext = (outcomeNext + 1) % failures.length;
+            outcomeCount = Math.min(outcomeCount + 1, failures.length);
+        }
+
+        private void resetWindow() {
+            Arrays.fill(failures, false);
+            outcomeCount = 0;
+            outcomeNext = 0;
+            failureCount = 0;
+        }
+    }
+}
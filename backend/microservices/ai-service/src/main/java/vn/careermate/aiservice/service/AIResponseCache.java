@@ -0,0 +1,311 @@
+package vn.careermate.aiservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Response cache for LLM calls
+ * Key = SHA-256 of model + generation config + normalized prompt; entries expire after ai.response-cache.ttl
+ * and the least recently used entry is evicted once ai.response-cache.max-entries is reached.
+ * With ai.response-cache.disk.enabled the entries are also written to disk, so they survive restarts;
+ * the disk tier keeps at most ai.response-cache.disk.max-entries files (oldest deleted first).
+ * Only deterministic (temperature 0) calls are put here, see GeminiService.
+ */
+@Slf4j
+@Component
+public class AIResponseCache {
+
+    @Value("${ai.response-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.response-cache.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${ai.response-cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${ai.response-cache.disk.enabled:false}")
+    private boolean diskEnabled;
+
+    @Value("${ai.response-cache.disk.path:data/llm-cache}")
+    private String diskPath;
+
+    @Value("${ai.response-cache.disk.max-entries:5000}")
+    private int diskMaxEntries;
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper keyMapper;
+    private Map<String, CachedResponse> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final AtomicInteger diskEntries = new AtomicInteger();
+    private final ReentrantLock pruneLock = new ReentrantLock();
+
+    public AIResponseCache(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.keyMapper = new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    }
+
+    @PostConstruct
+    public void init() {
+        int capacity = maxEntries;
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                if (size() > capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        });
+
+        FunctionCounter.builder("ai.response.cache.requests", hits, LongAdder::doubleValue)
+            .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("ai.response.cache.requests", misses, LongAdder::doubleValue)
+            .tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("ai.response.cache.evictions", evictions, LongAdder::doubleValue)
+            .register(meterRegistry);
+        Gauge.builder("ai.response.cache.size", entries, Map::size).register(meterRegistry);
+
+        if (enabled && diskEnabled) {
+            try {
+                Files.createDirectories(Paths.get(diskPath));
+                try (Stream<Path> files = cacheFiles()) {
+                    diskEntries.set((int) files.count());
+                }
+                if (diskEntries.get() > diskMaxEntries) {
+                    pruneDisk();
+                }
+            } catch (IOException e) {
+                log.warn("Could not create response cache directory {}, disk cache disabled", diskPath, e);
+                diskEnabled = false;
+            }
+        }
+        log.info("AI response cache {} (ttl: {}, max entries: {}, disk: {})",
+            enabled ? "enabled" : "disabled", ttl, maxEntries, diskEnabled ? diskPath : "off");
+    }
+
+    /**
+     * Build the cache key for a request
+     */
+    public String key(String model, Map<String, Object> generationConfig, String prompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(keyMapper.writeValueAsBytes(generationConfig));
+            digest.update((byte) 0);
+            digest.update(normalize(prompt).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new IllegalStateException("Could not build response cache key", e);
+        }
+    }
+
+    /**
+     * Cached response, or null on miss / expiry
+     */
+    public String get(String key) {
+        if (!enabled) {
+            return null;
+        }
+
+        CachedResponse cached = entries.get(key);
+        if (cached == null && diskEnabled) {
+            cached = readFromDisk(key);
+            if (cached != null) {
+                entries.put(key, cached);
+            }
+        }
+        if (cached != null && cached.expiresAt < System.currentTimeMillis()) {
+            entries.remove(key);
+            deleteFromDisk(key);
+            cached = null;
+        }
+
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cached.value;
+    }
+
+    public void put(String key, String value) {
+        if (!enabled || value == null || value.isEmpty()) {
+            return;
+        }
+
+        CachedResponse cached = new CachedResponse(value, System.currentTimeMillis() + ttl.toMillis());
+        entries.put(key, cached);
+        if (diskEnabled) {
+            writeToDisk(key, cached);
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+        diskEntries.set(0);
+        if (diskEnabled) {
+            try (var files = Files.list(Paths.get(diskPath))) {
+                files.forEach(file -> {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        log.debug("Could not delete cache file {}", file);
+                    }
+                });
+            } catch (IOException e) {
+                log.warn("Could not clear disk response cache", e);
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        return Map.of(
+            "enabled", enabled,
+            "size", entries.size(),
+            "diskSize", diskEntries.get(),
+            "hits", hitCount,
+            "misses", missCount,
+            "evictions", evictions.sum(),
+            "hitRate", total == 0 ? 0.0 : (double) hitCount / total
+        );
+    }
+
+    private String normalize(String prompt) {
+        return prompt == null ? "" : prompt.trim().replaceAll("\\s+", " ");
+    }
+
+    private CachedResponse readFromDisk(String key) {
+        Path file = Paths.get(diskPath, key);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            String content = Files.readString(file, StandardCharsets.UTF_8);
+            int newline = content.indexOf('\n');
+            if (newline < 0) {
+                return null;
+            }
+            return new CachedResponse(content.substring(newline + 1), Long.parseLong(content.substring(0, newline)));
+        } catch (IOException | NumberFormatException e) {
+            log.debug("Could not read cache file {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, CachedResponse cached) {
+        Path file = Paths.get(diskPath, key);
+        Path tmp = null;
+        try {
+            boolean isNew = !Files.exists(file);
+            // A temp file per writer, so concurrent writers of the same key never move a torn file into place
+            tmp = Files.createTempFile(Paths.get(diskPath), key, ".tmp");
+            Files.writeString(tmp, cached.expiresAt + "\n" + cached.value, StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (isNew && diskEntries.incrementAndGet() > diskMaxEntries) {
+                pruneDisk();
+            }
+        } catch (IOException e) {
+            log.warn("Could not write cache file {}: {}", file, e.getMessage());
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                    // Skipped by the disk listing (.tmp) and removed by clear()
+                }
+            }
+        }
+    }
+
+    private void deleteFromDisk(String key) {
+        if (!diskEnabled) return;
+        try {
+            if (Files.deleteIfExists(Paths.get(diskPath, key))) {
+                diskEntries.decrementAndGet();
+            }
+        } catch (IOException e) {
+            log.debug("Could not delete cache file for {}", key);
+        }
+    }
+
+    /**
+     * Delete the oldest files until the disk tier is back to 90% of its cap (TTL is fixed, so oldest expires first)
+     */
+    private void pruneDisk() {
+        if (!pruneLock.tryLock()) return;
+        try (Stream<Path> files = cacheFiles()) {
+            List<Path> ordered = files
+                .sorted(Comparator.comparingLong(AIResponseCache::lastModified))
+                .toList();
+            int target = (int) (diskMaxEntries * 0.9);
+            int remaining = ordered.size();
+            for (Path file : ordered) {
+                if (remaining <= target) break;
+                try {
+                    Files.deleteIfExists(file);
+                    remaining--;
+                    evictions.increment();
+                } catch (IOException e) {
+                    log.debug("Could not delete cache file {}", file);
+                }
+            }
+            diskEntries.set(remaining);
+        } catch (IOException e) {
+            log.warn("Could not prune disk response cache: {}", e.getMessage());
+        } finally {
+            pruneLock.unlock();
+        }
+    }
+
+    private Stream<Path> cacheFiles() throws IOException {
+        return Files.list(Paths.get(diskPath)).filter(file -> !file.getFileName().toString().endsWith(".tmp"));
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static final class CachedResponse {
+        final String value;
+        final long expiresAt;
+
+        CachedResponse(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,59 +1,60 @@
 package vn.careermate.aiservice.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import vn.careermate.aiservice.util.LenientJsonExtractor;
+import vn.careermate.aiservice.util.TokenEstimator;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
 import java.util.*;
 
 /**
  * AI Service for CV Analysis, Job Matching, and Mock Interview
- * Integrates with OpenRouter API (OpenAI-compatible)
+ * Prompts are routed across Gemini and OpenRouter by AIProviderRouter
  */
 @Slf4j
 @Service
 public class AIService {
 
-    @Value("${ai.provider:gemini}")
-    private String provider;
+    // Prompt budgets (estimated tokens) for CV / job / profile text
+    @Value("${ai.prompt.cv-analysis-tokens:2000}")
+    private int cvAnalysisTokens;
 
-    @Value("${ai.openrouter.api-key:}")
-    private String openRouterApiKey;
+    @Value("${ai.prompt.interview-cv-tokens:600}")
+    private int interviewCvTokens;
 
-    @Value("${ai.openrouter.base-url:https://openrouter.ai/api/v1}")
-    private String openRouterBaseUrl;
+    @Value("${ai.prompt.job-tokens:400}")
+    private int jobTokens;
 
-    @Value("${ai.openrouter.model:meta-llama/llama-3.2-3b-instruct:free}")
-    private String openRouterModel;
+    @Value("${ai.prompt.profile-tokens:800}")
+    private int profileTokens;
 
-    @Value("${ai.openrouter.timeout:60000}")
-    private int timeout;
-
-    private final WebClient webClient;
-    private final ObjectMapper objectMapper;
     private final GeminiService geminiService;
+    private final OpenRouterService openRouterService;
+    private final AIProviderRouter providerRouter;
+    private final CVDigestService cvDigestService;
 
-    public AIService(WebClient.Builder webClientBuilder, GeminiService geminiService) {
-        this.webClient = webClientBuilder
-            .baseUrl("https://openrouter.ai/api/v1")
-            .defaultHeader("Content-Type", "application/json")
-            .defaultHeader("HTTP-Referer", "http://localhost:8080") // Optional: for analytics
-            .defaultHeader("X-Title", "CareerMate") // Optional: for analytics
-            .build();
-        this.objectMapper = new ObjectMapper();
+    public AIService(GeminiService geminiService, OpenRouterService openRouterService,
+                     AIProviderRouter providerRouter, CVDigestService cvDigestService) {
         this.geminiService = geminiService;
+        this.openRouterService = openRouterService;
+        this.providerRouter = providerRouter;
+        this.cvDigestService = cvDigestService;
     }
 
     /**
      * Analyze CV and return structured feedback
      */
     public Map<String, Object> analyzeCV(String cvContent) {
+        return analyzeCVReactive(cvContent).block();
+    }
+
+    /**
+     * Analyze CV without blocking the caller; errors are mapped to an {"error": ...} result like analyzeCV
+     */
+    public Mono<Map<String, Object>> analyzeCVReactive(String cvContent) {
         String prompt = String.format(
             "Bạn là chuyên gia tư vấn nghề nghiệp. Hãy phân tích CV sau đây một cách chi tiết và trả về kết quả dưới dạng JSON với cấu trúc chính xác:\n\n" +
             "{\n" +
@@ -67,54 +68,28 @@ public class AIService {
             "}\n\n" +
             "CV Content:\n%s\n\n" +
             "QUAN TRỌNG: Chỉ trả về JSON, không có text hoặc markdown khác.",
-            cvContent.length() > 5000 ? cvContent.substring(0, 5000) + "..." : cvContent
+            cvDigestService.digest(cvContent, cvAnalysisTokens)
         );
 
-        try {
-            String response = callAIAPI(prompt);
-            
-            // Try to parse JSON from response
-            String jsonStr = cleanJSONResponse(response);
-            
-            Map<String, Object> result = new HashMap<>();
-            
-            // Extract scores
-            result.put("score", extractNumber(jsonStr, "score", 75));
-            result.put("structureScore", extractNumber(jsonStr, "structureScore", 70));
-            result.put("contentScore", extractNumber(jsonStr, "contentScore", 80));
-            
-            result.put("strengths", extractArray(jsonStr, "strengths", 
-                Arrays.asList("Có kinh nghiệm", "Kỹ năng tốt", "Trình độ phù hợp")));
-            result.put("weaknesses", extractArray(jsonStr, "weaknesses",
-                Arrays.asList("Cần bổ sung thông tin", "Cải thiện format")));
-            result.put("suggestions", extractArray(jsonStr, "suggestions",
-                Arrays.asList("Thêm thông tin chi tiết hơn", "Cải thiện cấu trúc CV", "Bổ sung kỹ năng")));
-            result.put("summary", extractString(jsonStr, "summary", 
-                "CV có tiềm năng nhưng cần cải thiện một số điểm."));
-            
-            return result;
-        } catch (RuntimeException e) {
-            log.error("Error analyzing CV", e);
-            String errorMsg = e.getMessage();
-            // Provide more user-friendly error messages for common API errors
-            if (errorMsg != null && errorMsg.contains("503")) {
-                return createErrorResponse("Dịch vụ AI tạm thời không khả dụng (503). Vui lòng thử lại sau vài phút. Nếu vấn đề vẫn tiếp tục, có thể do:\n• Quota API đã hết\n• Dịch vụ OpenRouter đang bảo trì\n• Kết nối mạng không ổn định");
-            } else if (errorMsg != null && errorMsg.contains("403")) {
-                return createErrorResponse("API key không hợp lệ hoặc không có quyền truy cập (403). Vui lòng liên hệ quản trị viên.");
-            } else if (errorMsg != null && errorMsg.contains("429")) {
-                return createErrorResponse("Đã vượt quá giới hạn sử dụng API (429). Vui lòng thử lại sau.");
-            }
-            return createErrorResponse("Error analyzing CV: " + errorMsg);
-        } catch (Exception e) {
-            log.error("Error analyzing CV", e);
-            return createErrorResponse("Error analyzing CV: " + e.getMessage());
-        }
+        return callAIAPIDeterministicAsync(prompt)
+            .map(this::parseCVAnalysis)
+            .onErrorResume(e -> {
+                log.error("Error analyzing CV", e);
+                return Mono.just(createCVAnalysisErrorResponse(e));
+            });
     }
 
     /**
      * Analyze CV from file data (multimodal)
      */
     public Map<String, Object> analyzeCV(String mimeType, byte[] fileData) {
+        return analyzeCVReactive(mimeType, fileData).block();
+    }
+
+    /**
+     * Analyze CV from file data without blocking the caller
+     */
+    public Mono<Map<String, Object>> analyzeCVReactive(String mimeType, byte[] fileData) {
         String prompt = 
             "Bạn là chuyên gia tư vấn nghề nghiệp. Hãy phân tích CV (được đính kèm trong request này) một cách chi tiết và trả về kết quả dưới dạng JSON với cấu trúc chính xác:\n\n" +
             "{\n" +
@@ -128,57 +103,54 @@ public class AIService {
             "}\n\n" +
             "QUAN TRỌNG: Chỉ trả về JSON, không có text hoặc markdown khác.";
 
-        try {
-            String response = callAIAPI(prompt, mimeType, fileData);
-            
-            // Try to parse JSON from response
-            String jsonStr = cleanJSONResponse(response);
-            
-            Map<String, Object> result = new HashMap<>();
-            
-            // Extract scores
-            result.put("score", extractNumber(jsonStr, "score", 75));
-            result.put("structureScore", extractNumber(jsonStr, "structureScore", 70));
-            result.put("contentScore", extractNumber(jsonStr, "contentScore", 80));
-            
-            result.put("strengths", extractArray(jsonStr, "strengths", 
-                Arrays.asList("Có kinh nghiệm", "Kỹ năng tốt", "Trình độ phù hợp")));
-            result.put("weaknesses", extractArray(jsonStr, "weaknesses",
-                Arrays.asList("Cần bổ sung thông tin", "Cải thiện format")));
-            result.put("suggestions", extractArray(jsonStr, "suggestions",
-                Arrays.asList("Thêm thông tin chi tiết hơn", "Cải thiện cấu trúc CV", "Bổ sung kỹ năng")));
-            result.put("summary", extractString(jsonStr, "summary", 
-                "CV có tiềm năng nhưng cần cải thiện một số điểm."));
-            
-            return result;
-        } catch (Exception e) {
-            log.error("Error analyzing CV with file", e);
-            return createErrorResponse("Error analyzing CV with file: " + e.getMessage());
-        }
+        return callAIAPIAsync(prompt, mimeType, fileData)
+            .map(this::parseCVAnalysis)
+            .onErrorResume(e -> {
+                log.error("Error analyzing CV with file", e);
+                return Mono.just(createErrorResponse("Error analyzing CV with file: " + e.getMessage()));
+            });
     }
 
-    /**
-     * Analyze CV asynchronously (for background processing)
-     * Note: CV content should be passed directly, not as entity
-     */
-    @Async
-    public void analyzeCVAsync(UUID cvId, String cvContent) {
-        try {
-            if (cvContent == null || cvContent.trim().isEmpty()) {
-                log.warn("CV content is empty for CV: {}", cvId);
-                return;
-            }
+    Map<String, Object> parseCVAnalysis(String response) {
+        Map<String, Object> json = LenientJsonExtractor.parseObject(response);
 
-            // Analyze
-            analyzeCV(cvContent);
-            
-            // Note: CV update would be done via UserServiceClient if needed
-            log.info("CV analysis completed for CV: {}", cvId);
-        } catch (Exception e) {
-            log.error("Error in async CV analysis", e);
+        Map<String, Object> result = new HashMap<>();
+
+        // Extract scores
+        result.put("score", LenientJsonExtractor.getInt(json, "score", 75));
+        result.put("structureScore", LenientJsonExtractor.getInt(json, "structureScore", 70));
+        result.put("contentScore", LenientJsonExtractor.getInt(json, "contentScore", 80));
+
+        result.put("strengths", LenientJsonExtractor.getStringList(json, "strengths",
+            Arrays.asList("Có kinh nghiệm", "Kỹ năng tốt", "Trình độ phù hợp")));
+        result.put("weaknesses", LenientJsonExtractor.getStringList(json, "weaknesses",
+            Arrays.asList("Cần bổ sung thông tin", "Cải thiện format")));
+        result.put("suggestions", LenientJsonExtractor.getStringList(json, "suggestions",
+            Arrays.asList("Thêm thông tin chi tiết hơn", "Cải thiện cấu trúc CV", "Bổ sung kỹ năng")));
+        result.put("summary", LenientJsonExtractor.getString(json, "summary",
+            "CV có tiềm năng nhưng cần cải thiện một số điểm."));
+
+        return result;
+    }
+
+    private Map<String, Object> createCVAnalysisErrorResponse(Throwable e) {
+        String errorMsg = e.getMessage();
+        // Provide more user-friendly error messages for common API errors
+        if (errorMsg != null && errorMsg.contains("503")) {
+            return createErrorResponse("Dịch vụ AI tạm thời không khả dụng (503). Vui lòng thử lại sau vài phút. Nếu vấn đề vẫn tiếp tục, có thể do:\n• Quota API đã hết\n• Dịch vụ OpenRouter đang bảo trì\n• Kết nối mạng không ổn định");
+        } else if (errorMsg != null && errorMsg.contains("403")) {
+            return createErrorResponse("API key không hợp lệ hoặc không có quyền truy cập (403). Vui lòng liên hệ quản trị viên.");
+        } else if (errorMsg != null && errorMsg.contains("429")) {
+            return createErrorResponse("Đã vượt quá giới hạn sử dụng API (429). Vui lòng thử lại sau.");
         }
+        return createErrorResponse("Error analyzing CV: " + errorMsg);
     }
 
+    // CV sections that matter when matching a candidate to a job
+    static final Set<CVDigestService.Section> MATCHING_SECTIONS = EnumSet.of(
+        CVDigestService.Section.SKILLS, CVDigestService.Section.EXPERIENCE, CVDigestService.Section.PROJECTS,
+        CVDigestService.Section.SUMMARY, CVDigestService.Section.EDUCATION, CVDigestService.Section.CERTIFICATIONS);
+
     /**
      * Generate interview questions based on job and CV
      */
@@ -188,8 +160,8 @@ public class AIService {
             "Mô tả công việc:\n%s\n\n" +
             "CV ứng viên:\n%s\n\n" +
             "Trả về danh sách câu hỏi, mỗi câu một dòng, đánh số từ 1-10.",
-            jobDescription.length() > 2000 ? jobDescription.substring(0, 2000) : jobDescription,
-            cvContent.length() > 2000 ? cvContent.substring(0, 2000) : cvContent
+            TokenEstimator.truncate(jobDescription, jobTokens),
+            cvDigestService.digest(cvContent, interviewCvTokens, MATCHING_SECTIONS)
         );
 
         try {
@@ -211,7 +183,36 @@ public class AIService {
      * Get career roadmap suggestions with detailed steps
      */
     public Map<String, Object> getCareerRoadmap(String studentInfo, String targetRole) {
-        String prompt = String.format(
+        return getCareerRoadmapAsync(studentInfo, targetRole).block();
+    }
+
+    /**
+     * Get career roadmap without blocking the caller; falls back to the default roadmap on error
+     */
+    public Mono<Map<String, Object>> getCareerRoadmapAsync(String studentInfo, String targetRole) {
+        String prompt = buildRoadmapPrompt(studentInfo, targetRole);
+
+        log.info("Calling AI API for career roadmap. Target Role: {}, Student Info length: {}", targetRole, studentInfo.length());
+        return callAIAPIAsync(prompt)
+            .map(response -> parseRoadmapResponse(response, targetRole))
+            .onErrorResume(e -> {
+                log.error("Error getting career roadmap: {}", e.getMessage());
+                return Mono.just(createDefaultRoadmap(targetRole));
+            });
+    }
+
+    /**
+     * Stream career roadmap JSON text as it is generated
+     * Callers accumulate the chunks and pass the full text to parseRoadmapResponse
+     */
+    public Flux<String> streamCareerRoadmap(String studentInfo, String targetRole) {
+        log.info("Streaming career roadmap. Target Role: {}, Student Info length: {}", targetRole, studentInfo.length());
+        return streamAIAPI(buildRoadmapPrompt(studentInfo, targetRole), true);
+    }
+
+    private String buildRoadmapPrompt(String studentInfo, String targetRole) {
+        studentInfo = cvDigestService.digest(studentInfo, profileTokens);
+        return String.format(
             "Bạn là chuyên gia tư vấn nghề nghiệp. Hãy tạo một lộ trình nghề nghiệp CHI TIẾT và CỤ THỂ cho vị trí \"%s\" dựa trên thông tin sinh viên sau:\n\n" +
             "=== THÔNG TIN SINH VIÊN ===\n%s\n\n" +
             "=== YÊU CẦU ===\n" +
@@ -258,19 +259,18 @@ public class AIService {
             "- Mỗi step trong mảng steps phải là một object đầy đủ với tất cả các trường: title, description, skills, resources, duration, milestones, projects",
             targetRole, studentInfo
         );
+    }
 
+    /**
+     * Parse and validate a raw roadmap response, falling back to the default roadmap
+     */
+    public Map<String, Object> parseRoadmapResponse(String response, String targetRole) {
         try {
-            log.info("Calling AI API for career roadmap. Target Role: {}, Student Info length: {}", targetRole, studentInfo.length());
-            String response = callAIAPI(prompt);
             log.info("Raw AI response for roadmap (first 1000 chars): {}", 
                 response.length() > 1000 ? response.substring(0, 1000) + "..." : response);
             
-            // Clean and parse JSON response
-            String jsonStr = cleanJSONResponse(response);
-            log.info("Cleaned JSON length: {}", jsonStr.length());
-            
-            // Try to parse as complete JSON structure
-            Map<String, Object> result = parseRoadmapJSON(jsonStr);
+            // Single tolerant pass; fences, preamble and truncated output are handled by the extractor
+            Map<String, Object> result = parseRoadmapJSON(response);
             
             // Validate and enhance result
             if (!result.containsKey("steps") || ((List<?>) result.getOrDefault("steps", List.of())).isEmpty()) {
@@ -291,299 +291,55 @@ public class AIService {
             
             return result;
         } catch (Exception e) {
-            log.error("Error getting career roadmap: {}", e.getMessage());
+            log.error("Error parsing career roadmap: {}", e.getMessage());
             return createDefaultRoadmap(targetRole);
         }
     }
     
     /**
-     * Parse roadmap JSON from AI response using ObjectMapper
+     * Parse roadmap JSON from AI response; whatever steps were read are kept, missing fields get defaults
      */
-    private Map<String, Object> parseRoadmapJSON(String jsonStr) {
-        Map<String, Object> result = new HashMap<>();
-        
-        try {
-            // Clean JSON string - remove markdown code blocks if present
-            jsonStr = cleanJSONResponse(jsonStr);
-            
-            // Try to find JSON object boundaries
-            int startIdx = jsonStr.indexOf("{");
-            int endIdx = jsonStr.lastIndexOf("}");
-            
-            if (startIdx >= 0 && endIdx > startIdx) {
-                jsonStr = jsonStr.substring(startIdx, endIdx + 1);
-            }
-            
-            log.info("Attempting to parse JSON (length: {})", jsonStr.length());
-            log.debug("JSON content: {}", jsonStr.substring(0, Math.min(500, jsonStr.length())));
-            
-            // Try to parse with ObjectMapper
-            try {
-                TypeReference<Map<String, Object>> typeRef = new TypeReference<Map<String, Object>>() {};
-                result = objectMapper.readValue(jsonStr, typeRef);
-                
-                log.info("Successfully parsed JSON with ObjectMapper");
-                
-                // Validate steps
-                if (result.containsKey("steps")) {
-                    Object stepsObj = result.get("steps");
-                    if (stepsObj instanceof List) {
-                        @SuppressWarnings("unchecked")
-                        List<Map<String, Object>> steps = (List<Map<String, Object>>) stepsObj;
-                        log.info("Found {} steps in roadmap", steps.size());
-                        
-                        // Validate each step has required fields
-                        for (int i = 0; i < steps.size(); i++) {
-                            Map<String, Object> step = steps.get(i);
-                            if (step == null) {
-                                step = new HashMap<>();
-                                steps.set(i, step);
-                            }
-                            if (!step.containsKey("title") || step.get("title") == null || step.get("title").toString().trim().isEmpty()) {
-                                step.put("title", "Bước " + (i + 1));
-                            }
-                            if (!step.containsKey("description") || step.get("description") == null || step.get("description").toString().trim().isEmpty()) {
-                                step.put("description", "Mô tả chi tiết về bước này sẽ được cập nhật.");
-                            }
-                            // Log step content for debugging
-                            log.debug("Step {}: title={}, description length={}", 
-                                i + 1, 
-                                step.get("title"),
-                                step.get("description") != null ? step.get("description").toString().length() : 0);
-                        }
-                    }
-                } else {
-                    log.warn("No 'steps' field found in parsed JSON");
-                }
-                
-            } catch (Exception e) {
-                log.error("Failed to parse JSON with ObjectMapper, trying fallback: {}", e.getMessage());
-                // Fallback to manual parsing
-                result = parseRoadmapJSONManual(jsonStr);
-            }
-            
-        } catch (Exception e) {
-            log.error("Error parsing roadmap JSON", e);
-            result = new HashMap<>();
-        }
-        
-        // Ensure we have at least default structure
-        if (!result.containsKey("steps") || ((List<?>) result.getOrDefault("steps", List.of())).isEmpty()) {
+    private Map<String, Object> parseRoadmapJSON(String response) {
+        Map<String, Object> json = LenientJsonExtractor.parseObject(response);
+        Map<String, Object> result = new HashMap<>(json);
+
+        List<Map<String, Object>> steps = normalizeSteps(LenientJsonExtractor.getObjectList(json, "steps"));
+        if (steps.isEmpty()) {
             log.warn("No valid steps found, using default");
-            result.put("steps", createDefaultSteps());
-        }
-        
-        // Set defaults for missing fields
-        result.putIfAbsent("timeline", "12-18 tháng");
-        result.putIfAbsent("skillsGap", new ArrayList<>());
-        result.putIfAbsent("recommendedCourses", new ArrayList<>());
-        result.putIfAbsent("estimatedDurationMonths", 12);
-        result.putIfAbsent("summary", "Lộ trình phát triển nghề nghiệp được tùy chỉnh cho bạn");
-        
-        return result;
-    }
-    
-    /**
-     * Manual parsing fallback if ObjectMapper fails
-     */
-    private Map<String, Object> parseRoadmapJSONManual(String jsonStr) {
-        Map<String, Object> result = new HashMap<>();
-        
-        try {
-            // Extract steps array
-            List<Map<String, Object>> steps = extractStepsArray(jsonStr);
-            result.put("steps", steps);
-            
-            // Extract other fields
-            result.put("timeline", extractString(jsonStr, "timeline", "12-18 tháng"));
-            result.put("skillsGap", extractArray(jsonStr, "skillsGap", new ArrayList<>()));
-            result.put("recommendedCourses", extractCoursesArray(jsonStr));
-            result.put("estimatedDurationMonths", extractNumber(jsonStr, "estimatedDurationMonths", 12));
-            result.put("summary", extractString(jsonStr, "summary", "Lộ trình phát triển nghề nghiệp được tùy chỉnh cho bạn"));
-            
-            log.info("Parsed roadmap manually with {} steps", steps.size());
-            
-        } catch (Exception e) {
-            log.error("Error in manual parsing", e);
+            steps = createDefaultSteps();
+        } else {
+            log.info("Found {} steps in roadmap", steps.size());
         }
-        
+        result.put("steps", steps);
+
+        result.put("timeline", LenientJsonExtractor.getString(json, "timeline", "12-18 tháng"));
+        result.put("skillsGap", LenientJsonExtractor.getStringList(json, "skillsGap", new ArrayList<>()));
+        result.put("recommendedCourses", json.get("recommendedCourses") instanceof List<?> courses ? courses : new ArrayList<>());
+        result.put("estimatedDurationMonths", LenientJsonExtractor.getInt(json, "estimatedDurationMonths", 12));
+        result.put("summary", LenientJsonExtractor.getString(json, "summary", "Lộ trình phát triển nghề nghiệp được tùy chỉnh cho bạn"));
+
         return result;
     }
-    
+
     /**
-     * Extract steps array from JSON string
+     * Fill required step fields; a step cut off mid-way keeps what it has
      */
-    private List<Map<String, Object>> extractStepsArray(String jsonStr) {
+    private List<Map<String, Object>> normalizeSteps(List<Map<String, Object>> rawSteps) {
         List<Map<String, Object>> steps = new ArrayList<>();
-        
-        try {
-            // Find steps array
-            int stepsStart = jsonStr.indexOf("\"steps\"");
-            if (stepsStart < 0) {
-                stepsStart = jsonStr.indexOf("'steps'");
-            }
-            
-            if (stepsStart >= 0) {
-                // Find the array start
-                int arrayStart = jsonStr.indexOf("[", stepsStart);
-                if (arrayStart >= 0) {
-                    // Extract array content
-                    int bracketCount = 0;
-                    int arrayEnd = arrayStart;
-                    for (int i = arrayStart; i < jsonStr.length(); i++) {
-                        char c = jsonStr.charAt(i);
-                        if (c == '[') bracketCount++;
-                        if (c == ']') bracketCount--;
-                        if (bracketCount == 0 && c == ']') {
-                            arrayEnd = i;
-                            break;
-                        }
-                    }
-                    
-                    String arrayContent = jsonStr.substring(arrayStart + 1, arrayEnd);
-                    
-                    // Parse each step object
-                    steps = parseStepObjects(arrayContent);
-                }
-            }
-        } catch (Exception e) {
-            log.error("Error extracting steps array", e);
-        }
-        
-        // If no steps found, create default steps
-        if (steps.isEmpty()) {
-            steps = createDefaultSteps();
+        for (Map<String, Object> raw : rawSteps) {
+            Map<String, Object> step = new HashMap<>(raw);
+            step.put("title", LenientJsonExtractor.getString(raw, "title", "Bước " + (steps.size() + 1)));
+            step.put("description", LenientJsonExtractor.getString(raw, "description", "Mô tả chi tiết về bước này sẽ được cập nhật."));
+            step.put("skills", LenientJsonExtractor.getStringList(raw, "skills", new ArrayList<>()));
+            step.put("resources", LenientJsonExtractor.getStringList(raw, "resources", new ArrayList<>()));
+            step.put("duration", LenientJsonExtractor.getString(raw, "duration", "1-2 tháng"));
+            step.put("milestones", LenientJsonExtractor.getStringList(raw, "milestones", new ArrayList<>()));
+            step.put("projects", LenientJsonExtractor.getStringList(raw, "projects", new ArrayList<>()));
+            steps.add(step);
         }
-        
         return steps;
     }
     
-    /**
-     * Parse step objects from array content
-     */
-    private List<Map<String, Object>> parseStepObjects(String arrayContent) {
-        List<Map<String, Object>> steps = new ArrayList<>();
-        
-        try {
-            // Split by objects (looking for { ... })
-            int braceCount = 0;
-            int start = -1;
-            
-            for (int i = 0; i < arrayContent.length(); i++) {
-                char c = arrayContent.charAt(i);
-                if (c == '{') {
-                    if (braceCount == 0) start = i;
-                    braceCount++;
-                }
-                if (c == '}') {
-                    braceCount--;
-                    if (braceCount == 0 && start >= 0) {
-                        String stepStr = arrayContent.substring(start, i + 1);
-                        Map<String, Object> step = parseStepObject(stepStr);
-                        if (!step.isEmpty()) {
-                            steps.add(step);
-                        }
-                        start = -1;
-                    }
-                }
-            }
-        } catch (Exception e) {
-            log.error("Error parsing step objects", e);
-        }
-        
-        return steps;
-    }
-    
-    /**
-     * Parse a single step object - try ObjectMapper first, then fallback to regex
-     */
-    private Map<String, Object> parseStepObject(String stepStr) {
-        Map<String, Object> step = new HashMap<>();
-        
-        try {
-            // Try ObjectMapper first
-            try {
-                TypeReference<Map<String, Object>> typeRef = new TypeReference<Map<String, Object>>() {};
-                step = objectMapper.readValue(stepStr, typeRef);
-                log.debug("Successfully parsed step with ObjectMapper");
-            } catch (Exception e) {
-                log.debug("ObjectMapper failed for step, using regex: {}", e.getMessage());
-                // Fallback to regex extraction
-                step.put("title", extractString(stepStr, "title", "Bước"));
-                step.put("description", extractString(stepStr, "description", "Mô tả chi tiết về bước này"));
-                step.put("skills", extractArray(stepStr, "skills", new ArrayList<>()));
-                step.put("resources", extractArray(stepStr, "resources", new ArrayList<>()));
-                step.put("duration", extractString(stepStr, "duration", "1-2 tháng"));
-                step.put("milestones", extractArray(stepStr, "milestones", new ArrayList<>()));
-                step.put("projects", extractArray(stepStr, "projects", new ArrayList<>()));
-            }
-            
-            // Ensure all required fields exist
-            if (!step.containsKey("title") || step.get("title") == null || step.get("title").toString().trim().isEmpty()) {
-                step.put("title", "Bước");
-            }
-            if (!step.containsKey("description") || step.get("description") == null || step.get("description").toString().trim().isEmpty()) {
-                step.put("description", "Mô tả chi tiết về bước này sẽ được cập nhật.");
-            }
-            step.putIfAbsent("skills", new ArrayList<>());
-            step.putIfAbsent("resources", new ArrayList<>());
-            step.putIfAbsent("duration", "1-2 tháng");
-            step.putIfAbsent("milestones", new ArrayList<>());
-            step.putIfAbsent("projects", new ArrayList<>());
-            
-        } catch (Exception e) {
-            log.error("Error parsing step object", e);
-            // Return minimal step
-            step.put("title", "Bước");
-            step.put("description", "Mô tả chi tiết về bước này sẽ được cập nhật.");
-            step.put("skills", new ArrayList<>());
-            step.put("resources", new ArrayList<>());
-            step.put("duration", "1-2 tháng");
-            step.put("milestones", new ArrayList<>());
-            step.put("projects", new ArrayList<>());
-        }
-        
-        return step;
-    }
-    
-    /**
-     * Extract courses array
-     */
-    private List<Map<String, Object>> extractCoursesArray(String jsonStr) {
-        List<Map<String, Object>> courses = new ArrayList<>();
-        
-        try {
-            int coursesStart = jsonStr.indexOf("\"recommendedCourses\"");
-            if (coursesStart < 0) {
-                coursesStart = jsonStr.indexOf("'recommendedCourses'");
-            }
-            
-            if (coursesStart >= 0) {
-                int arrayStart = jsonStr.indexOf("[", coursesStart);
-                if (arrayStart >= 0) {
-                    int bracketCount = 0;
-                    int arrayEnd = arrayStart;
-                    for (int i = arrayStart; i < jsonStr.length(); i++) {
-                        char c = jsonStr.charAt(i);
-                        if (c == '[') bracketCount++;
-                        if (c == ']') bracketCount--;
-                        if (bracketCount == 0 && c == ']') {
-                            arrayEnd = i;
-                            break;
-                        }
-                    }
-                    
-                    // Parse course objects similar to steps
-                    // For now, return empty list
-                }
-            }
-        } catch (Exception e) {
-            log.error("Error extracting courses array", e);
-        }
-        
-        return courses;
-    }
-    
     /**
      * Create default roadmap if AI fails
      */
@@ -628,205 +384,119 @@ public class AIService {
     }
 
     /**
-     * Call AI API - routes to appropriate provider (Gemini or OpenRouter)
+     * Call AI API - routed by AIProviderRouter (healthy provider first, hedging and fallback to the others)
      */
     public String callAIAPI(String prompt) {
-        if ("gemini".equalsIgnoreCase(provider)) {
-            log.info("Using Gemini AI provider");
-            return geminiService.callGeminiAPI(prompt);
-        } else if ("openrouter".equalsIgnoreCase(provider)) {
-            log.info("Using OpenRouter AI provider");
-            return callOpenRouterAPI(prompt);
-        } else {
-            log.warn("Unknown AI provider: {}, defaulting to Gemini", provider);
-            return geminiService.callGeminiAPI(prompt);
+        return callAIAPIAsync(prompt).block();
+    }
+
+    /**
+     * Call AI API without blocking the caller - each provider call is bounded by the provider's limiter
+     */
+    public Mono<String> callAIAPIAsync(String prompt) {
+        return providerRouter.call(prompt);
+    }
+
+    /**
+     * Structured extraction (scores, JSON analyses): temperature 0, and repeated prompts are served from the response cache
+     */
+    public String callAIAPIDeterministic(String prompt) {
+        return callAIAPIDeterministicAsync(prompt).block();
+    }
+
+    public Mono<String> callAIAPIDeterministicAsync(String prompt) {
+        return providerRouter.call(prompt, true);
+    }
+
+    /**
+     * Stream AI response chunks - Gemini streams natively, other providers emit the full answer as one chunk
+     * The Gemini stream goes through the router's circuit and falls back if it fails before its first chunk.
+     */
+    public Flux<String> streamAIAPI(String prompt, boolean jsonResponse) {
+        String provider = providerRouter.selectProvider();
+        if (AIProviderLimiter.GEMINI.equals(provider)) {
+            log.info("Using Gemini AI provider (streaming)");
+            return providerRouter.stream(AIProviderLimiter.GEMINI, geminiService.streamGeminiAPI(prompt, jsonResponse), prompt, false);
         }
+        log.info("Using {} AI provider (non-streaming)", provider);
+        return callAIAPIAsync(prompt).flux();
     }
 
     /**
      * Call AI API with multimodal data
      */
     public String callAIAPI(String prompt, String mimeType, byte[] fileData) {
-        if ("gemini".equalsIgnoreCase(provider)) {
+        return callAIAPIAsync(prompt, mimeType, fileData).block();
+    }
+
+    /**
+     * Call AI API with multimodal data without blocking the caller (Gemini only)
+     */
+    public Mono<String> callAIAPIAsync(String prompt, String mimeType, byte[] fileData) {
+        if (geminiService.isConfigured() && !providerRouter.isStubOnly()) {
             log.info("Using Gemini AI provider for multimodal request");
-            return geminiService.callGeminiAPI(prompt, mimeType, fileData);
-        } else {
-            log.warn("Multimodal request not supported for provider: {}, falling back to text prompt", provider);
-            return callAIAPI(prompt);
+            return providerRouter.track(AIProviderLimiter.GEMINI,
+                geminiService.callGeminiAPIAsync(prompt, mimeType, fileData));
         }
+        log.warn("Multimodal request needs Gemini, falling back to text prompt");
+        return callAIAPIAsync(prompt);
     }
 
     /**
      * Call OpenRouter API (OpenAI-compatible format)
      */
     public String callOpenRouterAPI(String prompt) {
-        if (openRouterApiKey == null || openRouterApiKey.isEmpty() || openRouterApiKey.equals("YOUR_OPENROUTER_API_KEY_HERE")) {
-            throw new RuntimeException("OpenRouter API key is not configured");
-        }
-
-        // OpenRouter uses OpenAI-compatible format
-        String url = "/chat/completions";
-
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("model", openRouterModel);
-        
-        List<Map<String, Object>> messages = new ArrayList<>();
-        Map<String, Object> message = new HashMap<>();
-        message.put("role", "user");
-        message.put("content", prompt);
-        messages.add(message);
-        requestBody.put("messages", messages);
-
-        try {
-            log.info("Calling OpenRouter API with model: {}, API key present: {}", openRouterModel, openRouterApiKey != null && !openRouterApiKey.isEmpty());
-            Map<String, Object> response = webClient.post()
-                .uri(url)
-                .header("Authorization", "Bearer " + openRouterApiKey)
-                .header("Content-Type", "application/json")
-                .bodyValue(requestBody)
-                .retrieve()
-                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(), clientResponse -> {
-                    log.error("OpenRouter API HTTP error: {}", clientResponse.statusCode());
-                    return clientResponse.bodyToMono(String.class)
-                        .doOnNext(body -> log.error("Error response body: {}", body))
-                        .then(Mono.error(new RuntimeException("OpenRouter API returned error: " + clientResponse.statusCode() + 
-                            (clientResponse.statusCode().value() == 503 ? " SERVICE_UNAVAILABLE - Dịch vụ AI tạm thời không khả dụng. Vui lòng thử lại sau." :
-                             clientResponse.statusCode().value() == 402 ? " PAYMENT_REQUIRED - Hết hạn mức sử dụng hoặc cần số dư để sử dụng model này. Vui lòng kiểm tra tài khoản OpenRouter hoặc đổi model." :
-                             clientResponse.statusCode().value() == 403 ? " FORBIDDEN - API key không hợp lệ hoặc không có quyền truy cập." :
-                             clientResponse.statusCode().value() == 429 ? " RATE_LIMIT - Đã vượt quá giới hạn sử dụng. Vui lòng thử lại sau." :
-                             ""))));
-                })
-                .bodyToMono(Map.class)
-                .timeout(Duration.ofMillis(timeout))
-                .doOnError(error -> log.error("OpenRouter API error: {}", error.getMessage(), error))
-                .block();
-
-            if (response == null) {
-                log.error("OpenRouter API returned null response");
-                throw new RuntimeException("Invalid response from OpenRouter API: null");
-            }
-
-            // Parse OpenAI-compatible response format
-            if (response.containsKey("choices")) {
-                List<Map<String, Object>> choices = (List<Map<String, Object>>) response.get("choices");
-                if (choices != null && !choices.isEmpty()) {
-                    Map<String, Object> choice = choices.get(0);
-                    if (choice.containsKey("message")) {
-                        Map<String, Object> messageMap = (Map<String, Object>) choice.get("message");
-                        if (messageMap.containsKey("content")) {
-                            Object contentObj = messageMap.get("content");
-                            if (contentObj != null) {
-                                return contentObj.toString();
-                            }
-                        }
-                    }
-                }
-            }
-
-            // Log full response for debugging
-            log.error("Invalid response structure from OpenRouter API: {}", response);
-            throw new RuntimeException("Invalid response from OpenRouter API: unexpected structure");
-        } catch (org.springframework.web.reactive.function.client.WebClientException e) {
-            log.error("WebClient error calling OpenRouter API", e);
-            throw new RuntimeException("Failed to call OpenRouter API: " + e.getMessage(), e);
-        } catch (Exception e) {
-            log.error("Error calling OpenRouter API", e);
-            throw new RuntimeException("Failed to call OpenRouter API: " + e.getMessage(), e);
-        }
+        return callOpenRouterAPIAsync(prompt).block();
     }
 
-    private String cleanJSONResponse(String response) {
-        String jsonStr = response.trim();
-        
-        // Remove markdown code blocks
-        if (jsonStr.startsWith("```json")) {
-            jsonStr = jsonStr.substring(7);
-        } else if (jsonStr.startsWith("```")) {
-            jsonStr = jsonStr.substring(3);
-        }
-        
-        if (jsonStr.endsWith("```")) {
-            jsonStr = jsonStr.substring(0, jsonStr.length() - 3);
-        }
-        
-        // Remove any leading/trailing whitespace and newlines
-        jsonStr = jsonStr.trim();
-        
-        // Remove any text before first {
-        int firstBrace = jsonStr.indexOf("{");
-        if (firstBrace > 0) {
-            jsonStr = jsonStr.substring(firstBrace);
-        }
-        
-        // Remove any text after last }
-        int lastBrace = jsonStr.lastIndexOf("}");
-        if (lastBrace >= 0 && lastBrace < jsonStr.length() - 1) {
-            jsonStr = jsonStr.substring(0, lastBrace + 1);
-        }
-        
-        return jsonStr.trim();
+    /**
+     * Call OpenRouter API without blocking the caller
+     */
+    public Mono<String> callOpenRouterAPIAsync(String prompt) {
+        return openRouterService.callOpenRouterAPIAsync(prompt);
     }
 
-    private int extractNumber(String json, String key, int defaultValue) {
-        try {
-            String pattern = "\"" + key + "\"\\s*:\\s*(\\d+)";
-            java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
-            java.util.regex.Matcher m = p.matcher(json);
-            if (m.find()) {
-                return Integer.parseInt(m.group(1));
-            }
-        } catch (Exception e) {
-            log.warn("Could not extract number for " + key, e);
-        }
-        return defaultValue;
+    /**
+     * Chat with AI based on role and context
+     */
+    public String chat(String message, String context, String role) {
+        return chatAsync(message, context, role).block();
     }
 
-    private List<String> extractArray(String json, String key, List<String> defaultValue) {
-        try {
-            String pattern = "\"" + key + "\"\\s*:\\s*\\[([^\\]]+)\\]";
-            java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
-            java.util.regex.Matcher m = p.matcher(json);
-            if (m.find()) {
-                String arrayContent = m.group(1);
-                List<String> items = new ArrayList<>();
-                String[] parts = arrayContent.split(",");
-                for (String part : parts) {
-                    String item = part.trim().replaceAll("^\"|\"$", "");
-                    if (!item.isEmpty()) {
-                        items.add(item);
-                    }
-                }
-                if (!items.isEmpty()) {
-                    return items;
+    /**
+     * Chat without blocking the caller; errors become a friendly answer like chat()
+     */
+    public Mono<String> chatAsync(String message, String context, String role) {
+        String prompt = buildChatPrompt(message, role);
+
+        return callAIAPIAsync(prompt)
+            .onErrorResume(e -> {
+                log.error("Error in chat", e);
+                String errorMsg = e.getMessage();
+                if (errorMsg != null && errorMsg.contains("402")) {
+                    return Mono.just("Dịch vụ AI (OpenRouter) báo lỗi 402: Hết hạn mức sử dụng (Quota) hoặc cần số dư tài khoản để sử dụng model này. Vui lòng kiểm tra lại cấu hình hoặc thử lại sau.");
                 }
-            }
-        } catch (Exception e) {
-            log.warn("Could not extract array for " + key, e);
-        }
-        return defaultValue;
+                return Mono.just("Xin lỗi, có lỗi xảy ra khi xử lý câu hỏi của bạn: " + (errorMsg != null ? errorMsg : "Lỗi hệ thống") + ". Vui lòng thử lại sau.");
+            });
     }
 
-    private String extractString(String json, String key, String defaultValue) {
-        try {
-            String pattern = "\"" + key + "\"\\s*:\\s*\"([^\"]+)\"";
-            java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
-            java.util.regex.Matcher m = p.matcher(json);
-            if (m.find()) {
-                return m.group(1);
-            }
-        } catch (Exception e) {
-            log.warn("Could not extract string for " + key, e);
-        }
-        return defaultValue;
+    /**
+     * Stream chat answer as plain text chunks
+     */
+    public Flux<String> streamChat(String message, String context, String role) {
+        return streamAIAPI(buildChatPrompt(message, role), false);
+    }
+
+    private String buildChatPrompt(String message, String role) {
+        return chatSystemPrompt(role) + "\n\nCâu hỏi của người dùng: " + message;
     }
 
     /**
-     * Chat with AI based on role and context
+     * Role-specific instructions for chat prompts (also used by ChatConversationService)
      */
-    public String chat(String message, String context, String role) {
-        // Build context-specific prompt
+    public String chatSystemPrompt(String role) {
         String systemPrompt = "";
-        switch (role.toUpperCase()) {
+        switch (role != null ? role.toUpperCase() : "") {
             case "STUDENT":
                 systemPrompt = "Bạn là Career AI Coach, một trợ lý tư vấn nghề nghiệp thông minh và thân thiện. " +
                     "Bạn giúp sinh viên:\n" +
@@ -858,19 +528,7 @@ public class AIService {
             default:
                 systemPrompt = "Bạn là AI Assistant hữu ích. Hãy trả lời câu hỏi một cách chi tiết và hữu ích. Sử dụng tiếng Việt.";
         }
-
-        String prompt = systemPrompt + "\n\nCâu hỏi của người dùng: " + message;
-
-        try {
-            return callAIAPI(prompt);
-        } catch (Exception e) {
-            log.error("Error in chat", e);
-            String errorMsg = e.getMessage();
-            if (errorMsg != null && errorMsg.contains("402")) {
-                return "Dịch vụ AI (OpenRouter) báo lỗi 402: Hết hạn mức sử dụng (Quota) hoặc cần số dư tài khoản để sử dụng model này. Vui lòng kiểm tra lại cấu hình hoặc thử lại sau.";
-            }
-            return "Xin lỗi, có lỗi xảy ra khi xử lý câu hỏi của bạn: " + (errorMsg != null ? errorMsg : "Lỗi hệ thống") + ". Vui lòng thử lại sau.";
-        }
+        return systemPrompt;
     }
 
     private Map<String, Object> createErrorResponse(String message) {
@@ -878,64 +536,4 @@ public class AIService {
         error.put("error", message);
         return error;
     }
-
-    /**
-     * Rank candidates based on job description
-     */
-    public List<Map<String, Object>> rankCandidates(String jobDescription, List<vn.careermate.common.dto.CVDTO> cvs) {
-        if (cvs == null || cvs.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        log.info("Ranking {} candidates for job", cvs.size());
-        
-        // In a real scenario, we might use AI to rank them one by one or in batches
-        // For efficiency, we'll do a basic AI-based scoring simulation or call AI for top N
-        
-        List<Map<String, Object>> results = new ArrayList<>();
-        
-        for (vn.careermate.common.dto.CVDTO cv : cvs) {
-            if (cv.getExtractedContent() == null || cv.getExtractedContent().isEmpty()) continue;
-            
-            String prompt = String.format(
-                "Bạn là chuyên gia tuyển dụng. Hãy chấm điểm mức độ phù hợp (0-100) của ứng viên này cho vị trí công việc sau.\n\n" +
-                "Mô tả công việc:\n%s\n\n" +
-                "CV ứng viên:\n%s\n\n" +
-                "Trả về CHỈ một số nguyên từ 0 đến 100 đại diện cho điểm số.",
-                jobDescription.length() > 1000 ? jobDescription.substring(0, 1000) : jobDescription,
-                cv.getExtractedContent().length() > 2000 ? cv.getExtractedContent().substring(0, 2000) : cv.getExtractedContent()
-            );
-            
-            try {
-                String scoreStr = callAIAPI(prompt);
-                int score = 0;
-                try {
-                    // Extract only numbers from response
-                    String numericPart = scoreStr.replaceAll("[^0-9]", "");
-                    if (!numericPart.isEmpty()) {
-                        score = Integer.parseInt(numericPart);
-                    }
-                } catch (Exception e) {
-                    log.warn("Could not parse AI score: {}", scoreStr);
-                    score = 50; // default
-                }
-                
-                Map<String, Object> result = new HashMap<>();
-                result.put("cvId", cv.getId());
-                result.put("score", score);
-                result.put("name", cv.getFileName()); // In reality, fetch user name
-                results.add(result);
-            } catch (Exception e) {
-                log.error("Error scoring candidate {}: {}", cv.getId(), e.getMessage());
-            }
-            
-            // Limit to top N for demo performance
-            if (results.size() >= 5) break;
-        }
-        
-        // Sort by score descending
-        results.sort((a, b) -> ((Integer) b.get("score")).compareTo((Integer) a.get("score")));
-        
-        return results;
-    }
 }
@@ -0,0 +1,240 @@
+package vn.careermate.aiservice.service;
+
+import feign.FeignException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import vn.careermate.aiservice.util.CVTextExtractor;
+import vn.careermate.common.client.JobServiceClient;
+import vn.careermate.common.client.UserServiceClient;
+import vn.careermate.common.dto.CVDTO;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Analyzes many CVs in one request (recruiter screening of an applicant pool)
+ * CVs are loaded with one batch call. Each CV uses, in order: the stored analysis (if reuse is requested),
+ * the extracted text, text extracted from the downloaded file (streamed to a temp file), and only then
+ * the file itself sent multimodally. At most ai.bulk-analysis.max-concurrency CVs are in flight.
+ * Only CVs attached to applications of the given job are analyzed; job-service checks that the caller owns it.
+ */
+@Slf4j
+@Service
+public class BulkCVAnalysisService {
+
+    @Value("${ai.bulk-analysis.max-cvs:200}")
+    private int maxCvs;
+
+    // Synchronous requests must finish within the gateway timeout; larger pools go through the stream
+    @Value("${ai.bulk-analysis.max-sync-cvs:20}")
+    private int maxSyncCvs;
+
+    @Value("${ai.bulk-analysis.max-concurrency:4}")
+    private int maxConcurrency;
+
+    @Value("${ai.bulk-analysis.max-file-bytes:10485760}")
+    private long maxFileBytes;
+
+    // Larger files are not inlined into a Gemini request
+    @Value("${ai.bulk-analysis.max-inline-bytes:4194304}")
+    private long maxInlineBytes;
+
+    private final AIService aiService;
+    private final UserServiceClient userServiceClient;
+    private final JobServiceClient jobServiceClient;
+    private final VectorDBService vectorDBService;
+
+    public BulkCVAnalysisService(AIService aiService, UserServiceClient userServiceClient,
+                                 JobServiceClient jobServiceClient, VectorDBService vectorDBService) {
+        this.aiService = aiService;
+        this.userServiceClient = userServiceClient;
+        this.jobServiceClient = jobServiceClient;
+        this.vectorDBService = vectorDBService;
+    }
+
+    /**
+     * One event per finished CV, in completion order:
+     * {cvId, index, status: COMPLETED|FAILED, source: stored|text|file-text|file, result | error, completed, total}
+     * Without cvIds every applicant CV of the job is analyzed. Must be called on the request thread
+     * (the applicant lookup forwards the caller's token).
+     */
+    public Flux<Map<String, Object>> analyze(UUID jobId, List<UUID> cvIds, boolean reuseExisting, boolean streamed) {
+        if (jobId == null) {
+            return Flux.error(new IllegalArgumentException("jobId is required"));
+        }
+        List<UUID> applicantCvIds = applicantCvIds(jobId);
+        List<UUID> ids = cvIds == null || cvIds.isEmpty()
+            ? applicantCvIds
+            : cvIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) {
+            return Flux.error(new IllegalArgumentException("No CVs to analyze for job " + jobId));
+        }
+        Set<UUID> allowed = new HashSet<>(applicantCvIds);
+        List<UUID> foreign = ids.stream().filter(id -> !allowed.contains(id)).toList();
+        if (!foreign.isEmpty()) {
+            return Flux.error(new AccessDeniedException("CVs not attached to applications of job " + jobId + ": " + foreign));
+        }
+        int limit = streamed ? maxCvs : Math.min(maxSyncCvs, maxCvs);
+        if (ids.size() > limit) {
+            return Flux.error(new IllegalArgumentException("Too many CVs: " + ids.size() + " (max " + limit
+                + (streamed ? ")" : ", use /ai/cv/analyze/bulk/stream for more)")));
+        }
+
+        AtomicInteger completed = new AtomicInteger();
+        return Mono.fromCallable(() -> loadCVs(ids))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMapMany(cvs -> Flux.range(0, ids.size())
+                .flatMap(i -> analyzeOne(i, ids.get(i), cvs.get(ids.get(i)), reuseExisting), Math.max(1, maxConcurrency)))
+            .map(item -> {
+                item.put("completed", completed.incrementAndGet());
+                item.put("total", ids.size());
+                return item;
+            });
+    }
+
+    private List<UUID> applicantCvIds(UUID jobId) {
+        try {
+            List<UUID> ids = jobServiceClient.getJobApplicantCvIds(jobId);
+            return ids == null ? List.of() : ids;
+        } catch (FeignException e) {
+            if (e.status() == 403) {
+                throw new AccessDeniedException("Job does not belong to you: " + jobId);
+            }
+            if (e.status() == 404 || e.status() == 400) {
+                throw new IllegalArgumentException("Job not found: " + jobId);
+            }
+            throw new RuntimeException("Could not load applicants of job " + jobId + ": " + e.getMessage());
+        }
+    }
+
+    private Map<UUID, CVDTO> loadCVs(List<UUID> ids) {
+        try {
+            return userServiceClient.getCVsByIds(ids).stream()
+                .collect(Collectors.toMap(CVDTO::getId, Function.identity(), (a, b) -> a));
+        } catch (FeignException e) {
+            if (e.status() != 404 && e.status() != 405) {
+                // Outage or overload: N single calls would only add to it
+                log.warn("Batch CV lookup failed ({}), {} CVs left out: {}", e.status(), ids.size(), e.getMessage());
+                return Map.of();
+            }
+            // Older user-service without the batch endpoint
+            log.warn("Batch CV lookup not available, loading {} CVs one by one: {}", ids.size(), e.getMessage());
+            Map<UUID, CVDTO> cvs = new HashMap<>();
+            for (UUID id : ids) {
+                try {
+                    CVDTO cv = userServiceClient.getCVById(id);
+                    if (cv != null) cvs.put(id, cv);
+                } catch (Exception ex) {
+                    log.debug("CV {} not found: {}", id, ex.getMessage());
+                }
+            }
+            return cvs;
+        } catch (Exception e) {
+            log.warn("Batch CV lookup failed, {} CVs left out: {}", ids.size(), e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private Mono<Map<String, Object>> analyzeOne(int index, UUID cvId, CVDTO cv, boolean reuseExisting) {
+        if (cv == null) {
+            return Mono.just(item(index, cvId, null, null, "CV not found"));
+        }
+        if (reuseExisting && cv.getAiAnalysis() != null && !cv.getAiAnalysis().isEmpty() && !cv.getAiAnalysis().containsKey("error")) {
+            return Mono.just(item(index, cvId, "stored", cv.getAiAnalysis(), null));
+        }
+        if (cv.getExtractedContent() != null && !cv.getExtractedContent().isBlank()) {
+            return analyzeText(index, cvId, "text", cv.getExtractedContent());
+        }
+        return analyzeFile(index, cv);
+    }
+
+    private Mono<Map<String, Object>> analyzeText(int index, UUID cvId, String source, String text) {
+        return aiService.analyzeCVReactive(text)
+            .map(result -> {
+                if (!result.containsKey("error")) {
+                    indexInBackground(cvId, text);
+                    return item(index, cvId, source, result, null);
+                }
+                return item(index, cvId, source, null, String.valueOf(result.get("error")));
+            })
+            .onErrorResume(e -> Mono.just(item(index, cvId, source, null, e.getMessage())));
+    }
+
+    /**
+     * Stream the download to a temp file, analyze its text; send the file only when it has no text
+     */
+    private Mono<Map<String, Object>> analyzeFile(int index, CVDTO cv) {
+        UUID cvId = cv.getId();
+        return Mono.using(
+                () -> download(cv),
+                file -> Mono.fromCallable(() -> CVTextExtractor.extractText(file.path(), file.contentType(), cv.getFileName()))
+                    .flatMap(text -> !text.isBlank()
+                        ? analyzeText(index, cvId, "file-text", text)
+                        : analyzeBinary(index, cv, file)),
+                file -> {
+                    try {
+                        Files.deleteIfExists(file.path());
+                    } catch (Exception e) {
+                        log.debug("Could not delete temp file {}: {}", file.path(), e.getMessage());
+                    }
+                })
+            .subscribeOn(Schedulers.boundedElastic())
+            .onErrorResume(e -> Mono.just(item(index, cvId, "file", null, e.getMessage())));
+    }
+
+    private Mono<Map<String, Object>> analyzeBinary(int index, CVDTO cv, SpooledFile file) {
+        return Mono.fromCallable(() -> {
+                long size = Files.size(file.path());
+                if (size > maxInlineBytes) {
+                    throw new RuntimeException("CV has no extractable text and is too large to send (" + size + " bytes)");
+                }
+                return Files.readAllBytes(file.path());
+            })
+            .flatMap(bytes -> aiService.analyzeCVReactive(CVTextExtractor.mimeTypeOf(file.contentType(), cv.getFileName()), bytes))
+            .map(result -> result.containsKey("error")
+                ? item(index, cv.getId(), "file", null, String.valueOf(result.get("error")))
+                : item(index, cv.getId(), "file", result, null));
+    }
+
+    private SpooledFile download(CVDTO cv) throws Exception {
+        try (feign.Response response = userServiceClient.downloadCV(cv.getId())) {
+            if (response.status() != 200 || response.body() == null) {
+                throw new RuntimeException("CV file download failed with status " + response.status());
+            }
+            String contentType = Optional.ofNullable(response.headers().get("Content-Type"))
+                .flatMap(values -> values.stream().findFirst())
+                .orElse(cv.getFileType());
+            Path path = CVTextExtractor.spool(response.body().asInputStream(), maxFileBytes);
+            return new SpooledFile(path, contentType);
+        }
+    }
+
+    private void indexInBackground(UUID cvId, String text) {
+        Mono.fromRunnable(() -> vectorDBService.storeCV(cvId.toString(), text))
+            .subscribeOn(Schedulers.boundedElastic())
+            .subscribe(null, e -> log.warn("Could not index CV {}: {}", cvId, e.getMessage()));
+    }
+
+    private Map<String, Object> item(int index, UUID cvId, String source, Map<String, Object> result, String error) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("index", index);
+        item.put("cvId", cvId);
+        item.put("status", error == null ? "COMPLETED" : "FAILED");
+        if (source != null) item.put("source", source);
+        if (result != null) item.put("result", result);
+        if (error != null) item.put("error", error);
+        return item;
+    }
+
+    private record SpooledFile(Path path, String contentType) {
+    }
+}
@@ -0,0 +1,248 @@
+package vn.careermate.aiservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.careermate.aiservice.model.CVAnalysisJob;
+import vn.careermate.aiservice.model.CVAnalysisJob.JobStatus;
+import vn.careermate.aiservice.repository.CVAnalysisJobRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Durable CV analysis queue
+ * Jobs are rows in aiservice.cv_analysis_jobs, so they survive restarts. A poller claims due jobs
+ * (FOR UPDATE SKIP LOCKED) for a fixed worker pool; failed attempts are retried with exponential backoff.
+ */
+@Slf4j
+@Service
+public class CVAnalysisQueueService {
+
+    @Value("${ai.analysis-queue.workers:4}")
+    private int workers;
+
+    @Value("${ai.analysis-queue.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${ai.analysis-queue.backoff-base-ms:5000}")
+    private long backoffBaseMs;
+
+    @Value("${ai.analysis-queue.backoff-max-ms:600000}")
+    private long backoffMaxMs;
+
+    @Value("${ai.analysis-queue.lease-timeout-ms:600000}")
+    private long leaseTimeoutMs;
+
+    private final CVAnalysisJobRepository jobRepository;
+    private final AIService aiService;
+    private final VectorDBService vectorDBService;
+    private final JobRecommendationService recommendationService;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private ExecutorService executor;
+
+    public CVAnalysisQueueService(CVAnalysisJobRepository jobRepository,
+                                  AIService aiService,
+                                  VectorDBService vectorDBService,
+                                  JobRecommendationService recommendationService,
+                                  PlatformTransactionManager transactionManager) {
+        this.jobRepository = jobRepository;
+        this.aiService = aiService;
+        this.vectorDBService = vectorDBService;
+        this.recommendationService = recommendationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, workers), runnable -> {
+            Thread thread = new Thread(runnable, "cv-analysis-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("CV analysis queue started with {} workers (max attempts: {})", workers, maxAttempts);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Running jobs stay RUNNING and are picked up again once their lease expires
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queue an analysis for the CV; a job still waiting for the same CV is updated instead of duplicated
+     */
+    @Transactional
+    public CVAnalysisJob enqueue(UUID cvId, String cvContent) {
+        CVAnalysisJob job = jobRepository.findFirstByCvIdAndStatus(cvId, JobStatus.PENDING)
+            .orElseGet(() -> CVAnalysisJob.builder().cvId(cvId).build());
+        job.setCvContent(cvContent);
+        job.setAttempts(0);
+        job.setLastError(null);
+        job.setNextAttemptAt(LocalDateTime.now());
+        job = jobRepository.save(job);
+        log.info("Queued CV analysis job {} for CV {}", job.getId(), cvId);
+        return job;
+    }
+
+    /**
+     * Latest analysis job for the CV (pending, running or finished)
+     */
+    @Transactional(readOnly = true)
+    public Optional<CVAnalysisJob> getLatestJob(UUID cvId) {
+        return jobRepository.findFirstByCvIdOrderByCreatedAtDesc(cvId);
+    }
+
+    /**
+     * Status view of a job for the polling endpoint
+     */
+    public Map<String, Object> describe(CVAnalysisJob job) {
+        Map<String, Object> status = new HashMap<>();
+        status.put("jobId", job.getId());
+        status.put("cvId", job.getCvId());
+        status.put("status", job.getStatus());
+        status.put("attempts", job.getAttempts());
+        status.put("createdAt", job.getCreatedAt());
+        status.put("completedAt", job.getCompletedAt());
+        if (job.getStatus() == JobStatus.PENDING && job.getAttempts() > 0) {
+            status.put("nextAttemptAt", job.getNextAttemptAt());
+        }
+        if (job.getResult() != null) {
+            status.put("result", job.getResult());
+        }
+        if (job.getLastError() != null) {
+            status.put("error", job.getLastError());
+        }
+        return status;
+    }
+
+    public Map<String, Object> getQueueStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (JobStatus status : JobStatus.values()) {
+            stats.put(status.name().toLowerCase(), jobRepository.countByStatus(status));
+        }
+        stats.put("activeWorkers", activeWorkers.get());
+        stats.put("workers", workers);
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${ai.analysis-queue.poll-interval-ms:1000}")
+    public void poll() {
+        int free = Math.max(1, workers) - activeWorkers.get();
+        if (free <= 0) {
+            return;
+        }
+
+        List<CVAnalysisJob> claimed;
+        try {
+            claimed = transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                int released = jobRepository.releaseStale(JobStatus.PENDING, JobStatus.RUNNING,
+                    now.minusNanos(leaseTimeoutMs * 1_000_000));
+                if (released > 0) {
+                    log.warn("Released {} CV analysis jobs with expired lease", released);
+                }
+
+                List<CVAnalysisJob> due = jobRepository.findDueForUpdate(now, free);
+                for (CVAnalysisJob job : due) {
+                    job.setStatus(JobStatus.RUNNING);
+                    job.setLockedAt(now);
+                    job.setAttempts(job.getAttempts() + 1);
+                }
+                return jobRepository.saveAll(due);
+            });
+        } catch (Exception e) {
+            log.error("Error claiming CV analysis jobs: {}", e.getMessage());
+            return;
+        }
+
+        for (CVAnalysisJob job : claimed) {
+            activeWorkers.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    process(job);
+                } finally {
+                    activeWorkers.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private void process(CVAnalysisJob job) {
+        String content = job.getCvContent();
+        if (content == null || content.trim().isEmpty()) {
+            finish(job, JobStatus.FAILED, null, "CV content is empty");
+            return;
+        }
+
+        Map<String, Object> result;
+        try {
+            result = aiService.analyzeCV(content);
+        } catch (Exception e) {
+            result = Map.of("error", String.valueOf(e.getMessage()));
+        }
+
+        if (result == null || result.containsKey("error")) {
+            String error = result != null ? String.valueOf(result.get("error")) : "Empty analysis result";
+            if (job.getAttempts() >= maxAttempts) {
+                log.error("CV analysis for CV {} failed after {} attempts: {}", job.getCvId(), job.getAttempts(), error);
+                finish(job, JobStatus.FAILED, null, error);
+            } else {
+                long delay = backoffDelayMs(job.getAttempts());
+                log.warn("CV analysis for CV {} failed (attempt {}), retrying in {}ms: {}",
+                    job.getCvId(), job.getAttempts(), delay, error);
+                job.setNextAttemptAt(LocalDateTime.now().plusNanos(delay * 1_000_000));
+                finish(job, JobStatus.PENDING, null, error);
+            }
+            return;
+        }
+
+        finish(job, JobStatus.COMPLETED, result, null);
+        log.info("CV analysis completed for CV: {}", job.getCvId());
+
+        // Keep the vector index in sync so job matching can find this CV
+        try {
+            vectorDBService.storeCV(job.getCvId().toString(), content);
+        } catch (Exception e) {
+            log.warn("Could not index CV {}: {}", job.getCvId(), e.getMessage());
+        }
+        recommendationService.onCVChanged(job.getCvId(), content);
+    }
+
+    private void finish(CVAnalysisJob job, JobStatus status, Map<String, Object> result, String error) {
+        job.setStatus(status);
+        job.setLockedAt(null);
+        job.setLastError(error);
+        if (result != null) {
+            job.setResult(result);
+        }
+        if (status == JobStatus.COMPLETED || status == JobStatus.FAILED) {
+            job.setCompletedAt(LocalDateTime.now());
+        }
+        try {
+            jobRepository.save(job);
+        } catch (Exception e) {
+            // The lease expires and the job is retried
+            log.error("Could not save CV analysis job {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    private long backoffDelayMs(int attempts) {
+        long delay = backoffBaseMs << Math.min(Math.max(0, attempts - 1), 20);
+        delay = Math.min(delay, backoffMaxMs);
+        // Jitter so jobs that failed together (e.g. provider outage) do not retry in lockstep
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+}
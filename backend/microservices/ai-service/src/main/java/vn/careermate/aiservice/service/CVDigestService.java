@@ -0,0 +1,205 @@
+package vn.careermate.aiservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import vn.careermate.aiservice.util.TokenEstimator;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Compact CV digests for prompts
+ * A CV is split once into sections (skills, experience, projects, ...), boilerplate such as contact
+ * details, personal info and references is dropped, and the result is cached by content hash.
+ * Prompts then take the digest fitted to their token budget, most relevant sections first,
+ * instead of cutting the raw text at a fixed character count.
+ */
+@Slf4j
+@Service
+public class CVDigestService {
+
+    @Value("${ai.prompt.digest-cache.max-entries:2000}")
+    private int maxCachedEntries;
+
+    /**
+     * Section kinds in the order they are kept when the budget is tight
+     */
+    public enum Section {
+        SKILLS, EXPERIENCE, PROJECTS, SUMMARY, EDUCATION, CERTIFICATIONS, OTHER
+    }
+
+    private static final Map<Section, Pattern> HEADINGS = new EnumMap<>(Section.class);
+
+    static {
+        HEADINGS.put(Section.SKILLS, heading("kỹ năng|ky nang|skills?|technical skills|công nghệ|technologies|tech stack"));
+        HEADINGS.put(Section.EXPERIENCE, heading("kinh nghiệm( làm việc)?|kinh nghiem|(work )?experience|employment( history)?|quá trình công tác"));
+        HEADINGS.put(Section.PROJECTS, heading("dự án|du an|projects?"));
+        HEADINGS.put(Section.SUMMARY, heading("mục tiêu( nghề nghiệp)?|giới thiệu( bản thân)?|tóm tắt|objective|summary|profile|about me"));
+        HEADINGS.put(Section.EDUCATION, heading("học vấn|hoc van|education|trình độ học vấn"));
+        HEADINGS.put(Section.CERTIFICATIONS, heading("chứng chỉ|chung chi|certifications?|giải thưởng|awards?|thành tích|achievements?"));
+    }
+
+    // Sections that never help a model judge a candidate
+    private static final Pattern DROPPED_HEADING = heading(
+        "thông tin cá nhân|liên hệ|contact( info(rmation)?)?|personal (info(rmation)?|details)|sở thích|hobbies|interests|người tham chiếu|references?");
+
+    private static final Pattern CONTACT_LINE = Pattern.compile(
+        "(?iu).*([\\w.+-]+@[\\w-]+\\.[\\w.]+|(?<![\\d.])(\\+84|0)\\d{2,3}[ .-]?\\d{3}[ .-]?\\d{3,4}(?!\\d)"
+            + "|linkedin\\.com|facebook\\.com).*");
+
+    private static final Pattern PERSONAL_FIELD = Pattern.compile(
+        "(?iu)^(địa chỉ|address|ngày sinh|date of birth|dob|giới tính|gender|tình trạng hôn nhân|marital status|quốc tịch|nationality)\\s*[:：].*");
+
+    private final Map<String, Map<Section, String>> cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Map<Section, String>> eldest) {
+            return size() > Math.max(1, maxCachedEntries);
+        }
+    });
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        log.info("CV digest cache: max {} entries", maxCachedEntries);
+    }
+
+    /**
+     * CV digest fitted to maxTokens, all sections in priority order
+     */
+    public String digest(String cvContent, int maxTokens) {
+        return digest(cvContent, maxTokens, EnumSet.allOf(Section.class));
+    }
+
+    /**
+     * CV digest fitted to maxTokens using only the given sections (e.g. skills and experience for matching)
+     */
+    public String digest(String cvContent, int maxTokens, Set<Section> include) {
+        if (cvContent == null || cvContent.isBlank()) {
+            return "";
+        }
+        Map<Section, String> sections = sections(cvContent);
+
+        List<Map.Entry<Section, String>> parts = new ArrayList<>();
+        for (Section section : Section.values()) {
+            String text = sections.get(section);
+            if (text != null && include.contains(section)) {
+                parts.add(Map.entry(section, text));
+            }
+        }
+        if (parts.isEmpty()) {
+            // Nothing recognised: the cleaned text is the digest
+            String other = sections.getOrDefault(Section.OTHER, "");
+            return TokenEstimator.truncate(other, maxTokens);
+        }
+
+        // Higher-priority sections get their full text first; later ones share what is left
+        StringBuilder digest = new StringBuilder();
+        int remaining = maxTokens;
+        for (int i = 0; i < parts.size() && remaining > 20; i++) {
+            Map.Entry<Section, String> part = parts.get(i);
+            String label = "[" + part.getKey().name() + "]\n";
+            int budget = remaining - TokenEstimator.estimate(label);
+            // Leave room for the sections still to come
+            int sectionsLeft = parts.size() - i - 1;
+            if (sectionsLeft > 0 && TokenEstimator.estimate(part.getValue()) > budget) {
+                budget = budget * 2 / 3;
+            }
+            String text = TokenEstimator.truncate(part.getValue(), budget);
+            if (text.isEmpty()) continue;
+            digest.append(label).append(text).append("\n");
+            remaining -= TokenEstimator.estimate(label) + TokenEstimator.estimate(text);
+        }
+        return digest.toString().trim();
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "entries", cache.size(),
+            "hits", hits.get(),
+            "misses", misses.get()
+        );
+    }
+
+    private Map<Section, String> sections(String cvContent) {
+        String key = hash(cvContent);
+        Map<Section, String> cached = cache.get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        Map<Section, String> parsed = split(cvContent);
+        cache.put(key, parsed);
+        return parsed;
+    }
+
+    /**
+     * One pass over the lines: headings switch the current section, boilerplate and duplicate lines are skipped
+     */
+    private Map<Section, String> split(String cvContent) {
+        Map<Section, StringBuilder> builders = new EnumMap<>(Section.class);
+        Set<String> seen = new HashSet<>();
+        Section current = Section.OTHER;
+        boolean dropping = false;
+
+        for (String rawLine : cvContent.split("\\R")) {
+            String line = rawLine.replaceAll("[\\s\\u00A0]+", " ").trim();
+            if (line.isEmpty()) continue;
+
+            if (line.length() <= 60) {
+                if (DROPPED_HEADING.matcher(line).matches()) {
+                    dropping = true;
+                    continue;
+                }
+                Section heading = headingOf(line);
+                if (heading != null) {
+                    current = heading;
+                    dropping = false;
+                    continue;
+                }
+            }
+            if (dropping || CONTACT_LINE.matcher(line).matches() || PERSONAL_FIELD.matcher(line).matches()) continue;
+            if (!seen.add(line.toLowerCase(Locale.ROOT))) continue;
+
+            builders.computeIfAbsent(current, s -> new StringBuilder()).append(line).append('\n');
+        }
+
+        Map<Section, String> sections = new EnumMap<>(Section.class);
+        builders.forEach((section, text) -> sections.put(section, text.toString().trim()));
+        return Collections.unmodifiableMap(sections);
+    }
+
+    private Section headingOf(String line) {
+        for (Map.Entry<Section, Pattern> entry : HEADINGS.entrySet()) {
+            if (entry.getValue().matcher(line).matches()) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    private static Pattern heading(String names) {
+        // Whole line is the heading, optionally numbered / decorated and followed by a colon
+        return Pattern.compile("(?iu)^[\\W\\d_]*(" + names + ")[\\s:：\\-–]*$");
+    }
+
+    private String hash(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(bytes.length * 2);
+            for (byte b : bytes) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (Exception e) {
+            return Integer.toHexString(content.hashCode()) + ":" + content.length();
+        }
+    }
+}
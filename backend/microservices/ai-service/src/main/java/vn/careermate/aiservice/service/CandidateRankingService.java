@@ -0,0 +1,221 @@
+package vn.careermate.aiservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import vn.careermate.aiservice.util.LenientJsonExtractor;
+import vn.careermate.aiservice.util.TokenEstimator;
+import vn.careermate.common.dto.CVDTO;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Scores candidates for a job with the AI provider
+ * Packs several CVs into one prompt and runs batches concurrently (bounded by ai.ranking.max-concurrency)
+ * Candidates the AI could not score (failed batch or missing from the answer) get a keyword-overlap
+ * score instead, marked "scoredBy": "heuristic", so nobody drops out of the ranking.
+ */
+@Slf4j
+@Service
+public class CandidateRankingService {
+
+    @Value("${ai.ranking.batch-size:15}")
+    private int batchSize;
+
+    @Value("${ai.ranking.max-concurrency:4}")
+    private int maxConcurrency;
+
+    @Value("${ai.prompt.cv-match-tokens:350}")
+    private int cvMatchTokens;
+
+    @Value("${ai.prompt.job-tokens:400}")
+    private int jobTokens;
+
+    private final AIService aiService;
+    private final CVDigestService cvDigestService;
+    private ExecutorService executor;
+
+    public CandidateRankingService(AIService aiService, CVDigestService cvDigestService) {
+        this.aiService = aiService;
+        this.cvDigestService = cvDigestService;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, maxConcurrency), runnable -> {
+            Thread thread = new Thread(runnable, "candidate-ranking-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Rank all candidates and return the full list sorted by score descending
+     */
+    public List<Map<String, Object>> rankCandidates(String jobDescription, List<CVDTO> cvs) {
+        return rankCandidatesAsync(jobDescription, cvs, partial -> { }).join();
+    }
+
+    /**
+     * Rank candidates batch by batch
+     * onProgress receives the merged ranking so far (sorted) each time a batch completes
+     */
+    public CompletableFuture<List<Map<String, Object>>> rankCandidatesAsync(
+            String jobDescription, List<CVDTO> cvs, Consumer<List<Map<String, Object>>> onProgress) {
+        if (cvs == null || cvs.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        List<CVDTO> candidates = cvs.stream()
+            .filter(cv -> cv.getExtractedContent() != null && !cv.getExtractedContent().isBlank())
+            .collect(Collectors.toList());
+        int size = Math.max(1, batchSize);
+        log.info("Ranking {} candidates for job in batches of {}", candidates.size(), size);
+
+        String job = TokenEstimator.truncate(jobDescription, jobTokens);
+        List<Map<String, Object>> ranking = new ArrayList<>();
+        List<CompletableFuture<List<Map<String, Object>>>> scoring = new ArrayList<>();
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+
+        for (int start = 0; start < candidates.size(); start += size) {
+            List<CVDTO> batch = candidates.subList(start, Math.min(start + size, candidates.size()));
+            CompletableFuture<List<Map<String, Object>>> scored = CompletableFuture.supplyAsync(() -> scoreBatch(job, batch), executor);
+            scoring.add(scored);
+            batches.add(scored
+                .exceptionally(e -> {
+                    if (scored.isCancelled()) {
+                        return Collections.emptyList();
+                    }
+                    log.error("Error scoring batch of {} candidates, using keyword scores: {}", batch.size(), e.getMessage());
+                    return heuristicScores(job, batch);
+                })
+                .thenAccept(scored -> {
+                    List<Map<String, Object>> snapshot;
+                    synchronized (ranking) {
+                        ranking.addAll(scored);
+                        ranking.sort(BY_SCORE_DESC);
+                        snapshot = new ArrayList<>(ranking);
+                    }
+                    try {
+                        onProgress.accept(snapshot);
+                    } catch (Exception e) {
+                        log.warn("Ranking progress listener failed: {}", e.getMessage());
+                    }
+                }));
+        }
+
+        CompletableFuture<List<Map<String, Object>>> result = CompletableFuture.allOf(batches.toArray(new CompletableFuture[0]))
+            .thenApply(done -> {
+                synchronized (ranking) {
+                    return new ArrayList<>(ranking);
+                }
+            });
+        // Cancelling the result (stream timed out or client gone) skips the batches that have not started yet
+        result.whenComplete((done, error) -> {
+            if (result.isCancelled()) {
+                scoring.forEach(batch -> batch.cancel(false));
+            }
+        });
+        return result;
+    }
+
+    private List<Map<String, Object>> scoreBatch(String jobDescription, List<CVDTO> batch) {
+        StringBuilder candidates = new StringBuilder();
+        for (int i = 0; i < batch.size(); i++) {
+            // Skills / experience digest instead of the first N characters of each CV
+            String content = cvDigestService.digest(batch.get(i).getExtractedContent(), cvMatchTokens,
+                AIService.MATCHING_SECTIONS);
+            candidates.append("[Ứng viên ").append(i + 1).append("]\n")
+                .append(content)
+                .append("\n\n");
+        }
+
+        String prompt = String.format(
+            "Bạn là chuyên gia tuyển dụng. Hãy chấm điểm mức độ phù hợp (0-100) của từng ứng viên dưới đây cho vị trí công việc sau.\n\n" +
+            "Mô tả công việc:\n%s\n\n" +
+            "Danh sách %d ứng viên:\n%s" +
+            "Trả về CHỈ một mảng JSON, mỗi ứng viên một phần tử, theo cấu trúc:\n" +
+            "[{\"index\": số thứ tự ứng viên, \"score\": số nguyên 0-100, \"reason\": \"lý do ngắn gọn\"}]",
+            jobDescription, batch.size(), candidates
+        );
+
+        String response = aiService.callAIAPIDeterministic(prompt);
+        List<Map<String, Object>> results = new ArrayList<>();
+        // A cut-off array still yields the candidates scored before the break
+        Object root = LenientJsonExtractor.parse(response);
+        List<Map<String, Object>> items = root instanceof Map<?, ?> map
+            ? LenientJsonExtractor.objects(map.get("candidates"))
+            : LenientJsonExtractor.objects(root);
+        Set<Integer> seen = new HashSet<>();
+        for (Map<String, Object> item : items) {
+            int index = LenientJsonExtractor.getInt(item, "index", 0);
+            if (index < 1 || index > batch.size() || !seen.add(index)) continue;
+
+            CVDTO cv = batch.get(index - 1);
+            Map<String, Object> result = new HashMap<>();
+            result.put("cvId", cv.getId());
+            result.put("score", Math.max(0, Math.min(100, LenientJsonExtractor.getInt(item, "score", 0))));
+            result.put("reason", LenientJsonExtractor.getString(item, "reason", ""));
+            result.put("name", cv.getFileName()); // In reality, fetch user name
+            result.put("scoredBy", "ai");
+            results.add(result);
+        }
+
+        if (results.size() < batch.size()) {
+            log.warn("AI returned scores for {} of {} candidates, using keyword scores for the rest", results.size(), batch.size());
+            List<CVDTO> missing = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                if (!seen.contains(i + 1)) missing.add(batch.get(i));
+            }
+            results.addAll(heuristicScores(jobDescription, missing));
+        }
+        return results;
+    }
+
+    /**
+     * Share of the job's distinct words (3+ letters) that appear in the CV, as 0-100
+     */
+    private List<Map<String, Object>> heuristicScores(String jobDescription, List<CVDTO> cvs) {
+        Set<String> jobWords = words(jobDescription);
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (CVDTO cv : cvs) {
+            Set<String> cvWords = words(cv.getExtractedContent());
+            long matched = jobWords.stream().filter(cvWords::contains).count();
+            int score = jobWords.isEmpty() ? 0 : (int) Math.round(100.0 * matched / jobWords.size());
+            Map<String, Object> result = new HashMap<>();
+            result.put("cvId", cv.getId());
+            result.put("score", score);
+            result.put("reason", "Chấm điểm tự động theo từ khóa (AI không phản hồi): khớp " + matched + "/" + jobWords.size() + " từ khóa");
+            result.put("name", cv.getFileName());
+            result.put("scoredBy", "heuristic");
+            results.add(result);
+        }
+        return results;
+    }
+
+    private static Set<String> words(String text) {
+        Set<String> words = new HashSet<>();
+        if (text == null) return words;
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}+#]+")) {
+            if (word.length() >= 3) words.add(word);
+        }
+        return words;
+    }
+
+    private static final Comparator<Map<String, Object>> BY_SCORE_DESC =
+        (a, b) -> ((Integer) b.get("score")).compareTo((Integer) a.get("score"));
+}
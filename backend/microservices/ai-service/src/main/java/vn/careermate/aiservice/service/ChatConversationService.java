@@ -0,0 +1,327 @@
+package vn.careermate.aiservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import vn.careermate.aiservice.model.AIChatConversation;
+import vn.careermate.aiservice.model.AIChatMessage;
+import vn.careermate.aiservice.repository.AIChatConversationRepository;
+import vn.careermate.aiservice.repository.AIChatMessageRepository;
+import vn.careermate.aiservice.util.TokenEstimator;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persistent AI chat (aiservice.ai_chat_conversations / ai_chat_messages)
+ * The prompt for a new message is: role instructions + conversation summary + the most recent turns
+ * that fit in ai.chat.window-tokens + the message. Turns pushed out of the window are folded into the
+ * summary by a background AI call, so the prompt stays bounded however long the conversation gets.
+ * The window and summary of active conversations are kept in an LRU cache; Postgres is only read
+ * when a conversation is not cached.
+ */
+@Slf4j
+@Service
+public class ChatConversationService {
+
+    private static final String USER = "user";
+    private static final String ASSISTANT = "assistant";
+
+    @Value("${ai.chat.window-tokens:1500}")
+    private int windowTokens;
+
+    @Value("${ai.chat.summary-tokens:300}")
+    private int summaryTokens;
+
+    @Value("${ai.chat.message-tokens:1000}")
+    private int messageTokens;
+
+    @Value("${ai.chat.cache.max-conversations:1000}")
+    private int maxCachedConversations;
+
+    private final AIService aiService;
+    private final AIChatConversationRepository conversationRepository;
+    private final AIChatMessageRepository messageRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<UUID, ConversationState> cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, ConversationState> eldest) {
+            return size() > Math.max(1, maxCachedConversations);
+        }
+    });
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ChatConversationService(AIService aiService,
+                                   AIChatConversationRepository conversationRepository,
+                                   AIChatMessageRepository messageRepository,
+                                   PlatformTransactionManager transactionManager) {
+        this.aiService = aiService;
+        this.conversationRepository = conversationRepository;
+        this.messageRepository = messageRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public AIChatConversation createConversation(UUID ownerId, String role, String context, String title) {
+        AIChatConversation conversation = conversationRepository.save(AIChatConversation.builder()
+            .studentId(ownerId)
+            .role(role != null && !role.isBlank() ? role.toUpperCase() : "STUDENT")
+            .context(context)
+            .conversationTitle(title)
+            .build());
+        // Nothing to load for a new conversation
+        cache.put(conversation.getId(), new ConversationState(conversation));
+        return conversation;
+    }
+
+    public List<AIChatConversation> getConversations(UUID ownerId) {
+        return conversationRepository.findByStudentIdOrderByCreatedAtDesc(ownerId);
+    }
+
+    public List<AIChatMessage> getMessages(UUID conversationId, UUID ownerId) {
+        findOwned(conversationId, ownerId);
+        return messageRepository.findByConversationIdOrderByCreatedAtAsc(conversationId);
+    }
+
+    public void deleteConversation(UUID conversationId, UUID ownerId) {
+        transactionTemplate.executeWithoutResult(status -> conversationRepository.delete(findOwned(conversationId, ownerId)));
+        cache.remove(conversationId);
+    }
+
+    /**
+     * Answer a message in the conversation and persist both turns
+     */
+    public Mono<Map<String, Object>> sendMessage(UUID conversationId, UUID ownerId, String message) {
+        if (message == null || message.isBlank()) {
+            return Mono.error(new RuntimeException("Message is required"));
+        }
+        String text = TokenEstimator.truncate(message.trim(), messageTokens);
+
+        return Mono.fromCallable(() -> state(conversationId, ownerId))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(state -> {
+                String prompt = buildPrompt(state, text);
+                return aiService.callAIAPIAsync(prompt)
+                    .publishOn(Schedulers.boundedElastic())
+                    .map(answer -> record(state, text, prompt, answer));
+            });
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "cachedConversations", cache.size(),
+            "hits", hits.get(),
+            "misses", misses.get()
+        );
+    }
+
+    private Map<String, Object> record(ConversationState state, String message, String prompt, String answer) {
+        int promptTokens = TokenEstimator.estimate(prompt);
+        int answerTokens = TokenEstimator.estimate(answer);
+
+        AIChatMessage[] saved = transactionTemplate.execute(status -> {
+            AIChatConversation conversation = conversationRepository.findById(state.id)
+                .orElseThrow(() -> new RuntimeException("Conversation not found"));
+            if (conversation.getConversationTitle() == null || conversation.getConversationTitle().isBlank()) {
+                conversation.setConversationTitle(message.length() > 60 ? message.substring(0, 60).trim() + "..." : message);
+                conversationRepository.save(conversation);
+            }
+            AIChatMessage question = messageRepository.save(AIChatMessage.builder()
+                .conversation(conversation)
+                .role(USER)
+                .message(message)
+                .tokensUsed(TokenEstimator.estimate(message))
+                .build());
+            AIChatMessage reply = messageRepository.save(AIChatMessage.builder()
+                .conversation(conversation)
+                .role(ASSISTANT)
+                .message(answer)
+                .tokensUsed(promptTokens + answerTokens)
+                .build());
+            return new AIChatMessage[]{question, reply};
+        });
+
+        synchronized (state) {
+            state.append(new Turn(USER, message, saved[0].getCreatedAt()));
+            state.append(new Turn(ASSISTANT, answer, saved[1].getCreatedAt()));
+        }
+        summarizeOverflow(state);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("conversationId", state.id);
+        result.put("messageId", saved[1].getId());
+        result.put("response", answer);
+        result.put("promptTokens", promptTokens);
+        result.put("tokensUsed", promptTokens + answerTokens);
+        return result;
+    }
+
+    private String buildPrompt(ConversationState state, String message) {
+        StringBuilder prompt = new StringBuilder(aiService.chatSystemPrompt(state.role));
+        synchronized (state) {
+            if (state.context != null && !state.context.isBlank()) {
+                prompt.append("\n\nNgữ cảnh: ").append(state.context);
+            }
+            if (state.summary != null && !state.summary.isBlank()) {
+                prompt.append("\n\nTóm tắt cuộc trò chuyện trước đó:\n").append(state.summary);
+            }
+            if (!state.window.isEmpty()) {
+                prompt.append("\n\nCác lượt trao đổi gần đây:\n");
+                for (Turn turn : state.window) {
+                    prompt.append(USER.equals(turn.role()) ? "Người dùng: " : "Trợ lý: ").append(turn.text()).append("\n");
+                }
+            }
+        }
+        return prompt.append("\n\nCâu hỏi của người dùng: ").append(message).toString();
+    }
+
+    /**
+     * Fold turns that left the window into the summary; one summarization per conversation at a time
+     */
+    private void summarizeOverflow(ConversationState state) {
+        List<Turn> batch;
+        String previous;
+        synchronized (state) {
+            if (state.summarizing || state.overflow.isEmpty()) {
+                return;
+            }
+            state.summarizing = true;
+            batch = new ArrayList<>(state.overflow);
+            previous = state.summary;
+        }
+
+        StringBuilder turns = new StringBuilder();
+        for (Turn turn : batch) {
+            turns.append(USER.equals(turn.role()) ? "Người dùng: " : "Trợ lý: ").append(turn.text()).append("\n");
+        }
+        String prompt = "Hãy cập nhật bản tóm tắt cuộc trò chuyện giữa người dùng và trợ lý tư vấn nghề nghiệp. " +
+            "Giữ lại thông tin quan trọng về người dùng (mục tiêu, kỹ năng, kinh nghiệm, hoàn cảnh), các câu hỏi đã hỏi và " +
+            "các lời khuyên, kết luận chính. Chỉ trả về bản tóm tắt, tối đa 150 từ, bằng tiếng Việt.\n\n" +
+            "Tóm tắt hiện có:\n" + (previous != null && !previous.isBlank() ? previous : "Chưa có") + "\n\n" +
+            "Các lượt trao đổi mới:\n" + turns;
+
+        aiService.callAIAPIAsync(prompt)
+            .publishOn(Schedulers.boundedElastic())
+            .subscribe(
+                summary -> {
+                    String trimmed = TokenEstimator.truncate(summary.trim(), summaryTokens);
+                    LocalDateTime until = batch.get(batch.size() - 1).createdAt();
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> conversationRepository.findById(state.id)
+                            .ifPresent(conversation -> {
+                                conversation.setSummary(trimmed);
+                                conversation.setSummarizedUntil(until);
+                                conversationRepository.save(conversation);
+                            }));
+                    } catch (Exception e) {
+                        log.warn("Could not persist summary of conversation {}: {}", state.id, e.getMessage());
+                    }
+                    synchronized (state) {
+                        state.summary = trimmed;
+                        state.overflow.subList(0, Math.min(batch.size(), state.overflow.size())).clear();
+                        state.summarizing = false;
+                    }
+                    // More turns may have overflowed meanwhile
+                    summarizeOverflow(state);
+                },
+                error -> {
+                    log.warn("Summarizing conversation {} failed, will retry on the next message: {}", state.id, error.getMessage());
+                    synchronized (state) {
+                        state.summarizing = false;
+                    }
+                });
+    }
+
+    private ConversationState state(UUID conversationId, UUID ownerId) {
+        ConversationState state = cache.get(conversationId);
+        if (state == null) {
+            misses.incrementAndGet();
+            ConversationState loaded = load(conversationId);
+            ConversationState existing = cache.putIfAbsent(conversationId, loaded);
+            state = existing != null ? existing : loaded;
+        } else {
+            hits.incrementAndGet();
+        }
+        if (ownerId == null || !ownerId.equals(state.ownerId)) {
+            throw new RuntimeException("Không có quyền truy cập cuộc trò chuyện này");
+        }
+        return state;
+    }
+
+    /**
+     * Rebuild the window from the newest turns that are not yet in the summary
+     */
+    private ConversationState load(UUID conversationId) {
+        AIChatConversation conversation = conversationRepository.findById(conversationId)
+            .orElseThrow(() -> new RuntimeException("Conversation not found"));
+        List<AIChatMessage> recent = conversation.getSummarizedUntil() != null
+            ? messageRepository.findTop50ByConversationIdAndCreatedAtAfterOrderByCreatedAtDesc(conversationId, conversation.getSummarizedUntil())
+            : messageRepository.findTop50ByConversationIdOrderByCreatedAtDesc(conversationId);
+
+        ConversationState state = new ConversationState(conversation);
+        for (int i = recent.size() - 1; i >= 0; i--) {
+            AIChatMessage message = recent.get(i);
+            state.append(new Turn(message.getRole(), message.getMessage(), message.getCreatedAt()));
+        }
+        return state;
+    }
+
+    private AIChatConversation findOwned(UUID conversationId, UUID ownerId) {
+        AIChatConversation conversation = conversationRepository.findById(conversationId)
+            .orElseThrow(() -> new RuntimeException("Conversation not found"));
+        if (ownerId == null || !ownerId.equals(conversation.getStudentId())) {
+            throw new RuntimeException("Không có quyền truy cập cuộc trò chuyện này");
+        }
+        return conversation;
+    }
+
+    private record Turn(String role, String text, LocalDateTime createdAt) {
+        int tokens() {
+            return TokenEstimator.estimate(text);
+        }
+    }
+
+    /**
+     * Cached prompt memory of one conversation; guarded by its own monitor
+     */
+    private final class ConversationState {
+        final UUID id;
+        final UUID ownerId;
+        final String role;
+        final String context;
+        String summary;
+        final Deque<Turn> window = new ArrayDeque<>();
+        int windowUsed;
+        // Out of the window but not yet in the summary
+        final List<Turn> overflow = new ArrayList<>();
+        boolean summarizing;
+
+        ConversationState(AIChatConversation conversation) {
+            this.id = conversation.getId();
+            this.ownerId = conversation.getStudentId();
+            this.role = conversation.getRole();
+            this.context = conversation.getContext();
+            this.summary = conversation.getSummary();
+        }
+
+        void append(Turn turn) {
+            // A single oversized turn still leaves room for a few others
+            Turn fitted = turn.tokens() > windowTokens / 2
+                ? new Turn(turn.role(), TokenEstimator.truncate(turn.text(), windowTokens / 2), turn.createdAt())
+                : turn;
+            window.addLast(fitted);
+            windowUsed += fitted.tokens();
+            while (windowUsed > windowTokens && window.size() > 1) {
+                Turn evicted = window.removeFirst();
+                windowUsed -= evicted.tokens();
+                overflow.add(evicted);
+            }
+        }
+    }
+}
@@ -4,22 +4,36 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import vn.careermate.aiservice.model.EmbeddingCacheEntry;
+import vn.careermate.aiservice.repository.EmbeddingCacheRepository;
+import vn.careermate.aiservice.util.TokenEstimator;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service for generating embeddings using OpenRouter API
  * Used for Vector DB storage
- * Note: Embedding functionality is currently disabled - can be enabled when needed
+ *
+ * Vectors are cached write-through (memory LRU + aiservice.embedding_cache) by SHA-256 of
+ * model + normalized text. Cache misses are queued and sent as multi-input /embeddings requests
+ * (up to ai.embedding.batch-size texts, collected for at most ai.embedding.batch-window-ms).
  */
 @Slf4j
 @Service
 public class EmbeddingService {
 
+    private static final float[] EMPTY = new float[0];
+
     @Value("${ai.openrouter.api-key:}")
     private String openRouterApiKey;
 
@@ -29,92 +43,368 @@ public class EmbeddingService {
     @Value("${ai.openrouter.embedding-model:text-embedding-ada-002}")
     private String embeddingModel;
 
+    // Offline runs (ai.provider=stub): deterministic local vectors instead of the embeddings API
+    @Value("${ai.stub.embeddings:false}")
+    private boolean stubEmbeddings;
+
+    @Value("${ai.stub.embedding-dimensions:256}")
+    private int stubEmbeddingDimensions;
+
+    @Value("${ai.embedding.batch-size:64}")
+    private int batchSize;
+
+    @Value("${ai.embedding.batch-window-ms:20}")
+    private long batchWindowMs;
+
+    @Value("${ai.embedding.max-concurrency:2}")
+    private int maxConcurrency;
+
+    @Value("${ai.embedding.timeout-ms:30000}")
+    private long timeoutMs;
+
+    @Value("${ai.embedding.max-input-tokens:2000}")
+    private int maxInputTokens;
+
+    @Value("${ai.embedding.cache.max-entries:5000}")
+    private int maxCachedEntries;
+
     private final WebClient.Builder webClientBuilder;
+    private final EmbeddingCacheRepository embeddingCacheRepository;
 
-    public EmbeddingService(WebClient.Builder webClientBuilder) {
+    private WebClient webClient;
+    private Map<String, float[]> memoryCache;
+    private final Map<String, CompletableFuture<float[]>> inFlight = new ConcurrentHashMap<>();
+    private final BlockingQueue<PendingEmbedding> pending = new LinkedBlockingQueue<>();
+    private ExecutorService requestExecutor;
+    private Thread batcher;
+    private volatile boolean running;
+
+    public EmbeddingService(WebClient.Builder webClientBuilder, EmbeddingCacheRepository embeddingCacheRepository) {
         this.webClientBuilder = webClientBuilder;
-        // WebClient will be built per request with current API key
+        this.embeddingCacheRepository = embeddingCacheRepository;
     }
-    
-    private WebClient getWebClient() {
-        return webClientBuilder
-            .baseUrl("https://openrouter.ai/api/v1")
+
+    @PostConstruct
+    public void init() {
+        this.webClient = webClientBuilder
+            .baseUrl(openRouterBaseUrl)
             .defaultHeader("Content-Type", "application/json")
             .build();
+
+        int capacity = maxCachedEntries;
+        this.memoryCache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                return size() > capacity;
+            }
+        });
+
+        AtomicInteger counter = new AtomicInteger();
+        this.requestExecutor = Executors.newFixedThreadPool(Math.max(1, maxConcurrency), runnable -> {
+            Thread thread = new Thread(runnable, "embedding-request-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.running = true;
+        this.batcher = new Thread(this::runBatcher, "embedding-batcher");
+        this.batcher.setDaemon(true);
+        this.batcher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        batcher.interrupt();
+        requestExecutor.shutdownNow();
     }
 
     /**
      * Generate embedding for text content
      * @param text Text to embed
-     * @return List of floats representing the embedding vector
+     * @return Embedding vector, or an empty array if unavailable
+     */
+    public float[] generateEmbedding(String text) {
+        return generateEmbeddings(Collections.singletonList(text)).get(0);
+    }
+
+    /**
+     * Generate embeddings for many texts, in input order
+     * Cached vectors are returned directly; misses are sent in batched requests
      */
-    public List<Float> generateEmbedding(String text) {
+    public List<float[]> generateEmbeddings(List<String> texts) {
+        List<float[]> results = new ArrayList<>(Collections.nCopies(texts.size(), EMPTY));
+        if (texts.isEmpty()) {
+            return results;
+        }
+        if (stubEmbeddings) {
+            for (int i = 0; i < texts.size(); i++) {
+                results.set(i, StubAIProvider.embed(truncate(texts.get(i)), stubEmbeddingDimensions));
+            }
+            return results;
+        }
         if (openRouterApiKey == null || openRouterApiKey.isEmpty() || openRouterApiKey.equals("YOUR_OPENROUTER_API_KEY_HERE")) {
             log.warn("OpenRouter API key not configured for embeddings");
-            return new ArrayList<>();
+            return results;
         }
 
-        try {
-            // OpenRouter uses OpenAI-compatible embedding format
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", embeddingModel);
-            requestBody.put("input", text);
-
-            Map<String, Object> response = getWebClient().post()
-                .uri("/embeddings")
-                .header("Authorization", "Bearer " + openRouterApiKey)
-                .bodyValue(requestBody)
-                .retrieve()
-                .bodyToMono(Map.class)
-                .timeout(Duration.ofSeconds(10))
-                .block();
-
-            if (response != null && response.containsKey("data")) {
-                List<Map<String, Object>> data = (List<Map<String, Object>>) response.get("data");
-                if (data != null && !data.isEmpty()) {
-                    Map<String, Object> embeddingData = data.get(0);
-                    if (embeddingData.containsKey("embedding")) {
-                        List<Double> values = (List<Double>) embeddingData.get("embedding");
-                        List<Float> floatValues = new ArrayList<>();
-                        for (Double value : values) {
-                            floatValues.add(value.floatValue());
-                        }
-                        return floatValues;
-                    }
-                }
+        List<String> normalized = new ArrayList<>(texts.size());
+        List<String> keys = new ArrayList<>(texts.size());
+        Set<String> missing = new LinkedHashSet<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String text = normalize(texts.get(i));
+            String key = cacheKey(text);
+            normalized.add(text);
+            keys.add(key);
+            if (text.isEmpty()) continue;
+
+            float[] cached = memoryCache.get(key);
+            if (cached != null) {
+                results.set(i, cached);
+            } else {
+                missing.add(key);
             }
+        }
+        if (missing.isEmpty()) {
+            return results;
+        }
 
-            log.warn("Could not extract embedding from response");
-            return new ArrayList<>();
+        // Second level: persisted vectors
+        try {
+            for (EmbeddingCacheEntry entry : embeddingCacheRepository.findAllById(missing)) {
+                memoryCache.put(entry.getContentHash(), decode(entry.getVector()));
+                missing.remove(entry.getContentHash());
+            }
         } catch (Exception e) {
-            log.error("Error generating embedding", e);
-            return new ArrayList<>();
+            log.warn("Could not read embedding cache: {}", e.getMessage());
+        }
+
+        // Remaining misses go to the batcher; identical in-flight texts share one request
+        Map<String, CompletableFuture<float[]>> futures = new HashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String key = keys.get(i);
+            if (!missing.contains(key) || futures.containsKey(key)) continue;
+
+            String text = normalized.get(i);
+            futures.put(key, inFlight.computeIfAbsent(key, k -> {
+                CompletableFuture<float[]> future = new CompletableFuture<>();
+                pending.add(new PendingEmbedding(k, text, future));
+                return future;
+            }));
         }
+
+        for (int i = 0; i < texts.size(); i++) {
+            String key = keys.get(i);
+            if (normalized.get(i).isEmpty() || results.get(i).length > 0) continue;
+
+            CompletableFuture<float[]> future = futures.get(key);
+            if (future == null) {
+                results.set(i, memoryCache.getOrDefault(key, EMPTY));
+                continue;
+            }
+            try {
+                // Requests time out after timeoutMs themselves; the extra margin covers queueing behind other batches
+                results.set(i, future.get(timeoutMs * 2, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Error generating embedding: {}", e.getMessage());
+            }
+        }
+        return results;
     }
 
     /**
      * Generate embedding for CV content
      */
-    public List<Float> generateCVEmbedding(String cvContent) {
-        // Truncate if too long (embedding models have token limits)
-        if (cvContent.length() > 8000) {
-            cvContent = cvContent.substring(0, 8000);
+    public float[] generateCVEmbedding(String cvContent) {
+        return generateEmbedding(truncate(cvContent));
+    }
+
+    /**
+     * Generate embeddings for several CVs in one go
+     */
+    public List<float[]> generateCVEmbeddings(List<String> cvContents) {
+        List<String> truncated = new ArrayList<>(cvContents.size());
+        for (String content : cvContents) {
+            truncated.add(truncate(content));
         }
-        return generateEmbedding(cvContent);
+        return generateEmbeddings(truncated);
     }
 
     /**
      * Generate embedding for Job description
      */
-    public List<Float> generateJobEmbedding(String jobTitle, String jobDescription, String requirements) {
-        String combined = String.format("%s. %s. %s", 
-            jobTitle, 
+    public float[] generateJobEmbedding(String jobTitle, String jobDescription, String requirements) {
+        String combined = String.format("%s. %s. %s",
+            jobTitle,
             jobDescription != null ? jobDescription : "",
             requirements != null ? requirements : "");
-        
-        if (combined.length() > 8000) {
-            combined = combined.substring(0, 8000);
+        return generateEmbedding(truncate(combined));
+    }
+
+    /**
+     * Cache statistics for monitoring
+     */
+    public Map<String, Object> getCacheStats() {
+        return Map.of(
+            "memoryEntries", memoryCache.size(),
+            "pending", pending.size(),
+            "inFlight", inFlight.size()
+        );
+    }
+
+    private void runBatcher() {
+        while (running) {
+            try {
+                List<PendingEmbedding> batch = new ArrayList<>();
+                batch.add(pending.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWindowMs);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingEmbedding next = remaining > 0 ? pending.poll(remaining, TimeUnit.NANOSECONDS) : pending.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                requestExecutor.execute(() -> sendBatch(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RejectedExecutionException e) {
+                return;
+            }
+        }
+    }
+
+    private void sendBatch(List<PendingEmbedding> batch) {
+        try {
+            List<String> inputs = new ArrayList<>(batch.size());
+            for (PendingEmbedding item : batch) {
+                inputs.add(item.text);
+            }
+            List<float[]> vectors = callEmbeddingsAPI(inputs);
+
+            List<EmbeddingCacheEntry> entries = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                float[] vector = i < vectors.size() ? vectors.get(i) : EMPTY;
+                if (vector.length > 0) {
+                    memoryCache.put(batch.get(i).key, vector);
+                    entries.add(EmbeddingCacheEntry.builder()
+                        .contentHash(batch.get(i).key)
+                        .model(embeddingModel)
+                        .dimension(vector.length)
+                        .vector(encode(vector))
+                        .build());
+                }
+            }
+            try {
+                embeddingCacheRepository.saveAll(entries);
+            } catch (Exception e) {
+                log.warn("Could not persist {} embeddings: {}", entries.size(), e.getMessage());
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(i < vectors.size() ? vectors.get(i) : EMPTY);
+            }
+            log.debug("Embedded batch of {} texts", batch.size());
+        } catch (Exception e) {
+            log.error("Error generating embeddings for batch of {}", batch.size(), e);
+            for (PendingEmbedding item : batch) {
+                item.future.complete(EMPTY);
+            }
+        } finally {
+            for (PendingEmbedding item : batch) {
+                inFlight.remove(item.key);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<float[]> callEmbeddingsAPI(List<String> inputs) {
+        // OpenRouter uses OpenAI-compatible embedding format
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", embeddingModel);
+        requestBody.put("input", inputs);
+
+        Map<String, Object> response = webClient.post()
+            .uri("/embeddings")
+            .header("Authorization", "Bearer " + openRouterApiKey)
+            .bodyValue(requestBody)
+            .retrieve()
+            .bodyToMono(Map.class)
+            .timeout(Duration.ofMillis(timeoutMs))
+            .block();
+
+        float[][] vectors = new float[inputs.size()][];
+        if (response != null && response.containsKey("data")) {
+            List<Map<String, Object>> data = (List<Map<String, Object>>) response.get("data");
+            for (int i = 0; data != null && i < data.size(); i++) {
+                Map<String, Object> embeddingData = data.get(i);
+                Object indexValue = embeddingData.get("index");
+                int index = indexValue instanceof Number ? ((Number) indexValue).intValue() : i;
+                List<Number> values = (List<Number>) embeddingData.get("embedding");
+                if (values == null || index < 0 || index >= vectors.length) continue;
+
+                float[] vector = new float[values.size()];
+                for (int j = 0; j < vector.length; j++) {
+                    vector[j] = values.get(j).floatValue();
+                }
+                vectors[index] = vector;
+            }
+        } else {
+            log.warn("Could not extract embedding from response");
+        }
+
+        List<float[]> result = new ArrayList<>(vectors.length);
+        for (float[] vector : vectors) {
+            result.add(vector != null ? vector : EMPTY);
+        }
+        return result;
+    }
+
+    private String truncate(String text) {
+        // Embedding models have token limits; cut by estimated tokens, not characters
+        return TokenEstimator.truncate(text, maxInputTokens);
+    }
+
+    private String normalize(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ");
+    }
+
+    private String cacheKey(String normalizedText) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(embeddingModel.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            byte[] hash = digest.digest(normalizedText.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    private static float[] decode(byte[] bytes) {
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    private static final class PendingEmbedding {
+        final String key;
+        final String text;
+        final CompletableFuture<float[]> future;
+
+        PendingEmbedding(String key, String text, CompletableFuture<float[]> future) {
+            this.key = key;
+            this.text = text;
+            this.future = future;
         }
-        return generateEmbedding(combined);
     }
 }
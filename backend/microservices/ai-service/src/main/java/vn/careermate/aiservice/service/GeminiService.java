@@ -3,8 +3,12 @@ package vn.careermate.aiservice.service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
@@ -13,10 +17,12 @@ import java.util.Base64;
 
 /**
  * Gemini AI Service for direct Google Gemini API integration
+ * The *Async methods are the non-blocking path (bounded by AIProviderLimiter);
+ * the plain methods block on them for callers that are not reactive.
  */
 @Slf4j
 @Service
-public class GeminiService {
+public class GeminiService implements AIProvider {
 
     @Value("${ai.gemini.api-key:}")
     private String geminiApiKey;
@@ -32,225 +38,210 @@ public class GeminiService {
 
     private final WebClient webClient;
     private final ObjectMapper objectMapper;
+    private final AIResponseCache responseCache;
+    private final AIProviderLimiter providerLimiter;
 
-    public GeminiService(WebClient.Builder webClientBuilder) {
+    public GeminiService(WebClient.Builder webClientBuilder, AIResponseCache responseCache,
+                         AIProviderLimiter providerLimiter) {
         this.webClient = webClientBuilder
             .baseUrl("https://generativelanguage.googleapis.com/v1beta")
             .defaultHeader("Content-Type", "application/json")
             .build();
         this.objectMapper = new ObjectMapper();
+        this.responseCache = responseCache;
+        this.providerLimiter = providerLimiter;
+    }
+
+    @Override
+    public String getName() {
+        return AIProviderLimiter.GEMINI;
+    }
+
+    @Override
+    public Mono<String> generate(String prompt) {
+        return callGeminiAPIAsync(prompt);
+    }
+
+    @Override
+    public Mono<String> generate(String prompt, boolean deterministic) {
+        return callGeminiAPIAsync(prompt, deterministic);
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return geminiApiKey != null && !geminiApiKey.isEmpty();
     }
 
     /**
      * Call Gemini API with a prompt
      */
     public String callGeminiAPI(String prompt) {
+        return callGeminiAPIAsync(prompt).block();
+    }
+
+    /**
+     * Call Gemini API with a prompt without blocking the caller
+     */
+    public Mono<String> callGeminiAPIAsync(String prompt) {
+        return callGeminiAPIAsync(prompt, false);
+    }
+
+    /**
+     * Call Gemini API; deterministic calls run at temperature 0 and are served from AIResponseCache when the
+     * same model, config and prompt were seen recently. Sampled (temperature 0.7) answers are never cached,
+     * so users do not get a replay of someone else's generation.
+     */
+    public Mono<String> callGeminiAPIAsync(String prompt, boolean deterministic) {
         if (geminiApiKey == null || geminiApiKey.isEmpty()) {
-            throw new RuntimeException("Gemini API key not configured");
+            return Mono.error(new RuntimeException("Gemini API key not configured"));
         }
 
-        try {
-            log.debug("Calling Gemini API with model: {} and timeout: {}ms", geminiModel, timeout);
+        Map<String, Object> generationConfig = deterministic ? deterministicGenerationConfig() : defaultGenerationConfig();
+        String cacheKey = deterministic ? responseCache.key(geminiModel, generationConfig, prompt) : null;
+        String cached = cacheKey != null ? responseCache.get(cacheKey) : null;
+        if (cached != null) {
+            log.debug("Gemini response cache hit for model {}", geminiModel);
+            return Mono.just(cached);
+        }
 
-            // Gemini API request format
-            Map<String, Object> request = new HashMap<>();
-            
-            List<Map<String, Object>> contents = new ArrayList<>();
-            Map<String, Object> content = new HashMap<>();
-            
-            List<Map<String, String>> parts = new ArrayList<>();
-            Map<String, String> part = new HashMap<>();
-            part.put("text", prompt);
-            parts.add(part);
-            
-            content.put("parts", parts);
-            contents.add(content);
-            request.put("contents", contents);
-
-            // Optional: Add generation config
-            Map<String, Object> generationConfig = new HashMap<>();
-            generationConfig.put("temperature", 0.7);
-            generationConfig.put("topP", 0.95);
-            generationConfig.put("topK", 40);
-            generationConfig.put("maxOutputTokens", 8192);
-            generationConfig.put("response_mime_type", "application/json");
-            request.put("generationConfig", generationConfig);
-
-            String requestBody = objectMapper.writeValueAsString(request);
-            log.debug("Gemini API request body: {}", requestBody);
-
-            // Call Gemini API
-            String url = String.format("%s/models/%s:generateContent?key=%s", 
-                geminiBaseUrl, geminiModel, geminiApiKey);
-            log.info("Calling Gemini API URL: {}", url.replace(geminiApiKey, "REDACTED"));
-
-            String response = webClient.post()
-                .uri(url)
-                .bodyValue(requestBody)
-                .retrieve()
-                .onStatus(
-                    status -> status.is4xxClientError() || status.is5xxServerError(),
-                    clientResponse -> clientResponse.bodyToMono(String.class)
-                        .flatMap(errorBody -> {
-                            log.error("Gemini API error response: {}", errorBody);
-                            return Mono.error(new RuntimeException(
-                                String.format("Gemini API returned error %d: %s", 
-                                    clientResponse.statusCode().value(), errorBody)
-                            ));
-                        })
-                )
-                .bodyToMono(String.class)
-                .timeout(Duration.ofMillis(timeout))
-                .block();
-
-            if (response == null || response.isEmpty()) {
-                throw new RuntimeException("Empty response from Gemini API");
-            }
+        log.debug("Calling Gemini API with model: {} and timeout: {}ms", geminiModel, timeout);
+
+        // Gemini API request format
+        Map<String, Object> request = new HashMap<>();
+
+        List<Map<String, Object>> contents = new ArrayList<>();
+        Map<String, Object> content = new HashMap<>();
+
+        List<Map<String, String>> parts = new ArrayList<>();
+        Map<String, String> part = new HashMap<>();
+        part.put("text", prompt);
+        parts.add(part);
+
+        content.put("parts", parts);
+        contents.add(content);
+        request.put("contents", contents);
+        request.put("generationConfig", generationConfig);
+
+        return generateContent(request)
+            .doOnNext(text -> {
+                log.debug("Gemini API extracted text: {}", text);
+                if (cacheKey != null) {
+                    responseCache.put(cacheKey, text);
+                }
+            })
+            .onErrorMap(e -> {
+                log.error("Error calling Gemini API", e);
+                return new RuntimeException("Failed to call Gemini API: " + e.getMessage(), e);
+            });
+    }
 
-            log.debug("Gemini API raw response: {}", response);
+    /**
+     * Stream Gemini response text as it is generated (streamGenerateContent, SSE)
+     * Emits text chunks; streamed answers are sampled (chat, roadmap), so they are not cached.
+     * @param jsonResponse request application/json output (same config as callGeminiAPI) or plain text
+     */
+    public Flux<String> streamGeminiAPI(String prompt, boolean jsonResponse) {
+        if (geminiApiKey == null || geminiApiKey.isEmpty()) {
+            return Flux.error(new RuntimeException("Gemini API key not configured"));
+        }
 
-            // Parse Gemini response
-            @SuppressWarnings("unchecked")
-            Map<String, Object> responseMap = objectMapper.readValue(response, Map.class);
-            
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> candidates = (List<Map<String, Object>>) responseMap.get("candidates");
-            
-            if (candidates == null || candidates.isEmpty()) {
-                throw new RuntimeException("No candidates in Gemini response");
-            }
+        Map<String, Object> generationConfig = defaultGenerationConfig();
+        if (!jsonResponse) {
+            generationConfig.remove("response_mime_type");
+        }
+        Map<String, Object> request = new HashMap<>();
+        request.put("contents", List.of(Map.of("parts", List.of(Map.of("text", prompt)))));
+        request.put("generationConfig", generationConfig);
 
-            @SuppressWarnings("unchecked")
-            Map<String, Object> candidate = candidates.get(0);
-            
-            @SuppressWarnings("unchecked")
-            Map<String, Object> contentResponse = (Map<String, Object>) candidate.get("content");
-            
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> partsResponse = (List<Map<String, Object>>) contentResponse.get("parts");
-            
-            if (partsResponse == null || partsResponse.isEmpty()) {
-                throw new RuntimeException("No parts in Gemini response");
-            }
+        String url = String.format("%s/models/%s:streamGenerateContent?alt=sse&key=%s",
+            geminiBaseUrl, geminiModel, geminiApiKey);
+        log.info("Streaming Gemini API URL: {}", url.replace(geminiApiKey, "REDACTED"));
 
-            String text = (String) partsResponse.get(0).get("text");
-            log.debug("Gemini API extracted text: {}", text);
-            
-            return text;
+        return providerLimiter.limitStream(AIProviderLimiter.GEMINI, streamRequest(url, request));
+    }
 
-        } catch (Exception e) {
-            log.error("Error calling Gemini API", e);
-            throw new RuntimeException("Failed to call Gemini API: " + e.getMessage(), e);
-        }
+    private Flux<String> streamRequest(String url, Map<String, Object> request) {
+        return webClient.post()
+            .uri(url)
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .bodyValue(request)
+            .retrieve()
+            .onStatus(
+                status -> status.is4xxClientError() || status.is5xxServerError(),
+                clientResponse -> clientResponse.bodyToMono(String.class)
+                    .flatMap(errorBody -> {
+                        log.error("Gemini API error response: {}", errorBody);
+                        return Mono.error(new AIProviderException(AIProviderLimiter.GEMINI,
+                            clientResponse.statusCode().value(),
+                            String.format("Gemini API returned error %d: %s",
+                                clientResponse.statusCode().value(), errorBody)
+                        ));
+                    })
+            )
+            .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {})
+            // Timeout applies between chunks, so long generations are fine as long as tokens keep coming
+            .timeout(Duration.ofMillis(timeout))
+            .map(event -> extractChunkText(event.data()))
+            .filter(text -> !text.isEmpty())
+            .doOnError(e -> log.error("Error streaming Gemini API: {}", e.getMessage()));
     }
 
     /**
      * Call Gemini API with a prompt and file content (multimodal)
      */
     public String callGeminiAPI(String prompt, String mimeType, byte[] fileData) {
+        return callGeminiAPIAsync(prompt, mimeType, fileData).block();
+    }
+
+    /**
+     * Call Gemini API with a prompt and file content (multimodal) without blocking the caller
+     */
+    public Mono<String> callGeminiAPIAsync(String prompt, String mimeType, byte[] fileData) {
         if (geminiApiKey == null || geminiApiKey.isEmpty()) {
-            throw new RuntimeException("Gemini API key not configured");
+            return Mono.error(new RuntimeException("Gemini API key not configured"));
         }
 
-        try {
-            log.debug("Calling Gemini API with model: {}, mimeType: {}, and timeout: {}ms", geminiModel, mimeType, timeout);
+        log.debug("Calling Gemini API with model: {}, mimeType: {}, and timeout: {}ms", geminiModel, mimeType, timeout);
 
-            // Gemini API request format
-            Map<String, Object> request = new HashMap<>();
-            
-            List<Map<String, Object>> contents = new ArrayList<>();
-            Map<String, Object> content = new HashMap<>();
-            
-            List<Map<String, Object>> parts = new ArrayList<>();
-            
-            // Text part
-            Map<String, Object> textPart = new HashMap<>();
-            textPart.put("text", prompt);
-            parts.add(textPart);
-            
-            // File part
-            if (fileData != null && fileData.length > 0) {
-                Map<String, Object> filePart = new HashMap<>();
-                Map<String, Object> inlineData = new HashMap<>();
-                inlineData.put("mimeType", mimeType);
-                inlineData.put("data", Base64.getEncoder().encodeToString(fileData));
-                filePart.put("inlineData", inlineData);
-                parts.add(filePart);
-            }
-            
-            content.put("parts", parts);
-            contents.add(content);
-            request.put("contents", contents);
-
-            // Optional: Add generation config
-            Map<String, Object> generationConfig = new HashMap<>();
-            generationConfig.put("maxOutputTokens", 8192);
-            generationConfig.put("response_mime_type", "application/json");
-            request.put("generationConfig", generationConfig);
-
-            String requestBody = objectMapper.writeValueAsString(request);
-            log.debug("Gemini API request body length: {}", requestBody.length());
-
-            // Call Gemini API
-            String url = String.format("%s/models/%s:generateContent?key=%s", 
-                geminiBaseUrl, geminiModel, geminiApiKey);
-
-            String response = webClient.post()
-                .uri(url)
-                .bodyValue(requestBody)
-                .retrieve()
-                .onStatus(
-                    status -> status.is4xxClientError() || status.is5xxServerError(),
-                    clientResponse -> clientResponse.bodyToMono(String.class)
-                        .flatMap(errorBody -> {
-                            log.error("Gemini API error response: {}", errorBody);
-                            return Mono.error(new RuntimeException(
-                                String.format("Gemini API returned error %d: %s", 
-                                    clientResponse.statusCode().value(), errorBody)
-                            ));
-                        })
-                )
-                .bodyToMono(String.class)
-                .timeout(Duration.ofMillis(timeout))
-                .block();
-
-            if (response == null || response.isEmpty()) {
-                throw new RuntimeException("Empty response from Gemini API");
-            }
+        // Gemini API request format
+        Map<String, Object> request = new HashMap<>();
 
-            // Parse Gemini response
-            @SuppressWarnings("unchecked")
-            Map<String, Object> responseMap = objectMapper.readValue(response, Map.class);
-            
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> candidates = (List<Map<String, Object>>) responseMap.get("candidates");
-            
-            if (candidates == null || candidates.isEmpty()) {
-                throw new RuntimeException("No candidates in Gemini response");
-            }
+        List<Map<String, Object>> contents = new ArrayList<>();
+        Map<String, Object> content = new HashMap<>();
 
-            @SuppressWarnings("unchecked")
-            Map<String, Object> candidate = candidates.get(0);
-            
-            @SuppressWarnings("unchecked")
-            Map<String, Object> contentResponse = (Map<String, Object>) candidate.get("content");
-            
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> partsResponse = (List<Map<String, Object>>) contentResponse.get("parts");
-            
-            if (partsResponse == null || partsResponse.isEmpty()) {
-                throw new RuntimeException("No parts in Gemini response");
-            }
+        List<Map<String, Object>> parts = new ArrayList<>();
 
-            String text = (String) partsResponse.get(0).get("text");
-            log.debug("Gemini API extracted text: {}", text);
-            
-            return text;
+        // Text part
+        Map<String, Object> textPart = new HashMap<>();
+        textPart.put("text", prompt);
+        parts.add(textPart);
 
-        } catch (Exception e) {
-            log.error("Error calling Gemini API with file", e);
-            throw new RuntimeException("Failed to call Gemini API with file: " + e.getMessage(), e);
+        // File part
+        if (fileData != null && fileData.length > 0) {
+            Map<String, Object> filePart = new HashMap<>();
+            Map<String, Object> inlineData = new HashMap<>();
+            inlineData.put("mimeType", mimeType);
+            inlineData.put("data", Base64.getEncoder().encodeToString(fileData));
+            filePart.put("inlineData", inlineData);
+            parts.add(filePart);
         }
+
+        content.put("parts", parts);
+        contents.add(content);
+        request.put("contents", contents);
+
+        // Optional: Add generation config
+        Map<String, Object> generationConfig = new HashMap<>();
+        generationConfig.put("maxOutputTokens", 8192);
+        generationConfig.put("response_mime_type", "application/json");
+        request.put("generationConfig", generationConfig);
+
+        return generateContent(request)
+            .doOnNext(text -> log.debug("Gemini API extracted text: {}", text))
+            .onErrorMap(e -> {
+                log.error("Error calling Gemini API with file", e);
+                return new RuntimeException("Failed to call Gemini API with file: " + e.getMessage(), e);
+            });
     }
 
     /**
@@ -261,93 +252,155 @@ public class GeminiService {
             throw new RuntimeException("Gemini API key not configured");
         }
 
+        log.debug("Calling Gemini API with message history, model: {}", geminiModel);
+
+        // Convert message history to Gemini format
+        List<Map<String, Object>> contents = new ArrayList<>();
+        for (Map<String, String> msg : messageHistory) {
+            Map<String, Object> content = new HashMap<>();
+            String role = msg.get("role");
+            // Gemini uses "user" and "model" roles
+            content.put("role", role.equals("assistant") ? "model" : "user");
+
+            List<Map<String, String>> parts = new ArrayList<>();
+            Map<String, String> part = new HashMap<>();
+            part.put("text", msg.get("content"));
+            parts.add(part);
+
+            content.put("parts", parts);
+            contents.add(content);
+        }
+
+        Map<String, Object> request = new HashMap<>();
+        request.put("contents", contents);
+
+        //Generation config
+        Map<String, Object> generationConfig = new HashMap<>();
+        generationConfig.put("maxOutputTokens", 8192);
+        generationConfig.put("response_mime_type", "application/json");
+        request.put("generationConfig", generationConfig);
+
+        return generateContent(request)
+            .onErrorMap(e -> {
+                log.error("Error calling Gemini API with history", e);
+                return new RuntimeException("Failed to call Gemini API: " + e.getMessage(), e);
+            })
+            .block();
+    }
+
+    /**
+     * POST generateContent through the provider limiter and extract the text of the first candidate
+     */
+    private Mono<String> generateContent(Map<String, Object> request) {
+        String url = String.format("%s/models/%s:generateContent?key=%s",
+            geminiBaseUrl, geminiModel, geminiApiKey);
+
+        Mono<String> call = Mono.fromCallable(() -> objectMapper.writeValueAsString(request))
+            .flatMap(requestBody -> {
+                log.info("Calling Gemini API URL: {}", url.replace(geminiApiKey, "REDACTED"));
+                return webClient.post()
+                    .uri(url)
+                    .bodyValue(requestBody)
+                    .retrieve()
+                    .onStatus(
+                        status -> status.is4xxClientError() || status.is5xxServerError(),
+                        clientResponse -> clientResponse.bodyToMono(String.class)
+                            .flatMap(errorBody -> {
+                                log.error("Gemini API error response: {}", errorBody);
+                                return Mono.error(new AIProviderException(AIProviderLimiter.GEMINI,
+                                    clientResponse.statusCode().value(),
+                                    String.format("Gemini API returned error %d: %s",
+                                        clientResponse.statusCode().value(), errorBody)
+                                ));
+                            })
+                    )
+                    .bodyToMono(String.class)
+                    .timeout(Duration.ofMillis(timeout));
+            });
+
+        return providerLimiter.limit(AIProviderLimiter.GEMINI, call)
+            .switchIfEmpty(Mono.error(new RuntimeException("Empty response from Gemini API")))
+            .map(this::extractText);
+    }
+
+    @SuppressWarnings("unchecked")
+    private String extractText(String response) {
+        if (response == null || response.isEmpty()) {
+            throw new RuntimeException("Empty response from Gemini API");
+        }
+
+        log.debug("Gemini API raw response: {}", response);
+
+        // Parse Gemini response
+        Map<String, Object> responseMap;
         try {
-            log.debug("Calling Gemini API with message history, model: {}", geminiModel);
-
-            // Convert message history to Gemini format
-            List<Map<String, Object>> contents = new ArrayList<>();
-            for (Map<String, String> msg : messageHistory) {
-                Map<String, Object> content = new HashMap<>();
-                String role = msg.get("role");
-                // Gemini uses "user" and "model" roles
-                content.put("role", role.equals("assistant") ? "model" : "user");
-                
-                List<Map<String, String>> parts = new ArrayList<>();
-                Map<String, String> part = new HashMap<>();
-                part.put("text", msg.get("content"));
-                parts.add(part);
-                
-                content.put("parts", parts);
-                contents.add(content);
-            }
+            responseMap = objectMapper.readValue(response, Map.class);
+        } catch (Exception e) {
+            throw new RuntimeException("Invalid JSON from Gemini API: " + e.getMessage(), e);
+        }
 
-            Map<String, Object> request = new HashMap<>();
-            request.put("contents", contents);
-
-            //Generation config
-            Map<String, Object> generationConfig = new HashMap<>();
-            generationConfig.put("maxOutputTokens", 8192);
-            generationConfig.put("response_mime_type", "application/json");
-            request.put("generationConfig", generationConfig);
-
-            String requestBody = objectMapper.writeValueAsString(request);
-
-            // Call Gemini API
-            String url = String.format("%s/models/%s:generateContent?key=%s", 
-                geminiBaseUrl, geminiModel, geminiApiKey);
-
-            String response = webClient.post()
-                .uri(url)
-                .bodyValue(requestBody)
-                .retrieve()
-                .onStatus(
-                    status -> status.is4xxClientError() || status.is5xxServerError(),
-                    clientResponse -> clientResponse.bodyToMono(String.class)
-                        .flatMap(errorBody -> {
-                            log.error("Gemini API error response: {}", errorBody);
-                            return Mono.error(new RuntimeException(
-                                String.format("Gemini API returned error %d: %s", 
-                                    clientResponse.statusCode().value(), errorBody)
-                            ));
-                        })
-                )
-                .bodyToMono(String.class)
-                .timeout(Duration.ofMillis(timeout))
-                .block();
-
-            if (response == null || response.isEmpty()) {
-                throw new RuntimeException("Empty response from Gemini API");
-            }
+        List<Map<String, Object>> candidates = (List<Map<String, Object>>) responseMap.get("candidates");
+        if (candidates == null || candidates.isEmpty()) {
+            throw new RuntimeException("No candidates in Gemini response");
+        }
 
-            // Parse response
-            @SuppressWarnings("unchecked")
-            Map<String, Object> responseMap = objectMapper.readValue(response, Map.class);
-            
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> candidates = (List<Map<String, Object>>) responseMap.get("candidates");
-            
-            if (candidates == null || candidates.isEmpty()) {
-                throw new RuntimeException("No candidates in Gemini response");
-            }
+        Map<String, Object> candidate = candidates.get(0);
+        Map<String, Object> contentResponse = (Map<String, Object>) candidate.get("content");
+        List<Map<String, Object>> partsResponse = contentResponse != null
+            ? (List<Map<String, Object>>) contentResponse.get("parts") : null;
 
-            @SuppressWarnings("unchecked")
-            Map<String, Object> candidate = candidates.get(0);
-            
-            @SuppressWarnings("unchecked")
-            Map<String, Object> contentResponse = (Map<String, Object>) candidate.get("content");
-            
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> partsResponse = (List<Map<String, Object>>) contentResponse.get("parts");
-            
-            if (partsResponse == null || partsResponse.isEmpty()) {
-                throw new RuntimeException("No parts in Gemini response");
-            }
+        if (partsResponse == null || partsResponse.isEmpty()) {
+            throw new RuntimeException("No parts in Gemini response");
+        }
 
-            return (String) partsResponse.get(0).get("text");
+        return (String) partsResponse.get(0).get("text");
+    }
 
+    private Map<String, Object> defaultGenerationConfig() {
+        Map<String, Object> generationConfig = new HashMap<>();
+        generationConfig.put("temperature", 0.7);
+        generationConfig.put("topP", 0.95);
+        generationConfig.put("topK", 40);
+        generationConfig.put("maxOutputTokens", 8192);
+        generationConfig.put("response_mime_type", "application/json");
+        return generationConfig;
+    }
+
+    private Map<String, Object> deterministicGenerationConfig() {
+        Map<String, Object> generationConfig = defaultGenerationConfig();
+        generationConfig.put("temperature", 0.0);
+        generationConfig.put("topK", 1);
+        return generationConfig;
+    }
+
+    @SuppressWarnings("unchecked")
+    private String extractChunkText(String data) {
+        if (data == null || data.isBlank()) {
+            return "";
+        }
+        try {
+            Map<String, Object> chunk = objectMapper.readValue(data, Map.class);
+            List<Map<String, Object>> candidates = (List<Map<String, Object>>) chunk.get("candidates");
+            if (candidates == null || candidates.isEmpty()) {
+                return "";
+            }
+            Map<String, Object> content = (Map<String, Object>) candidates.get(0).get("content");
+            if (content == null) {
+                return "";
+            }
+            List<Map<String, Object>> parts = (List<Map<String, Object>>) content.get("parts");
+            if (parts == null) {
+                return "";
+            }
+            StringBuilder text = new StringBuilder();
+            for (Map<String, Object> part : parts) {
+                Object value = part.get("text");
+                if (value != null) text.append(value);
+            }
+            return text.toString();
         } catch (Exception e) {
-            log.error("Error calling Gemini API with history", e);
-            throw new RuntimeException("Failed to call Gemini API: " + e.getMessage(), e);
+            log.warn("Could not parse Gemini stream chunk: {}", e.getMessage());
+            return "";
         }
     }
 }
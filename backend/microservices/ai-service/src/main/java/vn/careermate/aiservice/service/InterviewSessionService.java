@@ -0,0 +1,464 @@
+package vn.careermate.aiservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import vn.careermate.aiservice.model.MockInterview;
+import vn.careermate.aiservice.model.MockInterview.InterviewStatus;
+import vn.careermate.aiservice.model.MockInterviewQuestion;
+import vn.careermate.aiservice.model.MockInterviewQuestion.QuestionStatus;
+import vn.careermate.aiservice.repository.MockInterviewQuestionRepository;
+import vn.careermate.aiservice.repository.MockInterviewRepository;
+import vn.careermate.aiservice.util.LenientJsonExtractor;
+import vn.careermate.aiservice.util.TokenEstimator;
+import vn.careermate.common.client.JobServiceClient;
+import vn.careermate.common.dto.JobDTO;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Stateful mock interviews
+ * A session is a MockInterview row with its questions. The job context is fetched once at start and
+ * stored on the session; answers are saved without an AI call and evaluated a round at a time
+ * (ai.interview.round-size answers per prompt). Each round prompt carries only the job context, a short
+ * rolling summary of the earlier rounds and the new answers; the model returns the scores and the
+ * updated summary. The last round also produces the overall feedback.
+ */
+@Slf4j
+@Service
+public class InterviewSessionService {
+
+    // Final-round re-runs for answers changed mid-evaluation before the session is closed anyway
+    private static final int MAX_STALE_RETRIES = 2;
+
+    @Value("${ai.interview.question-count:5}")
+    private int defaultQuestionCount;
+
+    @Value("${ai.interview.max-questions:15}")
+    private int maxQuestions;
+
+    @Value("${ai.interview.round-size:5}")
+    private int roundSize;
+
+    @Value("${ai.interview.answer-tokens:300}")
+    private int answerTokens;
+
+    @Value("${ai.interview.summary-tokens:200}")
+    private int summaryTokens;
+
+    @Value("${ai.prompt.job-tokens:400}")
+    private int jobTokens;
+
+    private final AIService aiService;
+    private final JobServiceClient jobServiceClient;
+    private final MockInterviewRepository interviewRepository;
+    private final MockInterviewQuestionRepository questionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public InterviewSessionService(AIService aiService,
+                                   JobServiceClient jobServiceClient,
+                                   MockInterviewRepository interviewRepository,
+                                   MockInterviewQuestionRepository questionRepository,
+                                   PlatformTransactionManager transactionManager) {
+        this.aiService = aiService;
+        this.jobServiceClient = jobServiceClient;
+        this.interviewRepository = interviewRepository;
+        this.questionRepository = questionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Start a session for a posted job; the job is fetched once and kept as the session's context
+     */
+    public Mono<Map<String, Object>> startForJob(UUID studentId, UUID jobId, Integer questionCount) {
+        return Mono.fromCallable(() -> jobServiceClient.getJobById(jobId))
+            .subscribeOn(Schedulers.boundedElastic())
+            .onErrorMap(e -> {
+                log.error("Error fetching job {}: {}", jobId, e.getMessage());
+                return new RuntimeException("Job not found");
+            })
+            .switchIfEmpty(Mono.error(new RuntimeException("Job not found")))
+            .flatMap(job -> start(studentId, job.getId(), job.getTitle(), buildJobContext(job), questionCount));
+    }
+
+    /**
+     * Start a session for a role typed by the student
+     */
+    public Mono<Map<String, Object>> startCustom(UUID studentId, String jobTitle, String jobDescription, Integer questionCount) {
+        if (jobTitle == null || jobTitle.isBlank()) {
+            return Mono.error(new RuntimeException("Vui lòng nhập vị trí phỏng vấn"));
+        }
+        String context = "Vị trí: " + jobTitle + "\nMô tả: "
+            + (jobDescription != null && !jobDescription.isBlank() ? TokenEstimator.truncate(jobDescription, jobTokens) : "N/A");
+        return start(studentId, null, jobTitle, context, questionCount);
+    }
+
+    public Mono<Map<String, Object>> getSession(UUID sessionId, UUID studentId) {
+        return Mono.fromCallable(() -> transactionTemplate.execute(status -> toView(load(sessionId, studentId))))
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Record an answer. Once a full round of answers is waiting, the round is evaluated in one call
+     * and its evaluations are returned with the session.
+     */
+    public Mono<Map<String, Object>> submitAnswer(UUID sessionId, UUID studentId, int questionOrder, String answer) {
+        if (answer == null || answer.isBlank()) {
+            return Mono.error(new RuntimeException("Câu trả lời không được để trống"));
+        }
+        return Mono.fromCallable(() -> transactionTemplate.execute(status -> {
+                MockInterview interview = loadForUpdate(sessionId, studentId);
+                if (interview.getStatus() == InterviewStatus.COMPLETED) {
+                    throw new RuntimeException("Phiên phỏng vấn đã kết thúc");
+                }
+                List<MockInterviewQuestion> questions = questionRepository.findByMockInterviewIdOrderByQuestionOrderAsc(sessionId);
+                MockInterviewQuestion question = questions.stream()
+                    .filter(q -> q.getQuestionOrder() == questionOrder)
+                    .findFirst()
+                    .orElseThrow(() -> new RuntimeException("Không tìm thấy câu hỏi " + questionOrder));
+
+                question.setStudentAnswer(answer.trim());
+                question.setStatus(QuestionStatus.ANSWERED);
+                question.setAnsweredAt(LocalDateTime.now());
+                // A changed answer is evaluated again
+                question.setAiFeedback(null);
+                question.setScore(null);
+                questionRepository.save(question);
+
+                interview.setAnsweredQuestions((int) questions.stream().filter(q -> q.getStatus() == QuestionStatus.ANSWERED).count());
+                interviewRepository.save(interview);
+                return pendingCount(questions) >= Math.max(1, roundSize);
+            }))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(roundReady -> roundReady
+                ? evaluateRound(sessionId, false, 0)
+                : getSession(sessionId, studentId));
+    }
+
+    /**
+     * Evaluate whatever is still pending, skip unanswered questions and close the session
+     */
+    public Mono<Map<String, Object>> finish(UUID sessionId, UUID studentId) {
+        return Mono.fromCallable(() -> transactionTemplate.execute(status -> {
+                MockInterview interview = load(sessionId, studentId);
+                if (interview.getStatus() == InterviewStatus.COMPLETED) {
+                    throw new RuntimeException("Phiên phỏng vấn đã kết thúc");
+                }
+                return interview.getId();
+            }))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(id -> evaluateRound(id, true, 0));
+    }
+
+    private Mono<Map<String, Object>> start(UUID studentId, UUID jobId, String jobTitle, String jobContext, Integer questionCount) {
+        int count = Math.max(1, Math.min(maxQuestions, questionCount != null ? questionCount : defaultQuestionCount));
+        String prompt = String.format(
+            "Bạn là một người phỏng vấn chuyên nghiệp. Dựa trên công việc sau đây, hãy tạo %d câu hỏi phỏng vấn phù hợp, " +
+            "kết hợp câu hỏi chuyên môn và hành vi, từ dễ đến khó.\n" +
+            "Trả lời dưới dạng JSON:\n" +
+            "{\n" +
+            "  \"questions\": [\n" +
+            "    {\"question\": \"Câu hỏi 1\", \"type\": \"technical\"},\n" +
+            "    {\"question\": \"Câu hỏi 2\", \"type\": \"behavioral\"}\n" +
+            "  ]\n" +
+            "}\n\n" +
+            "%s",
+            count, jobContext
+        );
+
+        return aiService.callAIAPIAsync(prompt)
+            .map(response -> {
+                Map<String, Object> json = LenientJsonExtractor.parseObject(response);
+                List<String> questions = new ArrayList<>();
+                for (Map<String, Object> item : LenientJsonExtractor.getObjectList(json, "questions")) {
+                    String question = LenientJsonExtractor.getString(item, "question", null);
+                    if (question != null && questions.size() < count) {
+                        questions.add(question.trim());
+                    }
+                }
+                if (questions.isEmpty()) {
+                    throw new RuntimeException("Không thể tạo câu hỏi phỏng vấn. Vui lòng thử lại sau.");
+                }
+                return questions;
+            })
+            .publishOn(Schedulers.boundedElastic())
+            .map(questions -> transactionTemplate.execute(status -> {
+                MockInterview interview = MockInterview.builder()
+                    .studentId(studentId)
+                    .jobId(jobId)
+                    .jobTitle(jobTitle)
+                    .jobContext(jobContext)
+                    .status(InterviewStatus.IN_PROGRESS)
+                    .totalQuestions(questions.size())
+                    .answeredQuestions(0)
+                    .questions(new ArrayList<>())
+                    .build();
+                for (int i = 0; i < questions.size(); i++) {
+                    interview.getQuestions().add(MockInterviewQuestion.builder()
+                        .mockInterview(interview)
+                        .questionOrder(i + 1)
+                        .question(questions.get(i))
+                        .status(QuestionStatus.NOT_ANSWERED)
+                        .build());
+                }
+                MockInterview saved = interviewRepository.save(interview);
+                log.info("Started mock interview session {} ({} questions) for student {}", saved.getId(), questions.size(), studentId);
+                return toView(saved, saved.getQuestions());
+            }));
+    }
+
+    /**
+     * One AI call for all answered-but-unscored questions of the session.
+     * On the final round the overall verdict is asked for in the same call.
+     * Answers changed while the round was being evaluated stay pending; the final round is re-run for them.
+     */
+    private Mono<Map<String, Object>> evaluateRound(UUID sessionId, boolean finalRound, int retry) {
+        return Mono.fromCallable(() -> transactionTemplate.execute(status -> {
+                MockInterview interview = interviewRepository.findById(sessionId)
+                    .orElseThrow(() -> new RuntimeException("Không tìm thấy phiên phỏng vấn"));
+                List<MockInterviewQuestion> pending = questionRepository.findByMockInterviewIdOrderByQuestionOrderAsc(sessionId)
+                    .stream()
+                    .filter(q -> q.getStatus() == QuestionStatus.ANSWERED && q.getAiFeedback() == null)
+                    .toList();
+                return new RoundInput(interview.getJobContext(), interview.getContextSummary(), pending);
+            }))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(input -> {
+                if (input.pending().isEmpty() && !finalRound) {
+                    // Another request already took this round
+                    return getSession(sessionId, null);
+                }
+                return aiService.callAIAPIAsync(buildRoundPrompt(input, finalRound))
+                    .map(LenientJsonExtractor::parseObject)
+                    .publishOn(Schedulers.boundedElastic())
+                    .map(json -> applyRound(sessionId, input.pending(), json, finalRound, retry >= MAX_STALE_RETRIES))
+                    .flatMap(result -> result.stale() > 0 && finalRound && retry < MAX_STALE_RETRIES
+                        ? evaluateRound(sessionId, true, retry + 1)
+                        : Mono.just(result.view()));
+            });
+    }
+
+    private String buildRoundPrompt(RoundInput input, boolean finalRound) {
+        StringBuilder answers = new StringBuilder();
+        for (int i = 0; i < input.pending().size(); i++) {
+            MockInterviewQuestion q = input.pending().get(i);
+            answers.append("[").append(i + 1).append("] Câu hỏi: ").append(q.getQuestion()).append("\n")
+                .append("Trả lời: ").append(TokenEstimator.truncate(q.getStudentAnswer(), answerTokens)).append("\n\n");
+        }
+
+        StringBuilder prompt = new StringBuilder()
+            .append("Bạn là một chuyên gia đánh giá phỏng vấn.\n\n")
+            .append("Ngữ cảnh công việc:\n").append(input.jobContext() != null ? input.jobContext() : "N/A").append("\n\n")
+            .append("Tóm tắt các phần trước của buổi phỏng vấn:\n")
+            .append(input.summary() != null && !input.summary().isBlank() ? input.summary() : "Chưa có").append("\n\n");
+        if (!input.pending().isEmpty()) {
+            prompt.append("Các câu trả lời mới cần đánh giá:\n").append(answers);
+        }
+        prompt.append("Trả lời dưới dạng JSON:\n")
+            .append("{\n")
+            .append("  \"evaluations\": [{\"index\": <số thứ tự câu trả lời>, \"score\": <số từ 0-100>, \"feedback\": \"Nhận xét ngắn gọn\", ")
+            .append("\"strengths\": [\"điểm mạnh\"], \"improvements\": [\"cần cải thiện\"]}],\n")
+            .append("  \"summary\": \"Tóm tắt cập nhật của toàn bộ buổi phỏng vấn đến hiện tại (tối đa 80 từ): chủ đề đã hỏi, điểm mạnh, điểm yếu\"");
+        if (finalRound) {
+            prompt.append(",\n  \"overall\": {\"feedback\": \"Nhận xét tổng thể\", \"strengths\": [\"điểm mạnh\"], \"improvements\": [\"cần cải thiện\"]}");
+        }
+        prompt.append("\n}");
+        return prompt.toString();
+    }
+
+    /**
+     * Store the round's scores. Each score is kept only if the answer is still the one that was evaluated;
+     * a replaced answer stays pending. A final round with stale answers completes only when forced.
+     */
+    private RoundResult applyRound(UUID sessionId, List<MockInterviewQuestion> pending,
+                                   Map<String, Object> json, boolean finalRound, boolean forceComplete) {
+        return transactionTemplate.execute(status -> {
+            // Background grading of a session the owner already submitted to, so no owner check here
+            MockInterview interview = interviewRepository.findByIdForUpdate(sessionId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy phiên phỏng vấn"));
+            Map<UUID, MockInterviewQuestion> byId = new HashMap<>();
+            List<MockInterviewQuestion> questions = questionRepository.findByMockInterviewIdOrderByQuestionOrderAsc(sessionId);
+            questions.forEach(q -> byId.put(q.getId(), q));
+
+            List<Map<String, Object>> evaluations = new ArrayList<>();
+            int stale = 0;
+            for (Map<String, Object> item : LenientJsonExtractor.getObjectList(json, "evaluations")) {
+                int index = LenientJsonExtractor.getInt(item, "index", 0);
+                if (index < 1 || index > pending.size()) continue;
+                MockInterviewQuestion evaluated = pending.get(index - 1);
+                MockInterviewQuestion question = byId.get(evaluated.getId());
+                if (question == null || question.getAiFeedback() != null) continue;
+                if (!Objects.equals(evaluated.getStudentAnswer(), question.getStudentAnswer())) {
+                    stale++;
+                    continue;
+                }
+
+                int score = Math.max(0, Math.min(100, LenientJsonExtractor.getInt(item, "score", 0)));
+                String feedback = LenientJsonExtractor.getString(item, "feedback", "Đã ghi nhận câu trả lời.");
+                question.setScore(BigDecimal.valueOf(score));
+                question.setAiFeedback(feedback);
+
+                Map<String, Object> evaluation = new HashMap<>();
+                evaluation.put("questionOrder", question.getQuestionOrder());
+                evaluation.put("score", score);
+                evaluation.put("feedback", feedback);
+                evaluation.put("strengths", LenientJsonExtractor.getStringList(item, "strengths", List.of()));
+                evaluation.put("improvements", LenientJsonExtractor.getStringList(item, "improvements", List.of()));
+                evaluations.add(evaluation);
+            }
+            questionRepository.saveAll(questions);
+            if (stale > 0) {
+                log.info("Session {}: {} answers changed during evaluation, kept pending", sessionId, stale);
+            }
+            if (evaluations.size() + stale < pending.size()) {
+                log.warn("Session {}: AI evaluated {} of {} answers", sessionId, evaluations.size(), pending.size());
+            }
+
+            String summary = LenientJsonExtractor.getString(json, "summary", null);
+            if (summary != null) {
+                interview.setContextSummary(TokenEstimator.truncate(summary, summaryTokens));
+            }
+
+            if (finalRound && (stale == 0 || forceComplete)) {
+                complete(interview, questions, json);
+            }
+            interviewRepository.save(interview);
+
+            Map<String, Object> view = toView(interview, questions);
+            view.put("evaluations", evaluations);
+            return new RoundResult(view, stale);
+        });
+    }
+
+    private void complete(MockInterview interview, List<MockInterviewQuestion> questions, Map<String, Object> json) {
+        List<Map<String, Object>> transcript = new ArrayList<>();
+        int answered = 0;
+        for (MockInterviewQuestion q : questions) {
+            if (q.getStatus() != QuestionStatus.ANSWERED) {
+                q.setStatus(QuestionStatus.SKIPPED);
+            } else {
+                answered++;
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("question", q.getQuestion());
+            entry.put("answer", q.getStudentAnswer());
+            entry.put("score", q.getScore());
+            entry.put("feedback", q.getAiFeedback());
+            transcript.add(entry);
+        }
+        questionRepository.saveAll(questions);
+
+        // Overall score is the mean of the scored answers; skipped questions count as 0
+        BigDecimal total = questions.stream()
+            .map(q -> q.getScore() != null ? q.getScore() : BigDecimal.ZERO)
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        interview.setOverallScore(questions.isEmpty() ? BigDecimal.ZERO
+            : total.divide(BigDecimal.valueOf(questions.size()), 2, RoundingMode.HALF_UP));
+
+        Map<String, Object> overall = new HashMap<>();
+        if (json.get("overall") instanceof Map<?, ?> map) {
+            map.forEach((key, value) -> overall.put(String.valueOf(key), value));
+        }
+        overall.putIfAbsent("feedback", "Buổi phỏng vấn đã hoàn tất.");
+        overall.put("summary", interview.getContextSummary());
+        interview.setAiFeedback(overall);
+
+        interview.setAnsweredQuestions(answered);
+        interview.setStatus(InterviewStatus.COMPLETED);
+        interview.setCompletedAt(LocalDateTime.now());
+        if (interview.getStartedAt() != null) {
+            interview.setDurationSeconds((int) Duration.between(interview.getStartedAt(), LocalDateTime.now()).getSeconds());
+        }
+        try {
+            interview.setTranscript(objectMapper.writeValueAsString(transcript));
+        } catch (Exception e) {
+            log.warn("Could not serialize transcript of session {}: {}", interview.getId(), e.getMessage());
+        }
+        log.info("Mock interview session {} completed: {} / {} answered, score {}",
+            interview.getId(), answered, questions.size(), interview.getOverallScore());
+    }
+
+    private MockInterview load(UUID sessionId, UUID studentId) {
+        return checkOwner(interviewRepository.findById(sessionId)
+            .orElseThrow(() -> new RuntimeException("Không tìm thấy phiên phỏng vấn")), studentId);
+    }
+
+    private MockInterview loadForUpdate(UUID sessionId, UUID studentId) {
+        return checkOwner(interviewRepository.findByIdForUpdate(sessionId)
+            .orElseThrow(() -> new RuntimeException("Không tìm thấy phiên phỏng vấn")), studentId);
+    }
+
+    private MockInterview checkOwner(MockInterview interview, UUID studentId) {
+        // Deny by default: a missing caller id never matches
+        if (studentId == null || !studentId.equals(interview.getStudentId())) {
+            throw new AccessDeniedException("Không có quyền truy cập phiên phỏng vấn này");
+        }
+        return interview;
+    }
+
+    private Map<String, Object> toView(MockInterview interview) {
+        return toView(interview, questionRepository.findByMockInterviewIdOrderByQuestionOrderAsc(interview.getId()));
+    }
+
+    private Map<String, Object> toView(MockInterview interview, List<MockInterviewQuestion> questions) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        Integer current = null;
+        for (MockInterviewQuestion q : questions) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("questionOrder", q.getQuestionOrder());
+            item.put("question", q.getQuestion());
+            item.put("status", q.getStatus());
+            item.put("answer", q.getStudentAnswer());
+            item.put("score", q.getScore());
+            item.put("feedback", q.getAiFeedback());
+            items.add(item);
+            if (current == null && q.getStatus() == QuestionStatus.NOT_ANSWERED) {
+                current = q.getQuestionOrder();
+            }
+        }
+
+        Map<String, Object> view = new HashMap<>();
+        view.put("sessionId", interview.getId());
+        view.put("jobId", interview.getJobId());
+        view.put("jobTitle", interview.getJobTitle());
+        view.put("status", interview.getStatus());
+        view.put("totalQuestions", interview.getTotalQuestions());
+        view.put("answeredQuestions", interview.getAnsweredQuestions());
+        view.put("pendingEvaluations", pendingCount(questions));
+        view.put("currentQuestionOrder", current);
+        view.put("questions", items);
+        view.put("overallScore", interview.getOverallScore());
+        view.put("aiFeedback", interview.getAiFeedback());
+        view.put("startedAt", interview.getStartedAt());
+        return view;
+    }
+
+    private long pendingCount(List<MockInterviewQuestion> questions) {
+        return questions.stream()
+            .filter(q -> q.getStatus() == QuestionStatus.ANSWERED && q.getAiFeedback() == null)
+            .count();
+    }
+
+    private String buildJobContext(JobDTO job) {
+        return "Công việc: " + job.getTitle() + "\n" +
+            "Mô tả: " + TokenEstimator.truncate(job.getDescription() != null ? job.getDescription() : "", jobTokens) + "\n" +
+            "Yêu cầu: " + TokenEstimator.truncate(job.getRequirements() != null ? job.getRequirements() : "", jobTokens / 2);
+    }
+
+    private record RoundResult(Map<String, Object> view, int stale) {
+    }
+
+    private record RoundInput(String jobContext, String summary, List<MockInterviewQuestion> pending) {
+    }
+}
@@ -0,0 +1,418 @@
+package vn.careermate.aiservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.careermate.aiservice.model.JobRecommendation;
+import vn.careermate.aiservice.repository.JobRecommendationRepository;
+import vn.careermate.aiservice.vector.VectorMatch;
+import vn.careermate.common.client.JobServiceClient;
+import vn.careermate.common.client.UserServiceClient;
+import vn.careermate.common.dto.JobDTO;
+import vn.careermate.common.dto.JobRecommendationDTO;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Precomputed job recommendations
+ * Keeps the top-N rows of aiservice.job_recommendations per student up to date: a job change rescores
+ * the students whose CVs are closest to it, a newly analyzed CV rescores the jobs closest to that CV.
+ * Score = vector similarity (CV vs job) blended with JobSkill/StudentSkill overlap; no LLM call involved.
+ */
+@Slf4j
+@Service
+public class JobRecommendationService {
+
+    @Value("${ai.recommendations.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.recommendations.top-n:20}")
+    private int topN;
+
+    @Value("${ai.recommendations.candidate-jobs:100}")
+    private int candidateJobs;
+
+    @Value("${ai.recommendations.candidate-cvs:500}")
+    private int candidateCvs;
+
+    @Value("${ai.recommendations.vector-weight:0.6}")
+    private double vectorWeight;
+
+    @Value("${ai.recommendations.skill-weight:0.4}")
+    private double skillWeight;
+
+    @Value("${ai.recommendations.min-score:30}")
+    private double minScore;
+
+    @Value("${ai.recommendations.workers:2}")
+    private int workers;
+
+    private static final double OPTIONAL_SKILL_WEIGHT = 0.5;
+
+    private final JobRecommendationRepository recommendationRepository;
+    private final VectorDBService vectorDBService;
+    private final JobServiceClient jobServiceClient;
+    private final UserServiceClient userServiceClient;
+    private final TransactionTemplate transactionTemplate;
+
+    // Refreshes already waiting for the same job / CV are coalesced into one
+    private final Set<UUID> pendingJobs = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, String> pendingCVs = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    public JobRecommendationService(JobRecommendationRepository recommendationRepository,
+                                    VectorDBService vectorDBService,
+                                    JobServiceClient jobServiceClient,
+                                    UserServiceClient userServiceClient,
+                                    PlatformTransactionManager transactionManager) {
+        this.recommendationRepository = recommendationRepository;
+        this.vectorDBService = vectorDBService;
+        this.jobServiceClient = jobServiceClient;
+        this.userServiceClient = userServiceClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, workers), runnable -> {
+            Thread thread = new Thread(runnable, "job-recommendation-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Job recommendation engine {} (top {}, vector/skill weight {}/{})",
+            enabled ? "enabled" : "disabled", topN, vectorWeight, skillWeight);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Job created, approved, hidden or removed: rescore it for the closest students in the background
+     */
+    public void onJobChanged(UUID jobId) {
+        if (!enabled || !pendingJobs.add(jobId)) {
+            return;
+        }
+        executor.execute(() -> {
+            pendingJobs.remove(jobId);
+            try {
+                refreshJob(jobId);
+            } catch (Exception e) {
+                log.error("Could not refresh recommendations for job {}: {}", jobId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * CV analyzed: recompute the owner's recommendations from this CV in the background
+     */
+    public void onCVChanged(UUID cvId, String cvContent) {
+        if (!enabled || cvContent == null || cvContent.isBlank()) {
+            return;
+        }
+        if (pendingCVs.put(cvId, cvContent) != null) {
+            return; // Already scheduled; the task picks up the latest content
+        }
+        executor.execute(() -> {
+            String content = pendingCVs.remove(cvId);
+            try {
+                refreshForCV(cvId, content);
+            } catch (Exception e) {
+                log.error("Could not refresh recommendations for CV {}: {}", cvId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Schedule a refresh of every active job (e.g. after a vector reindex)
+     */
+    public int rebuildAll() {
+        List<UUID> jobIds = jobServiceClient.getActiveJobIds();
+        jobIds.forEach(this::onJobChanged);
+        log.info("Scheduled recommendation refresh for {} active jobs", jobIds.size());
+        return jobIds.size();
+    }
+
+    @Transactional(readOnly = true)
+    public List<JobRecommendationDTO> getRecommendations(UUID studentId) {
+        return recommendationRepository.findByStudentIdOrderByMatchScoreDescCreatedAtDesc(studentId).stream()
+            .map(this::toDTO)
+            .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public List<JobRecommendation> getUnviewedRecommendations(UUID studentId) {
+        return recommendationRepository.findUnviewedByStudentId(studentId);
+    }
+
+    @Transactional
+    public JobRecommendation markAsViewed(UUID recommendationId, UUID studentId) {
+        // Scoped to the student, so another student's recommendation reads as not found
+        JobRecommendation recommendation = recommendationRepository.findByIdAndStudentId(recommendationId, studentId)
+            .orElseThrow(() -> new RuntimeException("Recommendation not found"));
+        if (!Boolean.TRUE.equals(recommendation.getIsViewed())) {
+            recommendation.setIsViewed(true);
+            recommendation.setViewedAt(LocalDateTime.now());
+            recommendation = recommendationRepository.save(recommendation);
+        }
+        return recommendation;
+    }
+
+    @Transactional
+    public JobRecommendation markAsApplied(UUID recommendationId, UUID studentId) {
+        JobRecommendation recommendation = recommendationRepository.findByIdAndStudentId(recommendationId, studentId)
+            .orElseThrow(() -> new RuntimeException("Recommendation not found"));
+        recommendation.setIsApplied(true);
+        return recommendationRepository.save(recommendation);
+    }
+
+    private void refreshJob(UUID jobId) {
+        JobDTO job = fetchProfiles(List.of(jobId)).get(jobId);
+        if (job == null || !isRecommendable(job)) {
+            Integer removed = transactionTemplate.execute(status -> recommendationRepository.deleteByJobId(jobId));
+            if (removed != null && removed > 0) {
+                log.info("Removed {} recommendations for job {} (no longer open)", removed, jobId);
+            }
+            return;
+        }
+
+        String jobText = buildJobText(job);
+        vectorDBService.storeJob(jobId.toString(), job.getTitle(), job.getDescription(), job.getRequirements());
+        List<VectorMatch> cvMatches = vectorDBService.searchCVs(jobText, candidateCvs);
+        if (cvMatches.isEmpty()) {
+            return;
+        }
+
+        // Best CV similarity per student
+        Map<UUID, UUID> ownerByCv = userServiceClient.getCVOwners(
+            cvMatches.stream().map(VectorMatch::getId).collect(Collectors.toList()));
+        Map<UUID, Float> similarityByStudent = new LinkedHashMap<>();
+        for (VectorMatch match : cvMatches) {
+            UUID studentId = ownerByCv.get(match.getId());
+            if (studentId != null) {
+                similarityByStudent.merge(studentId, match.getScore(), Math::max);
+            }
+        }
+        if (similarityByStudent.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, List<String>> skillsByStudent = userServiceClient.getStudentSkills(
+            new ArrayList<>(similarityByStudent.keySet()));
+        int updated = 0;
+        for (Map.Entry<UUID, Float> entry : similarityByStudent.entrySet()) {
+            ScoredJob scored = score(job, entry.getValue(),
+                skillsByStudent.getOrDefault(entry.getKey(), List.of()));
+            Boolean changed = transactionTemplate.execute(status -> mergeIntoTopN(entry.getKey(), scored));
+            if (Boolean.TRUE.equals(changed)) {
+                updated++;
+            }
+        }
+        log.info("Job {} rescored for {} students ({} recommendation lists changed)",
+            jobId, similarityByStudent.size(), updated);
+    }
+
+    private void refreshForCV(UUID cvId, String cvContent) {
+        UUID studentId = userServiceClient.getCVOwners(List.of(cvId)).get(cvId);
+        if (studentId == null) {
+            log.warn("No owner found for CV {}, skipping recommendations", cvId);
+            return;
+        }
+
+        List<VectorMatch> jobMatches = vectorDBService.searchJobs(cvContent, candidateJobs);
+        Map<UUID, JobDTO> profiles = jobMatches.isEmpty()
+            ? Map.of()
+            : fetchProfiles(jobMatches.stream().map(VectorMatch::getId).collect(Collectors.toList()));
+        List<String> skills = userServiceClient.getStudentSkills(List.of(studentId))
+            .getOrDefault(studentId, List.of());
+
+        List<ScoredJob> scored = new ArrayList<>();
+        for (VectorMatch match : jobMatches) {
+            JobDTO job = profiles.get(match.getId());
+            if (job != null && isRecommendable(job)) {
+                ScoredJob candidate = score(job, match.getScore(), skills);
+                if (candidate.score() >= minScore) {
+                    scored.add(candidate);
+                }
+            }
+        }
+        scored.sort(Comparator.comparingDouble(ScoredJob::score).reversed());
+        List<ScoredJob> top = scored.subList(0, Math.min(topN, scored.size()));
+
+        transactionTemplate.executeWithoutResult(status -> replaceForStudent(studentId, top));
+        log.info("Recommendations for student {} rebuilt from CV {}: {} jobs", studentId, cvId, top.size());
+    }
+
+    /**
+     * Upsert one scored job into the student's list and trim it back to top N.
+     * Returns true if the student's list changed.
+     */
+    private boolean mergeIntoTopN(UUID studentId, ScoredJob scored) {
+        List<JobRecommendation> current = new ArrayList<>(recommendationRepository
+            .findByStudentIdOrderByMatchScoreDescCreatedAtDesc(studentId));
+        JobRecommendation existing = current.stream()
+            .filter(r -> r.getJobId().equals(scored.jobId()))
+            .findFirst()
+            .orElse(null);
+
+        if (scored.score() < minScore) {
+            if (existing != null) {
+                recommendationRepository.delete(existing);
+                return true;
+            }
+            return false;
+        }
+
+        if (existing == null) {
+            // Full list and not better than the weakest entry: nothing to do
+            if (current.size() >= topN
+                && current.get(current.size() - 1).getMatchScore().doubleValue() >= scored.score()) {
+                return false;
+            }
+            existing = JobRecommendation.builder().studentId(studentId).jobId(scored.jobId()).build();
+            current.add(existing);
+        }
+        apply(existing, scored);
+        recommendationRepository.save(existing);
+
+        current.sort(Comparator.comparing(JobRecommendation::getMatchScore).reversed());
+        if (current.size() > topN) {
+            List<JobRecommendation> evicted = current.subList(topN, current.size()).stream()
+                .filter(r -> r.getId() != null)
+                .collect(Collectors.toList());
+            recommendationRepository.deleteAll(evicted);
+        }
+        return true;
+    }
+
+    /**
+     * Replace the student's list with the given top jobs, keeping viewed/applied flags of rows that stay
+     */
+    private void replaceForStudent(UUID studentId, List<ScoredJob> top) {
+        Map<UUID, JobRecommendation> existingByJob = recommendationRepository
+            .findByStudentIdOrderByMatchScoreDescCreatedAtDesc(studentId).stream()
+            .collect(Collectors.toMap(JobRecommendation::getJobId, Function.identity(), (a, b) -> a));
+
+        List<JobRecommendation> toSave = new ArrayList<>();
+        for (ScoredJob scored : top) {
+            JobRecommendation recommendation = existingByJob.remove(scored.jobId());
+            if (recommendation == null) {
+                recommendation = JobRecommendation.builder().studentId(studentId).jobId(scored.jobId()).build();
+            }
+            apply(recommendation, scored);
+            toSave.add(recommendation);
+        }
+        recommendationRepository.deleteAll(existingByJob.values());
+        recommendationRepository.saveAll(toSave);
+    }
+
+    private void apply(JobRecommendation recommendation, ScoredJob scored) {
+        recommendation.setJobTitle(scored.title());
+        recommendation.setMatchScore(BigDecimal.valueOf(scored.score()).setScale(2, RoundingMode.HALF_UP));
+        recommendation.setMatchReason(scored.reason());
+        recommendation.setUpdatedAt(LocalDateTime.now());
+    }
+
+    private ScoredJob score(JobDTO job, float similarity, List<String> studentSkills) {
+        Set<String> owned = studentSkills.stream()
+            .filter(Objects::nonNull)
+            .map(this::normalizeSkill)
+            .collect(Collectors.toSet());
+
+        List<String> required = job.getRequiredSkills() != null ? job.getRequiredSkills() : List.of();
+        List<String> optional = job.getOptionalSkills() != null ? job.getOptionalSkills() : List.of();
+        List<String> matched = new ArrayList<>();
+        double total = 0;
+        double covered = 0;
+        for (String skill : required) {
+            total += 1;
+            if (owned.contains(normalizeSkill(skill))) {
+                covered += 1;
+                matched.add(skill);
+            }
+        }
+        for (String skill : optional) {
+            total += OPTIONAL_SKILL_WEIGHT;
+            if (owned.contains(normalizeSkill(skill))) {
+                covered += OPTIONAL_SKILL_WEIGHT;
+                matched.add(skill);
+            }
+        }
+
+        double vectorScore = Math.max(0, similarity);
+        double score;
+        if (total > 0) {
+            score = (vectorWeight * vectorScore + skillWeight * (covered / total)) / (vectorWeight + skillWeight);
+        } else {
+            // Job lists no skills: similarity alone
+            score = vectorScore;
+        }
+        score = Math.min(100, score * 100);
+
+        StringBuilder reason = new StringBuilder()
+            .append("Mức độ tương đồng CV: ").append(Math.round(vectorScore * 100)).append("%");
+        if (total > 0) {
+            reason.append(". Kỹ năng phù hợp: ")
+                .append(matched.isEmpty() ? "chưa có" : String.join(", ", matched))
+                .append(" (").append(matched.size()).append("/").append(required.size() + optional.size()).append(")");
+        }
+        return new ScoredJob(job.getId(), job.getTitle(), score, reason.toString());
+    }
+
+    private Map<UUID, JobDTO> fetchProfiles(List<UUID> jobIds) {
+        return jobServiceClient.getJobMatchingProfiles(jobIds).stream()
+            .collect(Collectors.toMap(JobDTO::getId, Function.identity(), (a, b) -> a));
+    }
+
+    private boolean isRecommendable(JobDTO job) {
+        return "ACTIVE".equals(job.getStatus()) && !Boolean.TRUE.equals(job.getHidden());
+    }
+
+    private String buildJobText(JobDTO job) {
+        StringBuilder text = new StringBuilder();
+        text.append("Title: ").append(job.getTitle()).append("\n");
+        if (job.getDescription() != null) {
+            text.append("Description: ").append(job.getDescription()).append("\n");
+        }
+        if (job.getRequirements() != null) {
+            text.append("Requirements: ").append(job.getRequirements()).append("\n");
+        }
+        if (job.getRequiredSkills() != null && !job.getRequiredSkills().isEmpty()) {
+            text.append("Skills: ").append(String.join(", ", job.getRequiredSkills())).append("\n");
+        }
+        return text.toString();
+    }
+
+    private String normalizeSkill(String skill) {
+        return skill.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private JobRecommendationDTO toDTO(JobRecommendation recommendation) {
+        return JobRecommendationDTO.builder()
+            .jobId(recommendation.getJobId())
+            .title(recommendation.getJobTitle())
+            .matchScore(recommendation.getMatchScore() != null ? recommendation.getMatchScore().doubleValue() : null)
+            .reason(recommendation.getMatchReason())
+            .build();
+    }
+
+    private record ScoredJob(UUID jobId, String title, double score, String reason) {
+    }
+}
@@ -5,6 +5,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import vn.careermate.common.client.JobServiceClient;
 import vn.careermate.common.dto.JobDTO;
 
@@ -13,6 +15,8 @@ import java.util.*;
 import vn.careermate.aiservice.model.MockInterview;
 import vn.careermate.aiservice.model.MockInterviewQuestion;
 import vn.careermate.aiservice.repository.MockInterviewRepository;
+import vn.careermate.aiservice.util.LenientJsonExtractor;
+import vn.careermate.aiservice.util.TokenEstimator;
 
 import vn.careermate.common.client.UserServiceClient;
 import vn.careermate.common.dto.UserDTO;
@@ -22,6 +26,9 @@ public class MockInterviewService {
 
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(MockInterviewService.class);
 
+    @Value("${ai.prompt.job-tokens:400}")
+    private int jobTokens;
+
     private final WebClient.Builder webClientBuilder;
     private final JobServiceClient jobServiceClient;
     private final UserServiceClient userServiceClient; // Added
@@ -40,19 +47,19 @@ public class MockInterviewService {
         this.mockInterviewRepository = mockInterviewRepository;
     }
 
-    public Map<String, Object> startMockInterview(UUID jobId, String studentProfile) {
-        // Get job via Feign Client
-        JobDTO job;
-        try {
-            job = jobServiceClient.getJobById(jobId);
-            if (job == null) {
-                throw new RuntimeException("Job not found");
-            }
-        } catch (Exception e) {
-            log.error("Error fetching job: {}", e.getMessage());
-            throw new RuntimeException("Job not found");
-        }
-        
+    public Mono<Map<String, Object>> startMockInterview(UUID jobId, String studentProfile) {
+        // Get job via Feign Client (blocking, so off the request thread)
+        return Mono.fromCallable(() -> jobServiceClient.getJobById(jobId))
+            .subscribeOn(Schedulers.boundedElastic())
+            .onErrorMap(e -> {
+                log.error("Error fetching job: {}", e.getMessage());
+                return new RuntimeException("Job not found");
+            })
+            .switchIfEmpty(Mono.error(new RuntimeException("Job not found")))
+            .flatMap(job -> startMockInterview(job));
+    }
+
+    private Mono<Map<String, Object>> startMockInterview(JobDTO job) {
         // Generate interview questions based on job
         String prompt = String.format(
             "Bạn là một người phỏng vấn chuyên nghiệp. Dựa trên công việc sau đây, hãy tạo 5 câu hỏi phỏng vấn phù hợp.\n" +
@@ -66,22 +73,22 @@ public class MockInterviewService {
             "Công việc: %s\n" +
             "Mô tả: %s\n" +
             "Yêu cầu: %s",
-            job.getTitle(), job.getDescription(), job.getDescription() != null ? job.getDescription() : ""
+            job.getTitle(),
+            TokenEstimator.truncate(job.getDescription() != null ? job.getDescription() : "", jobTokens),
+            TokenEstimator.truncate(job.getRequirements() != null ? job.getRequirements() : "", jobTokens / 2)
         );
 
-        String response = aiService.callAIAPI(prompt);
-        Map<String, Object> aiResult = parseResponse(response);
-
-        Map<String, Object> result = new HashMap<>(aiResult);
-        result.put("jobId", job.getId());
-        result.put("jobTitle", job.getTitle());
-        result.put("startedAt", new Date());
-        result.put("currentQuestionIndex", 0);
-
-        return result;
+        return aiService.callAIAPIAsync(prompt).map(response -> {
+            Map<String, Object> result = new HashMap<>(parseResponse(response));
+            result.put("jobId", job.getId());
+            result.put("jobTitle", job.getTitle());
+            result.put("startedAt", new Date());
+            result.put("currentQuestionIndex", 0);
+            return result;
+        });
     }
 
-    public Map<String, Object> startCustomMockInterview(String jobTitle, String jobDescription) {
+    public Mono<Map<String, Object>> startCustomMockInterview(String jobTitle, String jobDescription) {
         // Generate interview questions based on custom role
         String prompt = String.format(
             "Bạn là một người phỏng vấn chuyên nghiệp. Dựa trên vị trí công việc sau đây, hãy tạo 5 câu hỏi phỏng vấn phù hợp.\n" +
@@ -94,19 +101,17 @@ public class MockInterviewService {
             "}\n\n" +
             "Vị trí: %s\n" +
             "Mô tả: %s",
-            jobTitle, jobDescription != null ? jobDescription : "N/A"
+            jobTitle, jobDescription != null ? TokenEstimator.truncate(jobDescription, jobTokens) : "N/A"
         );
 
-        String response = aiService.callAIAPI(prompt);
-        Map<String, Object> aiResult = parseResponse(response);
-
-        Map<String, Object> result = new HashMap<>(aiResult);
-        result.put("jobId", null);
-        result.put("jobTitle", jobTitle);
-        result.put("startedAt", new Date());
-        result.put("currentQuestionIndex", 0);
-
-        return result;
+        return aiService.callAIAPIAsync(prompt).map(response -> {
+            Map<String, Object> result = new HashMap<>(parseResponse(response));
+            result.put("jobId", null);
+            result.put("jobTitle", jobTitle);
+            result.put("startedAt", new Date());
+            result.put("currentQuestionIndex", 0);
+            return result;
+        });
     }
 
     public List<MockInterview> getHistory(UUID studentId) {
@@ -176,7 +181,7 @@ public class MockInterviewService {
         }
     }
 
-    public Map<String, Object> evaluateAnswer(String question, String answer, String jobContext) {
+    public Mono<Map<String, Object>> evaluateAnswer(String question, String answer, String jobContext) {
         String prompt = String.format(
             "Bạn là một chuyên gia đánh giá phỏng vấn. Hãy đánh giá câu trả lời sau đây.\n" +
             "Trả lời dưới dạng JSON:\n" +
@@ -189,11 +194,10 @@ public class MockInterviewService {
             "Câu hỏi: %s\n" +
             "Câu trả lời: %s\n" +
             "Ngữ cảnh công việc: %s",
-            question, answer, jobContext
+            question, answer, TokenEstimator.truncate(jobContext, jobTokens)
         );
 
-        String response = aiService.callAIAPI(prompt);
-        return parseResponse(response);
+        return aiService.callAIAPIAsync(prompt).map(this::parseResponse);
     }
 
     private Map<String, Object> parseResponse(String response) {
@@ -209,22 +213,10 @@ public class MockInterviewService {
             return result;
         }
 
-        try {
-            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            
-            // Clean text (remove markdown code blocks if present)
-            String text = response.trim();
-            if (text.startsWith("```json")) text = text.substring(7);
-            if (text.startsWith("```")) text = text.substring(3);
-            if (text.endsWith("```")) text = text.substring(0, text.length() - 3);
-            text = text.trim();
-            
-            // Try to parse as JSON
-            com.fasterxml.jackson.databind.JsonNode jsonNode = mapper.readTree(text);
-            result = mapper.convertValue(jsonNode, Map.class);
-        } catch (Exception e) {
-            log.error("Error parsing response", e);
-            // Return empty result if parsing fails
+        // Tolerant single pass: code fences, preamble and a cut-off tail keep whatever was parsed
+        result.putAll(LenientJsonExtractor.parseObject(response));
+        if (result.isEmpty()) {
+            log.warn("Could not parse JSON from AI response");
         }
         return result;
     }
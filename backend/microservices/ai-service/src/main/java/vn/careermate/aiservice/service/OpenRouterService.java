@@ -0,0 +1,152 @@
+package vn.careermate.aiservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * OpenRouter API client (OpenAI-compatible chat completions)
+ * Calls are bounded by AIProviderLimiter like the Gemini ones.
+ */
+@Slf4j
+@Service
+public class OpenRouterService implements AIProvider {
+
+    @Value("${ai.openrouter.api-key:}")
+    private String openRouterApiKey;
+
+    @Value("${ai.openrouter.model:meta-llama/llama-3.2-3b-instruct:free}")
+    private String openRouterModel;
+
+    @Value("${ai.openrouter.timeout:60000}")
+    private int timeout;
+
+    private final WebClient webClient;
+    private final AIProviderLimiter providerLimiter;
+
+    public OpenRouterService(WebClient.Builder webClientBuilder, AIProviderLimiter providerLimiter) {
+        this.webClient = webClientBuilder
+            .baseUrl("https://openrouter.ai/api/v1")
+            .defaultHeader("Content-Type", "application/json")
+            .defaultHeader("HTTP-Referer", "http://localhost:8080") // Optional: for analytics
+            .defaultHeader("X-Title", "CareerMate") // Optional: for analytics
+            .build();
+        this.providerLimiter = providerLimiter;
+    }
+
+    @Override
+    public String getName() {
+        return AIProviderLimiter.OPENROUTER;
+    }
+
+    @Override
+    public Mono<String> generate(String prompt) {
+        return callOpenRouterAPIAsync(prompt);
+    }
+
+    @Override
+    public Mono<String> generate(String prompt, boolean deterministic) {
+        return callOpenRouterAPIAsync(prompt, deterministic);
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return openRouterApiKey != null && !openRouterApiKey.isEmpty()
+            && !openRouterApiKey.equals("YOUR_OPENROUTER_API_KEY_HERE");
+    }
+
+    /**
+     * Call OpenRouter API without blocking the caller
+     */
+    public Mono<String> callOpenRouterAPIAsync(String prompt) {
+        return callOpenRouterAPIAsync(prompt, false);
+    }
+
+    /**
+     * Deterministic calls send temperature 0; otherwise the model default is used
+     */
+    public Mono<String> callOpenRouterAPIAsync(String prompt, boolean deterministic) {
+        if (!isConfigured()) {
+            return Mono.error(new RuntimeException("OpenRouter API key is not configured"));
+        }
+
+        // OpenRouter uses OpenAI-compatible format
+        String url = "/chat/completions";
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", openRouterModel);
+
+        List<Map<String, Object>> messages = new ArrayList<>();
+        Map<String, Object> message = new HashMap<>();
+        message.put("role", "user");
+        message.put("content", prompt);
+        messages.add(message);
+        requestBody.put("messages", messages);
+        if (deterministic) {
+            requestBody.put("temperature", 0);
+        }
+
+        Mono<Map> call = Mono.defer(() -> {
+            log.info("Calling OpenRouter API with model: {}", openRouterModel);
+            return webClient.post()
+                .uri(url)
+                .header("Authorization", "Bearer " + openRouterApiKey)
+                .header("Content-Type", "application/json")
+                .bodyValue(requestBody)
+                .retrieve()
+                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(), clientResponse -> {
+                    int statusCode = clientResponse.statusCode().value();
+                    log.error("OpenRouter API HTTP error: {}", clientResponse.statusCode());
+                    return clientResponse.bodyToMono(String.class)
+                        .doOnNext(body -> log.error("Error response body: {}", body))
+                        .then(Mono.error(new AIProviderException(AIProviderLimiter.OPENROUTER, statusCode,
+                            "OpenRouter API returned error: " + clientResponse.statusCode() +
+                            (statusCode == 503 ? " SERVICE_UNAVAILABLE - Dịch vụ AI tạm thời không khả dụng. Vui lòng thử lại sau." :
+                             statusCode == 402 ? " PAYMENT_REQUIRED - Hết hạn mức sử dụng hoặc cần số dư để sử dụng model này. Vui lòng kiểm tra tài khoản OpenRouter hoặc đổi model." :
+                             statusCode == 403 ? " FORBIDDEN - API key không hợp lệ hoặc không có quyền truy cập." :
+                             statusCode == 429 ? " RATE_LIMIT - Đã vượt quá giới hạn sử dụng. Vui lòng thử lại sau." :
+                             ""))));
+                })
+                .bodyToMono(Map.class)
+                .timeout(Duration.ofMillis(timeout))
+                .doOnError(error -> log.error("OpenRouter API error: {}", error.getMessage()));
+        });
+
+        return providerLimiter.limit(AIProviderLimiter.OPENROUTER, call)
+            .switchIfEmpty(Mono.error(new RuntimeException("Invalid response from OpenRouter API: null")))
+            .map(this::extractOpenRouterContent)
+            .onErrorMap(e -> !(e instanceof AIProviderException), e -> {
+                log.error("Error calling OpenRouter API", e);
+                return new RuntimeException("Failed to call OpenRouter API: " + e.getMessage(), e);
+            });
+    }
+
+    @SuppressWarnings("unchecked")
+    private String extractOpenRouterContent(Map response) {
+        // Parse OpenAI-compatible response format
+        if (response.containsKey("choices")) {
+            List<Map<String, Object>> choices = (List<Map<String, Object>>) response.get("choices");
+            if (choices != null && !choices.isEmpty()) {
+                Map<String, Object> choice = choices.get(0);
+                if (choice.containsKey("message")) {
+                    Map<String, Object> messageMap = (Map<String, Object>) choice.get("message");
+                    if (messageMap.containsKey("content")) {
+                        Object contentObj = messageMap.get("content");
+                        if (contentObj != null) {
+                            return contentObj.toString();
+                        }
+                    }
+                }
+            }
+        }
+
+        // Log full response for debugging
+        log.error("Invalid response structure from OpenRouter API: {}", response);
+        throw new RuntimeException("Invalid response from OpenRouter API: unexpected structure");
+    }
+}
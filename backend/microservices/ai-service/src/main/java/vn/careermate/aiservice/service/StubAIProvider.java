@@ -0,0 +1,189 @@
+package vn.careermate.aiservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local provider for tests, load tests and offline development: no network
+ * Replays recorded provider answers (one text file per answer, named after the prompt kind, e.g.
+ * cv-analysis-1.txt, chat.txt) with configurable latency, and injects errors / timeouts at a fixed rate.
+ * The same prompt always gets the same recording; latency and faults come from a seeded random.
+ * Enable with ai.stub.enabled=true; set ai.provider=stub to make it the primary provider.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "ai.stub.enabled", havingValue = "true")
+public class StubAIProvider implements AIProvider {
+
+    public static final String NAME = "stub";
+
+    // First match wins, so the more specific prompts come first; anything else is answered as chat
+    private static final Map<String, String> KINDS = new LinkedHashMap<>();
+
+    static {
+        KINDS.put("chấm điểm mức độ phù hợp", "ranking");
+        KINDS.put("chuyên gia đánh giá phỏng vấn", "interview-evaluation");
+        KINDS.put("câu hỏi phỏng vấn", "interview-questions");
+        KINDS.put("lộ trình nghề nghiệp", "roadmap");
+        KINDS.put("phân tích cv", "cv-analysis");
+        KINDS.put("cập nhật bản tóm tắt", "summary");
+    }
+
+    private static final String DEFAULT_KIND = "chat";
+
+    private static final String FALLBACK_RESPONSE = """
+        {
+          "score": 70,
+          "strengths": ["Kinh nghiệm phù hợp"],
+          "weaknesses": ["Cần bổ sung thành tích cụ thể"],
+          "suggestions": ["Thêm số liệu cho từng dự án"],
+          "message": "Đây là phản hồi mẫu từ stub provider."
+        }
+        """;
+
+    @Value("${ai.stub.recordings:classpath*:ai-stub/*.txt}")
+    private String recordingsLocation;
+
+    @Value("${ai.stub.latency-ms:200}")
+    private long latencyMs;
+
+    @Value("${ai.stub.latency-jitter-ms:0}")
+    private long latencyJitterMs;
+
+    @Value("${ai.stub.error-rate:0}")
+    private double errorRate;
+
+    @Value("${ai.stub.error-status:503}")
+    private int errorStatus;
+
+    @Value("${ai.stub.timeout-rate:0}")
+    private double timeoutRate;
+
+    @Value("${ai.stub.seed:42}")
+    private long seed;
+
+    private final Map<String, List<String>> recordings = new HashMap<>();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong injectedTimeouts = new AtomicLong();
+    private Random random;
+
+    @PostConstruct
+    public void init() {
+        random = new Random(seed);
+        try {
+            Resource[] resources = new PathMatchingResourcePatternResolver().getResources(recordingsLocation);
+            // Sorted by name so the replay order does not depend on the classpath / filesystem order
+            Arrays.sort(resources, Comparator.comparing(r -> String.valueOf(r.getFilename())));
+            for (Resource resource : resources) {
+                String fileName = resource.getFilename();
+                if (fileName == null) continue;
+                String answer = new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+                if (!answer.isEmpty()) {
+                    recordings.computeIfAbsent(kindOfFile(fileName), k -> new ArrayList<>()).add(answer);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Could not load stub AI recordings from {}: {}", recordingsLocation, e.getMessage());
+        }
+        log.info("Stub AI provider: {} recordings ({}), latency {}ms +{}ms, error rate {}, timeout rate {}",
+            recordings.values().stream().mapToInt(List::size).sum(), recordings.keySet(),
+            latencyMs, latencyJitterMs, errorRate, timeoutRate);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Mono<String> generate(String prompt) {
+        calls.incrementAndGet();
+        String kind = kindOf(prompt);
+        double fault = random.nextDouble();
+        Duration latency = Duration.ofMillis(latencyMs + (latencyJitterMs > 0 ? (long) (random.nextDouble() * latencyJitterMs) : 0));
+        log.debug("Stub AI provider answering {} prompt of {} chars", kind, prompt != null ? prompt.length() : 0);
+
+        if (fault < errorRate) {
+            injectedErrors.incrementAndGet();
+            return Mono.delay(latency).then(Mono.error(
+                new AIProviderException(NAME, errorStatus, "Stub AI provider injected error " + errorStatus)));
+        }
+        if (fault < errorRate + timeoutRate) {
+            injectedTimeouts.incrementAndGet();
+            return Mono.delay(latency).then(Mono.error(new TimeoutException("Stub AI provider injected timeout")));
+        }
+        return Mono.just(answerFor(kind, prompt)).delayElement(latency);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("calls", calls.get());
+        stats.put("injectedErrors", injectedErrors.get());
+        stats.put("injectedTimeouts", injectedTimeouts.get());
+        Map<String, Integer> loaded = new TreeMap<>();
+        recordings.forEach((kind, answers) -> loaded.put(kind, answers.size()));
+        stats.put("recordings", loaded);
+        return stats;
+    }
+
+    /**
+     * Deterministic embedding for offline runs: hashed bag of words, L2-normalized, so texts
+     * sharing words are close in cosine similarity
+     */
+    public static float[] embed(String text, int dimensions) {
+        float[] vector = new float[dimensions];
+        if (text == null) return vector;
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}+#.]+")) {
+            if (token.isEmpty()) continue;
+            int hash = token.hashCode();
+            vector[Math.floorMod(hash, dimensions)] += (hash & 0x40000000) == 0 ? 1f : -1f;
+        }
+        double norm = 0;
+        for (float v : vector) norm += v * v;
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < dimensions; i++) vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    static String kindOf(String prompt) {
+        String text = prompt != null ? prompt.toLowerCase(Locale.ROOT) : "";
+        for (Map.Entry<String, String> kind : KINDS.entrySet()) {
+            if (text.contains(kind.getKey())) {
+                return kind.getValue();
+            }
+        }
+        return DEFAULT_KIND;
+    }
+
+    private String answerFor(String kind, String prompt) {
+        List<String> answers = recordings.get(kind);
+        if (answers == null || answers.isEmpty()) {
+            answers = recordings.get(DEFAULT_KIND);
+        }
+        if (answers == null || answers.isEmpty()) {
+            return FALLBACK_RESPONSE;
+        }
+        return answers.get(Math.floorMod(prompt != null ? prompt.hashCode() : 0, answers.size()));
+    }
+
+    // cv-analysis-2.txt -> cv-analysis
+    private static String kindOfFile(String fileName) {
+        String base = fileName.contains(".") ? fileName.substring(0, fileName.lastIndexOf('.')) : fileName;
+        return base.replaceFirst("-\\d+$", "");
+    }
+}
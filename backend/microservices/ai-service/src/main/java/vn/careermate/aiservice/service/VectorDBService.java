@@ -1,167 +1,157 @@
 package vn.careermate.aiservice.service;
 
-import io.weaviate.client.WeaviateClient;
-import io.weaviate.client.base.Result;
-import io.weaviate.client.v1.data.model.WeaviateObject;
-import io.weaviate.client.v1.data.replication.model.ConsistencyLevel;
-import io.weaviate.client.v1.graphql.model.GraphQLResponse;
-import io.weaviate.client.v1.graphql.query.argument.NearTextArgument;
-import io.weaviate.client.v1.graphql.query.fields.Field;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import vn.careermate.aiservice.service.EmbeddingService;
+import vn.careermate.aiservice.vector.HnswIndex;
+import vn.careermate.aiservice.vector.MappedVectorStore;
+import vn.careermate.aiservice.vector.VectorMatch;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
- * Service for Vector DB operations using Weaviate
+ * Service for Vector DB operations using an embedded HNSW index
+ * Vectors are kept in memory-mapped files under ai.vector-db.path (one for CVs, one for jobs)
  * Handles semantic search for job matching
  */
 @Slf4j
 @Service
 public class VectorDBService {
 
-    @Value("${ai.vector-db.weaviate.url:http://localhost:8081}")
-    private String weaviateUrl;
+    @Value("${ai.vector-db.enabled:true}")
+    private boolean enabled;
 
-    @Value("${ai.vector-db.weaviate.api-key:}")
-    private String weaviateApiKey;
+    @Value("${ai.vector-db.path:data/vector-index}")
+    private String indexPath;
 
-    @Value("${ai.vector-db.weaviate.enabled:false}")
-    private boolean enabled;
+    @Value("${ai.vector-db.hnsw.m:16}")
+    private int hnswM;
+
+    @Value("${ai.vector-db.hnsw.ef-construction:100}")
+    private int efConstruction;
+
+    @Value("${ai.vector-db.hnsw.ef-search:64}")
+    private int efSearch;
 
     private final EmbeddingService embeddingService;
-    private WeaviateClient client;
+    private volatile HnswIndex cvIndex;
+    private volatile HnswIndex jobIndex;
 
     public VectorDBService(EmbeddingService embeddingService) {
         this.embeddingService = embeddingService;
     }
-    private static final String CV_CLASS = "CV";
-    private static final String JOB_CLASS = "Job";
+    private static final String CV_FILE = "cv.vec";
+    private static final String JOB_FILE = "job.vec";
 
     @PostConstruct
     public void init() {
         if (!enabled) {
-            log.info("Vector DB is disabled. Set ai.vector-db.weaviate.enabled=true to enable.");
+            log.info("Vector DB is disabled. Set ai.vector-db.enabled=true to enable.");
             return;
         }
 
         try {
-            // Note: Weaviate client v4.5.0 initialization
-            // Vector DB will be disabled until Weaviate server is properly configured
-            // To enable: Setup Weaviate server and configure proper client initialization
-            this.client = null;
-            log.warn("Weaviate client initialization skipped. Vector DB will be disabled until properly configured.");
-            
-            // Create schema if not exists
-            createSchemaIfNotExists();
-        } catch (Exception e) {
-            log.error("Failed to initialize Weaviate client", e);
-        }
-    }
-
-    private void createSchemaIfNotExists() {
-        if (client == null) return;
-
-        try {
-            // Create CV class schema
-            createClassIfNotExists(CV_CLASS, "CV documents for semantic search");
-            // Create Job class schema
-            createClassIfNotExists(JOB_CLASS, "Job descriptions for semantic search");
+            // Open existing index files; new ones are created once the embedding dimension is known
+            cvIndex = openIndex(CV_FILE, 0);
+            jobIndex = openIndex(JOB_FILE, 0);
+            log.info("Vector DB initialized at {} (CVs: {}, jobs: {})", indexPath,
+                cvIndex != null ? cvIndex.size() : 0, jobIndex != null ? jobIndex.size() : 0);
         } catch (Exception e) {
-            log.error("Failed to create schema", e);
+            log.error("Failed to open vector index at {}", indexPath, e);
+            enabled = false;
         }
     }
 
-    private void createClassIfNotExists(String className, String description) {
-        // Schema creation logic would go here
-        // For now, we'll assume schema is created manually or via migration
-        log.info("Schema check for class: {}", className);
+    @PreDestroy
+    public void shutdown() {
+        closeQuietly(cvIndex);
+        closeQuietly(jobIndex);
     }
 
     /**
      * Store CV embedding in vector DB
      */
     public void storeCV(String cvId, String content) {
-        if (!enabled || client == null) {
-            log.warn("Vector DB is not enabled or client not initialized");
+        if (!enabled) {
+            log.warn("Vector DB is not enabled");
             return;
         }
 
         try {
             // Generate embedding
-            List<Float> embedding = embeddingService.generateCVEmbedding(content);
-            if (embedding.isEmpty()) {
+            float[] embedding = embeddingService.generateCVEmbedding(content);
+            if (embedding.length == 0) {
                 log.warn("Could not generate embedding for CV: {}", cvId);
                 return;
             }
 
-            Map<String, Object> properties = new HashMap<>();
-            properties.put("cvId", cvId);
-            properties.put("content", content.length() > 1000 ? content.substring(0, 1000) : content);
-
-            // Convert List<Float> to Float[]
-            Float[] embeddingArray = embedding.toArray(new Float[0]);
-            
-            Result<WeaviateObject> result = client.data().creator()
-                .withClassName(CV_CLASS)
-                .withID(cvId)
-                .withProperties(properties)
-                .withVector(embeddingArray)
-                .withConsistencyLevel(ConsistencyLevel.ONE)
-                .run();
-
-            if (result.hasErrors()) {
-                log.error("Error storing CV in vector DB: {}", result.getError());
-            } else {
-                log.info("CV stored successfully in vector DB: {}", cvId);
-            }
+            cvIndex(embedding.length).upsert(UUID.fromString(cvId), embedding);
+            log.info("CV stored successfully in vector DB: {}", cvId);
         } catch (Exception e) {
             log.error("Exception storing CV in vector DB", e);
         }
     }
 
+    /**
+     * Store many CV embeddings in vector DB (cvId -> content), using batched embedding requests
+     * @return number of CVs indexed
+     */
+    public int storeCVs(Map<String, String> contentByCvId) {
+        if (!enabled) {
+            log.warn("Vector DB is not enabled");
+            return 0;
+        }
+
+        List<String> cvIds = new ArrayList<>(contentByCvId.keySet());
+        List<String> contents = new ArrayList<>(cvIds.size());
+        for (String cvId : cvIds) {
+            contents.add(contentByCvId.get(cvId));
+        }
+
+        int stored = 0;
+        List<float[]> embeddings = embeddingService.generateCVEmbeddings(contents);
+        for (int i = 0; i < cvIds.size(); i++) {
+            float[] embedding = embeddings.get(i);
+            if (embedding.length == 0) {
+                log.warn("Could not generate embedding for CV: {}", cvIds.get(i));
+                continue;
+            }
+            try {
+                cvIndex(embedding.length).upsert(UUID.fromString(cvIds.get(i)), embedding);
+                stored++;
+            } catch (Exception e) {
+                log.error("Exception storing CV {} in vector DB", cvIds.get(i), e);
+            }
+        }
+        log.info("Stored {} of {} CVs in vector DB", stored, cvIds.size());
+        return stored;
+    }
+
     /**
      * Store Job embedding in vector DB
      */
     public void storeJob(String jobId, String title, String description, String requirements) {
-        if (!enabled || client == null) {
-            log.warn("Vector DB is not enabled or client not initialized");
+        if (!enabled) {
+            log.warn("Vector DB is not enabled");
             return;
         }
 
         try {
             // Generate embedding
-            List<Float> embedding = embeddingService.generateJobEmbedding(title, description, requirements);
-            if (embedding.isEmpty()) {
+            float[] embedding = embeddingService.generateJobEmbedding(title, description, requirements);
+            if (embedding.length == 0) {
                 log.warn("Could not generate embedding for Job: {}", jobId);
                 return;
             }
 
-            Map<String, Object> properties = new HashMap<>();
-            properties.put("jobId", jobId);
-            properties.put("title", title);
-            properties.put("description", description != null && description.length() > 1000 
-                ? description.substring(0, 1000) : description);
-
-            // Convert List<Float> to Float[]
-            Float[] embeddingArray = embedding.toArray(new Float[0]);
-            
-            Result<WeaviateObject> result = client.data().creator()
-                .withClassName(JOB_CLASS)
-                .withID(jobId)
-                .withProperties(properties)
-                .withVector(embeddingArray)
-                .withConsistencyLevel(ConsistencyLevel.ONE)
-                .run();
-
-            if (result.hasErrors()) {
-                log.error("Error storing Job in vector DB: {}", result.getError());
-            } else {
-                log.info("Job stored successfully in vector DB: {}", jobId);
-            }
+            jobIndex(embedding.length).upsert(UUID.fromString(jobId), embedding);
+            log.info("Job stored successfully in vector DB: {}", jobId);
         } catch (Exception e) {
             log.error("Exception storing Job in vector DB", e);
         }
@@ -171,36 +161,34 @@ public class VectorDBService {
      * Semantic search for matching CVs to a job
      */
     public List<String> findMatchingCVs(String jobDescription, int limit) {
-        if (!enabled || client == null) {
-            log.warn("Vector DB is not enabled or client not initialized");
+        return toIds(searchCVs(jobDescription, limit));
+    }
+
+    /**
+     * Semantic search for matching Jobs to a CV
+     */
+    public List<String> findMatchingJobs(String cvContent, int limit) {
+        return toIds(searchJobs(cvContent, limit));
+    }
+
+    /**
+     * Semantic search for matching CVs to a job, with cosine similarity scores (best first)
+     */
+    public List<VectorMatch> searchCVs(String jobDescription, int limit) {
+        HnswIndex index = cvIndex;
+        if (!enabled || index == null || index.size() == 0) {
             return Collections.emptyList();
         }
 
         try {
-            Result<GraphQLResponse> result = client.graphQL().get()
-                .withClassName(CV_CLASS)
-                .withFields(
-                    Field.builder().name("cvId").build(),
-                    Field.builder().name("_additional").fields(
-                        Field.builder().name("certainty").build(),
-                        Field.builder().name("distance").build()
-                    ).build()
-                )
-                .withNearText(NearTextArgument.builder()
-                    .concepts(new String[]{jobDescription})
-                    .build())
-                .withLimit(limit)
-                .run();
-
-            if (result.hasErrors()) {
-                log.error("Error searching CVs: {}", result.getError());
+            // Free-text query, embedded the same way as CV content (truncate only)
+            float[] query = embeddingService.generateCVEmbedding(jobDescription);
+            if (query.length != index.dimension()) {
+                log.warn("Query embedding dimension {} does not match CV index dimension {}",
+                    query.length, index.dimension());
                 return Collections.emptyList();
             }
-
-            // Parse results and extract CV IDs
-            List<String> cvIds = new ArrayList<>();
-            // Implementation would parse GraphQLResponse here
-            return cvIds;
+            return index.search(query, limit);
         } catch (Exception e) {
             log.error("Exception searching CVs", e);
             return Collections.emptyList();
@@ -208,46 +196,107 @@ public class VectorDBService {
     }
 
     /**
-     * Semantic search for matching Jobs to a CV
+     * Semantic search for matching Jobs to a CV, with cosine similarity scores (best first)
      */
-    public List<String> findMatchingJobs(String cvContent, int limit) {
-        if (!enabled || client == null) {
-            log.warn("Vector DB is not enabled or client not initialized");
+    public List<VectorMatch> searchJobs(String cvContent, int limit) {
+        HnswIndex index = jobIndex;
+        if (!enabled || index == null || index.size() == 0) {
             return Collections.emptyList();
         }
 
         try {
-            Result<GraphQLResponse> result = client.graphQL().get()
-                .withClassName(JOB_CLASS)
-                .withFields(
-                    Field.builder().name("jobId").build(),
-                    Field.builder().name("_additional").fields(
-                        Field.builder().name("certainty").build(),
-                        Field.builder().name("distance").build()
-                    ).build()
-                )
-                .withNearText(NearTextArgument.builder()
-                    .concepts(new String[]{cvContent})
-                    .build())
-                .withLimit(limit)
-                .run();
-
-            if (result.hasErrors()) {
-                log.error("Error searching Jobs: {}", result.getError());
+            float[] query = embeddingService.generateCVEmbedding(cvContent);
+            if (query.length != index.dimension()) {
+                log.warn("Query embedding dimension {} does not match job index dimension {}",
+                    query.length, index.dimension());
                 return Collections.emptyList();
             }
-
-            // Parse results and extract Job IDs
-            List<String> jobIds = new ArrayList<>();
-            // Implementation would parse GraphQLResponse here
-            return jobIds;
+            return index.search(query, limit);
         } catch (Exception e) {
             log.error("Exception searching Jobs", e);
             return Collections.emptyList();
         }
     }
 
+    public boolean hasCVs() {
+        HnswIndex index = cvIndex;
+        return enabled && index != null && index.size() > 0;
+    }
+
+    public boolean hasJobs() {
+        HnswIndex index = jobIndex;
+        return enabled && index != null && index.size() > 0;
+    }
+
+    public boolean isCVIndexed(String cvId) {
+        HnswIndex index = cvIndex;
+        if (index == null || cvId == null) {
+            return false;
+        }
+        try {
+            return index.contains(UUID.fromString(cvId));
+        } catch (IllegalArgumentException e) {
+            // Not a UUID, so never indexed
+            return false;
+        }
+    }
+
+    /**
+     * Persist index files (vectors and graph)
+     */
+    public void flush() {
+        try {
+            if (cvIndex != null) cvIndex.flush();
+            if (jobIndex != null) jobIndex.flush();
+        } catch (IOException e) {
+            log.error("Failed to flush vector index", e);
+        }
+    }
+
     public boolean isEnabled() {
-        return enabled && client != null;
+        return enabled;
+    }
+
+    private HnswIndex cvIndex(int dimension) throws IOException {
+        if (cvIndex == null) {
+            synchronized (this) {
+                if (cvIndex == null) {
+                    cvIndex = openIndex(CV_FILE, dimension);
+                }
+            }
+        }
+        return cvIndex;
+    }
+
+    private HnswIndex jobIndex(int dimension) throws IOException {
+        if (jobIndex == null) {
+            synchronized (this) {
+                if (jobIndex == null) {
+                    jobIndex = openIndex(JOB_FILE, dimension);
+                }
+            }
+        }
+        return jobIndex;
+    }
+
+    private HnswIndex openIndex(String fileName, int dimension) throws IOException {
+        Path path = Paths.get(indexPath, fileName);
+        MappedVectorStore store = MappedVectorStore.open(path, dimension);
+        return store != null ? new HnswIndex(store, hnswM, efConstruction, efSearch) : null;
+    }
+
+    private List<String> toIds(List<VectorMatch> matches) {
+        return matches.stream()
+            .map(match -> match.getId().toString())
+            .collect(Collectors.toList());
+    }
+
+    private void closeQuietly(HnswIndex index) {
+        if (index == null) return;
+        try {
+            index.close();
+        } catch (IOException e) {
+            log.error("Failed to close vector index", e);
+        }
     }
 }
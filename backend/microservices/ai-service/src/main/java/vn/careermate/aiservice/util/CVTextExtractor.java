@@ -0,0 +1,95 @@
+package vn.careermate.aiservice.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Text extraction for downloaded CV files
+ * Downloads are streamed to a temp file (never held in memory as a whole) and PDF / DOCX text is
+ * read from the file, so the text can go to the model instead of the binary.
+ */
+@Slf4j
+public class CVTextExtractor {
+
+    private CVTextExtractor() {
+    }
+
+    /**
+     * Copy the stream to a temp file, failing once maxBytes is exceeded
+     */
+    public static Path spool(InputStream in, long maxBytes) throws IOException {
+        Path file = Files.createTempFile("cv-", ".bin");
+        try (InputStream input = in; var out = Files.newOutputStream(file)) {
+            byte[] buffer = new byte[8192];
+            long total = 0;
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                total += read;
+                if (total > maxBytes) {
+                    throw new IOException("CV file exceeds " + maxBytes + " bytes");
+                }
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return file;
+    }
+
+    /**
+     * Plain text of a PDF or DOCX file; empty for other types or image-only documents
+     */
+    public static String extractText(Path file, String contentType, String fileName) {
+        String kind = kindOf(contentType, fileName);
+        try {
+            if ("pdf".equals(kind)) {
+                try (PDDocument document = Loader.loadPDF(file.toFile())) {
+                    return new PDFTextStripper().getText(document).trim();
+                }
+            }
+            if ("docx".equals(kind)) {
+                try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ);
+                     XWPFDocument document = new XWPFDocument(pkg);
+                     XWPFWordExtractor extractor = new XWPFWordExtractor(document)) {
+                    return extractor.getText().trim();
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Could not extract text from {} ({}): {}", fileName, contentType, e.getMessage());
+        }
+        return "";
+    }
+
+    public static String mimeTypeOf(String contentType, String fileName) {
+        return switch (kindOf(contentType, fileName)) {
+            case "pdf" -> "application/pdf";
+            case "docx" -> "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+            default -> contentType != null ? contentType : "application/octet-stream";
+        };
+    }
+
+    private static String kindOf(String contentType, String fileName) {
+        String type = contentType != null ? contentType.toLowerCase(Locale.ROOT) : "";
+        String name = fileName != null ? fileName.toLowerCase(Locale.ROOT) : "";
+        if (type.contains("pdf") || name.endsWith(".pdf")) {
+            return "pdf";
+        }
+        if (type.contains("wordprocessingml") || name.endsWith(".docx")) {
+            return "docx";
+        }
+        return "other";
+    }
+}
@@ -0,0 +1,196 @@
+package vn.careermate.aiservice.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.*;
+
+/**
+ * Single-pass, tolerant JSON reader for LLM output
+ * Starts at the first '{' or '[' (the first '{' when an object is expected), so markdown fences and
+ * preamble such as "[Kết quả]" are skipped without cleanup copies of the string. It accepts trailing
+ * commas, single quotes, unquoted names, comments and raw newlines inside strings, and stops at the end
+ * of the first value. If the output is truncated or breaks mid-way, everything read up
+ * to that point is returned instead of failing.
+ */
+@Slf4j
+public class LenientJsonExtractor {
+
+    private static final JsonFactory FACTORY = JsonFactory.builder()
+        .enable(JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS)
+        .enable(JsonReadFeature.ALLOW_TRAILING_COMMA)
+        .enable(JsonReadFeature.ALLOW_SINGLE_QUOTES)
+        .enable(JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES)
+        .enable(JsonReadFeature.ALLOW_JAVA_COMMENTS)
+        .enable(JsonReadFeature.ALLOW_NON_NUMERIC_NUMBERS)
+        .enable(JsonReadFeature.ALLOW_BACKSLASH_ESCAPING_ANY_CHARACTER)
+        .build();
+
+    private LenientJsonExtractor() {
+    }
+
+    /**
+     * First JSON object or array in the text (Map / List / scalars), or null if there is none
+     */
+    public static Object parse(String text) {
+        return text != null ? parseFrom(text, firstContainer(text)) : null;
+    }
+
+    /**
+     * First JSON object in the text; empty map if the text holds no object
+     * Seeks the first '{', so a bracketed preamble or a leading array does not hide the object.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> parseObject(String text) {
+        Object value = text != null ? parseFrom(text, text.indexOf('{')) : null;
+        return value instanceof Map ? (Map<String, Object>) value : new LinkedHashMap<>();
+    }
+
+    private static Object parseFrom(String text, int start) {
+        if (start < 0) {
+            return null;
+        }
+
+        Deque<Object> stack = new ArrayDeque<>();
+        Object root = null;
+        String field = null;
+        try (JsonParser parser = FACTORY.createParser(readerFrom(text, start))) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                Object value;
+                switch (token) {
+                    case FIELD_NAME -> {
+                        field = parser.currentName();
+                        continue;
+                    }
+                    case END_OBJECT, END_ARRAY -> {
+                        stack.pop();
+                        if (stack.isEmpty()) {
+                            return root;
+                        }
+                        continue;
+                    }
+                    case START_OBJECT -> value = new LinkedHashMap<String, Object>();
+                    case START_ARRAY -> value = new ArrayList<>();
+                    case VALUE_STRING -> value = parser.getText();
+                    case VALUE_NUMBER_INT -> value = parser.getNumberValue();
+                    case VALUE_NUMBER_FLOAT -> value = parser.getDoubleValue();
+                    case VALUE_TRUE -> value = Boolean.TRUE;
+                    case VALUE_FALSE -> value = Boolean.FALSE;
+                    default -> value = null;
+                }
+
+                // Containers are attached as soon as they open, so a truncated document keeps its partial content
+                if (stack.isEmpty()) {
+                    root = value;
+                } else if (stack.peek() instanceof Map<?, ?> map) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> object = (Map<String, Object>) map;
+                    if (field != null) {
+                        object.put(field, value);
+                    }
+                    field = null;
+                } else {
+                    @SuppressWarnings("unchecked")
+                    List<Object> array = (List<Object>) stack.peek();
+                    array.add(value);
+                }
+                if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                    stack.push(value);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("JSON ended early, keeping partial result: {}", e.getOriginalMessage());
+        }
+        return root;
+    }
+
+    public static int getInt(Map<String, ?> json, String key, int defaultValue) {
+        Object value = json.get(key);
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        if (value instanceof String text) {
+            // "85", "85/100", "85 điểm"
+            int end = 0;
+            String trimmed = text.trim();
+            while (end < trimmed.length() && Character.isDigit(trimmed.charAt(end))) end++;
+            if (end > 0) {
+                try {
+                    return Integer.parseInt(trimmed.substring(0, end));
+                } catch (NumberFormatException ignored) {
+                    // too long for an int
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    public static String getString(Map<String, ?> json, String key, String defaultValue) {
+        Object value = json.get(key);
+        if (value instanceof String text && !text.isBlank()) {
+            return text;
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        return defaultValue;
+    }
+
+    public static List<String> getStringList(Map<String, ?> json, String key, List<String> defaultValue) {
+        Object value = json.get(key);
+        List<String> items = new ArrayList<>();
+        if (value instanceof List<?> list) {
+            for (Object item : list) {
+                if (item != null && !(item instanceof Map) && !item.toString().isBlank()) {
+                    items.add(item.toString());
+                }
+            }
+        } else if (value instanceof String text && !text.isBlank()) {
+            items.add(text);
+        }
+        return items.isEmpty() ? defaultValue : items;
+    }
+
+    public static List<Map<String, Object>> getObjectList(Map<String, ?> json, String key) {
+        return objects(json.get(key));
+    }
+
+    /**
+     * The objects of a JSON array value (non-object elements are skipped)
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Map<String, Object>> objects(Object value) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        if (value instanceof List<?> list) {
+            for (Object item : list) {
+                if (item instanceof Map) {
+                    items.add((Map<String, Object>) item);
+                }
+            }
+        }
+        return items;
+    }
+
+    private static Reader readerFrom(String text, int offset) throws IOException {
+        StringReader reader = new StringReader(text);
+        reader.skip(offset);
+        return reader;
+    }
+
+    private static int firstContainer(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '{' || c == '[') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,56 @@
+package vn.careermate.aiservice.util;
+
+/**
+ * Rough token counts for prompt budgeting, without a tokenizer
+ * ASCII text averages ~4 chars per token; Vietnamese letters with diacritics are split much more,
+ * so non-ASCII characters are counted at ~2 chars per token.
+ */
+public class TokenEstimator {
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int ascii = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < 128) ascii++;
+            else other++;
+        }
+        return (ascii + 3) / 4 + (other + 1) / 2;
+    }
+
+    /**
+     * Cut text to at most maxTokens, preferring a line or sentence boundary near the limit
+     */
+    public static String truncate(String text, int maxTokens) {
+        if (text == null || estimate(text) <= maxTokens) {
+            return text;
+        }
+        if (maxTokens <= 0) {
+            return "";
+        }
+
+        int tokens = 0;
+        int ascii = 0;
+        int other = 0;
+        int end = 0;
+        while (end < text.length()) {
+            if (text.charAt(end) < 128) ascii++;
+            else other++;
+            tokens = (ascii + 3) / 4 + (other + 1) / 2;
+            if (tokens > maxTokens) break;
+            end++;
+        }
+
+        // Back off to the last boundary if it does not throw away more than a fifth of the budget
+        int boundary = Math.max(text.lastIndexOf('\n', end), Math.max(text.lastIndexOf(". ", end), text.lastIndexOf("; ", end)));
+        if (boundary > end * 4 / 5) {
+            end = boundary + 1;
+        }
+        return text.substring(0, end).trim() + "...";
+    }
+}
@@ -0,0 +1,449 @@
+package vn.careermate.aiservice.vector;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hierarchical navigable small-world graph over a {@link MappedVectorStore}.
+ * Vectors live in the mapped file; the graph is kept on-heap and saved next to it
+ * ({@code <file>.graph}) on flush. The graph is rebuilt from the mapped vectors on open
+ * when its file is missing, has another format version, was written for a different
+ * vector count, dimension or m, points at slots that do not exist, or is older than
+ * the vector file (vectors written after the last flush).
+ */
+public class HnswIndex implements Closeable {
+
+    private static final int GRAPH_MAGIC = 0x434D4847; // "CMHG"
+    private static final int GRAPH_VERSION = 2;
+
+    private final MappedVectorStore store;
+    private final Path graphPath;
+    private final int m;
+    private final int m0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Flushes only need the read lock against writers, but share the .graph.tmp file with each other
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /** neighbors.get(slot)[level] -> neighbor slots */
+    private final List<int[][]> neighbors = new ArrayList<>();
+    private final List<int[]> neighborCounts = new ArrayList<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswIndex(MappedVectorStore store, int m, int efConstruction, int efSearch) {
+        this.store = store;
+        this.m = m;
+        this.m0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.graphPath = store.path().resolveSibling(store.path().getFileName() + ".graph");
+
+        if (!loadGraph()) {
+            for (int slot = 0; slot < store.size(); slot++) {
+                link(slot);
+            }
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return store.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int dimension() {
+        return store.dimension();
+    }
+
+    public boolean contains(UUID id) {
+        lock.readLock().lock();
+        try {
+            return store.slotOf(id) != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Insert or replace a vector. Replacing an existing id rewrites its vector in
+     * place and re-links its neighborhoods.
+     */
+    public void upsert(UUID id, float[] vector) throws IOException {
+        lock.writeLock().lock();
+        try {
+            Integer existing = store.slotOf(id);
+            int slot = store.put(id, vector);
+            if (existing == null) {
+                link(slot);
+            } else {
+                relink(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Approximate k-nearest neighbors by cosine similarity, best first.
+     */
+    public List<VectorMatch> search(float[] query, int k) {
+        if (query.length != store.dimension()) {
+            throw new IllegalArgumentException(String.format("Query has dimension %d, index expects %d",
+                    query.length, store.dimension()));
+        }
+        float[] normalized = MappedVectorStore.normalize(query);
+
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0 || k <= 0) {
+                return List.of();
+            }
+
+            int current = entryPoint;
+            for (int level = maxLevel; level > 0; level--) {
+                current = greedy(current, level, slot -> store.similarity(slot, normalized));
+            }
+
+            PriorityQueue<Candidate> found = searchLayer(current, Math.max(efSearch, k), 0,
+                    slot -> store.similarity(slot, normalized));
+            List<Candidate> ordered = new ArrayList<>(found);
+            ordered.sort(Comparator.comparingDouble((Candidate c) -> c.score).reversed());
+
+            List<VectorMatch> results = new ArrayList<>(Math.min(k, ordered.size()));
+            for (int i = 0; i < ordered.size() && i < k; i++) {
+                Candidate c = ordered.get(i);
+                results.add(new VectorMatch(store.idAt(c.slot), c.score));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Force vectors to disk and write the graph file.
+     */
+    public void flush() throws IOException {
+        flushLock.lock();
+        try {
+            lock.readLock().lock();
+            try {
+                store.flush();
+                saveGraph();
+            } finally {
+                lock.readLock().unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                store.flush();
+                saveGraph();
+                store.close();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void saveGraph() throws IOException {
+        Path tmp = graphPath.resolveSibling(graphPath.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            int size = neighbors.size();
+            out.writeInt(GRAPH_MAGIC);
+            out.writeInt(GRAPH_VERSION);
+            out.writeInt(size);
+            out.writeInt(store.dimension());
+            out.writeInt(m);
+            out.writeInt(entryPoint);
+            out.writeInt(maxLevel);
+            for (int slot = 0; slot < size; slot++) {
+                int[][] lists = neighbors.get(slot);
+                int[] counts = neighborCounts.get(slot);
+                out.writeInt(lists.length);
+                for (int l = 0; l < lists.length; l++) {
+                    out.writeInt(counts[l]);
+                    for (int i = 0; i < counts[l]; i++) {
+                        out.writeInt(lists[l][i]);
+                    }
+                }
+            }
+        }
+        Files.move(tmp, graphPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private boolean loadGraph() {
+        if (store.size() == 0 || !Files.exists(graphPath)) {
+            return false;
+        }
+        try {
+            // The graph is saved right after the vectors, so an older graph misses later writes
+            if (Files.getLastModifiedTime(graphPath).compareTo(Files.getLastModifiedTime(store.path())) < 0) {
+                return false;
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(graphPath)))) {
+            if (in.readInt() != GRAPH_MAGIC || in.readInt() != GRAPH_VERSION) {
+                return false;
+            }
+            int size = in.readInt();
+            if (size != store.size() || in.readInt() != store.dimension() || in.readInt() != m) {
+                return false;
+            }
+            int savedEntry = in.readInt();
+            int savedMaxLevel = in.readInt();
+            if (savedEntry < 0 || savedEntry >= size) {
+                throw new IOException("Entry point out of range");
+            }
+            for (int slot = 0; slot < size; slot++) {
+                int levels = in.readInt();
+                if (levels < 1 || levels > savedMaxLevel + 1) {
+                    throw new IOException("Bad level count for slot " + slot);
+                }
+                int[][] lists = new int[levels][];
+                int[] counts = new int[levels];
+                for (int l = 0; l < levels; l++) {
+                    lists[l] = new int[(l == 0 ? m0 : m) + 1];
+                    counts[l] = in.readInt();
+                    if (counts[l] < 0 || counts[l] > (l == 0 ? m0 : m)) {
+                        throw new IOException("Bad neighbor count for slot " + slot);
+                    }
+                    for (int i = 0; i < counts[l]; i++) {
+                        int neighbor = in.readInt();
+                        if (neighbor < 0 || neighbor >= size) {
+                            throw new IOException("Neighbor out of range for slot " + slot);
+                        }
+                        lists[l][i] = neighbor;
+                    }
+                }
+                neighbors.add(lists);
+                neighborCounts.add(counts);
+            }
+            entryPoint = savedEntry;
+            maxLevel = savedMaxLevel;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            neighbors.clear();
+            neighborCounts.clear();
+            entryPoint = -1;
+            maxLevel = -1;
+            return false;
+        }
+    }
+
+    private void link(int slot) {
+        int level = randomLevel();
+        int[][] lists = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            lists[l] = new int[(l == 0 ? m0 : m) + 1];
+        }
+        neighbors.add(lists);
+        neighborCounts.add(new int[level + 1]);
+
+        if (entryPoint < 0) {
+            entryPoint = slot;
+            maxLevel = level;
+            return;
+        }
+
+        connect(slot, level);
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = slot;
+        }
+    }
+
+    private void relink(int slot) {
+        int level = neighbors.get(slot).length - 1;
+        for (int l = 0; l <= level; l++) {
+            neighborCounts.get(slot)[l] = 0;
+        }
+        if (store.size() > 1) {
+            int savedEntry = entryPoint;
+            if (entryPoint == slot) {
+                entryPoint = slot == 0 ? 1 : 0;
+            }
+            connect(slot, level);
+            entryPoint = savedEntry;
+        }
+    }
+
+    private void connect(int slot, int level) {
+        Scorer scorer = other -> store.similarity(slot, other);
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedy(current, l, scorer);
+        }
+
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            PriorityQueue<Candidate> found = searchLayer(current, efConstruction, l, scorer);
+            int limit = l == 0 ? m0 : m;
+            List<Candidate> selected = closest(found, limit, slot);
+            for (Candidate c : selected) {
+                addNeighbor(slot, l, c.slot);
+                addNeighbor(c.slot, l, slot);
+            }
+            if (!selected.isEmpty()) {
+                current = selected.get(0).slot;
+            }
+        }
+    }
+
+    private void addNeighbor(int from, int level, int to) {
+        int[] list = neighbors.get(from)[level];
+        int[] counts = neighborCounts.get(from);
+        int count = counts[level];
+        for (int i = 0; i < count; i++) {
+            if (list[i] == to) {
+                return;
+            }
+        }
+
+        int limit = level == 0 ? m0 : m;
+        list[count] = to;
+        count++;
+        if (count > limit) {
+            // Drop the least similar neighbor to keep the degree bounded
+            int worst = 0;
+            float worstScore = Float.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                float score = store.similarity(from, list[i]);
+                if (score < worstScore) {
+                    worstScore = score;
+                    worst = i;
+                }
+            }
+            list[worst] = list[count - 1];
+            count--;
+        }
+        counts[level] = count;
+    }
+
+    private int greedy(int start, int level, Scorer scorer) {
+        int current = start;
+        float best = scorer.score(current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[][] lists = neighbors.get(current);
+            if (level >= lists.length) {
+                break;
+            }
+            int[] list = lists[level];
+            int count = neighborCounts.get(current)[level];
+            for (int i = 0; i < count; i++) {
+                float score = scorer.score(list[i]);
+                if (score > best) {
+                    best = score;
+                    current = list[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    private PriorityQueue<Candidate> searchLayer(int start, int ef, int level, Scorer scorer) {
+        BitSet visited = new BitSet(store.size());
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(
+                Comparator.comparingDouble((Candidate c) -> c.score).reversed());
+        PriorityQueue<Candidate> results = new PriorityQueue<>(Comparator.comparingDouble(c -> c.score));
+
+        Candidate first = new Candidate(start, scorer.score(start));
+        visited.set(start);
+        candidates.add(first);
+        results.add(first);
+
+        while (!candidates.isEmpty()) {
+            Candidate current = candidates.poll();
+            if (results.size() >= ef && current.score < results.peek().score) {
+                break;
+            }
+            int[][] lists = neighbors.get(current.slot);
+            if (level >= lists.length) {
+                continue;
+            }
+            int[] list = lists[level];
+            int count = neighborCounts.get(current.slot)[level];
+            for (int i = 0; i < count; i++) {
+                int next = list[i];
+                if (visited.get(next)) {
+                    continue;
+                }
+                visited.set(next);
+                float score = scorer.score(next);
+                if (results.size() < ef || score > results.peek().score) {
+                    Candidate candidate = new Candidate(next, score);
+                    candidates.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private List<Candidate> closest(PriorityQueue<Candidate> found, int limit, int exclude) {
+        List<Candidate> ordered = new ArrayList<>(found);
+        ordered.removeIf(c -> c.slot == exclude);
+        ordered.sort(Comparator.comparingDouble((Candidate c) -> c.score).reversed());
+        return ordered.size() > limit ? ordered.subList(0, limit) : ordered;
+    }
+
+    private int randomLevel() {
+        double r = random.nextDouble();
+        return (int) Math.floor(-Math.log(Math.max(r, 1e-12)) * levelMultiplier);
+    }
+
+    @FunctionalInterface
+    private interface Scorer {
+        float score(int slot);
+    }
+
+    private static final class Candidate {
+        final int slot;
+        final float score;
+
+        Candidate(int slot, float score) {
+            this.slot = slot;
+            this.score = score;
+        }
+    }
+}
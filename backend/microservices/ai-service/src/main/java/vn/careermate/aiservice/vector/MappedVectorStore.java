@@ -0,0 +1,257 @@
+package vn.careermate.aiservice.vector;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Fixed-width vector file backed by a memory-mapped buffer.
+ * Layout: 64-byte header (magic, version, dimension, count) followed by
+ * slots of [16-byte UUID][dimension floats]. Vectors are L2-normalized on
+ * write so that a dot product is the cosine similarity.
+ */
+public class MappedVectorStore implements Closeable {
+
+    private static final int MAGIC = 0x434D5645; // "CMVE"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int HEADER_FLOATS = HEADER_BYTES / Float.BYTES;
+    private static final int ID_FLOATS = 16 / Float.BYTES;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Path path;
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final int dimension;
+    private final int slotFloats;
+    private final Map<UUID, Integer> slotsById = new HashMap<>();
+
+    private MappedByteBuffer mapped;
+    private FloatBuffer floats;
+    private int capacity;
+    private int count;
+    private UUID[] ids;
+
+    private MappedVectorStore(Path path, RandomAccessFile file, int dimension, int count, int capacity) throws IOException {
+        this.path = path;
+        this.file = file;
+        this.channel = file.getChannel();
+        this.dimension = dimension;
+        this.slotFloats = ID_FLOATS + dimension;
+        this.count = count;
+        this.ids = new UUID[Math.max(capacity, INITIAL_CAPACITY)];
+        remap(Math.max(capacity, INITIAL_CAPACITY));
+    }
+
+    /**
+     * Open an existing store, or create one with the given dimension.
+     * Pass dimension <= 0 to open only if the file already exists.
+     */
+    public static MappedVectorStore open(Path path, int dimension) throws IOException {
+        boolean exists = Files.exists(path) && Files.size(path) >= HEADER_BYTES;
+        if (!exists && dimension <= 0) {
+            return null;
+        }
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+
+        RandomAccessFile raf = new RandomAccessFile(path.toFile(), "rw");
+        try {
+            if (!exists) {
+                MappedVectorStore store = new MappedVectorStore(path, raf, dimension, 0, INITIAL_CAPACITY);
+                store.writeHeader();
+                return store;
+            }
+
+            MappedByteBuffer header = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.nativeOrder());
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Not a vector store file: " + path);
+            }
+            int storedDimension = header.getInt(8);
+            int storedCount = header.getInt(12);
+            if (dimension > 0 && dimension != storedDimension) {
+                throw new IOException(String.format("Vector store %s has dimension %d, expected %d",
+                        path, storedDimension, dimension));
+            }
+
+            MappedVectorStore store = new MappedVectorStore(path, raf, storedDimension, storedCount,
+                    Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, storedCount)) * 2));
+            store.loadIds();
+            return store;
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public UUID idAt(int slot) {
+        return ids[slot];
+    }
+
+    public Integer slotOf(UUID id) {
+        return slotsById.get(id);
+    }
+
+    /**
+     * Insert or overwrite the vector for an id. Returns the slot it was written to.
+     * Not thread-safe; callers serialize writes.
+     */
+    public int put(UUID id, float[] vector) throws IOException {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException(String.format("Vector has dimension %d, store expects %d",
+                    vector.length, dimension));
+        }
+
+        Integer existing = slotsById.get(id);
+        int slot = existing != null ? existing : count;
+        if (slot >= capacity) {
+            remap(capacity * 2);
+        }
+
+        int base = offset(slot);
+        mapped.putLong(base * Float.BYTES, id.getMostSignificantBits());
+        mapped.putLong(base * Float.BYTES + Long.BYTES, id.getLeastSignificantBits());
+
+        float norm = norm(vector);
+        for (int i = 0; i < dimension; i++) {
+            floats.put(base + ID_FLOATS + i, vector[i] / norm);
+        }
+
+        if (existing == null) {
+            ids[slot] = id;
+            slotsById.put(id, slot);
+            count++;
+            writeHeader();
+        }
+        return slot;
+    }
+
+    /**
+     * Cosine similarity between a stored slot and an already-normalized query.
+     */
+    public float similarity(int slot, float[] normalizedQuery) {
+        int base = offset(slot) + ID_FLOATS;
+        FloatBuffer view = floats;
+        float sum = 0f;
+        for (int i = 0; i < dimension; i++) {
+            sum += view.get(base + i) * normalizedQuery[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Cosine similarity between two stored slots.
+     */
+    public float similarity(int slotA, int slotB) {
+        int a = offset(slotA) + ID_FLOATS;
+        int b = offset(slotB) + ID_FLOATS;
+        FloatBuffer view = floats;
+        float sum = 0f;
+        for (int i = 0; i < dimension; i++) {
+            sum += view.get(a + i) * view.get(b + i);
+        }
+        return sum;
+    }
+
+    public float[] vectorAt(int slot) {
+        float[] vector = new float[dimension];
+        int base = offset(slot) + ID_FLOATS;
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = floats.get(base + i);
+        }
+        return vector;
+    }
+
+    public static float[] normalize(float[] vector) {
+        float norm = norm(vector);
+        float[] result = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            result[i] = vector[i] / norm;
+        }
+        return result;
+    }
+
+    public void flush() {
+        if (mapped != null) {
+            mapped.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+        file.close();
+    }
+
+    private static float norm(float[] vector) {
+        double sum = 0;
+        for (float v : vector) {
+            sum += (double) v * v;
+        }
+        float norm = (float) Math.sqrt(sum);
+        return norm == 0f ? 1f : norm;
+    }
+
+    private int offset(int slot) {
+        return HEADER_FLOATS + slot * slotFloats;
+    }
+
+    private void remap(int newCapacity) throws IOException {
+        long bytes = HEADER_BYTES + (long) newCapacity * slotFloats * Float.BYTES;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IOException("Vector store " + path + " exceeds the 2GB single-mapping limit");
+        }
+        if (mapped != null) {
+            mapped.force();
+        }
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        mapped.order(ByteOrder.nativeOrder());
+        floats = mapped.asFloatBuffer();
+        capacity = newCapacity;
+        if (ids.length < newCapacity) {
+            UUID[] grown = new UUID[newCapacity];
+            System.arraycopy(ids, 0, grown, 0, count);
+            ids = grown;
+        }
+    }
+
+    private void writeHeader() {
+        mapped.putInt(0, MAGIC);
+        mapped.putInt(4, VERSION);
+        mapped.putInt(8, dimension);
+        mapped.putInt(12, count);
+    }
+
+    private void loadIds() {
+        for (int slot = 0; slot < count; slot++) {
+            int base = offset(slot) * Float.BYTES;
+            UUID id = new UUID(mapped.getLong(base), mapped.getLong(base + Long.BYTES));
+            ids[slot] = id;
+            slotsById.put(id, slot);
+        }
+    }
+}
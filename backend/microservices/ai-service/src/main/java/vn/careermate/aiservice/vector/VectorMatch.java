@@ -0,0 +1,13 @@
+package vn.careermate.aiservice.vector;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+public class VectorMatch {
+    private UUID id;
+    private float score;
+}
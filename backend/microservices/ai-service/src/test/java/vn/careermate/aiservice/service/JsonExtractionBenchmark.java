@@ -0,0 +1,123 @@
+package vn.careermate.aiservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AIService's LenientJsonExtractor-based parsing vs. the previous parsers (LegacyResponseParsers)
+ * Inputs are the recorded provider outputs in ai-stub/, as returned and in the shapes Gemini also produces
+ * (fenced with a preamble, cut off mid-answer).
+ * The comparison test always runs; the timing loop runs with -Dbenchmark=true, e.g.
+ * mvn test -Dtest=JsonExtractionBenchmark -Dbenchmark=true [-Dbenchmark.iterations=20000]
+ */
+class JsonExtractionBenchmark {
+
+    private static final String ROLE = "Java Backend Developer";
+
+    private final AIService current = new AIService(null, null, null, null);
+    private final LegacyResponseParsers legacy = new LegacyResponseParsers();
+
+    @Test
+    void currentParsersKeepEverythingTheLegacyParsersRead() throws IOException {
+        for (Map.Entry<String, String> sample : roadmapSamples().entrySet()) {
+            int legacySteps = stepsFromAnswer(legacy.parseRoadmapResponse(sample.getValue(), ROLE), sample.getValue());
+            int currentSteps = stepsFromAnswer(current.parseRoadmapResponse(sample.getValue(), ROLE), sample.getValue());
+            assertTrue(currentSteps >= legacySteps,
+                sample.getKey() + ": " + currentSteps + " steps, legacy read " + legacySteps);
+        }
+        for (Map.Entry<String, String> sample : cvSamples().entrySet()) {
+            Map<String, Object> legacyResult = legacy.parseCVAnalysis(sample.getValue());
+            Map<String, Object> currentResult = current.parseCVAnalysis(sample.getValue());
+            for (String key : List.of("score", "structureScore", "contentScore", "strengths", "weaknesses", "summary")) {
+                assertEquals(legacyResult.get(key), currentResult.get(key), sample.getKey() + ": " + key);
+            }
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark() throws IOException {
+        int iterations = Integer.getInteger("benchmark.iterations", 20_000);
+        System.out.printf("%-28s %14s %14s%n", "sample", "legacy ns/op", "current ns/op");
+        for (Map.Entry<String, String> sample : roadmapSamples().entrySet()) {
+            String text = sample.getValue();
+            report(sample.getKey(), iterations,
+                t -> legacy.parseRoadmapResponse(t, ROLE), t -> current.parseRoadmapResponse(t, ROLE), text);
+        }
+        for (Map.Entry<String, String> sample : cvSamples().entrySet()) {
+            report(sample.getKey(), iterations, legacy::parseCVAnalysis, current::parseCVAnalysis, sample.getValue());
+        }
+    }
+
+    private void report(String name, int iterations, Function<String, Map<String, Object>> legacyParser,
+                        Function<String, Map<String, Object>> currentParser, String text) {
+        run(iterations / 2, legacyParser, text);
+        run(iterations / 2, currentParser, text);
+        long legacyNs = run(iterations, legacyParser, text);
+        long currentNs = run(iterations, currentParser, text);
+        System.out.printf("%-28s %14d %14d%n", name, legacyNs / iterations, currentNs / iterations);
+    }
+
+    private long run(int iterations, Function<String, Map<String, Object>> parser, String text) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += parser.apply(text).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(sink > 0);
+        return elapsed;
+    }
+
+    private static Map<String, String> roadmapSamples() throws IOException {
+        return variants("roadmap", recording("roadmap.txt"));
+    }
+
+    private static Map<String, String> cvSamples() throws IOException {
+        Map<String, String> samples = new LinkedHashMap<>();
+        samples.putAll(variants("cv-analysis-1", recording("cv-analysis-1.txt")));
+        samples.putAll(variants("cv-analysis-2", recording("cv-analysis-2.txt")));
+        // Truncated CV answers lose fields differently in the two parsers, so only complete ones are compared
+        samples.keySet().removeIf(key -> key.endsWith("-truncated"));
+        return samples;
+    }
+
+    private static Map<String, String> variants(String name, String recorded) {
+        Map<String, String> samples = new LinkedHashMap<>();
+        samples.put(name, recorded);
+        samples.put(name + "-fenced", "Đây là kết quả phân tích:\n```json\n" + recorded + "\n```\n");
+        samples.put(name + "-truncated", recorded.substring(0, recorded.length() * 2 / 3));
+        return samples;
+    }
+
+    private static String recording(String file) throws IOException {
+        try (InputStream in = JsonExtractionBenchmark.class.getResourceAsStream("/ai-stub/" + file)) {
+            if (in == null) {
+                throw new IOException("Missing recording ai-stub/" + file);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+        }
+    }
+
+    // Steps taken from the answer, not the default roadmap both parsers fall back to
+    private static int stepsFromAnswer(Map<String, Object> roadmap, String answer) {
+        if (!(roadmap.get("steps") instanceof List<?> steps)) {
+            return 0;
+        }
+        return (int) steps.stream()
+            .filter(step -> step instanceof Map<?, ?> map && map.get("title") != null
+                && answer.contains("\"" + map.get("title") + "\""))
+            .count();
+    }
+}
@@ -0,0 +1,495 @@
+package vn.careermate.aiservice.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+
+/**
+ * The roadmap / CV analysis parsers AIService used before LenientJsonExtractor, copied unchanged from
+ * the last revision that had them, so JsonExtractionBenchmark measures the real old code path
+ */
+@Slf4j
+class LegacyResponseParsers {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    Map<String, Object> parseCVAnalysis(String response) {
+        // Try to parse JSON from response
+        String jsonStr = cleanJSONResponse(response);
+
+        Map<String, Object> result = new HashMap<>();
+
+        // Extract scores
+        result.put("score", extractNumber(jsonStr, "score", 75));
+        result.put("structureScore", extractNumber(jsonStr, "structureScore", 70));
+        result.put("contentScore", extractNumber(jsonStr, "contentScore", 80));
+
+        result.put("strengths", extractArray(jsonStr, "strengths",
+            Arrays.asList("Có kinh nghiệm", "Kỹ năng tốt", "Trình độ phù hợp")));
+        result.put("weaknesses", extractArray(jsonStr, "weaknesses",
+            Arrays.asList("Cần bổ sung thông tin", "Cải thiện format")));
+        result.put("suggestions", extractArray(jsonStr, "suggestions",
+            Arrays.asList("Thêm thông tin chi tiết hơn", "Cải thiện cấu trúc CV", "Bổ sung kỹ năng")));
+        result.put("summary", extractString(jsonStr, "summary",
+            "CV có tiềm năng nhưng cần cải thiện một số điểm."));
+
+        return result;
+    }
+
+    /**
+     * Parse and validate a raw roadmap response, falling back to the default roadmap
+     */
+    Map<String, Object> parseRoadmapResponse(String response, String targetRole) {
+        try {
+            log.info("Raw AI response for roadmap (first 1000 chars): {}", 
+                response.length() > 1000 ? response.substring(0, 1000) + "..." : response);
+            
+            // Clean and parse JSON response
+            String jsonStr = cleanJSONResponse(response);
+            log.info("Cleaned JSON length: {}", jsonStr.length());
+            
+            // Try to parse as complete JSON structure
+            Map<String, Object> result = parseRoadmapJSON(jsonStr);
+            
+            // Validate and enhance result
+            if (!result.containsKey("steps") || ((List<?>) result.getOrDefault("steps", List.of())).isEmpty()) {
+                log.warn("Roadmap response missing steps, creating default structure");
+                result = createDefaultRoadmap(targetRole);
+            } else {
+                @SuppressWarnings("unchecked")
+                List<Map<String, Object>> steps = (List<Map<String, Object>>) result.get("steps");
+                log.info("Roadmap generated successfully with {} steps", steps.size());
+                for (int i = 0; i < steps.size(); i++) {
+                    Map<String, Object> step = steps.get(i);
+                    log.info("Step {}: title={}, has description={}", 
+                        i + 1, 
+                        step.get("title"),
+                        step.containsKey("description") && step.get("description") != null);
+                }
+            }
+            
+            return result;
+        } catch (Exception e) {
+            log.error("Error parsing career roadmap: {}", e.getMessage());
+            return createDefaultRoadmap(targetRole);
+        }
+    }
+
+    /**
+     * Parse roadmap JSON from AI response using ObjectMapper
+     */
+    private Map<String, Object> parseRoadmapJSON(String jsonStr) {
+        Map<String, Object> result = new HashMap<>();
+        
+        try {
+            // Clean JSON string - remove markdown code blocks if present
+            jsonStr = cleanJSONResponse(jsonStr);
+            
+            // Try to find JSON object boundaries
+            int startIdx = jsonStr.indexOf("{");
+            int endIdx = jsonStr.lastIndexOf("}");
+            
+            if (startIdx >= 0 && endIdx > startIdx) {
+                jsonStr = jsonStr.substring(startIdx, endIdx + 1);
+            }
+            
+            log.info("Attempting to parse JSON (length: {})", jsonStr.length());
+            log.debug("JSON content: {}", jsonStr.substring(0, Math.min(500, jsonStr.length())));
+            
+            // Try to parse with ObjectMapper
+            try {
+                TypeReference<Map<String, Object>> typeRef = new TypeReference<Map<String, Object>>() {};
+                result = objectMapper.readValue(jsonStr, typeRef);
+                
+                log.info("Successfully parsed JSON with ObjectMapper");
+                
+                // Validate steps
+                if (result.containsKey("steps")) {
+                    Object stepsObj = result.get("steps");
+                    if (stepsObj instanceof List) {
+                        @SuppressWarnings("unchecked")
+                        List<Map<String, Object>> steps = (List<Map<String, Object>>) stepsObj;
+                        log.info("Found {} steps in roadmap", steps.size());
+                        
+                        // Validate each step has required fields
+                        for (int i = 0; i < steps.size(); i++) {
+                            Map<String, Object> step = steps.get(i);
+                            if (step == null) {
+                                step = new HashMap<>();
+                                steps.set(i, step);
+                            }
+                            if (!step.containsKey("title") || step.get("title") == null || step.get("title").toString().trim().isEmpty()) {
+                                step.put("title", "Bước " + (i + 1));
+                            }
+                            if (!step.containsKey("description") || step.get("description") == null || step.get("description").toString().trim().isEmpty()) {
+                                step.put("description", "Mô tả chi tiết về bước này sẽ được cập nhật.");
+                            }
+                            // Log step content for debugging
+                            log.debug("Step {}: title={}, description length={}", 
+                                i + 1, 
+                                step.get("title"),
+                                step.get("description") != null ? step.get("description").toString().length() : 0);
+                        }
+                    }
+                } else {
+                    log.warn("No 'steps' field found in parsed JSON");
+                }
+                
+            } catch (Exception e) {
+                log.error("Failed to parse JSON with ObjectMapper, trying fallback: {}", e.getMessage());
+                // Fallback to manual parsing
+                result = parseRoadmapJSONManual(jsonStr);
+            }
+            
+        } catch (Exception e) {
+            log.error("Error parsing roadmap JSON", e);
+            result = new HashMap<>();
+        }
+        
+        // Ensure we have at least default structure
+        if (!result.containsKey("steps") || ((List<?>) result.getOrDefault("steps", List.of())).isEmpty()) {
+            log.warn("No valid steps found, using default");
+            result.put("steps", createDefaultSteps());
+        }
+        
+        // Set defaults for missing fields
+        result.putIfAbsent("timeline", "12-18 tháng");
+        result.putIfAbsent("skillsGap", new ArrayList<>());
+        result.putIfAbsent("recommendedCourses", new ArrayList<>());
+        result.putIfAbsent("estimatedDurationMonths", 12);
+        result.putIfAbsent("summary", "Lộ trình phát triển nghề nghiệp được tùy chỉnh cho bạn");
+        
+        return result;
+    }
+
+    /**
+     * Manual parsing fallback if ObjectMapper fails
+     */
+    private Map<String, Object> parseRoadmapJSONManual(String jsonStr) {
+        Map<String, Object> result = new HashMap<>();
+        
+        try {
+            // Extract steps array
+            List<Map<String, Object>> steps = extractStepsArray(jsonStr);
+            result.put("steps", steps);
+            
+            // Extract other fields
+            result.put("timeline", extractString(jsonStr, "timeline", "12-18 tháng"));
+            result.put("skillsGap", extractArray(jsonStr, "skillsGap", new ArrayList<>()));
+            result.put("recommendedCourses", extractCoursesArray(jsonStr));
+            result.put("estimatedDurationMonths", extractNumber(jsonStr, "estimatedDurationMonths", 12));
+            result.put("summary", extractString(jsonStr, "summary", "Lộ trình phát triển nghề nghiệp được tùy chỉnh cho bạn"));
+            
+            log.info("Parsed roadmap manually with {} steps", steps.size());
+            
+        } catch (Exception e) {
+            log.error("Error in manual parsing", e);
+        }
+        
+        return result;
+    }
+
+    /**
+     * Extract steps array from JSON string
+     */
+    private List<Map<String, Object>> extractStepsArray(String jsonStr) {
+        List<Map<String, Object>> steps = new ArrayList<>();
+        
+        try {
+            // Find steps array
+            int stepsStart = jsonStr.indexOf("\"steps\"");
+            if (stepsStart < 0) {
+                stepsStart = jsonStr.indexOf("'steps'");
+            }
+            
+            if (stepsStart >= 0) {
+                // Find the array start
+                int arrayStart = jsonStr.indexOf("[", stepsStart);
+                if (arrayStart >= 0) {
+                    // Extract array content
+                    int bracketCount = 0;
+                    int arrayEnd = arrayStart;
+                    for (int i = arrayStart; i < jsonStr.length(); i++) {
+                        char c = jsonStr.charAt(i);
+                        if (c == '[') bracketCount++;
+                        if (c == ']') bracketCount--;
+                        if (bracketCount == 0 && c == ']') {
+                            arrayEnd = i;
+                            break;
+                        }
+                    }
+                    
+                    String arrayContent = jsonStr.substring(arrayStart + 1, arrayEnd);
+                    
+                    // Parse each step object
+                    steps = parseStepObjects(arrayContent);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error extracting steps array", e);
+        }
+        
+        // If no steps found, create default steps
+        if (steps.isEmpty()) {
+            steps = createDefaultSteps();
+        }
+        
+        return steps;
+    }
+
+    /**
+     * Parse step objects from array content
+     */
+    private List<Map<String, Object>> parseStepObjects(String arrayContent) {
+        List<Map<String, Object>> steps = new ArrayList<>();
+        
+        try {
+            // Split by objects (looking for { ... })
+            int braceCount = 0;
+            int start = -1;
+            
+            for (int i = 0; i < arrayContent.length(); i++) {
+                char c = arrayContent.charAt(i);
+                if (c == '{') {
+                    if (braceCount == 0) start = i;
+                    braceCount++;
+                }
+                if (c == '}') {
+                    braceCount--;
+                    if (braceCount == 0 && start >= 0) {
+                        String stepStr = arrayContent.substring(start, i + 1);
+                        Map<String, Object> step = parseStepObject(stepStr);
+                        if (!step.isEmpty()) {
+                            steps.add(step);
+                        }
+                        start = -1;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error parsing step objects", e);
+        }
+        
+        return steps;
+    }
+
+    /**
+     * Parse a single step object - try ObjectMapper first, then fallback to regex
+     */
+    private Map<String, Object> parseStepObject(String stepStr) {
+        Map<String, Object> step = new HashMap<>();
+        
+        try {
+            // Try ObjectMapper first
+            try {
+                TypeReference<Map<String, Object>> typeRef = new TypeReference<Map<String, Object>>() {};
+                step = objectMapper.readValue(stepStr, typeRef);
+                log.debug("Successfully parsed step with ObjectMapper");
+            } catch (Exception e) {
+                log.debug("ObjectMapper failed for step, using regex: {}", e.getMessage());
+                // Fallback to regex extraction
+                step.put("title", extractString(stepStr, "title", "Bước"));
+                step.put("description", extractString(stepStr, "description", "Mô tả chi tiết về bước này"));
+                step.put("skills", extractArray(stepStr, "skills", new ArrayList<>()));
+                step.put("resources", extractArray(stepStr, "resources", new ArrayList<>()));
+                step.put("duration", extractString(stepStr, "duration", "1-2 tháng"));
+                step.put("milestones", extractArray(stepStr, "milestones", new ArrayList<>()));
+                step.put("projects", extractArray(stepStr, "projects", new ArrayList<>()));
+            }
+            
+            // Ensure all required fields exist
+            if (!step.containsKey("title") || step.get("title") == null || step.get("title").toString().trim().isEmpty()) {
+                step.put("title", "Bước");
+            }
+            if (!step.containsKey("description") || step.get("description") == null || step.get("description").toString().trim().isEmpty()) {
+                step.put("description", "Mô tả chi tiết về bước này sẽ được cập nhật.");
+            }
+            step.putIfAbsent("skills", new ArrayList<>());
+            step.putIfAbsent("resources", new ArrayList<>());
+            step.putIfAbsent("duration", "1-2 tháng");
+            step.putIfAbsent("milestones", new ArrayList<>());
+            step.putIfAbsent("projects", new ArrayList<>());
+            
+        } catch (Exception e) {
+            log.error("Error parsing step object", e);
+            // Return minimal step
+            step.put("title", "Bước");
+            step.put("description", "Mô tả chi tiết về bước này sẽ được cập nhật.");
+            step.put("skills", new ArrayList<>());
+            step.put("resources", new ArrayList<>());
+            step.put("duration", "1-2 tháng");
+            step.put("milestones", new ArrayList<>());
+            step.put("projects", new ArrayList<>());
+        }
+        
+        return step;
+    }
+
+    /**
+     * Extract courses array
+     */
+    private List<Map<String, Object>> extractCoursesArray(String jsonStr) {
+        List<Map<String, Object>> courses = new ArrayList<>();
+        
+        try {
+            int coursesStart = jsonStr.indexOf("\"recommendedCourses\"");
+            if (coursesStart < 0) {
+                coursesStart = jsonStr.indexOf("'recommendedCourses'");
+            }
+            
+            if (coursesStart >= 0) {
+                int arrayStart = jsonStr.indexOf("[", coursesStart);
+                if (arrayStart >= 0) {
+                    int bracketCount = 0;
+                    int arrayEnd = arrayStart;
+                    for (int i = arrayStart; i < jsonStr.length(); i++) {
+                        char c = jsonStr.charAt(i);
+                        if (c == '[') bracketCount++;
+                        if (c == ']') bracketCount--;
+                        if (bracketCount == 0 && c == ']') {
+                            arrayEnd = i;
+                            break;
+                        }
+                    }
+                    
+                    // Parse course objects similar to steps
+                    // For now, return empty list
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error extracting courses array", e);
+        }
+        
+        return courses;
+    }
+
+    /**
+     * Create default roadmap if AI fails
+     */
+    private Map<String, Object> createDefaultRoadmap(String targetRole) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("steps", createDefaultSteps());
+        result.put("timeline", "12-18 tháng");
+        result.put("skillsGap", Arrays.asList("Kỹ năng chuyên môn", "Kinh nghiệm thực tế"));
+        result.put("recommendedCourses", new ArrayList<>());
+        result.put("estimatedDurationMonths", 12);
+        result.put("summary", "Lộ trình phát triển nghề nghiệp cho " + targetRole);
+        return result;
+    }
+
+    /**
+     * Create default steps
+     */
+    private List<Map<String, Object>> createDefaultSteps() {
+        List<Map<String, Object>> steps = new ArrayList<>();
+        
+        Map<String, Object> step1 = new HashMap<>();
+        step1.put("title", "Nắm vững kiến thức cơ bản");
+        step1.put("description", "Bắt đầu với việc học các kiến thức nền tảng quan trọng. Đây là bước đầu tiên và quan trọng nhất trong lộ trình của bạn. Hãy dành thời gian để hiểu sâu các khái niệm cơ bản, không chỉ học thuộc mà cần hiểu bản chất và cách áp dụng vào thực tế.");
+        step1.put("skills", Arrays.asList("Kiến thức cơ bản", "Nguyên lý hoạt động"));
+        step1.put("resources", Arrays.asList("Sách giáo khoa", "Khóa học online"));
+        step1.put("duration", "2-3 tháng");
+        step1.put("milestones", Arrays.asList("Hoàn thành khóa học cơ bản", "Làm được bài tập thực hành"));
+        step1.put("projects", Arrays.asList("Project nhỏ đầu tiên"));
+        steps.add(step1);
+        
+        Map<String, Object> step2 = new HashMap<>();
+        step2.put("title", "Thực hành và xây dựng portfolio");
+        step2.put("description", "Áp dụng kiến thức đã học vào các dự án thực tế. Xây dựng portfolio là cách tốt nhất để chứng minh năng lực của bạn. Hãy bắt đầu với các project nhỏ, sau đó nâng dần độ phức tạp. Mỗi project nên giải quyết một vấn đề cụ thể và thể hiện được kỹ năng của bạn.");
+        step2.put("skills", Arrays.asList("Thực hành", "Xây dựng dự án"));
+        step2.put("resources", Arrays.asList("GitHub", "Tài liệu tham khảo"));
+        step2.put("duration", "3-4 tháng");
+        step2.put("milestones", Arrays.asList("Hoàn thành 3-5 projects", "Có portfolio online"));
+        step2.put("projects", Arrays.asList("Project trung bình", "Project cá nhân"));
+        steps.add(step2);
+        
+        return steps;
+    }
+
+    private String cleanJSONResponse(String response) {
+        String jsonStr = response.trim();
+        
+        // Remove markdown code blocks
+        if (jsonStr.startsWith("```json")) {
+            jsonStr = jsonStr.substring(7);
+        } else if (jsonStr.startsWith("```")) {
+            jsonStr = jsonStr.substring(3);
+        }
+        
+        if (jsonStr.endsWith("```")) {
+            jsonStr = jsonStr.substring(0, jsonStr.length() - 3);
+        }
+        
+        // Remove any leading/trailing whitespace and newlines
+        jsonStr = jsonStr.trim();
+        
+        // Remove any text before first {
+        int firstBrace = jsonStr.indexOf("{");
+        if (firstBrace > 0) {
+            jsonStr = jsonStr.substring(firstBrace);
+        }
+        
+        // Remove any text after last }
+        int lastBrace = jsonStr.lastIndexOf("}");
+        if (lastBrace >= 0 && lastBrace < jsonStr.length() - 1) {
+            jsonStr = jsonStr.substring(0, lastBrace + 1);
+        }
+        
+        return jsonStr.trim();
+    }
+
+    private int extractNumber(String json, String key, int defaultValue) {
+        try {
+            String pattern = "\"" + key + "\"\\s*:\\s*(\\d+)";
+            java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
+            java.util.regex.Matcher m = p.matcher(json);
+            if (m.find()) {
+                return Integer.parseInt(m.group(1));
+            }
+        } catch (Exception e) {
+            log.warn("Could not extract number for " + key, e);
+        }
+        return defaultValue;
+    }
+
+    private List<String> extractArray(String json, String key, List<String> defaultValue) {
+        try {
+            String pattern = "\"" + key + "\"\\s*:\\s*\\[([^\\]]+)\\]";
+            java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
+            java.util.regex.Matcher m = p.matcher(json);
+            if (m.find()) {
+                String arrayContent = m.group(1);
+                List<String> items = new ArrayList<>();
+                String[] parts = arrayContent.split(",");
+                for (String part : parts) {
+                    String item = part.trim().replaceAll("^\"|\"$", "");
+                    if (!item.isEmpty()) {
+                        items.add(item);
+                    }
+                }
+                if (!items.isEmpty()) {
+                    return items;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Could not extract array for " + key, e);
+        }
+        return defaultValue;
+    }
+
+    private String extractString(String json, String key, String defaultValue) {
+        try {
+            String pattern = "\"" + key + "\"\\s*:\\s*\"([^\"]+)\"";
+            java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
+            java.util.regex.Matcher m = p.matcher(json);
+            if (m.find()) {
+                return m.group(1);
+            }
+        } catch (Exception e) {
+            log.warn("Could not extract string for " + key, e);
+        }
+        return defaultValue;
+    }
+}
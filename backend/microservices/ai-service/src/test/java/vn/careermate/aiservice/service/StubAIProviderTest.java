@@ -0,0 +1,105 @@
+package vn.careermate.aiservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StubAIProviderTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(5);
+
+    private static StubAIProvider provider(double errorRate, double timeoutRate, long seed) {
+        StubAIProvider provider = new StubAIProvider();
+        ReflectionTestUtils.setField(provider, "recordingsLocation", "classpath*:ai-stub/*.txt");
+        ReflectionTestUtils.setField(provider, "latencyMs", 0L);
+        ReflectionTestUtils.setField(provider, "latencyJitterMs", 0L);
+        ReflectionTestUtils.setField(provider, "errorRate", errorRate);
+        ReflectionTestUtils.setField(provider, "errorStatus", 503);
+        ReflectionTestUtils.setField(provider, "timeoutRate", timeoutRate);
+        ReflectionTestUtils.setField(provider, "seed", seed);
+        provider.init();
+        return provider;
+    }
+
+    @Test
+    void kindOfMatchesPromptsToRecordings() {
+        assertEquals("cv-analysis", StubAIProvider.kindOf("Bạn là chuyên gia. Hãy PHÂN TÍCH CV sau"));
+        assertEquals("ranking", StubAIProvider.kindOf("Chấm điểm mức độ phù hợp của từng CV, phân tích CV ngắn gọn"));
+        assertEquals("roadmap", StubAIProvider.kindOf("Tạo lộ trình nghề nghiệp cho sinh viên"));
+        assertEquals("chat", StubAIProvider.kindOf("Xin chào"));
+        assertEquals("chat", StubAIProvider.kindOf(null));
+    }
+
+    @Test
+    void replaysRecordingOfThePromptKind() {
+        StubAIProvider stub = provider(0, 0, 42);
+        String answer = stub.generate("Hãy phân tích CV sau: Java, Spring Boot").block(WAIT);
+        assertTrue(answer.contains("\"structureScore\""), answer);
+    }
+
+    @Test
+    void samePromptGetsSameRecording() {
+        StubAIProvider first = provider(0, 0, 1);
+        StubAIProvider second = provider(0, 0, 2);
+        String prompt = "Phân tích CV: 3 năm kinh nghiệm React";
+        assertEquals(first.generate(prompt).block(WAIT), second.generate(prompt).block(WAIT));
+        assertEquals(first.generate(prompt).block(WAIT), first.generate(prompt).block(WAIT));
+    }
+
+    @Test
+    void injectsConfiguredErrorStatus() {
+        StubAIProvider stub = provider(1, 0, 42);
+        RuntimeException error = assertThrows(RuntimeException.class, () -> stub.generate("Xin chào").block(WAIT));
+        AIProviderException providerError = assertInstanceOf(AIProviderException.class, error);
+        assertEquals(503, providerError.getStatusCode());
+        assertEquals(StubAIProvider.NAME, providerError.getProvider());
+        assertEquals(1L, stub.getStats().get("injectedErrors"));
+    }
+
+    @Test
+    void injectsTimeouts() {
+        StubAIProvider stub = provider(0, 1, 42);
+        RuntimeException error = assertThrows(RuntimeException.class, () -> stub.generate("Xin chào").block(WAIT));
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        assertEquals(1L, stub.getStats().get("injectedTimeouts"));
+    }
+
+    @Test
+    void faultSequenceIsSeeded() {
+        assertEquals(outcomes(provider(0.5, 0, 7)), outcomes(provider(0.5, 0, 7)));
+        assertNotEquals(outcomes(provider(0.5, 0, 7)), outcomes(provider(0.5, 0, 8)));
+    }
+
+    @Test
+    void embeddingsAreNormalizedAndCloserForSharedWords() {
+        float[] java = StubAIProvider.embed("Lập trình viên Java Spring Boot", 256);
+        float[] javaToo = StubAIProvider.embed("Java Spring Boot backend", 256);
+        float[] design = StubAIProvider.embed("Thiết kế đồ họa Photoshop", 256);
+        assertEquals(1.0, dot(java, java), 1e-5);
+        assertTrue(dot(java, javaToo) > dot(java, design));
+    }
+
+    private static List<Boolean> outcomes(StubAIProvider stub) {
+        List<Boolean> outcomes = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            outcomes.add(stub.generate("Xin chào").onErrorReturn("").block(WAIT).isEmpty());
+        }
+        return outcomes;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) sum += a[i] * b[i];
+        return sum;
+    }
+}
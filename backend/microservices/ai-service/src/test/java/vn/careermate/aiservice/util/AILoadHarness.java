@@ -0,0 +1,251 @@
+package vn.careermate.aiservice.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closed-loop load test for the AI endpoints of a running ai-service (test sources only, not shipped in the jar)
+ * Each scenario runs a fixed number of requests at fixed concurrency and reports throughput and
+ * p50/p95/p99 latency. For numbers without network, start ai-service with
+ * ai.stub.enabled=true, ai.provider=stub, ai.stub.embeddings=true (latency / error rate via ai.stub.*).
+ * Run with:
+ * java -cp target/test-classes:target/classes:&lt;deps&gt; vn.careermate.aiservice.util.AILoadHarness
+ *   [--base-url http://localhost:8086] [--token JWT] [--concurrency 8] [--requests 200] [--warmup 20]
+ *   [--scenarios cv,chat,matching,interview] [--job-id UUID] [--timeout-ms 120000]
+ * The matching scenario needs --job-id and a RECRUITER token (job-service / user-service must be up).
+ */
+public class AILoadHarness {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String CV = """
+        Nguyễn Văn A - Lập trình viên Backend
+        Kinh nghiệm: 2 năm Java, Spring Boot, PostgreSQL tại công ty phần mềm ABC.
+        Dự án: hệ thống quản lý đơn hàng (REST API, Docker), ứng dụng đặt lịch khám bệnh.
+        Học vấn: Đại học Bách Khoa, Công nghệ thông tin, GPA 3.2/4.
+        Kỹ năng: Java, Spring Boot, JPA, SQL, Git, Docker.
+        """;
+
+    private static final String[] CHAT_MESSAGES = {
+        "Tôi nên học gì để trở thành lập trình viên backend?",
+        "Làm sao để viết CV ấn tượng khi chưa có kinh nghiệm?",
+        "Cách chuẩn bị cho buổi phỏng vấn kỹ thuật Java?",
+        "Tôi có nên học thêm Docker và Kubernetes không?"
+    };
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final String token;
+    private final Duration timeout;
+    private final Map<String, ConcurrentLinkedQueue<Long>> latencies = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> errors = new ConcurrentHashMap<>();
+
+    private AILoadHarness(String baseUrl, String token, Duration timeout, int concurrency) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.token = token;
+        this.timeout = timeout;
+        this.client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newFixedThreadPool(Math.max(2, concurrency)))
+            .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "8"));
+        int requests = Integer.parseInt(options.getOrDefault("requests", "200"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "20"));
+        String jobId = options.get("job-id");
+        List<String> scenarios = List.of(options.getOrDefault("scenarios", "cv,chat,matching,interview").split(","));
+
+        AILoadHarness harness = new AILoadHarness(
+            options.getOrDefault("base-url", "http://localhost:8086"),
+            options.get("token"),
+            Duration.ofMillis(Long.parseLong(options.getOrDefault("timeout-ms", "120000"))),
+            concurrency);
+
+        System.out.printf("ai-service load test: concurrency %d, %d requests per scenario (+%d warm-up)%n%n",
+            concurrency, requests, warmup);
+        System.out.printf("%-22s %8s %7s %9s %9s %9s %9s %9s%n",
+            "scenario", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+
+        for (String scenario : scenarios) {
+            Scenario task = switch (scenario.trim()) {
+                case "cv" -> harness::analyzeCV;
+                case "chat" -> harness::chat;
+                case "matching" -> jobId != null ? i -> harness.matching(jobId) : null;
+                case "interview" -> harness::interview;
+                default -> null;
+            };
+            if (task == null) {
+                System.out.printf("%-22s skipped%s%n", scenario,
+                    "matching".equals(scenario.trim()) ? " (needs --job-id and a RECRUITER --token)" : " (unknown scenario)");
+                continue;
+            }
+            harness.run(task, concurrency, warmup);
+            harness.reset();
+            long elapsed = harness.run(task, concurrency, requests);
+            harness.report(elapsed);
+            harness.reset();
+        }
+        System.exit(0);
+    }
+
+    @FunctionalInterface
+    private interface Scenario {
+        void execute(int iteration) throws Exception;
+    }
+
+    // ========== Scenarios ==========
+
+    private void analyzeCV(int i) throws Exception {
+        // A distinct suffix per request keeps the response cache out of the measurement
+        post("cv-analyze", "/ai/cv/analyze/" + UUID.randomUUID(), Map.of("content", CV + "\nMã hồ sơ: " + i));
+    }
+
+    private void chat(int i) throws Exception {
+        post("chat", "/ai/chat", Map.of(
+            "message", CHAT_MESSAGES[i % CHAT_MESSAGES.length] + " (" + i + ")",
+            "context", "general",
+            "role", "STUDENT"));
+    }
+
+    private void matching(String jobId) throws Exception {
+        send("matching", HttpRequest.newBuilder(URI.create(baseUrl + "/ai/jobs/" + jobId + "/matching")).GET());
+    }
+
+    /**
+     * Start a custom interview, then evaluate an answer to its first question
+     */
+    private void interview(int i) throws Exception {
+        long start = System.nanoTime();
+        String started = post("interview.start", "/ai/students/mock-interview/start-custom", Map.of(
+            "jobTitle", "Lập trình viên Java Backend",
+            "jobDescription", "Phát triển REST API với Spring Boot, PostgreSQL, Docker. Mã yêu cầu " + i));
+        String question = firstQuestion(started);
+        if (question == null) {
+            errors.computeIfAbsent("interview.flow", k -> new AtomicInteger()).incrementAndGet();
+            return;
+        }
+        post("interview.evaluate", "/ai/students/mock-interview/evaluate", Map.of(
+            "question", question,
+            "answer", "Tôi dùng @Transactional ở tầng service và chia nhỏ giao dịch để tránh khóa lâu. Lần " + i,
+            "jobContext", "Lập trình viên Java Backend"));
+        record("interview.flow", System.nanoTime() - start);
+    }
+
+    // ========== HTTP ==========
+
+    private String post(String label, String path, Map<String, ?> body) throws Exception {
+        return send(label, HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body))));
+    }
+
+    private String send(String label, HttpRequest.Builder request) throws Exception {
+        request.timeout(timeout);
+        if (token != null && !token.isBlank()) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 400 || response.body().contains("\"error\"")) {
+                errors.computeIfAbsent(label, k -> new AtomicInteger()).incrementAndGet();
+            }
+            return response.body();
+        } catch (Exception e) {
+            errors.computeIfAbsent(label, k -> new AtomicInteger()).incrementAndGet();
+            return null;
+        } finally {
+            record(label, System.nanoTime() - start);
+        }
+    }
+
+    private static String firstQuestion(String response) {
+        if (response == null) return null;
+        try {
+            Object questions = MAPPER.readValue(response, Map.class).get("questions");
+            if (questions instanceof List<?> list && !list.isEmpty()) {
+                Object first = list.get(0);
+                return first instanceof Map<?, ?> map ? String.valueOf(map.get("question")) : String.valueOf(first);
+            }
+        } catch (Exception ignored) {
+            // counted as a failed flow
+        }
+        return null;
+    }
+
+    // ========== Measurement ==========
+
+    /**
+     * Run the scenario `count` times on `concurrency` workers; returns the wall time in ns
+     */
+    private long run(Scenario scenario, int concurrency, int count) throws InterruptedException {
+        if (count <= 0) return 0;
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        AtomicInteger next = new AtomicInteger();
+        long start = System.nanoTime();
+        for (int w = 0; w < concurrency; w++) {
+            workers.execute(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < count) {
+                    try {
+                        scenario.execute(i);
+                    } catch (Exception e) {
+                        errors.computeIfAbsent("harness", k -> new AtomicInteger()).incrementAndGet();
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.DAYS);
+        return System.nanoTime() - start;
+    }
+
+    private void record(String label, long nanos) {
+        latencies.computeIfAbsent(label, k -> new ConcurrentLinkedQueue<>()).add(nanos);
+    }
+
+    private void report(long elapsedNanos) {
+        Set<String> labels = new TreeSet<>(latencies.keySet());
+        labels.addAll(errors.keySet());
+        for (String label : labels) {
+            long[] samples = latencies.getOrDefault(label, new ConcurrentLinkedQueue<>()).stream()
+                .mapToLong(Long::longValue).sorted().toArray();
+            int failed = errors.getOrDefault(label, new AtomicInteger()).get();
+            double perSecond = elapsedNanos > 0 ? samples.length * 1e9 / elapsedNanos : 0;
+            System.out.printf("%-22s %8d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n", label, samples.length, failed, perSecond,
+                percentile(samples, 0.50), percentile(samples, 0.95), percentile(samples, 0.99),
+                samples.length > 0 ? samples[samples.length - 1] / 1e6 : 0);
+        }
+    }
+
+    private void reset() {
+        latencies.clear();
+        errors.clear();
+    }
+
+    // Nearest-rank percentile of sorted samples, in ms
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank))] / 1e6;
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,46 @@
+package vn.careermate.aiservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LenientJsonExtractorTest {
+
+    @Test
+    void parseObjectSkipsBracketedPreamble() {
+        Map<String, Object> json = LenientJsonExtractor.parseObject("[Kết quả] Đánh giá:\n{\"score\": 80}");
+        assertEquals(80, LenientJsonExtractor.getInt(json, "score", 0));
+    }
+
+    @Test
+    void parseObjectSkipsLeadingArray() {
+        Map<String, Object> json = LenientJsonExtractor.parseObject("[1, 2]\n```json\n{\"summary\": \"ok\"}\n```");
+        assertEquals("ok", LenientJsonExtractor.getString(json, "summary", null));
+    }
+
+    @Test
+    void parseReturnsFirstContainer() {
+        Object value = LenientJsonExtractor.parse("Danh sách: [{\"cvId\": \"a\"}, {\"cvId\": \"b\"}]");
+        assertInstanceOf(List.class, value);
+        assertEquals(2, LenientJsonExtractor.objects(value).size());
+    }
+
+    @Test
+    void toleratesTrailingCommasAndTruncation() {
+        Map<String, Object> json = LenientJsonExtractor.parseObject(
+            "{\"skills\": [\"Java\", \"SQL\",], \"steps\": [{\"title\": \"A\"}, {\"title\": \"B\", \"descr");
+        assertEquals(List.of("Java", "SQL"), LenientJsonExtractor.getStringList(json, "skills", List.of()));
+        assertEquals(2, LenientJsonExtractor.getObjectList(json, "steps").size());
+    }
+
+    @Test
+    void noObjectGivesEmptyMap() {
+        assertTrue(LenientJsonExtractor.parseObject("không có JSON [1, 2]").isEmpty());
+        assertTrue(LenientJsonExtractor.parseObject(null).isEmpty());
+    }
+}
@@ -2,25 +2,43 @@ package vn.careermate.common.client;
 
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
-import vn.careermate.common.dto.CVAnalysisDTO;
 import vn.careermate.common.dto.JobRecommendationDTO;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @FeignClient(name = "ai-service")
 public interface AIServiceClient {
-    @PostMapping("/ai/analyze-cv")
-    CVAnalysisDTO analyzeCV(@RequestParam UUID cvId, @RequestParam String cvContent);
-    
-    @GetMapping("/ai/job-recommendations/{studentId}")
+    // Internal (service-to-service) endpoints, not routed by the gateway
+
+    // Queues the analysis and returns the job status; the result is polled via getCVAnalysisStatus
+    @PostMapping("/internal/ai/analyze-cv")
+    Map<String, Object> analyzeCV(@RequestParam UUID cvId, @RequestBody Map<String, String> request);
+
+    @GetMapping("/internal/ai/analyze-cv/{cvId}")
+    Map<String, Object> getCVAnalysisStatus(@PathVariable UUID cvId);
+
+    @GetMapping("/internal/ai/job-recommendations/{studentId}")
     List<JobRecommendationDTO> getJobRecommendations(@PathVariable UUID studentId);
+
+    // Job created, approved, hidden or removed - recommendations for it are recomputed in the background
+    @PostMapping("/internal/ai/job-recommendations/events/job/{jobId}")
+    void onJobChanged(@PathVariable UUID jobId);
     
-    @GetMapping("/ai/chat/conversations/{userId}")
+    @GetMapping("/internal/ai/chat/conversations/{userId}")
     List<Object> getChatConversations(@PathVariable UUID userId);
+
+    @PostMapping("/internal/ai/chat/conversations/{userId}")
+    Map<String, Object> createChatConversation(@PathVariable UUID userId, @RequestBody Map<String, String> request);
     
-    @GetMapping("/ai/chat/messages/{conversationId}")
-    List<Object> getChatMessages(@PathVariable UUID conversationId);
+    // userId is required and must own the conversation; it is read from ai-service's window cache or Postgres
+    @GetMapping("/internal/ai/chat/messages/{conversationId}")
+    List<Object> getChatMessages(@PathVariable UUID conversationId, @RequestParam UUID userId);
+
+    // Answers the message with the conversation's windowed context; both turns are stored by ai-service
+    @PostMapping("/internal/ai/chat/messages/{conversationId}")
+    Map<String, Object> sendChatMessage(@PathVariable UUID conversationId, @RequestParam UUID userId, @RequestBody Map<String, String> request);
     
     @GetMapping("/ai/mock-interviews/{studentId}")
     List<Object> getMockInterviews(@PathVariable UUID studentId);
@@ -14,6 +14,9 @@ import java.util.UUID;
 public interface ContentServiceClient {
     @GetMapping("/companies/{companyId}")
     CompanyDTO getCompanyById(@PathVariable UUID companyId);
+
+    @PostMapping("/companies/batch")
+    List<CompanyDTO> getCompaniesByIds(@RequestBody List<UUID> companyIds);
     
     @GetMapping("/companies")
     Page<CompanyDTO> getAllCompanies(
@@ -23,6 +23,10 @@ public interface JobServiceClient {
     
     @GetMapping("/applications/{applicationId}")
     ApplicationDTO getApplicationById(@PathVariable UUID applicationId);
+
+    // Forwards the caller's token: job-service only answers for the job's recruiter or an admin
+    @GetMapping("/applications/job/{jobId}/cv-ids")
+    List<UUID> getJobApplicantCvIds(@PathVariable UUID jobId);
     
     @GetMapping("/saved-jobs")
     List<JobDTO> getSavedJobsByStudent(@RequestParam UUID studentId);
@@ -75,4 +79,11 @@ public interface JobServiceClient {
 
     @GetMapping("/jobs/recruiter/stats")
     java.util.Map<String, Object> getRecruiterStats(@RequestParam UUID recruiterId);
+
+    // Internal (service-to-service) endpoints, not routed by the gateway
+    @PostMapping("/internal/jobs/matching-profiles")
+    List<JobDTO> getJobMatchingProfiles(@RequestBody List<UUID> jobIds);
+
+    @GetMapping("/internal/jobs/active-ids")
+    List<UUID> getActiveJobIds();
 }
@@ -0,0 +1,18 @@
+package vn.careermate.common.client;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import vn.careermate.common.dto.NotificationRequest;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivery side of the notification outbox (service-to-service, not routed by the gateway)
+ */
+@FeignClient(name = "notification-service", contextId = "notificationOutboxClient")
+public interface NotificationOutboxClient {
+    @PostMapping("/internal/notifications/batch")
+    Map<String, Integer> createNotifications(@RequestBody List<NotificationRequest> requests);
+}
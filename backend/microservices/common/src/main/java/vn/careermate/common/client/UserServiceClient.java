@@ -9,6 +9,7 @@ import vn.careermate.common.dto.StudentProfileDTO;
 import vn.careermate.common.config.FeignClientConfiguration;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @FeignClient(name = "user-service", configuration = FeignClientConfiguration.class)
@@ -29,6 +30,9 @@ public interface UserServiceClient {
     @GetMapping("/recruiters/profile/{recruiterId}")
     RecruiterProfileDTO getRecruiterProfileById(@PathVariable UUID recruiterId);
     
+    @PostMapping("/internal/recruiters/profiles")
+    List<RecruiterProfileDTO> getRecruiterProfilesByIds(@RequestBody List<UUID> recruiterIds);
+    
     @GetMapping("/recruiters/by-company/{companyId}")
     RecruiterProfileDTO getRecruiterByCompanyId(@PathVariable UUID companyId);
     
@@ -39,6 +43,9 @@ public interface UserServiceClient {
     @GetMapping("/students/profile/{studentId}")
     StudentProfileDTO getStudentProfileById(@PathVariable UUID studentId);
     
+    @PostMapping("/internal/students/profiles")
+    List<StudentProfileDTO> getStudentProfilesByIds(@RequestBody List<UUID> studentIds);
+    
     @GetMapping("/students/profile/user/{userId}")
     StudentProfileDTO getStudentProfileByUserId(@PathVariable UUID userId);
     
@@ -61,4 +68,14 @@ public interface UserServiceClient {
 
     @DeleteMapping("/users/{userId}")
     void deleteUser(@PathVariable UUID userId);
+
+    // Internal (service-to-service) endpoints, not routed by the gateway
+    @PostMapping("/internal/students/cv-owners")
+    Map<UUID, UUID> getCVOwners(@RequestBody List<UUID> cvIds);
+
+    @PostMapping("/internal/students/cvs")
+    List<CVDTO> getCVsByIds(@RequestBody List<UUID> cvIds);
+
+    @PostMapping("/internal/students/skills")
+    Map<UUID, List<String>> getStudentSkills(@RequestBody List<UUID> studentIds);
 }
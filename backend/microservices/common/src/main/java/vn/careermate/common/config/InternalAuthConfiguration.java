@@ -0,0 +1,72 @@
+package vn.careermate.common.config;
+
+import feign.RequestInterceptor;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Shared-secret auth for service-to-service endpoints (/internal/**)
+ * The filter rejects /internal/** requests without the X-Internal-Token header set to internal.auth.token,
+ * ahead of the security chain, so a misrouted or port-exposed /internal path is not open.
+ * The Feign interceptor adds the header to calls made to /internal/** of other services.
+ * internal.auth.token has no default: a service without it fails at startup.
+ */
+@Slf4j
+@Configuration
+public class InternalAuthConfiguration {
+
+    public static final String HEADER = "X-Internal-Token";
+    private static final String INTERNAL_PREFIX = "/internal/";
+
+    private final byte[] token;
+
+    public InternalAuthConfiguration(@Value("${internal.auth.token}") String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalStateException("internal.auth.token must be set (INTERNAL_AUTH_TOKEN)");
+        }
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> internalAuthFilter() {
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                    throws ServletException, IOException {
+                String header = request.getHeader(HEADER);
+                if (header == null || !MessageDigest.isEqual(token, header.getBytes(StandardCharsets.UTF_8))) {
+                    log.warn("Rejected internal call to {} from {}", request.getRequestURI(), request.getRemoteAddr());
+                    response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid service token");
+                    return;
+                }
+                chain.doFilter(request, response);
+            }
+        });
+        registration.addUrlPatterns(INTERNAL_PREFIX + "*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Bean
+    public RequestInterceptor internalAuthInterceptor() {
+        String value = new String(token, StandardCharsets.UTF_8);
+        return template -> {
+            if (template.path().startsWith(INTERNAL_PREFIX)) {
+                template.header(HEADER, value);
+            }
+        };
+    }
+}
@@ -0,0 +1,137 @@
+package vn.careermate.common.counter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory counter per entity id, written to the database in batches
+ * Increments only touch a LongAdder (no transaction, no row lock); flush() adds the accumulated deltas
+ * with one batched "UPDATE ... SET col = col + ? WHERE id = ?" in id order.
+ * Bounds: a crash loses at most the increments since the last flush (flushIfDue flushes every
+ * flushIntervalMs, or sooner once maxPendingKeys ids are waiting). A failed flush keeps its deltas for the next one.
+ */
+@Slf4j
+public class WriteBehindCounter {
+
+    private final String name;
+    private final JdbcTemplate jdbcTemplate;
+    private final String updateSql;
+    private final long flushIntervalMs;
+    private final int maxPendingKeys;
+
+    private final ConcurrentHashMap<UUID, LongAdder> pending = new ConcurrentHashMap<>();
+    // Ids that had nothing to write on the last flush; dropped on the next one if still idle
+    private final Set<UUID> idle = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong flushedIncrements = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private volatile long lastFlushAt = System.currentTimeMillis();
+
+    /**
+     * @param updateSql UPDATE taking (delta, id), e.g. "UPDATE s.t SET c = COALESCE(c, 0) + ? WHERE id = ?"
+     */
+    public WriteBehindCounter(String name, JdbcTemplate jdbcTemplate, String updateSql,
+                              long flushIntervalMs, int maxPendingKeys) {
+        this.name = name;
+        this.jdbcTemplate = jdbcTemplate;
+        this.updateSql = updateSql;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxPendingKeys = maxPendingKeys;
+    }
+
+    public void increment(UUID id) {
+        add(id, 1);
+    }
+
+    public void add(UUID id, long delta) {
+        if (id == null || delta == 0) return;
+        // Added under the map's per-key lock so evictIdle cannot drop an adder between lookup and add
+        pending.compute(id, (k, adder) -> {
+            LongAdder target = adder != null ? adder : new LongAdder();
+            target.add(delta);
+            return target;
+        });
+    }
+
+    /**
+     * Increments not yet written for this id (add to the stored value for an up-to-date count)
+     */
+    public long pending(UUID id) {
+        LongAdder adder = id != null ? pending.get(id) : null;
+        return adder != null ? adder.sum() : 0;
+    }
+
+    /**
+     * Flush when the interval has passed or too many ids are waiting; meant to be called from a short fixed-delay tick
+     */
+    public void flushIfDue() {
+        if (System.currentTimeMillis() - lastFlushAt >= flushIntervalMs || pending.size() - idle.size() >= maxPendingKeys) {
+            flush();
+        }
+    }
+
+    /**
+     * Write all pending deltas; returns the number of rows updated
+     */
+    public int flush() {
+        if (!flushLock.tryLock()) {
+            return 0;
+        }
+        try {
+            lastFlushAt = System.currentTimeMillis();
+            // sumThenReset is exact per cell, so increments racing with the drain land in this or the next flush
+            TreeMap<UUID, Long> deltas = new TreeMap<>();
+            for (Map.Entry<UUID, LongAdder> entry : pending.entrySet()) {
+                long delta = entry.getValue().sumThenReset();
+                if (delta != 0) {
+                    deltas.put(entry.getKey(), delta);
+                    idle.remove(entry.getKey());
+                } else if (!idle.add(entry.getKey())) {
+                    evictIdle(entry.getKey());
+                }
+            }
+            if (deltas.isEmpty()) {
+                return 0;
+            }
+
+            List<Object[]> batch = new ArrayList<>(deltas.size());
+            deltas.forEach((id, delta) -> batch.add(new Object[]{delta, id}));
+            try {
+                jdbcTemplate.batchUpdate(updateSql, batch);
+            } catch (Exception e) {
+                failedFlushes.incrementAndGet();
+                deltas.forEach(this::add);
+                log.warn("Could not flush {} {} counters, keeping them for the next flush: {}", deltas.size(), name, e.getMessage());
+                return 0;
+            }
+            flushedRows.addAndGet(deltas.size());
+            flushedIncrements.addAndGet(deltas.values().stream().mapToLong(Long::longValue).sum());
+            log.debug("Flushed {} {} counters", deltas.size(), name);
+            return deltas.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pendingKeys", pending.size() - idle.size());
+        stats.put("flushedRows", flushedRows.get());
+        stats.put("flushedIncrements", flushedIncrements.get());
+        stats.put("failedFlushes", failedFlushes.get());
+        return stats;
+    }
+
+    private void evictIdle(UUID id) {
+        idle.remove(id);
+        // Same per-key lock as add(): an increment either lands before (adder kept) or after (new adder)
+        pending.computeIfPresent(id, (k, adder) -> adder.sum() == 0 ? null : adder);
+    }
+}
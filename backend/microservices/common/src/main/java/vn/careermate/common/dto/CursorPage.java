@@ -0,0 +1,33 @@
+package vn.careermate.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated feed
+ * totalElements is only filled when the client asks for it (it costs a COUNT query).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private String nextCursor;
+    private boolean hasMore;
+    private int size;
+    private Long totalElements;
+
+    /**
+     * Build from a query that fetched size + 1 rows; the extra row only signals that there is a next page
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, PageCursor> cursorOf, Long totalElements) {
+        boolean hasMore = rows.size() > size;
+        List<T> content = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = hasMore ? cursorOf.apply(content.get(content.size() - 1)).encode() : null;
+        return new CursorPage<>(content, nextCursor, hasMore, size, totalElements);
+    }
+}
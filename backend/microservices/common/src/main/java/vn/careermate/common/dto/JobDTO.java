@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Data
@@ -16,8 +17,10 @@ import java.util.UUID;
 public class JobDTO {
     private UUID id;
     private UUID recruiterId;
+    private UUID companyId;
     private String title;
     private String description;
+    private String requirements;
     private String location;
     private String employmentType;
     private BigDecimal minSalary;
@@ -30,4 +33,8 @@ public class JobDTO {
     private Boolean hidden;
     private String hiddenReason;
     private LocalDateTime hiddenAt;
+
+    // Skills (only filled by the internal matching-profile endpoint)
+    private List<String> requiredSkills;
+    private List<String> optionalSkills;
 }
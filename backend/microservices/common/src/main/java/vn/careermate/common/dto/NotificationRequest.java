@@ -13,10 +13,15 @@ import java.util.UUID;
 @AllArgsConstructor
 public class NotificationRequest {
     private UUID userId;
+    // Recipient by profile id when the caller does not know the user id; the outbox resolves it at delivery
+    private UUID studentId;
+    private UUID recruiterId;
     private String type;
     private String title;
     private String message;
     private java.util.UUID relatedId;
     private UUID relatedEntityId;
     private String relatedEntityType;
+    // Set by the outbox; notification-service ignores an event id it has already stored
+    private UUID eventId;
 }
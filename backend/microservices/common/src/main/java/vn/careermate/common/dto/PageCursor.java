@@ -0,0 +1,34 @@
+package vn.careermate.common.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset position in a feed ordered by (createdAt DESC, id DESC)
+ * Sent to clients as an opaque URL-safe string; the next page starts strictly after this row.
+ */
+public record PageCursor(LocalDateTime createdAt, UUID id) {
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Null for a missing cursor (first page); IllegalArgumentException for a malformed one
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new PageCursor(LocalDateTime.parse(raw.substring(0, separator)), UUID.fromString(raw.substring(separator + 1)));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
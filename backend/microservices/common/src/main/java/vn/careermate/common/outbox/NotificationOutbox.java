@@ -0,0 +1,326 @@
+package vn.careermate.common.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.careermate.common.client.NotificationOutboxClient;
+import vn.careermate.common.client.UserServiceClient;
+import vn.careermate.common.dto.NotificationRequest;
+import vn.careermate.common.dto.RecruiterProfileDTO;
+import vn.careermate.common.dto.StudentProfileDTO;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional outbox for notifications
+ * enqueue() only inserts a row into the service's own notification_outbox table, in the caller's transaction:
+ * the notification exists if and only if the business change commits, and the write path never waits for
+ * notification-service. Rows are delivered in batches right after commit and by a periodic poll, with
+ * exponential backoff; delivered rows are deleted, rows that keep failing are kept as FAILED.
+ * A batch is claimed first (IN_FLIGHT with a lease, committed), then sent with no transaction or lock held;
+ * rows whose lease ran out (instance died mid-send) are claimed again by the next poll.
+ * Recipients given as studentId / recruiterId are resolved to user ids at delivery, one user-service call per batch,
+ * so the business transaction never waits for user-service.
+ * Delivery is at least once; notification-service drops event ids it has already stored.
+ * Enable in a service with @Import(NotificationOutbox.class) (needs @EnableScheduling).
+ */
+@Slf4j
+@Component
+public class NotificationOutbox {
+
+    @Value("${outbox.table:${spring.jpa.properties.hibernate.default_schema:public}.notification_outbox}")
+    private String table;
+
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.retry-base-ms:5000}")
+    private long retryBaseMs;
+
+    @Value("${outbox.retry-max-ms:600000}")
+    private long retryMaxMs;
+
+    // A claimed row is delivered again after the lease if the instance dies before recording the outcome
+    @Value("${outbox.lease-ms:120000}")
+    private long leaseMs;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationOutboxClient outboxClient;
+    private final UserServiceClient userServiceClient;
+    private final ObjectMapper objectMapper;
+
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+    private final AtomicBoolean dispatchQueued = new AtomicBoolean();
+    private final AtomicBoolean rerun = new AtomicBoolean();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final ExecutorService dispatchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "notification-outbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public NotificationOutbox(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              NotificationOutboxClient outboxClient, UserServiceClient userServiceClient,
+                              ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.outboxClient = outboxClient;
+        this.userServiceClient = userServiceClient;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " (" +
+                "id UUID PRIMARY KEY, " +
+                "payload TEXT NOT NULL, " +
+                "status VARCHAR(20) NOT NULL DEFAULT 'PENDING', " +
+                "attempts INT NOT NULL DEFAULT 0, " +
+                "next_attempt_at TIMESTAMP NOT NULL, " +
+                "last_error VARCHAR(1000), " +
+                "created_at TIMESTAMP NOT NULL DEFAULT now())");
+            // For IN_FLIGHT rows next_attempt_at is the lease deadline, so one index serves due and expired rows
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_notification_outbox_claim ON " + table +
+                " (next_attempt_at) WHERE status IN ('PENDING', 'IN_FLIGHT')");
+        } catch (Exception e) {
+            log.warn("Could not create notification outbox table {}: {}", table, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatchExecutor.shutdown();
+    }
+
+    /**
+     * Queue a notification; call inside the @Transactional method that makes the change it reports
+     */
+    public void enqueue(NotificationRequest request) {
+        enqueueAll(List.of(request));
+    }
+
+    /**
+     * Queue several notifications with one batched insert and a single dispatch after commit
+     */
+    public void enqueueAll(List<NotificationRequest> requests) {
+        if (requests.isEmpty()) return;
+        List<Object[]> rows = new ArrayList<>(requests.size());
+        for (NotificationRequest request : requests) {
+            if (request.getEventId() == null) {
+                request.setEventId(UUID.randomUUID());
+            }
+            try {
+                rows.add(new Object[]{request.getEventId(), objectMapper.writeValueAsString(request)});
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Could not serialize notification: " + e.getMessage(), e);
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO " + table + " (id, payload, next_attempt_at) VALUES (?, ?, now())", rows);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatchSoon();
+                }
+            });
+        } else {
+            dispatchSoon();
+        }
+    }
+
+    /**
+     * Deliver everything that is due; also picks up rows left by a crash or a failed attempt
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:5000}")
+    public void dispatch() {
+        if (!dispatchLock.tryLock()) {
+            // The running dispatch takes another pass for rows committed after its query
+            rerun.set(true);
+            return;
+        }
+        try {
+            do {
+                rerun.set(false);
+                int sent;
+                do {
+                    sent = deliverBatch();
+                } while (sent == batchSize);
+            } while (rerun.get());
+        } catch (Exception e) {
+            log.warn("Notification outbox dispatch failed: {}", e.getMessage());
+        } finally {
+            dispatchLock.unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT status, COUNT(*) AS n FROM " + table + " GROUP BY status",
+            rs -> { stats.put(rs.getString("status").toLowerCase(Locale.ROOT), rs.getLong("n")); });
+        stats.put("delivered", delivered.get());
+        stats.put("failedAttempts", failedAttempts.get());
+        return stats;
+    }
+
+    private void dispatchSoon() {
+        // Commits arriving while a dispatch is queued are covered by it
+        if (dispatchQueued.compareAndSet(false, true)) {
+            dispatchExecutor.execute(() -> {
+                dispatchQueued.set(false);
+                dispatch();
+            });
+        }
+    }
+
+    /**
+     * One batch: claim due rows (SKIP LOCKED, so several instances can dispatch), resolve recipients, send,
+     * then delete or reschedule; nothing is locked while user-service or notification-service is called
+     */
+    private int deliverBatch() {
+        List<Object[]> rows = claim();
+        if (rows.isEmpty()) return 0;
+
+        List<Claimed> claimed = new ArrayList<>();
+        for (Object[] row : rows) {
+            try {
+                claimed.add(new Claimed((UUID) row[0], (Integer) row[2], objectMapper.readValue((String) row[1], NotificationRequest.class)));
+            } catch (Exception e) {
+                markFailed((UUID) row[0], "Unreadable payload: " + e.getMessage());
+            }
+        }
+
+        List<Claimed> ready = new ArrayList<>();
+        // After a failed lookup, stop this pass like after a failed send
+        boolean resolved = resolveRecipients(claimed, ready);
+        if (ready.isEmpty()) return resolved ? rows.size() : 0;
+        try {
+            outboxClient.createNotifications(ready.stream().map(Claimed::request).toList());
+        } catch (Exception e) {
+            failedAttempts.incrementAndGet();
+            reschedule(ready, e.getMessage());
+            log.warn("Could not deliver {} notifications, will retry: {}", ready.size(), e.getMessage());
+            return 0;
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM " + table + " WHERE id = ?",
+            ready.stream().map(row -> new Object[]{row.id()}).toList());
+        delivered.addAndGet(ready.size());
+        return resolved ? rows.size() : 0;
+    }
+
+    // Committed before any HTTP call; the lease is the row's next_attempt_at while it is IN_FLIGHT
+    private List<Object[]> claim() {
+        Timestamp leaseUntil = Timestamp.valueOf(LocalDateTime.now().plus(Duration.ofMillis(leaseMs)));
+        List<Object[]> rows = transactionTemplate.execute(status -> jdbcTemplate.query(
+            "UPDATE " + table + " o SET status = 'IN_FLIGHT', next_attempt_at = ? WHERE o.id IN (" +
+                "SELECT id FROM " + table + " WHERE status IN ('PENDING', 'IN_FLIGHT') AND next_attempt_at <= now() " +
+                "ORDER BY next_attempt_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+                "RETURNING o.id, o.payload, o.attempts",
+            (rs, i) -> new Object[]{rs.getObject("id", UUID.class), rs.getString("payload"), rs.getInt("attempts")},
+            leaseUntil, batchSize));
+        return rows != null ? rows : List.of();
+    }
+
+    /**
+     * Adds the rows ready to send to ready; studentId / recruiterId recipients are looked up in one batch per kind.
+     * A failed lookup reschedules its rows (returns false), a profile that does not exist fails them.
+     */
+    private boolean resolveRecipients(List<Claimed> claimed, List<Claimed> ready) {
+        List<Claimed> byStudent = new ArrayList<>();
+        List<Claimed> byRecruiter = new ArrayList<>();
+        for (Claimed row : claimed) {
+            NotificationRequest request = row.request();
+            if (request.getUserId() != null) {
+                ready.add(row);
+            } else if (request.getStudentId() != null) {
+                byStudent.add(row);
+            } else if (request.getRecruiterId() != null) {
+                byRecruiter.add(row);
+            } else {
+                markFailed(row.id(), "No recipient");
+            }
+        }
+        boolean students = resolve("student", byStudent, NotificationRequest::getStudentId, ids -> userServiceClient.getStudentProfilesByIds(ids).stream()
+            .filter(profile -> profile.getUserId() != null)
+            .collect(Collectors.toMap(StudentProfileDTO::getId, StudentProfileDTO::getUserId, (a, b) -> a)), ready);
+        boolean recruiters = resolve("recruiter", byRecruiter, NotificationRequest::getRecruiterId, ids -> userServiceClient.getRecruiterProfilesByIds(ids).stream()
+            .filter(profile -> profile.getUserId() != null)
+            .collect(Collectors.toMap(RecruiterProfileDTO::getId, RecruiterProfileDTO::getUserId, (a, b) -> a)), ready);
+        return students && recruiters;
+    }
+
+    private boolean resolve(String kind, List<Claimed> rows, Function<NotificationRequest, UUID> profileIdOf,
+                            Function<List<UUID>, Map<UUID, UUID>> lookup, List<Claimed> ready) {
+        if (rows.isEmpty()) return true;
+        Map<UUID, UUID> userIds;
+        try {
+            userIds = lookup.apply(rows.stream().map(row -> profileIdOf.apply(row.request())).distinct().toList());
+        } catch (Exception e) {
+            failedAttempts.incrementAndGet();
+            reschedule(rows, "Could not resolve " + kind + " recipients: " + e.getMessage());
+            log.warn("Could not resolve {} {} recipients, will retry: {}", rows.size(), kind, e.getMessage());
+            return false;
+        }
+        for (Claimed row : rows) {
+            UUID profileId = profileIdOf.apply(row.request());
+            UUID userId = userIds.get(profileId);
+            if (userId == null) {
+                markFailed(row.id(), "Unknown " + kind + " " + profileId);
+                continue;
+            }
+            row.request().setUserId(userId);
+            ready.add(row);
+        }
+        return true;
+    }
+
+    private void markFailed(UUID id, String error) {
+        jdbcTemplate.update("UPDATE " + table + " SET status = 'FAILED', last_error = ? WHERE id = ?", truncate(error), id);
+    }
+
+    private void reschedule(List<Claimed> rows, String error) {
+        String lastError = truncate(error);
+        List<Object[]> updates = new ArrayList<>();
+        for (Claimed row : rows) {
+            int attempts = row.attempts() + 1;
+            long delay = Math.min(retryMaxMs, retryBaseMs << Math.min(attempts - 1, 20));
+            updates.add(new Object[]{
+                attempts, attempts >= maxAttempts ? "FAILED" : "PENDING",
+                Timestamp.valueOf(LocalDateTime.now().plus(Duration.ofMillis(delay))), lastError, row.id()});
+        }
+        jdbcTemplate.batchUpdate("UPDATE " + table + " SET attempts = ?, status = ?, next_attempt_at = ?, last_error = ? WHERE id = ?",
+            updates);
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+
+    private record Claimed(UUID id, int attempts, NotificationRequest request) {
+    }
+}
@@ -5,8 +5,12 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import vn.careermate.common.config.InternalAuthConfiguration;
+import vn.careermate.common.outbox.NotificationOutbox;
 
 @SpringBootApplication
 @EnableDiscoveryClient
@@ -15,6 +19,8 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
     defaultConfiguration = vn.careermate.common.config.FeignClientConfiguration.class
 )
 @EnableJpaAuditing
+@EnableScheduling
+@Import({NotificationOutbox.class, InternalAuthConfiguration.class})
 @EntityScan("vn.careermate.contentservice.model")
 @EnableJpaRepositories("vn.careermate.contentservice.repository")
 public class ContentServiceApplication {
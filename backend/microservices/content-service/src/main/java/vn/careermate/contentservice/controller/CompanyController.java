@@ -101,6 +101,18 @@ public class CompanyController {
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Batch lookup for job listings (job-service): one call per page instead of one per job
+     * POST /companies/batch  [companyId, ...]
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<vn.careermate.common.dto.CompanyDTO>> getCompaniesByIds(@RequestBody List<UUID> companyIds) {
+        if (companyIds != null && companyIds.size() > 500) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(companyService.getCompaniesByIds(companyIds));
+    }
+
     @GetMapping("/{companyId}")
     public ResponseEntity<Map<String, Object>> getCompany(@PathVariable UUID companyId) {
         Company company = companyService.getCompanyById(companyId);
@@ -57,7 +57,7 @@ public class Article {
     private String thumbnailUrl;
 
     @Builder.Default
-    @Column(name = "views_count")
+    @Column(name = "views_count", updatable = false) // written by ArticleViewCounter
     private Integer viewsCount = 0;
 
     @Builder.Default
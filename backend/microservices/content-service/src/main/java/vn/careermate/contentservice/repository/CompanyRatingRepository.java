@@ -22,5 +22,10 @@ public interface CompanyRatingRepository extends JpaRepository<CompanyRating, UU
     @Query(value = "SELECT COUNT(*) FROM contentservice.company_ratings WHERE company_id = :companyId", nativeQuery = true)
     Long countByCompanyId(@Param("companyId") UUID companyId);
     
+    // Rows: [company_id, avg_rating, ratings_count]
+    @Query(value = "SELECT company_id, AVG(rating), COUNT(*) FROM contentservice.company_ratings " +
+           "WHERE company_id IN (:companyIds) GROUP BY company_id", nativeQuery = true)
+    List<Object[]> getRatingStatsByCompanyIds(@Param("companyIds") java.util.Collection<UUID> companyIds);
+    
     void deleteByCompanyId(UUID companyId);
 }
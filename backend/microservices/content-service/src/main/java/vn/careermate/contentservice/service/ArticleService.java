@@ -37,6 +37,7 @@ public class ArticleService {
     private final UserServiceClient userServiceClient;
     private final NotificationServiceClient notificationServiceClient;
     private final ContentServiceClient contentServiceClient;
+    private final ArticleViewCounter articleViewCounter;
 
     @Transactional(readOnly = true)
     public Page<Article> getPublishedArticles(String keyword, String category, Pageable pageable) {
@@ -179,16 +180,21 @@ public class ArticleService {
             }
         }
         
-        // Increment views
-        article.setViewsCount(article.getViewsCount() + 1);
-        articleRepository.save(article);
-        
         return article;
     }
 
+    /**
+     * Article for reading: counts the view (written behind, see ArticleViewCounter) and shows it in viewsCount
+     */
     public vn.careermate.common.dto.ArticleDTO getArticleDTOById(UUID articleId) {
         Article article = getArticleById(articleId);
-        return convertToDTO(article);
+        if (article.getStatus() == Article.ArticleStatus.PUBLISHED) {
+            articleViewCounter.recordView(article.getId());
+        }
+        vn.careermate.common.dto.ArticleDTO dto = convertToDTO(article);
+        long storedViews = article.getViewsCount() != null ? article.getViewsCount() : 0;
+        dto.setViewsCount(storedViews + articleViewCounter.pending(article.getId()));
+        return dto;
     }
 
     private vn.careermate.common.dto.ArticleDTO convertToDTO(Article article) {
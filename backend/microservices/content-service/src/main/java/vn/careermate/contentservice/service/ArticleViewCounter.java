@@ -0,0 +1,61 @@
+package vn.careermate.contentservice.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import vn.careermate.common.counter.WriteBehindCounter;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Article view counter, written behind in batches
+ * Reading an article does not write to the database; articles.views_count is only changed by the flush.
+ */
+@Component
+@RequiredArgsConstructor
+public class ArticleViewCounter {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${counters.flush-interval-ms:5000}")
+    private long flushIntervalMs;
+
+    @Value("${counters.max-pending-keys:10000}")
+    private int maxPendingKeys;
+
+    private WriteBehindCounter views;
+
+    @PostConstruct
+    public void init() {
+        views = new WriteBehindCounter("article views", jdbcTemplate,
+            "UPDATE contentservice.articles SET views_count = COALESCE(views_count, 0) + ? WHERE id = ?",
+            flushIntervalMs, maxPendingKeys);
+    }
+
+    public void recordView(UUID articleId) {
+        views.increment(articleId);
+    }
+
+    public long pending(UUID articleId) {
+        return views.pending(articleId);
+    }
+
+    @Scheduled(fixedDelayString = "${counters.check-interval-ms:500}")
+    public void flushIfDue() {
+        views.flushIfDue();
+    }
+
+    @PreDestroy
+    public void flush() {
+        views.flush();
+    }
+
+    public Map<String, Object> getStats() {
+        return views.getStats();
+    }
+}
@@ -1,6 +1,7 @@
 package vn.careermate.contentservice.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -19,6 +20,7 @@ import vn.careermate.common.dto.StudentProfileDTO;
 import java.util.List;
 import java.util.UUID;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class CompanyRatingService {
@@ -26,7 +28,7 @@ public class CompanyRatingService {
     private final CompanyRatingRepository ratingRepository;
     private final CompanyRepository companyRepository;
     private final UserServiceClient userServiceClient;
-    private final vn.careermate.common.client.NotificationServiceClient notificationServiceClient;
+    private final vn.careermate.common.outbox.NotificationOutbox notificationOutbox;
 
     @Transactional(readOnly = true)
     public List<CompanyRating> getCompanyRatings(UUID companyId) {
@@ -125,15 +127,14 @@ public class CompanyRatingService {
                 notif.setType("COMPANY_RATING");
                 notif.setRelatedId(companyId);
                 
-                notificationServiceClient.createNotification(notif);
-                // Simple logging for verification
-                System.out.println("LOG: Sent notification to Recruiter " + recruiter.getUserId() + " (" + message + ")");
+                notificationOutbox.enqueue(notif);
+                log.info("Queued rating notification for company {} to recruiter user {}", companyId, recruiter.getUserId());
             } else {
-                System.out.println("LOG: No recruiter found for Company " + companyId);
+                log.info("No recruiter found for company {}, rating not notified", companyId);
             }
         } catch (Exception e) {
             // Log error but don't fail transaction
-            System.err.println("LOG: Error sending notification: " + e.getMessage());
+            log.warn("Error sending rating notification for company {}: {}", companyId, e.getMessage());
         }
         
         return savedRating;
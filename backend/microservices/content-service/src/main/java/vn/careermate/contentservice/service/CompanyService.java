@@ -112,6 +112,45 @@ public class CompanyService {
         return company;
     }
     
+    /**
+     * Companies for a batch of ids (job listings), ratings in one grouped query
+     * recruiterId is not resolved here (it needs user-service per company); use GET /companies/{id} for it
+     */
+    @Transactional(readOnly = true)
+    public List<vn.careermate.common.dto.CompanyDTO> getCompaniesByIds(List<UUID> companyIds) {
+        if (companyIds == null || companyIds.isEmpty()) {
+            return List.of();
+        }
+        List<UUID> ids = companyIds.stream().filter(java.util.Objects::nonNull).distinct().toList();
+        Map<UUID, Object[]> ratings = new java.util.HashMap<>();
+        for (Object[] row : ratingRepository.getRatingStatsByCompanyIds(ids)) {
+            ratings.put((UUID) row[0], row);
+        }
+
+        return companyRepository.findAllById(ids).stream()
+                .map(company -> {
+                    Object[] rating = ratings.get(company.getId());
+                    String logoUrl = company.getLogoUrl() == null || company.getLogoUrl().trim().isEmpty()
+                            ? "https://api.dicebear.com/7.x/identicon/svg?seed=" + company.getId()
+                            : company.getLogoUrl();
+                    return vn.careermate.common.dto.CompanyDTO.builder()
+                            .id(company.getId())
+                            .name(company.getName())
+                            .description(company.getDescription())
+                            .websiteUrl(company.getWebsiteUrl())
+                            .logoUrl(logoUrl)
+                            .industry(company.getIndustry())
+                            .companySize(company.getCompanySize())
+                            .foundedYear(company.getFoundedYear())
+                            .headquarters(company.getHeadquarters())
+                            .averageRating(rating != null && rating[1] != null ? ((Number) rating[1]).doubleValue() : 0.0)
+                            .ratingsCount(rating != null ? ((Number) rating[2]).longValue() : 0L)
+                            .verified(company.isVerified())
+                            .build();
+                })
+                .collect(Collectors.toList());
+    }
+    
     public Double getAverageRating(UUID companyId) {
         try {
             Double avg = ratingRepository.getAverageRatingByCompanyId(companyId);
@@ -0,0 +1,83 @@
+package vn.careermate.jobservice.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Full-text search index for jobs (see database/schema.sql)
+ * jobs.search_vector is kept up to date by a trigger on title / description / requirements, so every
+ * write path (create, update, approve, hide) is covered. Text is unaccented first, so "ky su" matches "kỹ sư".
+ * Until this has run (or if the database lacks the unaccent extension) searches use the LIKE query.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JobSearchIndexInitializer implements CommandLineRunner {
+
+    private static final List<String> SEARCH_DDL = List.of(
+        "CREATE EXTENSION IF NOT EXISTS unaccent SCHEMA public",
+        // unaccent() is only STABLE; an IMMUTABLE wrapper with a fixed dictionary can be used in indexes
+        "CREATE OR REPLACE FUNCTION jobservice.f_unaccent(text) RETURNS text " +
+            "LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT AS $$ SELECT public.unaccent('public.unaccent'::regdictionary, $1) $$",
+        "ALTER TABLE jobservice.jobs ADD COLUMN IF NOT EXISTS search_vector tsvector",
+        "CREATE OR REPLACE FUNCTION jobservice.jobs_search_vector_update() RETURNS trigger LANGUAGE plpgsql AS $$ " +
+            "BEGIN " +
+            "NEW.search_vector := " +
+            "setweight(to_tsvector('simple', jobservice.f_unaccent(coalesce(NEW.title, ''))), 'A') || " +
+            "setweight(to_tsvector('simple', jobservice.f_unaccent(coalesce(NEW.description, ''))), 'B') || " +
+            "setweight(to_tsvector('simple', jobservice.f_unaccent(coalesce(NEW.requirements, ''))), 'C'); " +
+            "RETURN NEW; " +
+            "END $$",
+        "DROP TRIGGER IF EXISTS trg_jobs_search_vector ON jobservice.jobs",
+        "CREATE TRIGGER trg_jobs_search_vector BEFORE INSERT OR UPDATE OF title, description, requirements " +
+            "ON jobservice.jobs FOR EACH ROW EXECUTE FUNCTION jobservice.jobs_search_vector_update()",
+        // Backfill rows written before the trigger existed (the trigger computes the vector)
+        "UPDATE jobservice.jobs SET title = title WHERE search_vector IS NULL",
+        "CREATE INDEX IF NOT EXISTS idx_jobs_search_vector ON jobservice.jobs USING GIN (search_vector)"
+    );
+
+    // Optional: lets the accent-insensitive '%location%' filter use an index
+    private static final List<String> LOCATION_DDL = List.of(
+        "CREATE EXTENSION IF NOT EXISTS pg_trgm SCHEMA public",
+        "CREATE INDEX IF NOT EXISTS idx_jobs_location_trgm ON jobservice.jobs " +
+            "USING GIN (jobservice.f_unaccent(lower(location)) public.gin_trgm_ops)"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${jobs.search.full-text:true}")
+    private boolean fullTextEnabled;
+
+    private volatile boolean ready;
+
+    @Override
+    public void run(String... args) {
+        if (!fullTextEnabled) {
+            log.info("Job full-text search disabled, using LIKE search");
+            return;
+        }
+        try {
+            SEARCH_DDL.forEach(jdbcTemplate::execute);
+            ready = true;
+            log.info("Job full-text search index ready");
+        } catch (Exception e) {
+            log.warn("Could not set up job full-text search, falling back to LIKE search: {}", e.getMessage());
+            return;
+        }
+        try {
+            LOCATION_DDL.forEach(jdbcTemplate::execute);
+        } catch (Exception e) {
+            log.warn("Could not create trigram index for job location: {}", e.getMessage());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+}
@@ -28,6 +28,8 @@ public class SecurityConfig {
                 .requestMatchers("/actuator/**").permitAll()
                 // Public endpoints (after StripPrefix=1, /api/jobs -> /jobs, /api/applications -> /applications)
                 .requestMatchers(HttpMethod.GET, "/jobs", "/jobs/**").permitAll() // Public job search and view (GET /jobs, GET /jobs/{id})
+                // Service-to-service endpoints: not routed by the gateway, X-Internal-Token checked by InternalAuthConfiguration
+                .requestMatchers("/internal/**").permitAll()
                 // All other endpoints require authentication (will be checked by @PreAuthorize)
                 .anyRequest().authenticated()
             )
@@ -7,8 +7,10 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import vn.careermate.jobservice.dto.BulkStatusUpdateRequest;
 import vn.careermate.jobservice.model.Application;
 import vn.careermate.jobservice.model.SavedJob;
 import vn.careermate.jobservice.service.ApplicationService;
@@ -138,6 +140,43 @@ public class ApplicationController {
         }
     }
 
+    /**
+     * Applicants of a job as a keyset feed (infinite scroll)
+     * GET /applications/job/{jobId}/feed?cursor=&size=20&includeTotal=false
+     */
+    @GetMapping("/job/{jobId}/feed")
+    @PreAuthorize("hasRole('RECRUITER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getJobApplicantsFeed(
+            @PathVariable UUID jobId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "true") boolean includeTotal
+    ) {
+        try {
+            return ResponseEntity.ok(applicationService.getJobApplicantsFeed(jobId, cursor, Math.max(1, Math.min(size, 100)), includeTotal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(403).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * CV ids attached to a job's applications (used by ai-service bulk screening)
+     * GET /applications/job/{jobId}/cv-ids
+     */
+    @GetMapping("/job/{jobId}/cv-ids")
+    @PreAuthorize("hasRole('RECRUITER') or hasRole('ADMIN')")
+    public ResponseEntity<?> getJobApplicantCvIds(@PathVariable UUID jobId) {
+        try {
+            return ResponseEntity.ok(applicationService.getJobApplicantCvIds(jobId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(403).body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @PutMapping("/{applicationId}/status")
     @PreAuthorize("hasRole('RECRUITER') or hasRole('ADMIN')")
     public ResponseEntity<Application> updateApplicationStatus(
@@ -148,6 +187,20 @@ public class ApplicationController {
         return ResponseEntity.ok(applicationService.updateApplicationStatus(applicationId, status, notes));
     }
 
+    // Bulk transition, e.g. rejecting every remaining applicant when a job is closed
+    @PostMapping("/status/bulk")
+    @PreAuthorize("hasRole('RECRUITER') or hasRole('ADMIN')")
+    public ResponseEntity<?> updateApplicationStatuses(@RequestBody BulkStatusUpdateRequest request) {
+        try {
+            return ResponseEntity.ok(applicationService.updateApplicationStatuses(
+                    request.getApplicationIds(), request.getStatus(), request.getNotes()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(403).body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @PostMapping("/{applicationId}/interview")
     @PreAuthorize("hasRole('RECRUITER') or hasRole('ADMIN')")
     public ResponseEntity<Application> scheduleInterview(
@@ -0,0 +1,34 @@
+package vn.careermate.jobservice.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import vn.careermate.common.dto.JobDTO;
+import vn.careermate.jobservice.service.JobService;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Service-to-service endpoints (used by ai-service for job recommendations)
+ * Not routed by the API gateway.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/internal/jobs")
+@RequiredArgsConstructor
+public class InternalJobController {
+
+    private final JobService jobService;
+
+    @PostMapping("/matching-profiles")
+    public ResponseEntity<List<JobDTO>> getJobMatchingProfiles(@RequestBody List<UUID> jobIds) {
+        return ResponseEntity.ok(jobService.getJobMatchingProfiles(jobIds));
+    }
+
+    @GetMapping("/active-ids")
+    public ResponseEntity<List<UUID>> getActiveJobIds() {
+        return ResponseEntity.ok(jobService.getActiveJobIds());
+    }
+}
@@ -9,7 +9,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import vn.careermate.jobservice.model.Job;
+import vn.careermate.jobservice.service.JobLifecycleService;
 import vn.careermate.jobservice.service.JobService;
+import vn.careermate.jobservice.service.PipelineStatsService;
 
 import java.util.List;
 import java.util.Map;
@@ -22,6 +24,8 @@ import java.util.UUID;
 public class JobController {
 
     private final JobService jobService;
+    private final PipelineStatsService pipelineStatsService;
+    private final JobLifecycleService jobLifecycleService;
 
     @PostMapping
     @PreAuthorize("hasRole('RECRUITER') or hasRole('ADMIN')")
@@ -59,12 +63,17 @@ public class JobController {
             @RequestParam(required = false) String location,
             @RequestParam(required = false) UUID companyId,
             @RequestParam(required = false) String status,
+            @RequestParam(required = false) String jobType,
+            @RequestParam(required = false) String experienceLevel,
+            @RequestParam(required = false) java.math.BigDecimal minSalary,
+            @RequestParam(required = false) java.math.BigDecimal maxSalary,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size
     ) {
         try {
             Pageable pageable = PageRequest.of(page, size);
-            Page<Job> jobs = jobService.searchJobs(keyword, location, companyId, status, pageable);
+            Page<Job> jobs = jobService.searchJobs(keyword, location, companyId, status,
+                jobType, experienceLevel, minSalary, maxSalary, pageable);
             return ResponseEntity.ok(jobs);
         } catch (RuntimeException e) {
             log.error("Runtime error searching jobs: {}", e.getMessage());
@@ -77,10 +86,63 @@ public class JobController {
         }
     }
 
+    /**
+     * Job search with facet counts, one request per filter change
+     * GET /jobs/search?keyword=&location=&jobType=&experienceLevel=&minSalary=&maxSalary=
+     * Returns the page fields (content, totalElements, ...) plus facets: {location|jobType|experienceLevel|salaryBand: [{value, count}]}
+     */
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> searchJobsWithFacets(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String location,
+            @RequestParam(required = false) String jobType,
+            @RequestParam(required = false) String experienceLevel,
+            @RequestParam(required = false) java.math.BigDecimal minSalary,
+            @RequestParam(required = false) java.math.BigDecimal maxSalary,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        try {
+            return ResponseEntity.ok(jobService.searchJobsWithFacets(keyword, location, jobType, experienceLevel,
+                minSalary, maxSalary, PageRequest.of(page, size)));
+        } catch (Exception e) {
+            log.error("Error searching jobs with facets", e);
+            return ResponseEntity.status(500).body(Map.of("error", "Error searching jobs: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Job search as a keyset feed, newest first (infinite scroll)
+     * GET /jobs/feed?keyword=&...&cursor=&size=20&includeTotal=false
+     * Returns {content, nextCursor, hasMore, size, totalElements}; pass nextCursor back for the next page
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<?> searchJobsFeed(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String location,
+            @RequestParam(required = false) String jobType,
+            @RequestParam(required = false) String experienceLevel,
+            @RequestParam(required = false) java.math.BigDecimal minSalary,
+            @RequestParam(required = false) java.math.BigDecimal maxSalary,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "true") boolean includeTotal
+    ) {
+        try {
+            return ResponseEntity.ok(jobService.searchJobsFeed(keyword, location, jobType, experienceLevel,
+                minSalary, maxSalary, cursor, Math.max(1, Math.min(size, 100)), includeTotal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/{jobId}")
     public ResponseEntity<Job> getJob(@PathVariable UUID jobId) {
         try {
             Job job = jobService.getJob(jobId);
+            jobService.recordView(job);
             return ResponseEntity.ok(job);
         } catch (RuntimeException e) {
             log.error("Runtime error getting job: {}", e.getMessage());
@@ -136,6 +198,25 @@ public class JobController {
         return ResponseEntity.ok(jobService.getAllJobs(status, pageable));
     }
 
+    /**
+     * Jobs by status as a keyset feed
+     * GET /jobs/admin/feed?status=PENDING&cursor=&size=20&includeTotal=false
+     */
+    @GetMapping("/admin/feed")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getJobFeed(
+            @RequestParam(defaultValue = "PENDING") String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "true") boolean includeTotal
+    ) {
+        try {
+            return ResponseEntity.ok(jobService.getJobFeed(status, cursor, Math.max(1, Math.min(size, 100)), includeTotal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/admin/pending")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Page<Job>> getPendingJobs(
@@ -163,8 +244,46 @@ public class JobController {
         return ResponseEntity.ok(jobService.getApplicationCount(beforeDate));
     }
 
+    // Also called by user-service's recruiter dashboard with the recruiter's own token
     @GetMapping("/recruiter/stats")
+    @PreAuthorize("hasRole('RECRUITER') or hasRole('ADMIN')")
     public ResponseEntity<Map<String, Object>> getRecruiterStats(@RequestParam UUID recruiterId) {
+        pipelineStatsService.checkCanRead(recruiterId);
         return ResponseEntity.ok(jobService.getRecruiterStats(recruiterId));
     }
+
+    /**
+     * Recruiter dashboard from the maintained pipeline stats: counters by status, optionally per job
+     * GET /jobs/recruiter/dashboard?recruiterId=&includeJobs=true (own dashboard only, admins any)
+     */
+    @GetMapping("/recruiter/dashboard")
+    @PreAuthorize("hasRole('RECRUITER') or hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getRecruiterDashboard(
+            @RequestParam UUID recruiterId,
+            @RequestParam(defaultValue = "false") boolean includeJobs
+    ) {
+        pipelineStatsService.checkCanRead(recruiterId);
+        return ResponseEntity.ok(pipelineStatsService.getRecruiterDashboard(recruiterId, includeJobs));
+    }
+
+    // Counters of one job, for its recruiter or an admin
+    @GetMapping("/{jobId}/pipeline")
+    @PreAuthorize("hasRole('RECRUITER') or hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getJobPipeline(@PathVariable UUID jobId) {
+        return ResponseEntity.ok(pipelineStatsService.getJobPipeline(jobId));
+    }
+
+    @PostMapping("/admin/pipeline-stats/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, String>> rebuildPipelineStats() {
+        pipelineStatsService.rebuild();
+        return ResponseEntity.ok(Map.of("message", "Đã tính lại thống kê tuyển dụng"));
+    }
+
+    // Run the expiry / archive pass now instead of waiting for the scheduler
+    @PostMapping("/admin/lifecycle/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Integer>> runJobLifecycle() {
+        return ResponseEntity.ok(jobLifecycleService.runOnce());
+    }
 }
@@ -40,6 +40,40 @@ CREATE INDEX IF NOT EXISTS idx_jobs_company ON jobservice.jobs(company_id);
 CREATE INDEX IF NOT EXISTS idx_jobs_status ON jobservice.jobs(status);
 CREATE INDEX IF NOT EXISTS idx_jobs_location ON jobservice.jobs(location);
 CREATE INDEX IF NOT EXISTS idx_jobs_created ON jobservice.jobs(created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_jobs_status_expires ON jobservice.jobs(status, expires_at);
+
+-- Closed jobs moved out of jobs by JobLifecycleService (also created at startup)
+CREATE TABLE IF NOT EXISTS jobservice.jobs_archive (
+    id UUID PRIMARY KEY,
+    recruiter_id UUID NOT NULL,
+    company_id UUID NOT NULL,
+    title VARCHAR(255),
+    closed_at TIMESTAMP,
+    archived_at TIMESTAMP NOT NULL DEFAULT now(),
+    data JSONB NOT NULL -- the job row (without search_vector) plus its skills
+);
+
+CREATE INDEX IF NOT EXISTS idx_jobs_archive_recruiter ON jobservice.jobs_archive(recruiter_id);
+
+-- Full-text search (also applied at startup by JobSearchIndexInitializer)
+CREATE EXTENSION IF NOT EXISTS unaccent SCHEMA public;
+CREATE EXTENSION IF NOT EXISTS pg_trgm SCHEMA public;
+CREATE OR REPLACE FUNCTION jobservice.f_unaccent(text) RETURNS text
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT AS $$ SELECT public.unaccent('public.unaccent'::regdictionary, $1) $$;
+ALTER TABLE jobservice.jobs ADD COLUMN IF NOT EXISTS search_vector tsvector;
+CREATE OR REPLACE FUNCTION jobservice.jobs_search_vector_update() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    NEW.search_vector :=
+        setweight(to_tsvector('simple', jobservice.f_unaccent(coalesce(NEW.title, ''))), 'A') ||
+        setweight(to_tsvector('simple', jobservice.f_unaccent(coalesce(NEW.description, ''))), 'B') ||
+        setweight(to_tsvector('simple', jobservice.f_unaccent(coalesce(NEW.requirements, ''))), 'C');
+    RETURN NEW;
+END $$;
+DROP TRIGGER IF EXISTS trg_jobs_search_vector ON jobservice.jobs;
+CREATE TRIGGER trg_jobs_search_vector BEFORE INSERT OR UPDATE OF title, description, requirements
+    ON jobservice.jobs FOR EACH ROW EXECUTE FUNCTION jobservice.jobs_search_vector_update();
+CREATE INDEX IF NOT EXISTS idx_jobs_search_vector ON jobservice.jobs USING GIN (search_vector);
+CREATE INDEX IF NOT EXISTS idx_jobs_location_trgm ON jobservice.jobs USING GIN (jobservice.f_unaccent(lower(location)) public.gin_trgm_ops);
 
 -- Job Skills (many-to-many)
 CREATE TABLE IF NOT EXISTS jobservice.job_skills (
@@ -89,6 +123,26 @@ CREATE TABLE IF NOT EXISTS jobservice.application_history (
 
 CREATE INDEX IF NOT EXISTS idx_application_history_application ON jobservice.application_history(application_id);
 
+-- Recruiter dashboard counters, one row per job and one per recruiter (maintained by PipelineStatsService)
+CREATE TABLE IF NOT EXISTS jobservice.pipeline_stats (
+    id UUID PRIMARY KEY, -- job id (scope JOB) or recruiter profile id (scope RECRUITER)
+    scope VARCHAR(20) NOT NULL CHECK (scope IN ('JOB', 'RECRUITER')),
+    recruiter_id UUID,
+    total_applications BIGINT NOT NULL DEFAULT 0,
+    pending BIGINT NOT NULL DEFAULT 0,
+    viewed BIGINT NOT NULL DEFAULT 0,
+    shortlisted BIGINT NOT NULL DEFAULT 0,
+    interview BIGINT NOT NULL DEFAULT 0,
+    offered BIGINT NOT NULL DEFAULT 0,
+    rejected BIGINT NOT NULL DEFAULT 0,
+    withdrawn BIGINT NOT NULL DEFAULT 0,
+    upcoming_interviews BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_pipeline_stats_recruiter ON jobservice.pipeline_stats(recruiter_id, scope);
+CREATE INDEX IF NOT EXISTS idx_applications_status_interview ON jobservice.applications(status, interview_scheduled_at);
+
 -- Saved Jobs (students can save jobs they're interested in)
 CREATE TABLE IF NOT EXISTS jobservice.saved_jobs (
     id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
@@ -0,0 +1,18 @@
+package vn.careermate.jobservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import vn.careermate.jobservice.model.Application;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateRequest {
+    private List<UUID> applicationIds;
+    private Application.ApplicationStatus status;
+    private String notes;
+}
@@ -22,7 +22,9 @@ import java.util.UUID;
     @Index(name = "idx_applications_job", columnList = "job_id"),
     @Index(name = "idx_applications_student", columnList = "student_id"),
     @Index(name = "idx_applications_status", columnList = "status"),
-    @Index(name = "idx_applications_match_score", columnList = "match_score")
+    @Index(name = "idx_applications_match_score", columnList = "match_score"),
+    @Index(name = "idx_applications_job_applied", columnList = "job_id, applied_at, id"),
+    @Index(name = "idx_applications_status_interview", columnList = "status, interview_scheduled_at")
 })
 @Data
 @Builder
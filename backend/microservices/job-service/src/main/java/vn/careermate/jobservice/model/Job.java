@@ -24,7 +24,9 @@ import java.util.UUID;
     @Index(name = "idx_jobs_company", columnList = "company_id"),
     @Index(name = "idx_jobs_status", columnList = "status"),
     @Index(name = "idx_jobs_location", columnList = "location"),
-    @Index(name = "idx_jobs_created", columnList = "created_at")
+    @Index(name = "idx_jobs_created", columnList = "created_at"),
+    @Index(name = "idx_jobs_status_created", columnList = "status, created_at, id"),
+    @Index(name = "idx_jobs_status_expires", columnList = "status, expires_at")
 })
 @Data
 @Builder
@@ -83,11 +85,11 @@ public class Job {
     private JobStatus status = JobStatus.PENDING;
 
     @Builder.Default
-    @Column(name = "views_count")
+    @Column(name = "views_count", updatable = false) // written by JobCounters
     private Integer viewsCount = 0;
 
     @Builder.Default
-    @Column(name = "applications_count")
+    @Column(name = "applications_count", updatable = false) // written by JobCounters
     private Integer applicationsCount = 0;
 
     @Column(name = "expires_at")
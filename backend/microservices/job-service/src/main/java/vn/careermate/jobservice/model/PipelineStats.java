@@ -0,0 +1,79 @@
+package vn.careermate.jobservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Application counts of one job or one recruiter, maintained by PipelineStatsService
+ * Rows are written with SQL upserts in the same transaction as the application change; never saved through JPA.
+ */
+@Entity
+@Table(name = "pipeline_stats", schema = "jobservice", indexes = {
+    @Index(name = "idx_pipeline_stats_recruiter", columnList = "recruiter_id, scope")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PipelineStats {
+
+    // Job id for JOB rows, recruiter profile id for RECRUITER rows
+    @Id
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Scope scope;
+
+    @Column(name = "recruiter_id")
+    private UUID recruiterId;
+
+    @Builder.Default
+    @Column(name = "total_applications", nullable = false)
+    private long totalApplications = 0;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private long pending = 0;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private long viewed = 0;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private long shortlisted = 0;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private long interview = 0;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private long offered = 0;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private long rejected = 0;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private long withdrawn = 0;
+
+    @Builder.Default
+    @Column(name = "upcoming_interviews", nullable = false)
+    private long upcomingInterviews = 0;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum Scope {
+        JOB, RECRUITER
+    }
+}
@@ -3,6 +3,7 @@ package vn.careermate.jobservice.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -20,7 +21,34 @@ public interface ApplicationRepository extends JpaRepository<Application, UUID>
     Optional<Application> findByJobIdAndStudentId(UUID jobId, UUID studentId);
     Page<Application> findByStudentId(UUID studentId, Pageable pageable);
     Page<Application> findByJobId(UUID jobId, Pageable pageable);
+    long countByJobId(UUID jobId);
+
+    // Status changes lock the row so the pipeline stats delta is computed from the committed old status
+    @Lock(jakarta.persistence.LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Application a WHERE a.id = :id")
+    Optional<Application> findByIdForUpdate(@Param("id") UUID id);
+
+    // Bulk status changes lock all rows up front, in id order so overlapping bulk requests cannot deadlock
+    @Lock(jakarta.persistence.LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Application a WHERE a.id IN :ids ORDER BY a.id")
+    List<Application> findAllByIdForUpdate(@Param("ids") java.util.Collection<UUID> ids);
+
+    // Keyset feed of a job's applicants, newest first (idx_applications_job_applied)
+    @Query("SELECT a FROM Application a WHERE a.job.id = :jobId ORDER BY a.appliedAt DESC, a.id DESC")
+    List<Application> findFeedByJobId(@Param("jobId") UUID jobId, Pageable limit);
+
+    @Query("SELECT a FROM Application a WHERE a.job.id = :jobId AND " +
+           "(a.appliedAt < :appliedAt OR (a.appliedAt = :appliedAt AND a.id < :id)) " +
+           "ORDER BY a.appliedAt DESC, a.id DESC")
+    List<Application> findFeedByJobIdAfter(@Param("jobId") UUID jobId,
+                                           @Param("appliedAt") LocalDateTime appliedAt,
+                                           @Param("id") UUID id,
+                                           Pageable limit);
     
+    // CVs attached to a job's applications (bulk AI screening of the applicant pool)
+    @Query("SELECT DISTINCT a.cvId FROM Application a WHERE a.job.id = :jobId AND a.cvId IS NOT NULL")
+    List<UUID> findCvIdsByJobId(@Param("jobId") UUID jobId);
+
     List<Application> findTop5ByJobRecruiterIdOrderByAppliedAtDesc(UUID recruiterId);
 
     // Note: Job.recruiterId is now a UUID, not an entity relationship
@@ -30,6 +30,106 @@ public interface JobRepository extends JpaRepository<Job, UUID> {
                         @Param("location") String location, 
                         Pageable pageable);
     
+    // Full-text search over search_vector (maintained by JobSearchIndexInitializer's trigger).
+    // :query is a tsquery string, e.g. "java:* & spring:*"; ranked by relevance, then newest first.
+    // Salary filters match jobs whose range overlaps [minSalary, maxSalary].
+    @Query(value = "SELECT * FROM jobservice.jobs j WHERE j.status = 'ACTIVE' AND " +
+           "(j.hidden IS NULL OR j.hidden = false) AND " +
+           "(CAST(:query AS TEXT) IS NULL OR j.search_vector @@ to_tsquery('simple', jobservice.f_unaccent(CAST(:query AS TEXT)))) AND " +
+           "(CAST(:location AS TEXT) IS NULL OR jobservice.f_unaccent(lower(j.location)) LIKE CONCAT('%', jobservice.f_unaccent(lower(CAST(:location AS TEXT))), '%')) AND " +
+           "(CAST(:jobType AS TEXT) IS NULL OR j.job_type = CAST(:jobType AS TEXT)) AND " +
+           "(CAST(:experienceLevel AS TEXT) IS NULL OR j.experience_level = CAST(:experienceLevel AS TEXT)) AND " +
+           "(CAST(:minSalary AS NUMERIC) IS NULL OR COALESCE(j.max_salary, j.min_salary) >= CAST(:minSalary AS NUMERIC)) AND " +
+           "(CAST(:maxSalary AS NUMERIC) IS NULL OR COALESCE(j.min_salary, j.max_salary) <= CAST(:maxSalary AS NUMERIC)) " +
+           "ORDER BY CASE WHEN CAST(:query AS TEXT) IS NULL THEN 0 " +
+           "ELSE ts_rank_cd(j.search_vector, to_tsquery('simple', jobservice.f_unaccent(CAST(:query AS TEXT)))) END DESC, " +
+           "j.created_at DESC",
+           countQuery = "SELECT COUNT(*) FROM jobservice.jobs j WHERE j.status = 'ACTIVE' AND " +
+           "(j.hidden IS NULL OR j.hidden = false) AND " +
+           "(CAST(:query AS TEXT) IS NULL OR j.search_vector @@ to_tsquery('simple', jobservice.f_unaccent(CAST(:query AS TEXT)))) AND " +
+           "(CAST(:location AS TEXT) IS NULL OR jobservice.f_unaccent(lower(j.location)) LIKE CONCAT('%', jobservice.f_unaccent(lower(CAST(:location AS TEXT))), '%')) AND " +
+           "(CAST(:jobType AS TEXT) IS NULL OR j.job_type = CAST(:jobType AS TEXT)) AND " +
+           "(CAST(:experienceLevel AS TEXT) IS NULL OR j.experience_level = CAST(:experienceLevel AS TEXT)) AND " +
+           "(CAST(:minSalary AS NUMERIC) IS NULL OR COALESCE(j.max_salary, j.min_salary) >= CAST(:minSalary AS NUMERIC)) AND " +
+           "(CAST(:maxSalary AS NUMERIC) IS NULL OR COALESCE(j.min_salary, j.max_salary) <= CAST(:maxSalary AS NUMERIC))",
+           nativeQuery = true)
+    Page<Job> fullTextSearchJobs(@Param("query") String query,
+                                 @Param("location") String location,
+                                 @Param("jobType") String jobType,
+                                 @Param("experienceLevel") String experienceLevel,
+                                 @Param("minSalary") java.math.BigDecimal minSalary,
+                                 @Param("maxSalary") java.math.BigDecimal maxSalary,
+                                 Pageable pageable);
+
+    // Facet counts for fullTextSearchJobs in one scan: GROUPING SETS over location, job type, experience level
+    // and salary band. Each facet is counted with every filter except its own, so other values stay selectable.
+    // Rows: [facet, value, count]
+    @Query(value = "SELECT CASE WHEN GROUPING(f.location) = 0 THEN 'location' " +
+           "WHEN GROUPING(f.job_type) = 0 THEN 'jobType' " +
+           "WHEN GROUPING(f.experience_level) = 0 THEN 'experienceLevel' ELSE 'salaryBand' END AS facet, " +
+           "COALESCE(f.location, f.job_type, f.experience_level, f.salary_band) AS value, " +
+           "CASE WHEN GROUPING(f.location) = 0 THEN COUNT(*) FILTER (WHERE f.m_type AND f.m_level AND f.m_salary) " +
+           "WHEN GROUPING(f.job_type) = 0 THEN COUNT(*) FILTER (WHERE f.m_location AND f.m_level AND f.m_salary) " +
+           "WHEN GROUPING(f.experience_level) = 0 THEN COUNT(*) FILTER (WHERE f.m_location AND f.m_type AND f.m_salary) " +
+           "ELSE COUNT(*) FILTER (WHERE f.m_location AND f.m_type AND f.m_level) END AS cnt " +
+           "FROM (SELECT j.location, j.job_type, j.experience_level, " +
+           "CASE WHEN COALESCE(j.max_salary, j.min_salary) IS NULL THEN 'NEGOTIABLE' " +
+           "WHEN COALESCE(j.max_salary, j.min_salary) < 10000000 THEN 'UNDER_10M' " +
+           "WHEN COALESCE(j.max_salary, j.min_salary) < 20000000 THEN '10M_20M' " +
+           "WHEN COALESCE(j.max_salary, j.min_salary) < 30000000 THEN '20M_30M' " +
+           "WHEN COALESCE(j.max_salary, j.min_salary) < 50000000 THEN '30M_50M' ELSE 'OVER_50M' END AS salary_band, " +
+           "COALESCE(CAST(:location AS TEXT) IS NULL OR jobservice.f_unaccent(lower(j.location)) LIKE CONCAT('%', jobservice.f_unaccent(lower(CAST(:location AS TEXT))), '%'), false) AS m_location, " +
+           "COALESCE(CAST(:jobType AS TEXT) IS NULL OR j.job_type = CAST(:jobType AS TEXT), false) AS m_type, " +
+           "COALESCE(CAST(:experienceLevel AS TEXT) IS NULL OR j.experience_level = CAST(:experienceLevel AS TEXT), false) AS m_level, " +
+           "COALESCE((CAST(:minSalary AS NUMERIC) IS NULL OR COALESCE(j.max_salary, j.min_salary) >= CAST(:minSalary AS NUMERIC)) AND " +
+           "(CAST(:maxSalary AS NUMERIC) IS NULL OR COALESCE(j.min_salary, j.max_salary) <= CAST(:maxSalary AS NUMERIC)), false) AS m_salary " +
+           "FROM jobservice.jobs j WHERE j.status = 'ACTIVE' AND (j.hidden IS NULL OR j.hidden = false) AND " +
+           "(CAST(:query AS TEXT) IS NULL OR j.search_vector @@ to_tsquery('simple', jobservice.f_unaccent(CAST(:query AS TEXT))))) f " +
+           "GROUP BY GROUPING SETS ((f.location), (f.job_type), (f.experience_level), (f.salary_band))",
+           nativeQuery = true)
+    List<Object[]> fullTextSearchFacets(@Param("query") String query,
+                                        @Param("location") String location,
+                                        @Param("jobType") String jobType,
+                                        @Param("experienceLevel") String experienceLevel,
+                                        @Param("minSalary") java.math.BigDecimal minSalary,
+                                        @Param("maxSalary") java.math.BigDecimal maxSalary);
+
+    // Keyset feed of the full-text search, newest first: the cursor (created_at, id) is the last row of the
+    // previous page, so every page is one range scan whatever its depth. Same filters as fullTextSearchJobs.
+    @Query(value = "SELECT * FROM jobservice.jobs j WHERE j.status = 'ACTIVE' AND " +
+           "(j.hidden IS NULL OR j.hidden = false) AND " +
+           "(CAST(:query AS TEXT) IS NULL OR j.search_vector @@ to_tsquery('simple', jobservice.f_unaccent(CAST(:query AS TEXT)))) AND " +
+           "(CAST(:location AS TEXT) IS NULL OR jobservice.f_unaccent(lower(j.location)) LIKE CONCAT('%', jobservice.f_unaccent(lower(CAST(:location AS TEXT))), '%')) AND " +
+           "(CAST(:jobType AS TEXT) IS NULL OR j.job_type = CAST(:jobType AS TEXT)) AND " +
+           "(CAST(:experienceLevel AS TEXT) IS NULL OR j.experience_level = CAST(:experienceLevel AS TEXT)) AND " +
+           "(CAST(:minSalary AS NUMERIC) IS NULL OR COALESCE(j.max_salary, j.min_salary) >= CAST(:minSalary AS NUMERIC)) AND " +
+           "(CAST(:maxSalary AS NUMERIC) IS NULL OR COALESCE(j.min_salary, j.max_salary) <= CAST(:maxSalary AS NUMERIC)) AND " +
+           "(CAST(:cursorCreatedAt AS TIMESTAMP) IS NULL OR " +
+           "(j.created_at, j.id) < (CAST(:cursorCreatedAt AS TIMESTAMP), CAST(CAST(:cursorId AS TEXT) AS UUID))) " +
+           "ORDER BY j.created_at DESC, j.id DESC LIMIT :limit",
+           nativeQuery = true)
+    List<Job> fullTextSearchJobsFeed(@Param("query") String query,
+                                     @Param("location") String location,
+                                     @Param("jobType") String jobType,
+                                     @Param("experienceLevel") String experienceLevel,
+                                     @Param("minSalary") java.math.BigDecimal minSalary,
+                                     @Param("maxSalary") java.math.BigDecimal maxSalary,
+                                     @Param("cursorCreatedAt") java.time.LocalDateTime cursorCreatedAt,
+                                     @Param("cursorId") String cursorId,
+                                     @Param("limit") int limit);
+
+    // Keyset feed by status (admin lists), served by idx_jobs_status_created
+    @Query("SELECT j FROM Job j WHERE j.status = :status ORDER BY j.createdAt DESC, j.id DESC")
+    List<Job> findFeedByStatus(@Param("status") Job.JobStatus status, Pageable limit);
+
+    @Query("SELECT j FROM Job j WHERE j.status = :status AND " +
+           "(j.createdAt < :createdAt OR (j.createdAt = :createdAt AND j.id < :id)) " +
+           "ORDER BY j.createdAt DESC, j.id DESC")
+    List<Job> findFeedByStatusAfter(@Param("status") Job.JobStatus status,
+                                    @Param("createdAt") java.time.LocalDateTime createdAt,
+                                    @Param("id") UUID id,
+                                    Pageable limit);
+
     List<Job> findByRecruiterId(UUID recruiterId);
     
     @Query("SELECT j FROM Job j WHERE j.recruiterId = :recruiterId")
@@ -38,6 +138,9 @@ public interface JobRepository extends JpaRepository<Job, UUID> {
     long countByRecruiterIdAndStatus(UUID recruiterId, Job.JobStatus status);
     
     long countByStatus(Job.JobStatus status);
+
+    @Query("SELECT j.id FROM Job j WHERE j.status = :status AND (j.hidden IS NULL OR j.hidden = false)")
+    List<UUID> findVisibleIdsByStatus(@Param("status") Job.JobStatus status);
     
     long countByStatusAndCreatedAtBefore(Job.JobStatus status, java.time.LocalDateTime createdAt);
     
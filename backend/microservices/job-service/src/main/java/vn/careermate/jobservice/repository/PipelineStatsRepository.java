@@ -0,0 +1,13 @@
+package vn.careermate.jobservice.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import vn.careermate.jobservice.model.PipelineStats;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PipelineStatsRepository extends JpaRepository<PipelineStats, UUID> {
+    List<PipelineStats> findByRecruiterIdAndScope(UUID recruiterId, PipelineStats.Scope scope);
+}
@@ -4,6 +4,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import vn.careermate.jobservice.model.Application;
@@ -22,31 +24,47 @@ import vn.careermate.jobservice.repository.SavedJobRepository;
 // import vn.careermate.userservice.repository.UserRepository; // Replaced with UserServiceClient
 // import vn.careermate.notificationservice.service.NotificationService; // Replaced with NotificationServiceClient
 import vn.careermate.common.client.UserServiceClient;
-import vn.careermate.common.client.NotificationServiceClient;
+import vn.careermate.common.outbox.NotificationOutbox;
 import vn.careermate.common.dto.UserDTO;
+import vn.careermate.common.dto.CursorPage;
+import vn.careermate.common.dto.PageCursor;
 import vn.careermate.common.dto.StudentProfileDTO;
 import vn.careermate.common.dto.NotificationRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ApplicationService {
 
+    private static final int MAX_BULK_STATUS_UPDATE = 500;
+
     private final ApplicationRepository applicationRepository;
     private final ApplicationHistoryRepository applicationHistoryRepository;
     private final JobRepository jobRepository;
     private final SavedJobRepository savedJobRepository;
     // Feign Clients for inter-service communication
     private final UserServiceClient userServiceClient;
-    private final NotificationServiceClient notificationServiceClient;
-    private final vn.careermate.common.client.ContentServiceClient contentServiceClient;
+    private final NotificationOutbox notificationOutbox;
+    private final CompanyLoader companyLoader;
+    private final JobCounters jobCounters;
+    private final ProfileResolver profileResolver;
+    private final PipelineStatsService pipelineStatsService;
+    private final JdbcTemplate jdbcTemplate;
     
     // TODO: Remove these after refactoring
     // private final CVRepository cvRepository;
@@ -105,10 +123,10 @@ public class ApplicationService {
                 .build();
 
         application = applicationRepository.save(application);
+        pipelineStatsService.applicationCreated(application);
 
-        // 6. Update job applications count
-        job.setApplicationsCount(job.getApplicationsCount() + 1);
-        jobRepository.save(job);
+        // 6. Update job applications count (after commit, written behind, no lock on the job row)
+        jobCounters.recordApplication(job.getId());
 
         // 7. Send notification to recruiter
         try {
@@ -180,6 +198,16 @@ public class ApplicationService {
             
             // Force load job, company, CV, and student for each application to avoid lazy loading issues
             if (applications != null && applications.getContent() != null) {
+                // Companies of the whole page in one batch lookup
+                java.util.Map<UUID, vn.careermate.common.dto.CompanyDTO> companies = companyLoader.getAll(applications.getContent().stream()
+                        .filter(app -> app.getJob() != null && app.getJob().getCompanyId() != null)
+                        .map(app -> app.getJob().getCompanyId())
+                        .toList());
+                // Recruiters of the whole page in one batch lookup (job.recruiterId is RecruiterProfileId)
+                java.util.Map<UUID, vn.careermate.common.dto.RecruiterProfileDTO> recruiters = profileResolver.getRecruiters(applications.getContent().stream()
+                        .filter(app -> app.getJob() != null && app.getJob().getRecruiterId() != null)
+                        .map(app -> app.getJob().getRecruiterId())
+                        .toList());
                 applications.getContent().forEach(app -> {
                     try {
                         // Force load all fields to ensure they're initialized
@@ -199,8 +227,7 @@ public class ApplicationService {
                             // Populate Company Info from Content Service
                             try {
                                 if (app.getJob().getCompanyId() != null) {
-                                    vn.careermate.common.dto.CompanyDTO companyDTO = contentServiceClient.getCompanyById(app.getJob().getCompanyId());
-                                    app.getJob().setCompany(companyDTO);
+                                    app.getJob().setCompany(companies.get(app.getJob().getCompanyId()));
                                 }
                             } catch (Exception e) {
                                 log.warn("Failed to populate company info for job {}", app.getJob().getId());
@@ -209,8 +236,7 @@ public class ApplicationService {
                             // Populate Recruiter User ID from User Service
                             try {
                                 if (app.getJob().getRecruiterId() != null) {
-                                    // job.recruiterId is RecruiterProfileId
-                                    vn.careermate.common.dto.RecruiterProfileDTO recruiterProfile = userServiceClient.getRecruiterProfileById(app.getJob().getRecruiterId());
+                                    vn.careermate.common.dto.RecruiterProfileDTO recruiterProfile = recruiters.get(app.getJob().getRecruiterId());
                                     if (recruiterProfile != null) {
                                         app.getJob().setRecruiterUserId(recruiterProfile.getUserId());
                                     }
@@ -248,65 +274,119 @@ public class ApplicationService {
         
         // Force load all fields to avoid lazy loading issues
         if (applications != null && applications.getContent() != null) {
-            applications.getContent().forEach(app -> {
-                try {
-                    app.getId();
-                    app.getStatus();
-                    app.getAppliedAt();
-                    
-                    if (app.getJob() != null) {
-                        app.getJob().getId();
-                        app.getJob().getTitle();
-                        app.getJob().getLocation();
-                        // Company is now UUID (companyId), no need to force load entity
-                        app.getJob().getCompanyId();
-                    }
-                    // Student and CV are now UUIDs, no need to force load entities
-                    app.getStudentId();
-                    
-                    try {
-                        if (app.getStudentId() != null) {
-                            StudentProfileDTO studentDTO = userServiceClient.getStudentProfileById(app.getStudentId());
-                            log.info("Feign result for student {}: found={}, user={}", 
-                                app.getStudentId(), studentDTO != null, 
-                                studentDTO != null ? studentDTO.getUser() : "null");
-                            app.setStudent(studentDTO);
-                        }
-                    } catch (Exception e) {
-                        log.warn("Failed to populate student info for app {}: {}", app.getId(), e.getMessage());
-                    }
+            loadApplicantDetails(applications.getContent());
+        }
+        
+        return applications;
+    }
 
-                    if (app.getCvId() != null) {
-                        app.getCvId(); // Force load CV ID
-                        
-                        // Populate CV URL - assuming endpoint exists or we construct via ContentService/UserService
-                        // Since CV fetching logic is a bit complex across services, we might need a dedicated endpoint
-                        // or assume userServiceClient has getCVById which returns DTO with URL.
-                        // Let's assume we can get it via user service for now if available, or just skip if complex.
-                        // Ideally: CV DTO = userServiceClient.getCVById(app.getCvId());
-                        // app.setCvUrl(cvDTO.getUrl());
-                        // Checking UserServiceClient... it does NOT have getCVById.
-                        // We might need to add it or skip CV URL for now and just rely on ID.
-                        // Or maybe we can get it from StudentProfileDTO if it includes CVs? 
-                        // Usually profile includes basic info. 
-                        
-                        // Workaround: We will let frontend construct URL if standard, 
-                        // OR we add getCVById to UserServiceClient. 
-                        // Let's just set ID for now, frontend can use /api/cvs/{id}/download if that endpoint exists.
+    /**
+     * Keyset-paginated applicants of a job, newest first; totalElements only when includeTotal
+     * Only the job's recruiter or an admin may read it.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Application> getJobApplicantsFeed(UUID jobId, String cursor, int size, boolean includeTotal) {
+        checkJobOwner(jobId);
+
+        PageCursor after = PageCursor.decode(cursor);
+        Pageable limit = org.springframework.data.domain.PageRequest.of(0, size + 1);
+        java.util.List<Application> rows = after == null
+                ? applicationRepository.findFeedByJobId(jobId, limit)
+                : applicationRepository.findFeedByJobIdAfter(jobId, after.createdAt(), after.id(), limit);
+        Long total = includeTotal ? applicationRepository.countByJobId(jobId) : null;
+
+        CursorPage<Application> page = CursorPage.of(rows, size, app -> new PageCursor(app.getAppliedAt(), app.getId()), total);
+        loadApplicantDetails(page.getContent());
+        return page;
+    }
+
+    /**
+     * CVs attached to the applications of a job; only the job's recruiter or an admin may read them
+     */
+    @Transactional(readOnly = true)
+    public java.util.List<UUID> getJobApplicantCvIds(UUID jobId) {
+        checkJobOwner(jobId);
+        return applicationRepository.findCvIdsByJobId(jobId);
+    }
+
+    private void checkJobOwner(UUID jobId) {
+        Job job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("Job not found: " + jobId));
+        if (isAdmin()) {
+            return;
+        }
+        vn.careermate.common.dto.RecruiterProfileDTO recruiter = userServiceClient.getCurrentRecruiterProfile();
+        if (recruiter == null || !Objects.equals(job.getRecruiterId(), recruiter.getId())) {
+            throw new AccessDeniedException("Job does not belong to you: " + jobId);
+        }
+    }
+
+    /**
+     * Fill the applicants of a page; students are resolved with one batch lookup for the whole page
+     */
+    private void loadApplicantDetails(java.util.List<Application> applications) {
+        java.util.Map<UUID, StudentProfileDTO> students = profileResolver.getStudents(
+                applications.stream().map(Application::getStudentId).toList());
+        applications.forEach(app -> loadApplicantDetails(app, students));
+    }
+
+    private void loadApplicantDetails(Application app, java.util.Map<UUID, StudentProfileDTO> students) {
+        try {
+            app.getId();
+            app.getStatus();
+            app.getAppliedAt();
+            
+            if (app.getJob() != null) {
+                app.getJob().getId();
+                app.getJob().getTitle();
+                app.getJob().getLocation();
+                // Company is now UUID (companyId), no need to force load entity
+                app.getJob().getCompanyId();
+            }
+            // Student and CV are now UUIDs, no need to force load entities
+            app.getStudentId();
+            
+            try {
+                if (app.getStudentId() != null) {
+                    StudentProfileDTO studentDTO = students.get(app.getStudentId());
+                    if (studentDTO == null) {
+                        log.warn("No student profile found for app {} (student {})", app.getId(), app.getStudentId());
                     }
-                } catch (Exception e) {
-                    // Log but continue
+                    app.setStudent(studentDTO);
                 }
-            });
+            } catch (Exception e) {
+                log.warn("Failed to populate student info for app {}: {}", app.getId(), e.getMessage());
+            }
+
+            if (app.getCvId() != null) {
+                app.getCvId(); // Force load CV ID
+                
+                // Populate CV URL - assuming endpoint exists or we construct via ContentService/UserService
+                // Since CV fetching logic is a bit complex across services, we might need a dedicated endpoint
+                // or assume userServiceClient has getCVById which returns DTO with URL.
+                // Let's assume we can get it via user service for now if available, or just skip if complex.
+                // Ideally: CV DTO = userServiceClient.getCVById(app.getCvId());
+                // app.setCvUrl(cvDTO.getUrl());
+                // Checking UserServiceClient... it does NOT have getCVById.
+                // We might need to add it or skip CV URL for now and just rely on ID.
+                // Or maybe we can get it from StudentProfileDTO if it includes CVs? 
+                // Usually profile includes basic info. 
+                
+                // Workaround: We will let frontend construct URL if standard, 
+                // OR we add getCVById to UserServiceClient. 
+                // Let's just set ID for now, frontend can use /api/cvs/{id}/download if that endpoint exists.
+            }
+        } catch (Exception e) {
+            // Log but continue
         }
-        
-        return applications;
     }
 
     @Transactional
     public Application updateApplicationStatus(UUID applicationId, Application.ApplicationStatus status, String notes) {
-        Application application = applicationRepository.findById(applicationId)
+        Application application = applicationRepository.findByIdForUpdate(applicationId)
                 .orElseThrow(() -> new RuntimeException("Application not found"));
+        Application.ApplicationStatus oldStatus = application.getStatus();
+        LocalDateTime oldInterviewAt = application.getInterviewScheduledAt();
 
         application.setStatus(status);
         application.setUpdatedAt(LocalDateTime.now());
@@ -316,6 +396,7 @@ public class ApplicationService {
         }
 
         application = applicationRepository.save(application);
+        pipelineStatsService.applicationChanged(application, oldStatus, oldInterviewAt);
 
         // Create history record
         try {
@@ -330,30 +411,123 @@ public class ApplicationService {
             log.warn("Could not create application history: {}", e.getMessage());
         }
 
-        // Send notification to student
+        // Notify the student; the outbox resolves their user id at delivery, so no user-service call under the row lock
+        if (application.getStudentId() != null) {
+            notificationOutbox.enqueue(NotificationRequest.builder()
+                .studentId(application.getStudentId())
+                .type("APPLICATION_STATUS_CHANGED")
+                .title("Cập nhật trạng thái ứng tuyển")
+                .message(String.format("Hồ sơ ứng tuyển của bạn cho vị trí %s đã được thay đổi thành: %s", application.getJob().getTitle(), getStatusText(status)))
+                .relatedEntityId(application.getId())
+                .relatedEntityType("APPLICATION")
+                .build());
+        }
+
+        return application;
+    }
+
+    /**
+     * Move up to 500 applications to one status in a single transaction
+     * All-or-nothing: every id must exist and, for a recruiter, belong to one of their jobs.
+     * Applications already in the target status are left untouched (no history row, no notification).
+     * Rows are updated and history is inserted with JDBC batches; students get their notifications
+     * through one outbox batch after commit.
+     */
+    @Transactional
+    public Map<String, Object> updateApplicationStatuses(List<UUID> applicationIds, Application.ApplicationStatus status, String notes) {
+        if (status == null) {
+            throw new IllegalArgumentException("Status is required");
+        }
+        List<UUID> ids = applicationIds == null ? List.of()
+                : applicationIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("No applications given");
+        }
+        if (ids.size() > MAX_BULK_STATUS_UPDATE) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_STATUS_UPDATE + " applications per request");
+        }
+
+        List<Application> applications = applicationRepository.findAllByIdForUpdate(ids);
+        if (applications.size() != ids.size()) {
+            Set<UUID> found = applications.stream().map(Application::getId).collect(Collectors.toSet());
+            List<UUID> missing = ids.stream().filter(id -> !found.contains(id)).toList();
+            throw new IllegalArgumentException("Application not found: " + missing);
+        }
+        checkCanManage(applications);
+
+        List<Application> changed = applications.stream().filter(app -> app.getStatus() != status).toList();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requested", ids.size());
+        result.put("updated", changed.size());
+        result.put("unchanged", applications.size() - changed.size());
+        result.put("status", status.name());
+        if (changed.isEmpty()) {
+            return result;
+        }
+
+        // Counters first: the entities still carry the old status (the rows are written with JDBC below)
+        pipelineStatsService.applicationsMoved(changed, status);
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp viewedAt = status == Application.ApplicationStatus.VIEWED ? now : null;
+        jdbcTemplate.batchUpdate(
+                "UPDATE jobservice.applications SET status = ?, updated_at = ?, viewed_at = COALESCE(viewed_at, ?) WHERE id = ?",
+                changed.stream().map(app -> new Object[]{status.name(), now, viewedAt, app.getId()}).toList());
+
+        UUID changedById = null;
         try {
-            if (application.getStudentId() != null) {
-                // Get user ID via UserServiceClient
-                StudentProfileDTO studentProfile = userServiceClient.getStudentProfileById(application.getStudentId());
-                if (studentProfile != null && studentProfile.getUserId() != null) {
-                    UUID studentUserId = studentProfile.getUserId();
-                    log.info("Sending notification for application status change to studentUserId: {}", studentUserId);
-                    String statusText = getStatusText(status);
-                    notificationServiceClient.createNotification(NotificationRequest.builder()
-                        .userId(studentUserId)
-                        .type("APPLICATION_STATUS_CHANGED")
-                        .title("Cập nhật trạng thái ứng tuyển")
-                        .message(String.format("Hồ sơ ứng tuyển của bạn cho vị trí %s đã được thay đổi thành: %s", application.getJob().getTitle(), statusText))
-                        .relatedEntityId(application.getId())
-                        .relatedEntityType("APPLICATION")
-                        .build());
-                }
-            }
+            changedById = getCurrentUserId();
         } catch (Exception e) {
-            log.warn("Error sending notification for application status change: {}", e.getMessage());
+            log.warn("Could not resolve user for application history: {}", e.getMessage());
+        }
+        UUID historyAuthor = changedById;
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO jobservice.application_history (id, application_id, status, notes, changed_by, created_at) VALUES (?, ?, ?, ?, ?, ?)",
+                changed.stream().map(app -> new Object[]{UUID.randomUUID(), app.getId(), status.name(), notes, historyAuthor, now}).toList());
+
+        // One outbox batch for all notifications; students are resolved to users in one batch at delivery
+        String statusText = getStatusText(status);
+        List<NotificationRequest> notifications = new ArrayList<>();
+        for (Application app : changed) {
+            if (app.getStudentId() == null) {
+                continue;
+            }
+            notifications.add(NotificationRequest.builder()
+                    .studentId(app.getStudentId())
+                    .type("APPLICATION_STATUS_CHANGED")
+                    .title("Cập nhật trạng thái ứng tuyển")
+                    .message(String.format("Hồ sơ ứng tuyển của bạn cho vị trí %s đã được thay đổi thành: %s", app.getJob() != null ? app.getJob().getTitle() : "", statusText))
+                    .relatedEntityId(app.getId())
+                    .relatedEntityType("APPLICATION")
+                    .build());
         }
+        notificationOutbox.enqueueAll(notifications);
 
-        return application;
+        log.info("Bulk status change to {}: {} updated, {} unchanged", status, changed.size(), applications.size() - changed.size());
+        result.put("updatedIds", changed.stream().map(Application::getId).toList());
+        result.put("notified", notifications.size());
+        return result;
+    }
+
+    // Admins may change any application; a recruiter only applications to their own jobs
+    private void checkCanManage(List<Application> applications) {
+        if (isAdmin()) {
+            return;
+        }
+        UUID recruiterId = userServiceClient.getCurrentRecruiterProfile().getId();
+        List<UUID> foreign = applications.stream()
+                .filter(app -> app.getJob() == null || !Objects.equals(app.getJob().getRecruiterId(), recruiterId))
+                .map(Application::getId)
+                .toList();
+        if (!foreign.isEmpty()) {
+            throw new AccessDeniedException("Applications do not belong to your jobs: " + foreign);
+        }
+    }
+
+    private boolean isAdmin() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
     }
 
     private String getStatusText(Application.ApplicationStatus status) {
@@ -371,37 +545,29 @@ public class ApplicationService {
 
     @Transactional
     public Application scheduleInterview(UUID applicationId, LocalDateTime interviewTime) {
-        Application application = applicationRepository.findById(applicationId)
+        Application application = applicationRepository.findByIdForUpdate(applicationId)
                 .orElseThrow(() -> new RuntimeException("Application not found"));
+        Application.ApplicationStatus oldStatus = application.getStatus();
+        LocalDateTime oldInterviewAt = application.getInterviewScheduledAt();
 
         application.setStatus(Application.ApplicationStatus.INTERVIEW);
         application.setInterviewScheduledAt(interviewTime);
         application.setUpdatedAt(LocalDateTime.now());
 
         application = applicationRepository.save(application);
-
-        // Send notification to student
-        try {
-            if (application.getStudentId() != null) {
-                // Get user ID via UserServiceClient
-                StudentProfileDTO studentProfile = userServiceClient.getStudentProfileById(application.getStudentId());
-                UUID studentUserId = studentProfile != null ? studentProfile.getUserId() : null;
-                if (studentUserId == null) {
-                    log.warn("Could not find user for student {}", application.getStudentId());
-                    return application;
-                }
-                String interviewTimeStr = interviewTime.format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"));
-                notificationServiceClient.createNotification(NotificationRequest.builder()
-                    .userId(studentUserId)
-                    .type("INTERVIEW_SCHEDULED")
-                    .title("Lịch phỏng vấn mới")
-                    .message(String.format("Bạn có lịch phỏng vấn cho vị trí %s vào lúc %s", application.getJob().getTitle(), interviewTimeStr))
-                    .relatedEntityId(application.getId())
-                    .relatedEntityType("APPLICATION")
-                    .build());
-            }
-        } catch (Exception e) {
-            log.warn("Error sending notification for interview scheduled: {}", e.getMessage());
+        pipelineStatsService.applicationChanged(application, oldStatus, oldInterviewAt);
+
+        // Notify the student; user id resolved by the outbox at delivery
+        if (application.getStudentId() != null) {
+            String interviewTimeStr = interviewTime.format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"));
+            notificationOutbox.enqueue(NotificationRequest.builder()
+                .studentId(application.getStudentId())
+                .type("INTERVIEW_SCHEDULED")
+                .title("Lịch phỏng vấn mới")
+                .message(String.format("Bạn có lịch phỏng vấn cho vị trí %s vào lúc %s", application.getJob().getTitle(), interviewTimeStr))
+                .relatedEntityId(application.getId())
+                .relatedEntityType("APPLICATION")
+                .build());
         }
 
         return application;
@@ -517,13 +683,14 @@ public class ApplicationService {
         java.util.List<Application> apps = applicationRepository.findTop5ByJobRecruiterIdOrderByAppliedAtDesc(recruiterId);
         
         if (apps != null && !apps.isEmpty()) {
+            java.util.Map<UUID, StudentProfileDTO> students = profileResolver.getStudents(
+                    apps.stream().map(Application::getStudentId).toList());
             apps.forEach(app -> {
                 try {
                     // Populate details logic
                     if (app.getJob() != null) app.getJob().getId(); // Trigger load
                     if (app.getStudentId() != null) {
-                        StudentProfileDTO student = userServiceClient.getStudentProfileById(app.getStudentId());
-                        app.setStudent(student);
+                        app.setStudent(students.get(app.getStudentId()));
                     }
                 } catch (Exception e) {}
             });
@@ -0,0 +1,128 @@
+package vn.careermate.jobservice.service;
+
+import feign.FeignException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import vn.careermate.common.client.ContentServiceClient;
+import vn.careermate.common.dto.CompanyDTO;
+
+import jakarta.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Company details for job listings, loaded in batches with a near-cache
+ * A page of jobs asks for all its company ids at once: cached ones are answered locally, the rest
+ * with one POST /companies/batch call. Entries expire after companies.cache.ttl-ms, so company
+ * edits in content-service show up within that time.
+ */
+@Slf4j
+@Component
+public class CompanyLoader {
+
+    @Value("${companies.cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Value("${companies.cache.max-entries:2000}")
+    private int maxEntries;
+
+    private final ContentServiceClient contentServiceClient;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong batchCalls = new AtomicLong();
+    private Map<UUID, CachedCompany> cache;
+
+    public CompanyLoader(ContentServiceClient contentServiceClient) {
+        this.contentServiceClient = contentServiceClient;
+    }
+
+    @PostConstruct
+    public void init() {
+        int capacity = maxEntries;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, CachedCompany> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    /**
+     * Companies by id; ids that content-service does not know (or could not be loaded) are absent
+     */
+    public Map<UUID, CompanyDTO> getAll(Collection<UUID> companyIds) {
+        Map<UUID, CompanyDTO> result = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (UUID id : new LinkedHashSet<>(companyIds)) {
+            if (id == null) continue;
+            CachedCompany cached = cache.get(id);
+            if (cached != null && cached.expiresAt() > now) {
+                hits.incrementAndGet();
+                result.put(id, cached.company());
+            } else {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        misses.addAndGet(missing.size());
+        for (CompanyDTO company : load(missing)) {
+            if (company != null && company.getId() != null) {
+                cache.put(company.getId(), new CachedCompany(company, now + ttlMs));
+                result.put(company.getId(), company);
+            }
+        }
+        return result;
+    }
+
+    public CompanyDTO get(UUID companyId) {
+        return getAll(List.of(companyId)).get(companyId);
+    }
+
+    public void evict(UUID companyId) {
+        cache.remove(companyId);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", cache.size());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("batchCalls", batchCalls.get());
+        return stats;
+    }
+
+    private List<CompanyDTO> load(List<UUID> ids) {
+        try {
+            batchCalls.incrementAndGet();
+            return contentServiceClient.getCompaniesByIds(ids);
+        } catch (FeignException e) {
+            if (e.status() != 404 && e.status() != 405) {
+                // Outage or overload: N single calls would only add to it
+                log.warn("Batch company lookup failed ({}), {} companies left out: {}", e.status(), ids.size(), e.getMessage());
+                return List.of();
+            }
+            // Older content-service without the batch endpoint
+            log.warn("Batch company lookup not available, loading {} companies one by one: {}", ids.size(), e.getMessage());
+            List<CompanyDTO> companies = new ArrayList<>();
+            for (UUID id : ids) {
+                try {
+                    companies.add(contentServiceClient.getCompanyById(id));
+                } catch (Exception ex) {
+                    log.error("Error fetching company {}: {}", id, ex.getMessage());
+                }
+            }
+            return companies;
+        } catch (Exception e) {
+            log.warn("Batch company lookup failed, {} companies left out: {}", ids.size(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    private record CachedCompany(CompanyDTO company, long expiresAt) {
+    }
+}
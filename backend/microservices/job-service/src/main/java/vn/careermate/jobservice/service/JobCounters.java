@@ -0,0 +1,102 @@
+package vn.careermate.jobservice.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import vn.careermate.common.counter.WriteBehindCounter;
+import vn.careermate.jobservice.model.Job;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * View / application counters of jobs, written behind in batches
+ * Viewing a job does not write to the database; jobs.views_count and jobs.applications_count are
+ * only changed by the flush (the entity maps them as not updatable, so saving a Job never overwrites them).
+ */
+@Component
+@RequiredArgsConstructor
+public class JobCounters {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${counters.flush-interval-ms:5000}")
+    private long flushIntervalMs;
+
+    @Value("${counters.max-pending-keys:10000}")
+    private int maxPendingKeys;
+
+    private WriteBehindCounter views;
+    private WriteBehindCounter applications;
+
+    @PostConstruct
+    public void init() {
+        views = new WriteBehindCounter("job views", jdbcTemplate,
+            "UPDATE jobservice.jobs SET views_count = COALESCE(views_count, 0) + ? WHERE id = ?",
+            flushIntervalMs, maxPendingKeys);
+        applications = new WriteBehindCounter("job applications", jdbcTemplate,
+            "UPDATE jobservice.jobs SET applications_count = COALESCE(applications_count, 0) + ? WHERE id = ?",
+            flushIntervalMs, maxPendingKeys);
+    }
+
+    public void recordView(UUID jobId) {
+        views.increment(jobId);
+    }
+
+    /**
+     * Counted once the surrounding transaction commits, so a rolled back application is never counted
+     */
+    public void recordApplication(UUID jobId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applications.increment(jobId);
+                }
+            });
+        } else {
+            applications.increment(jobId);
+        }
+    }
+
+    /**
+     * Add the not yet flushed increments to a loaded job, for responses
+     */
+    public void applyPending(Job job) {
+        if (job == null || job.getId() == null) return;
+        long pendingViews = views.pending(job.getId());
+        long pendingApplications = applications.pending(job.getId());
+        if (pendingViews != 0) {
+            job.setViewsCount((int) ((job.getViewsCount() != null ? job.getViewsCount() : 0) + pendingViews));
+        }
+        if (pendingApplications != 0) {
+            job.setApplicationsCount((int) ((job.getApplicationsCount() != null ? job.getApplicationsCount() : 0) + pendingApplications));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${counters.check-interval-ms:500}")
+    public void flushIfDue() {
+        views.flushIfDue();
+        applications.flushIfDue();
+    }
+
+    @PreDestroy
+    public void flush() {
+        views.flush();
+        applications.flush();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("views", views.getStats());
+        stats.put("applications", applications.getStats());
+        return stats;
+    }
+}
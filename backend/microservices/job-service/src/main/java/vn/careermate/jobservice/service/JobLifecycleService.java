@@ -0,0 +1,232 @@
+package vn.careermate.jobservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.careermate.common.dto.NotificationRequest;
+import vn.careermate.common.outbox.NotificationOutbox;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Job lifecycle worker: closes expired postings and moves old closed ones out of the jobs table
+ * 1. Expire: ACTIVE jobs whose expires_at has passed become CLOSED, so search (status = 'ACTIVE') drops them.
+ *    Due rows are found through idx_jobs_status_expires; each owner gets one notification per batch.
+ * 2. Archive: CLOSED jobs untouched for archive-after-days and without applications are copied to
+ *    jobs_archive (one JSONB document per job, skills included) and deleted with their saved_jobs rows.
+ *    Jobs with applications stay, since applications and their history point at them.
+ * Both steps run in batches of batch-size rows, each batch in its own transaction with SKIP LOCKED,
+ * so a large backlog never holds many locks and several instances can run side by side.
+ * No HTTP call is made while a batch is locked: owners are notified by recruiter id (the outbox resolves
+ * users at delivery) and ai-service hears about each expired / archived job after the batch commits.
+ */
+@Slf4j
+@Service
+public class JobLifecycleService implements CommandLineRunner {
+
+    private static final String EXPIRE_BATCH = """
+        UPDATE jobservice.jobs j SET status = 'CLOSED', updated_at = now()
+        WHERE j.id IN (
+            SELECT id FROM jobservice.jobs
+            WHERE status = 'ACTIVE' AND expires_at <= now()
+            ORDER BY expires_at
+            LIMIT ? FOR UPDATE SKIP LOCKED)
+        RETURNING j.id, j.recruiter_id, j.title
+        """;
+
+    private static final String SELECT_ARCHIVE_BATCH = """
+        SELECT j.id FROM jobservice.jobs j
+        WHERE j.status = 'CLOSED' AND j.updated_at < ?
+          AND NOT EXISTS (SELECT 1 FROM jobservice.applications a WHERE a.job_id = j.id)
+        ORDER BY j.updated_at
+        LIMIT ? FOR UPDATE SKIP LOCKED
+        """;
+
+    private static final String COPY_TO_ARCHIVE = """
+        INSERT INTO jobservice.jobs_archive (id, recruiter_id, company_id, title, closed_at, archived_at, data)
+        SELECT j.id, j.recruiter_id, j.company_id, j.title, j.updated_at, now(),
+            (to_jsonb(j) - 'search_vector') || jsonb_build_object('skills', COALESCE(
+                (SELECT jsonb_agg(to_jsonb(s) - 'job_id') FROM jobservice.job_skills s WHERE s.job_id = j.id), '[]'::jsonb))
+        FROM jobservice.jobs j WHERE j.id IN (:ids)
+        ON CONFLICT (id) DO NOTHING
+        """;
+
+    private static final List<String> ARCHIVE_DDL = List.of(
+        "CREATE TABLE IF NOT EXISTS jobservice.jobs_archive (" +
+            "id UUID PRIMARY KEY, " +
+            "recruiter_id UUID NOT NULL, " +
+            "company_id UUID NOT NULL, " +
+            "title VARCHAR(255), " +
+            "closed_at TIMESTAMP, " +
+            "archived_at TIMESTAMP NOT NULL DEFAULT now(), " +
+            "data JSONB NOT NULL)",
+        "CREATE INDEX IF NOT EXISTS idx_jobs_archive_recruiter ON jobservice.jobs_archive (recruiter_id)"
+    );
+
+    // Titles listed in an owner's notification before it switches to "và N tin khác"
+    private static final int TITLES_PER_NOTIFICATION = 5;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationOutbox notificationOutbox;
+    private final JobService jobService;
+
+    @Value("${jobs.lifecycle.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jobs.lifecycle.batch-size:500}")
+    private int batchSize;
+
+    @Value("${jobs.lifecycle.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    // 0 keeps closed jobs in the jobs table
+    @Value("${jobs.lifecycle.archive-after-days:180}")
+    private int archiveAfterDays;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+    private volatile boolean archiveReady;
+
+    public JobLifecycleService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               NotificationOutbox notificationOutbox, JobService jobService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.notificationOutbox = notificationOutbox;
+        this.jobService = jobService;
+    }
+
+    @Override
+    public void run(String... args) {
+        try {
+            ARCHIVE_DDL.forEach(jdbcTemplate::execute);
+            archiveReady = true;
+        } catch (Exception e) {
+            log.warn("Could not create jobs archive table, closed jobs will not be archived: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jobs.lifecycle.interval-ms:60000}")
+    public void runScheduled() {
+        if (!enabled) return;
+        try {
+            runOnce();
+        } catch (Exception e) {
+            log.warn("Job lifecycle run failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * One pass of both steps (bounded by max-batches-per-run each); returns the number of jobs expired / archived
+     */
+    public Map<String, Integer> runOnce() {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        if (!runLock.tryLock()) {
+            result.put("expired", 0);
+            result.put("archived", 0);
+            return result;
+        }
+        try {
+            int expired = 0;
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                int count = expireBatch();
+                expired += count;
+                if (count < batchSize) break;
+            }
+            int archived = 0;
+            if (archiveReady && archiveAfterDays > 0) {
+                Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(archiveAfterDays));
+                for (int i = 0; i < maxBatchesPerRun; i++) {
+                    int count = archiveBatch(cutoff);
+                    archived += count;
+                    if (count < batchSize) break;
+                }
+            }
+            if (expired > 0 || archived > 0) {
+                log.info("Job lifecycle: {} jobs expired, {} jobs archived", expired, archived);
+            }
+            result.put("expired", expired);
+            result.put("archived", archived);
+            return result;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    private int expireBatch() {
+        Integer count = transactionTemplate.execute(status -> {
+            List<ExpiredJob> jobs = jdbcTemplate.query(EXPIRE_BATCH,
+                (rs, i) -> new ExpiredJob(rs.getObject("id", UUID.class), rs.getObject("recruiter_id", UUID.class), rs.getString("title")),
+                batchSize);
+            if (!jobs.isEmpty()) {
+                notifyOwners(jobs);
+                // Registered as afterCommit callbacks: ai-service is only called once the batch is committed
+                jobs.forEach(job -> jobService.notifyRecommendationEngine(job.id()));
+            }
+            return jobs.size();
+        });
+        return count != null ? count : 0;
+    }
+
+    private int archiveBatch(Timestamp cutoff) {
+        Integer count = transactionTemplate.execute(status -> {
+            List<UUID> ids = jdbcTemplate.queryForList(SELECT_ARCHIVE_BATCH, UUID.class, cutoff, batchSize);
+            if (ids.isEmpty()) return 0;
+
+            MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+            namedJdbcTemplate.update(COPY_TO_ARCHIVE, params);
+            namedJdbcTemplate.update("DELETE FROM jobservice.job_skills WHERE job_id IN (:ids)", params);
+            namedJdbcTemplate.update("DELETE FROM jobservice.saved_jobs WHERE job_id IN (:ids)", params);
+            // Jobs without applications only have all-zero pipeline rows
+            namedJdbcTemplate.update("DELETE FROM jobservice.pipeline_stats WHERE scope = 'JOB' AND id IN (:ids)", params);
+            namedJdbcTemplate.update("DELETE FROM jobservice.jobs WHERE id IN (:ids)", params);
+            ids.forEach(jobService::notifyRecommendationEngine);
+            return ids.size();
+        });
+        return count != null ? count : 0;
+    }
+
+    /**
+     * One notification per owner for the whole batch, queued in the batch's transaction;
+     * addressed by recruiter id, the outbox looks up the users when it delivers
+     */
+    private void notifyOwners(List<ExpiredJob> jobs) {
+        Map<UUID, List<ExpiredJob>> byRecruiter = jobs.stream()
+            .filter(job -> job.recruiterId() != null)
+            .collect(Collectors.groupingBy(ExpiredJob::recruiterId, LinkedHashMap::new, Collectors.toList()));
+
+        List<NotificationRequest> notifications = new ArrayList<>();
+        byRecruiter.forEach((recruiterId, owned) -> {
+            String titles = owned.stream().limit(TITLES_PER_NOTIFICATION).map(ExpiredJob::title).collect(Collectors.joining(", "));
+            if (owned.size() > TITLES_PER_NOTIFICATION) {
+                titles += " và " + (owned.size() - TITLES_PER_NOTIFICATION) + " tin khác";
+            }
+            notifications.add(NotificationRequest.builder()
+                .recruiterId(recruiterId)
+                .type("JOB_EXPIRED")
+                .title("Tin tuyển dụng đã hết hạn")
+                .message(owned.size() == 1
+                    ? String.format("Tin tuyển dụng %s đã hết hạn và được đóng.", titles)
+                    : String.format("%d tin tuyển dụng của bạn đã hết hạn và được đóng: %s", owned.size(), titles))
+                .relatedEntityId(owned.size() == 1 ? owned.get(0).id() : null)
+                .relatedEntityType("JOB")
+                .build());
+        });
+        notificationOutbox.enqueueAll(notifications);
+    }
+
+    private record ExpiredJob(UUID id, UUID recruiterId, String title) {
+    }
+}
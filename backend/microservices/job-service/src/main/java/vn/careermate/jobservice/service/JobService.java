@@ -8,6 +8,9 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import vn.careermate.jobservice.config.JobSearchIndexInitializer;
 import vn.careermate.jobservice.model.Job;
 import vn.careermate.jobservice.model.JobSkill;
 import vn.careermate.jobservice.repository.JobRepository;
@@ -21,15 +24,22 @@ import vn.careermate.jobservice.repository.ApplicationRepository;
 // import vn.careermate.notificationservice.service.NotificationService; // Replaced with NotificationServiceClient
 import vn.careermate.common.client.UserServiceClient;
 import vn.careermate.common.client.ContentServiceClient;
-import vn.careermate.common.client.NotificationServiceClient;
+import vn.careermate.common.outbox.NotificationOutbox;
+import vn.careermate.common.client.AIServiceClient;
 import vn.careermate.common.dto.UserDTO;
 import vn.careermate.common.dto.CompanyDTO;
+import vn.careermate.common.dto.CursorPage;
+import vn.careermate.common.dto.PageCursor;
 import vn.careermate.common.dto.NotificationRequest;
 import vn.careermate.common.dto.RecruiterProfileDTO;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Slf4j
 @Service
@@ -42,7 +52,22 @@ public class JobService {
     // Feign Clients for inter-service communication
     private final UserServiceClient userServiceClient;
     private final ContentServiceClient contentServiceClient;
-    private final NotificationServiceClient notificationServiceClient;
+    private final NotificationOutbox notificationOutbox;
+    private final AIServiceClient aiServiceClient;
+    private final JobSearchIndexInitializer searchIndex;
+    private final CompanyLoader companyLoader;
+    private final JobCounters jobCounters;
+    private final PipelineStatsService pipelineStatsService;
+
+    @org.springframework.beans.factory.annotation.Value("${jobs.search.facet-size:20}")
+    private int facetSize;
+
+    // Sends job change events to ai-service off the request thread
+    private final ExecutorService aiDispatchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "job-recommendation-dispatch");
+        thread.setDaemon(true);
+        return thread;
+    });
     
     // TODO: Remove these after refactoring
     // private final RecruiterProfileService recruiterProfileService;
@@ -146,13 +171,14 @@ public class JobService {
                             .relatedEntityId(job.getId())
                             .relatedEntityType("JOB")
                             .build();
-                    notificationServiceClient.createNotification(request);
+                    notificationOutbox.enqueue(request);
                 } catch (Exception e) {
                     // Log but don't fail job creation
                     log.warn("Error sending pending job notification: {}", e.getMessage());
                 }
             }
             
+            notifyRecommendationEngine(job.getId());
             return job;
         } catch (RuntimeException e) {
             log.error("Error creating job: {}", e.getMessage());
@@ -186,6 +212,14 @@ public class JobService {
 
     @Transactional(readOnly = true)
     public Page<Job> searchJobs(String keyword, String location, UUID companyId, String status, Pageable pageable) {
+        return searchJobs(keyword, location, companyId, status, null, null, null, null, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Job> searchJobs(String keyword, String location, UUID companyId, String status,
+                                String jobType, String experienceLevel,
+                                java.math.BigDecimal minSalary, java.math.BigDecimal maxSalary,
+                                Pageable pageable) {
         try {
             // Normalize null/empty strings
             String normalizedKeyword = (keyword != null && !keyword.trim().isEmpty()) ? keyword.trim() : null;
@@ -210,7 +244,12 @@ public class JobService {
                 } else {
                     jobs = jobRepository.findByCompanyId(companyId, pageable);
                 }
+            } else if (searchIndex.isReady()) {
+                jobs = jobRepository.fullTextSearchJobs(toTsQuery(normalizedKeyword), normalizedLocation,
+                    enumName(Job.JobType.class, jobType), enumName(Job.ExperienceLevel.class, experienceLevel),
+                    minSalary, maxSalary, pageable);
             } else {
+                // Index not set up yet: LIKE scan, without the jobType / experienceLevel / salary filters
                 jobs = jobRepository.searchJobs(normalizedKeyword, normalizedLocation, pageable);
             }
             
@@ -227,14 +266,148 @@ public class JobService {
         }
     }
 
+    /**
+     * Search with facet counts (location, jobType, experienceLevel, salaryBand) for the same filters
+     * Each facet is counted with all filters but its own; values are sorted by count, locations capped at facetSize.
+     * Facets are empty while the search index is not set up.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> searchJobsWithFacets(String keyword, String location,
+                                                    String jobType, String experienceLevel,
+                                                    java.math.BigDecimal minSalary, java.math.BigDecimal maxSalary,
+                                                    Pageable pageable) {
+        Page<Job> jobs = searchJobs(keyword, location, null, null, jobType, experienceLevel, minSalary, maxSalary, pageable);
+
+        Map<String, List<Map<String, Object>>> facets = new java.util.LinkedHashMap<>();
+        for (String facet : List.of("location", "jobType", "experienceLevel", "salaryBand")) {
+            facets.put(facet, new ArrayList<>());
+        }
+        if (searchIndex.isReady()) {
+            try {
+                String normalizedKeyword = (keyword != null && !keyword.trim().isEmpty()) ? keyword.trim() : null;
+                String normalizedLocation = (location != null && !location.trim().isEmpty()) ? location.trim() : null;
+                List<Object[]> rows = jobRepository.fullTextSearchFacets(toTsQuery(normalizedKeyword), normalizedLocation,
+                    enumName(Job.JobType.class, jobType), enumName(Job.ExperienceLevel.class, experienceLevel),
+                    minSalary, maxSalary);
+                for (Object[] row : rows) {
+                    long count = ((Number) row[2]).longValue();
+                    if (row[1] == null || count == 0) continue;
+                    facets.get((String) row[0]).add(Map.of("value", row[1], "count", count));
+                }
+                facets.forEach((facet, values) -> values.sort((a, b) -> Long.compare((Long) b.get("count"), (Long) a.get("count"))));
+                List<Map<String, Object>> locations = facets.get("location");
+                if (locations.size() > facetSize) {
+                    facets.put("location", new ArrayList<>(locations.subList(0, facetSize)));
+                }
+            } catch (Exception e) {
+                log.error("Error computing job search facets: {}", e.getMessage());
+            }
+        }
+
+        Map<String, Object> result = new java.util.LinkedHashMap<>();
+        result.put("content", jobs.getContent());
+        result.put("totalElements", jobs.getTotalElements());
+        result.put("totalPages", jobs.getTotalPages());
+        result.put("number", jobs.getNumber());
+        result.put("size", jobs.getSize());
+        result.put("facets", facets);
+        return result;
+    }
+
+    /**
+     * Keyset-paginated job search, newest first (infinite scroll): page N costs the same as page 1
+     * Keywords filter but do not rank here. totalElements only when includeTotal (one extra COUNT).
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Job> searchJobsFeed(String keyword, String location,
+                                          String jobType, String experienceLevel,
+                                          java.math.BigDecimal minSalary, java.math.BigDecimal maxSalary,
+                                          String cursor, int size, boolean includeTotal) {
+        if (!searchIndex.isReady()) {
+            throw new IllegalStateException("Job search index is not ready");
+        }
+        PageCursor after = PageCursor.decode(cursor);
+        String query = toTsQuery((keyword != null && !keyword.trim().isEmpty()) ? keyword.trim() : null);
+        String normalizedLocation = (location != null && !location.trim().isEmpty()) ? location.trim() : null;
+        String type = enumName(Job.JobType.class, jobType);
+        String level = enumName(Job.ExperienceLevel.class, experienceLevel);
+
+        List<Job> rows = jobRepository.fullTextSearchJobsFeed(query, normalizedLocation, type, level, minSalary, maxSalary,
+            after != null ? after.createdAt() : null, after != null ? after.id().toString() : null, size + 1);
+        Long total = includeTotal
+            ? jobRepository.fullTextSearchJobs(query, normalizedLocation, type, level, minSalary, maxSalary,
+                org.springframework.data.domain.PageRequest.of(0, 1)).getTotalElements()
+            : null;
+
+        CursorPage<Job> page = CursorPage.of(rows, size, job -> new PageCursor(job.getCreatedAt(), job.getId()), total);
+        populateCompanyDetails(page.getContent());
+        return page;
+    }
+
+    /**
+     * Keyset-paginated jobs by status (admin lists)
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Job> getJobFeed(String status, String cursor, int size, boolean includeTotal) {
+        Job.JobStatus jobStatus = Job.JobStatus.valueOf(status.trim().toUpperCase());
+        PageCursor after = PageCursor.decode(cursor);
+        org.springframework.data.domain.Pageable limit = org.springframework.data.domain.PageRequest.of(0, size + 1);
+        List<Job> rows = after == null
+            ? jobRepository.findFeedByStatus(jobStatus, limit)
+            : jobRepository.findFeedByStatusAfter(jobStatus, after.createdAt(), after.id(), limit);
+        Long total = includeTotal ? jobRepository.countByStatus(jobStatus) : null;
+
+        CursorPage<Job> page = CursorPage.of(rows, size, job -> new PageCursor(job.getCreatedAt(), job.getId()), total);
+        populateCompanyDetails(page.getContent());
+        return page;
+    }
+
+    /**
+     * Keyword to a prefix-matching tsquery: "java dev" -> "java:* & dev:*"; null when there is nothing to match
+     */
+    private String toTsQuery(String keyword) {
+        if (keyword == null) {
+            return null;
+        }
+        List<String> terms = new ArrayList<>();
+        for (String token : keyword.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty() && terms.size() < 8) {
+                terms.add(token + ":*");
+            }
+        }
+        return terms.isEmpty() ? null : String.join(" & ", terms);
+    }
+
+    private <E extends Enum<E>> String enumName(Class<E> type, String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase()).name();
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid {} filter: {}", type.getSimpleName(), value);
+            return null;
+        }
+    }
+
     @Transactional(readOnly = true)
     public Job getJob(UUID jobId) {
         Job job = jobRepository.findById(jobId)
                 .orElseThrow(() -> new RuntimeException("Job not found"));
         populateCompanyDetails(job);
+        jobCounters.applyPending(job);
         return job;
     }
 
+    /**
+     * Count a detail view of an active job; no database write on this path (see JobCounters)
+     */
+    public void recordView(Job job) {
+        if (job.getStatus() != Job.JobStatus.ACTIVE) return;
+        jobCounters.recordView(job.getId());
+        job.setViewsCount((job.getViewsCount() != null ? job.getViewsCount() : 0) + 1);
+    }
+
     @Transactional(readOnly = true)
     public long getJobCount(String status) {
         return getJobCount(status, null);
@@ -295,7 +468,9 @@ public class JobService {
                 .orElseThrow(() -> new RuntimeException("Job not found"));
         job.setStatus(Job.JobStatus.ACTIVE);
         // In a real app, we might store who approved it
-        return jobRepository.save(job);
+        job = jobRepository.save(job);
+        notifyRecommendationEngine(jobId);
+        return job;
     }
 
     @Transactional
@@ -303,7 +478,9 @@ public class JobService {
         Job job = jobRepository.findById(jobId)
                 .orElseThrow(() -> new RuntimeException("Job not found"));
         job.setStatus(Job.JobStatus.REJECTED);
-        return jobRepository.save(job);
+        job = jobRepository.save(job);
+        notifyRecommendationEngine(jobId);
+        return job;
     }
 
     @Transactional
@@ -313,7 +490,9 @@ public class JobService {
         job.setHidden(true);
         job.setHiddenReason(reason);
         job.setHiddenAt(java.time.LocalDateTime.now());
-        return jobRepository.save(job);
+        job = jobRepository.save(job);
+        notifyRecommendationEngine(jobId);
+        return job;
     }
 
     @Transactional
@@ -323,7 +502,9 @@ public class JobService {
         job.setHidden(false);
         job.setHiddenReason(null);
         job.setHiddenAt(null);
-        return jobRepository.save(job);
+        job = jobRepository.save(job);
+        notifyRecommendationEngine(jobId);
+        return job;
     }
 
     @Transactional
@@ -331,7 +512,9 @@ public class JobService {
         if (!jobRepository.existsById(jobId)) {
             throw new RuntimeException("Job not found");
         }
+        pipelineStatsService.jobDeleted(jobId);
         jobRepository.deleteById(jobId);
+        notifyRecommendationEngine(jobId);
     }
     
     @Transactional
@@ -342,6 +525,7 @@ public class JobService {
         
         for (Job job : recruiterJobs) {
             // Delete related data first
+            pipelineStatsService.jobDeleted(job.getId());
             applicationRepository.deleteByJobId(job.getId());
             jobSkillRepository.deleteByJobId(job.getId());
             
@@ -365,41 +549,109 @@ public class JobService {
         return applicationRepository.countByAppliedAtBefore(beforeDate);
     }
 
+    /**
+     * Jobs with their skills, for ai-service recommendation scoring
+     */
+    @Transactional(readOnly = true)
+    public List<vn.careermate.common.dto.JobDTO> getJobMatchingProfiles(List<UUID> jobIds) {
+        if (jobIds == null || jobIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<UUID, List<JobSkill>> skillsByJob = new HashMap<>();
+        for (JobSkill skill : jobSkillRepository.findByJobIdIn(jobIds)) {
+            skillsByJob.computeIfAbsent(skill.getJob().getId(), id -> new ArrayList<>()).add(skill);
+        }
+
+        List<vn.careermate.common.dto.JobDTO> profiles = new ArrayList<>();
+        for (Job job : jobRepository.findAllById(jobIds)) {
+            List<JobSkill> skills = skillsByJob.getOrDefault(job.getId(), List.of());
+            profiles.add(vn.careermate.common.dto.JobDTO.builder()
+                    .id(job.getId())
+                    .recruiterId(job.getRecruiterId())
+                    .companyId(job.getCompanyId())
+                    .title(job.getTitle())
+                    .description(job.getDescription())
+                    .requirements(job.getRequirements())
+                    .location(job.getLocation())
+                    .status(job.getStatus() != null ? job.getStatus().name() : null)
+                    .hidden(job.getHidden())
+                    .createdAt(job.getCreatedAt())
+                    .requiredSkills(skills.stream().filter(s -> !Boolean.FALSE.equals(s.getIsRequired()))
+                            .map(JobSkill::getSkillName).toList())
+                    .optionalSkills(skills.stream().filter(s -> Boolean.FALSE.equals(s.getIsRequired()))
+                            .map(JobSkill::getSkillName).toList())
+                    .build());
+        }
+        return profiles;
+    }
+
+    @Transactional(readOnly = true)
+    public List<UUID> getActiveJobIds() {
+        return jobRepository.findVisibleIdsByStatus(Job.JobStatus.ACTIVE);
+    }
+
+    /**
+     * Tell ai-service to recompute recommendations for the job once this transaction commits
+     */
+    public void notifyRecommendationEngine(UUID jobId) {
+        Runnable notify = () -> aiDispatchExecutor.execute(() -> {
+            try {
+                aiServiceClient.onJobChanged(jobId);
+            } catch (Exception e) {
+                log.warn("Could not notify ai-service about job {}: {}", jobId, e.getMessage());
+            }
+        });
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    notify.run();
+                }
+            });
+        } else {
+            notify.run();
+        }
+    }
+
     private void populateCompanyDetails(Page<Job> jobs) {
         if (jobs == null || jobs.isEmpty()) return;
-        jobs.forEach(this::populateCompanyDetails);
+        populateCompanyDetails(jobs.getContent());
     }
 
+    private void populateCompanyDetails(List<Job> jobs) {
+        if (jobs.isEmpty()) return;
+        // One batch lookup for the whole page (cached companies cost nothing)
+        Map<UUID, CompanyDTO> companies = companyLoader.getAll(
+            jobs.stream().map(Job::getCompanyId).filter(java.util.Objects::nonNull).toList());
+        jobs.forEach(job -> setCompany(job, companies.get(job.getCompanyId())));
+    }
+
+    /**
+     * Dashboard counters, read from the maintained pipeline stats (see PipelineStatsService)
+     */
     @Transactional(readOnly = true)
     public Map<String, Object> getRecruiterStats(UUID recruiterId) {
-        long activeJobs = jobRepository.countByRecruiterIdAndStatus(recruiterId, Job.JobStatus.ACTIVE);
-        long newApplications = applicationRepository.countByJobRecruiterIdAndStatus(
-            recruiterId, vn.careermate.jobservice.model.Application.ApplicationStatus.PENDING);
-        long successfulHires = applicationRepository.countByJobRecruiterIdAndStatus(
-            recruiterId, vn.careermate.jobservice.model.Application.ApplicationStatus.OFFERED);
-        long upcomingInterviews = applicationRepository.countUpcomingInterviewsByRecruiter(recruiterId, java.time.LocalDateTime.now());
-        
-        return Map.of(
-            "activeJobs", activeJobs,
-            "newApplications", newApplications,
-            "upcomingInterviews", upcomingInterviews,
-            "successfulHires", successfulHires
-        );
+        return pipelineStatsService.getRecruiterDashboard(recruiterId, false);
     }
 
     
     private void populateCompanyDetails(Job job) {
         if (job.getCompanyId() != null) {
-            try {
-                CompanyDTO company = contentServiceClient.getCompanyById(job.getCompanyId());
-                job.setCompany(company);
-            } catch (Exception e) {
-                log.error("Error fetching company details for job {}: {}", job.getId(), e.getMessage());
-                CompanyDTO placeholder = new CompanyDTO();
-                placeholder.setId(job.getCompanyId());
-                placeholder.setName("Công ty (Lỗi tải)");
-                job.setCompany(placeholder);
-            }
+            setCompany(job, companyLoader.get(job.getCompanyId()));
+        }
+    }
+
+    private void setCompany(Job job, CompanyDTO company) {
+        if (job.getCompanyId() == null) return;
+        if (company == null) {
+            log.error("Error fetching company details for job {}: company {} not loaded", job.getId(), job.getCompanyId());
+            CompanyDTO placeholder = new CompanyDTO();
+            placeholder.setId(job.getCompanyId());
+            placeholder.setName("Công ty (Lỗi tải)");
+            company = placeholder;
         }
+        job.setCompany(company);
     }
 }
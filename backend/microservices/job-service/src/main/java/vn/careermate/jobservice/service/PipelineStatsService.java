@@ -0,0 +1,346 @@
+package vn.careermate.jobservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import vn.careermate.common.client.UserServiceClient;
+import vn.careermate.common.dto.RecruiterProfileDTO;
+import vn.careermate.jobservice.model.Application;
+import vn.careermate.jobservice.model.Job;
+import vn.careermate.jobservice.model.PipelineStats;
+import vn.careermate.jobservice.repository.JobRepository;
+import vn.careermate.jobservice.repository.PipelineStatsRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Per-job and per-recruiter application counts (jobservice.pipeline_stats) for the recruiter dashboard
+ * Every application change adds its delta to the job row and the recruiter row in the caller's transaction,
+ * so a dashboard read is a primary-key lookup instead of COUNT queries over applications.
+ * "Upcoming interviews" depends on the clock: interviews that have passed are taken out by sweepPastInterviews.
+ * The table is rebuilt from applications when it is empty (first start) or on demand.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PipelineStatsService implements CommandLineRunner {
+
+    private static final String UPSERT = """
+        INSERT INTO jobservice.pipeline_stats (id, scope, recruiter_id, total_applications, pending, viewed, shortlisted,
+            interview, offered, rejected, withdrawn, upcoming_interviews, updated_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, now())
+        ON CONFLICT (id) DO UPDATE SET
+            total_applications = pipeline_stats.total_applications + EXCLUDED.total_applications,
+            pending = pipeline_stats.pending + EXCLUDED.pending,
+            viewed = pipeline_stats.viewed + EXCLUDED.viewed,
+            shortlisted = pipeline_stats.shortlisted + EXCLUDED.shortlisted,
+            interview = pipeline_stats.interview + EXCLUDED.interview,
+            offered = pipeline_stats.offered + EXCLUDED.offered,
+            rejected = pipeline_stats.rejected + EXCLUDED.rejected,
+            withdrawn = pipeline_stats.withdrawn + EXCLUDED.withdrawn,
+            upcoming_interviews = pipeline_stats.upcoming_interviews + EXCLUDED.upcoming_interviews,
+            updated_at = now()
+        """;
+
+    // Same columns per scope; {key} / {scope} / {recruiter} are filled in by rebuild()
+    private static final String REBUILD_TEMPLATE = """
+        INSERT INTO jobservice.pipeline_stats (id, scope, recruiter_id, total_applications, pending, viewed, shortlisted,
+            interview, offered, rejected, withdrawn, upcoming_interviews, updated_at)
+        SELECT {key}, '{scope}', {recruiter}, COUNT(*),
+            COUNT(*) FILTER (WHERE a.status = 'PENDING'),
+            COUNT(*) FILTER (WHERE a.status = 'VIEWED'),
+            COUNT(*) FILTER (WHERE a.status = 'SHORTLISTED'),
+            COUNT(*) FILTER (WHERE a.status = 'INTERVIEW'),
+            COUNT(*) FILTER (WHERE a.status = 'OFFERED'),
+            COUNT(*) FILTER (WHERE a.status = 'REJECTED'),
+            COUNT(*) FILTER (WHERE a.status = 'WITHDRAWN'),
+            COUNT(*) FILTER (WHERE a.status = 'INTERVIEW' AND a.interview_scheduled_at > now()),
+            now()
+        FROM jobservice.applications a JOIN jobservice.jobs j ON j.id = a.job_id
+        GROUP BY {group}
+        """;
+
+    // Recount of upcoming interviews for rows whose interviews passed in (?, ?]
+    private static final String RECOUNT_UPCOMING = """
+        UPDATE jobservice.pipeline_stats s SET upcoming_interviews = (
+            SELECT COUNT(*) FROM jobservice.applications a JOIN jobservice.jobs j ON j.id = a.job_id
+            WHERE a.status = 'INTERVIEW' AND a.interview_scheduled_at > now()
+              AND (CASE WHEN s.scope = 'JOB' THEN a.job_id ELSE j.recruiter_id END) = s.id),
+            updated_at = now()
+        WHERE s.id IN (
+            SELECT CASE WHEN x.scope = 'JOB' THEN a.job_id ELSE j.recruiter_id END
+            FROM jobservice.applications a JOIN jobservice.jobs j ON j.id = a.job_id
+            CROSS JOIN (VALUES ('JOB'), ('RECRUITER')) AS x(scope)
+            WHERE a.status = 'INTERVIEW' AND a.interview_scheduled_at > ? AND a.interview_scheduled_at <= ?)
+        """;
+
+    private static final List<String> STATUS_COLUMNS = Arrays.stream(Application.ApplicationStatus.values())
+        .map(status -> status.name().toLowerCase(Locale.ROOT))
+        .toList();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PipelineStatsRepository pipelineStatsRepository;
+    private final JobRepository jobRepository;
+    private final UserServiceClient userServiceClient;
+
+    @Value("${jobs.pipeline-stats.rebuild-on-start:true}")
+    private boolean rebuildOnStart;
+
+    // The first sweep after a start also covers interviews that passed while the service was down
+    private volatile LocalDateTime lastSweep = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Override
+    public void run(String... args) {
+        if (!rebuildOnStart) return;
+        try {
+            Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM jobservice.pipeline_stats", Long.class);
+            if (rows != null && rows == 0) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.warn("Could not initialize pipeline stats: {}", e.getMessage());
+        }
+    }
+
+    // ========== Updates (called inside the application's transaction) ==========
+
+    public void applicationCreated(Application application) {
+        long[] delta = new long[STATUS_COLUMNS.size() + 2];
+        delta[0] = 1;
+        delta[1 + application.getStatus().ordinal()] = 1;
+        apply(application.getJob(), delta);
+    }
+
+    /**
+     * Move an application between statuses; oldInterviewAt / old status are the values before the change
+     */
+    public void applicationChanged(Application application, Application.ApplicationStatus oldStatus, LocalDateTime oldInterviewAt) {
+        long[] delta = changeDelta(oldStatus, oldInterviewAt, application.getStatus(), application.getInterviewScheduledAt());
+        if (Arrays.stream(delta).anyMatch(d -> d != 0)) {
+            apply(application.getJob(), delta);
+        }
+    }
+
+    /**
+     * Bulk status change: applications still hold their old status; deltas are summed per job / recruiter
+     * and written in one batch (rows in id order, like concurrent single updates would lock them)
+     */
+    public void applicationsMoved(Collection<Application> applications, Application.ApplicationStatus newStatus) {
+        Map<UUID, long[]> jobDeltas = new TreeMap<>();
+        Map<UUID, long[]> recruiterDeltas = new TreeMap<>();
+        Map<UUID, UUID> recruiterOfJob = new HashMap<>();
+        for (Application application : applications) {
+            Job job = application.getJob();
+            if (job == null || job.getId() == null) continue;
+            long[] delta = changeDelta(application.getStatus(), application.getInterviewScheduledAt(),
+                newStatus, application.getInterviewScheduledAt());
+            add(jobDeltas.computeIfAbsent(job.getId(), id -> new long[delta.length]), delta);
+            if (job.getRecruiterId() != null) {
+                recruiterOfJob.put(job.getId(), job.getRecruiterId());
+                add(recruiterDeltas.computeIfAbsent(job.getRecruiterId(), id -> new long[delta.length]), delta);
+            }
+        }
+        List<Object[]> batch = new ArrayList<>();
+        jobDeltas.forEach((jobId, delta) -> {
+            if (Arrays.stream(delta).anyMatch(d -> d != 0)) {
+                batch.add(upsertArgs(jobId, PipelineStats.Scope.JOB, recruiterOfJob.get(jobId), delta));
+            }
+        });
+        recruiterDeltas.forEach((recruiterId, delta) -> {
+            if (Arrays.stream(delta).anyMatch(d -> d != 0)) {
+                batch.add(upsertArgs(recruiterId, PipelineStats.Scope.RECRUITER, recruiterId, delta));
+            }
+        });
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT, batch);
+        }
+    }
+
+    /**
+     * Take a deleted job's applications out of its recruiter's row (applications are deleted with the job)
+     */
+    public void jobDeleted(UUID jobId) {
+        StringBuilder subtract = new StringBuilder("UPDATE jobservice.pipeline_stats r SET ");
+        for (String column : columns()) {
+            subtract.append(column).append(" = r.").append(column).append(" - j.").append(column).append(", ");
+        }
+        subtract.append("updated_at = now() FROM jobservice.pipeline_stats j WHERE j.id = ? AND j.scope = 'JOB' AND r.id = j.recruiter_id");
+        jdbcTemplate.update(subtract.toString(), jobId);
+        jdbcTemplate.update("DELETE FROM jobservice.pipeline_stats WHERE id = ? AND scope = 'JOB'", jobId);
+    }
+
+    // ========== Reads ==========
+
+    /**
+     * Dashboard numbers of a recruiter: one row lookup plus the active job count
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getRecruiterDashboard(UUID recruiterId, boolean includeJobs) {
+        PipelineStats stats = pipelineStatsRepository.findById(recruiterId)
+            .orElseGet(() -> PipelineStats.builder().id(recruiterId).scope(PipelineStats.Scope.RECRUITER).build());
+
+        Map<String, Object> dashboard = new LinkedHashMap<>();
+        dashboard.put("activeJobs", jobRepository.countByRecruiterIdAndStatus(recruiterId, Job.JobStatus.ACTIVE));
+        dashboard.put("newApplications", stats.getPending());
+        dashboard.put("upcomingInterviews", stats.getUpcomingInterviews());
+        dashboard.put("successfulHires", stats.getOffered());
+        dashboard.put("totalApplications", stats.getTotalApplications());
+        dashboard.put("byStatus", byStatus(stats));
+        dashboard.put("updatedAt", stats.getUpdatedAt());
+        if (includeJobs) {
+            dashboard.put("jobs", pipelineStatsRepository.findByRecruiterIdAndScope(recruiterId, PipelineStats.Scope.JOB).stream()
+                .map(job -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("jobId", job.getId());
+                    row.put("totalApplications", job.getTotalApplications());
+                    row.put("upcomingInterviews", job.getUpcomingInterviews());
+                    row.put("byStatus", byStatus(job));
+                    return row;
+                })
+                .toList());
+        }
+        return dashboard;
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getJobPipeline(UUID jobId) {
+        Job job = jobRepository.findById(jobId)
+            .orElseThrow(() -> new RuntimeException("Job not found"));
+        checkCanRead(job.getRecruiterId());
+
+        PipelineStats stats = pipelineStatsRepository.findById(jobId)
+            .orElseGet(() -> PipelineStats.builder().id(jobId).scope(PipelineStats.Scope.JOB).build());
+        Map<String, Object> pipeline = new LinkedHashMap<>();
+        pipeline.put("jobId", jobId);
+        pipeline.put("totalApplications", stats.getTotalApplications());
+        pipeline.put("upcomingInterviews", stats.getUpcomingInterviews());
+        pipeline.put("byStatus", byStatus(stats));
+        return pipeline;
+    }
+
+    /**
+     * Admins may read every recruiter's stats; a recruiter only their own
+     */
+    public void checkCanRead(UUID recruiterId) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        boolean admin = auth != null && auth.getAuthorities().stream()
+            .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        if (admin) {
+            return;
+        }
+        // No recruiter profile for the caller: deny rather than fail with a 500
+        RecruiterProfileDTO recruiter = userServiceClient.getCurrentRecruiterProfile();
+        if (recruiter == null || recruiter.getId() == null || !Objects.equals(recruiterId, recruiter.getId())) {
+            throw new AccessDeniedException("Pipeline stats of another recruiter");
+        }
+    }
+
+    // ========== Maintenance ==========
+
+    /**
+     * Interviews that moved into the past since the last sweep no longer count as upcoming
+     */
+    @Scheduled(fixedDelayString = "${jobs.pipeline-stats.sweep-interval-ms:60000}")
+    public void sweepPastInterviews() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            int rows = jdbcTemplate.update(RECOUNT_UPCOMING, Timestamp.valueOf(lastSweep), Timestamp.valueOf(now));
+            if (rows > 0) {
+                log.debug("Recounted upcoming interviews for {} pipeline rows", rows);
+            }
+            lastSweep = now;
+        } catch (Exception e) {
+            log.warn("Could not sweep past interviews: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recompute every row from applications (first start, or to repair drift)
+     */
+    @Transactional
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        jdbcTemplate.update("DELETE FROM jobservice.pipeline_stats");
+        jdbcTemplate.update(REBUILD_TEMPLATE.replace("{key}", "a.job_id").replace("{scope}", "JOB")
+            .replace("{recruiter}", "j.recruiter_id").replace("{group}", "a.job_id, j.recruiter_id"));
+        jdbcTemplate.update(REBUILD_TEMPLATE.replace("{key}", "j.recruiter_id").replace("{scope}", "RECRUITER")
+            .replace("{recruiter}", "j.recruiter_id").replace("{group}", "j.recruiter_id"));
+        lastSweep = LocalDateTime.now();
+        log.info("Rebuilt pipeline stats in {}ms", System.currentTimeMillis() - start);
+    }
+
+    // ========== Helpers ==========
+
+    /**
+     * delta = [total, one entry per ApplicationStatus (ordinal order), upcoming]; job row first, then recruiter row
+     */
+    private void apply(Job job, long[] delta) {
+        if (job == null || job.getId() == null) return;
+        jdbcTemplate.update(UPSERT, upsertArgs(job.getId(), PipelineStats.Scope.JOB, job.getRecruiterId(), delta));
+        if (job.getRecruiterId() != null) {
+            jdbcTemplate.update(UPSERT, upsertArgs(job.getRecruiterId(), PipelineStats.Scope.RECRUITER, job.getRecruiterId(), delta));
+        }
+    }
+
+    private static long[] changeDelta(Application.ApplicationStatus oldStatus, LocalDateTime oldInterviewAt,
+                                      Application.ApplicationStatus newStatus, LocalDateTime newInterviewAt) {
+        long[] delta = new long[STATUS_COLUMNS.size() + 2];
+        if (oldStatus != newStatus) {
+            delta[1 + oldStatus.ordinal()] = -1;
+            delta[1 + newStatus.ordinal()] = 1;
+        }
+        delta[delta.length - 1] = (isUpcoming(newStatus, newInterviewAt) ? 1 : 0) - (isUpcoming(oldStatus, oldInterviewAt) ? 1 : 0);
+        return delta;
+    }
+
+    private static void add(long[] total, long[] delta) {
+        for (int i = 0; i < delta.length; i++) {
+            total[i] += delta[i];
+        }
+    }
+
+    private static Object[] upsertArgs(UUID id, PipelineStats.Scope scope, UUID recruiterId, long[] delta) {
+        Object[] args = new Object[3 + delta.length];
+        args[0] = id;
+        args[1] = scope.name();
+        args[2] = recruiterId;
+        for (int i = 0; i < delta.length; i++) {
+            args[3 + i] = delta[i];
+        }
+        return args;
+    }
+
+    private static List<String> columns() {
+        List<String> columns = new ArrayList<>();
+        columns.add("total_applications");
+        columns.addAll(STATUS_COLUMNS);
+        columns.add("upcoming_interviews");
+        return columns;
+    }
+
+    private static boolean isUpcoming(Application.ApplicationStatus status, LocalDateTime interviewAt) {
+        return status == Application.ApplicationStatus.INTERVIEW && interviewAt != null && interviewAt.isAfter(LocalDateTime.now());
+    }
+
+    private static Map<String, Long> byStatus(PipelineStats stats) {
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        byStatus.put("PENDING", stats.getPending());
+        byStatus.put("VIEWED", stats.getViewed());
+        byStatus.put("SHORTLISTED", stats.getShortlisted());
+        byStatus.put("INTERVIEW", stats.getInterview());
+        byStatus.put("OFFERED", stats.getOffered());
+        byStatus.put("REJECTED", stats.getRejected());
+        byStatus.put("WITHDRAWN", stats.getWithdrawn());
+        return byStatus;
+    }
+}
@@ -0,0 +1,89 @@
+package vn.careermate.jobservice.service;
+
+import feign.FeignException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import vn.careermate.common.client.UserServiceClient;
+import vn.careermate.common.dto.RecruiterProfileDTO;
+import vn.careermate.common.dto.StudentProfileDTO;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Student / recruiter profiles for a page of applications, resolved in batches
+ * A page asks for all its ids at once: one POST /internal/students/profiles (or /internal/recruiters/profiles)
+ * per 500 distinct ids, so an applicant list costs the same number of calls whatever its length.
+ * Not cached: profiles carry personal data that changes with the student's edits.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProfileResolver {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final UserServiceClient userServiceClient;
+
+    /**
+     * Student profiles by id; ids that user-service does not know (or could not be loaded) are absent
+     */
+    public Map<UUID, StudentProfileDTO> getStudents(Collection<UUID> studentIds) {
+        return resolve("student", studentIds, userServiceClient::getStudentProfilesByIds,
+            userServiceClient::getStudentProfileById, StudentProfileDTO::getId);
+    }
+
+    /**
+     * Recruiter profiles by id; ids that user-service does not know (or could not be loaded) are absent
+     */
+    public Map<UUID, RecruiterProfileDTO> getRecruiters(Collection<UUID> recruiterIds) {
+        return resolve("recruiter", recruiterIds, userServiceClient::getRecruiterProfilesByIds,
+            userServiceClient::getRecruiterProfileById, RecruiterProfileDTO::getId);
+    }
+
+    private <T> Map<UUID, T> resolve(String kind, Collection<UUID> ids,
+                                     Function<List<UUID>, List<T>> batchLookup,
+                                     Function<UUID, T> singleLookup,
+                                     Function<T, UUID> idOf) {
+        List<UUID> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        Map<UUID, T> result = new HashMap<>();
+        for (int from = 0; from < distinct.size(); from += BATCH_SIZE) {
+            List<UUID> chunk = distinct.subList(from, Math.min(from + BATCH_SIZE, distinct.size()));
+            for (T profile : load(kind, chunk, batchLookup, singleLookup)) {
+                if (profile != null && idOf.apply(profile) != null) {
+                    result.put(idOf.apply(profile), profile);
+                }
+            }
+        }
+        return result;
+    }
+
+    private <T> List<T> load(String kind, List<UUID> ids,
+                             Function<List<UUID>, List<T>> batchLookup,
+                             Function<UUID, T> singleLookup) {
+        try {
+            return batchLookup.apply(ids);
+        } catch (FeignException e) {
+            if (e.status() != 404 && e.status() != 405) {
+                // Outage or overload: N single calls would only add to it
+                log.warn("Batch {} profile lookup failed ({}), {} profiles left out: {}", kind, e.status(), ids.size(), e.getMessage());
+                return List.of();
+            }
+            // Older user-service without the batch endpoint
+            log.warn("Batch {} profile lookup not available, loading {} profiles one by one", kind, ids.size());
+            List<T> profiles = new ArrayList<>();
+            for (UUID id : ids) {
+                try {
+                    profiles.add(singleLookup.apply(id));
+                } catch (Exception ex) {
+                    log.warn("Error fetching {} profile {}: {}", kind, id, ex.getMessage());
+                }
+            }
+            return profiles;
+        } catch (Exception e) {
+            log.warn("Batch {} profile lookup failed, {} profiles left out: {}", kind, ids.size(), e.getMessage());
+            return List.of();
+        }
+    }
+}
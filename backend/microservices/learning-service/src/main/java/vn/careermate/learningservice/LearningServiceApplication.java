@@ -5,10 +5,13 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import vn.careermate.common.config.InternalAuthConfiguration;
+import vn.careermate.common.outbox.NotificationOutbox;
 
 @SpringBootApplication
 @EnableDiscoveryClient
@@ -16,6 +19,7 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 @EnableJpaAuditing
 @EnableAsync
 @EnableScheduling
+@Import({NotificationOutbox.class, InternalAuthConfiguration.class})
 @EntityScan("vn.careermate.learningservice.model")
 @EnableJpaRepositories("vn.careermate.learningservice.repository")
 public class LearningServiceApplication {
@@ -13,7 +13,7 @@ import vn.careermate.learningservice.model.Subscription;
 import vn.careermate.learningservice.repository.PackageRepository;
 import vn.careermate.learningservice.repository.SubscriptionRepository;
 import vn.careermate.common.client.UserServiceClient;
-import vn.careermate.common.client.NotificationServiceClient;
+import vn.careermate.common.outbox.NotificationOutbox;
 import vn.careermate.common.dto.UserDTO;
 import vn.careermate.common.dto.NotificationRequest;
 
@@ -31,7 +31,7 @@ public class PackageService {
     private final PackageRepository packageRepository;
     private final SubscriptionRepository subscriptionRepository;
     private final UserServiceClient userServiceClient;
-    private final NotificationServiceClient notificationServiceClient;
+    private final NotificationOutbox notificationOutbox;
 
     public List<Package> getAllPackages() {
         return packageRepository.findAll();
@@ -159,7 +159,7 @@ public class PackageService {
         
         // Notify user about approval
         try {
-            notificationServiceClient.createNotification(NotificationRequest.builder()
+            notificationOutbox.enqueue(NotificationRequest.builder()
                 .userId(userId)
                 .type("SUBSCRIPTION_APPROVED")
                 .title("Đăng ký gói dịch vụ thành công")
@@ -223,7 +223,7 @@ public class PackageService {
         
         // Notify user about rejection
         try {
-            notificationServiceClient.createNotification(NotificationRequest.builder()
+            notificationOutbox.enqueue(NotificationRequest.builder()
                 .userId(userId)
                 .type("SUBSCRIPTION_REJECTED")
                 .title("Yêu cầu đăng ký gói dịch vụ bị từ chối")
@@ -272,7 +272,7 @@ public class PackageService {
         
         // Notify user
         try {
-            notificationServiceClient.createNotification(NotificationRequest.builder()
+            notificationOutbox.enqueue(NotificationRequest.builder()
                 .userId(currentUserId)
                 .type("SUBSCRIPTION_CANCELLED")
                 .title("Hủy đăng ký thành công")
@@ -303,7 +303,7 @@ public class PackageService {
             log.info("Sending subscription request notification to {} admins", admins.size());
             
             for (UserDTO admin : admins) {
-                notificationServiceClient.createNotification(NotificationRequest.builder()
+                notificationOutbox.enqueue(NotificationRequest.builder()
                     .userId(admin.getId())
                     .type("SUBSCRIPTION_REQUEST")
                     .title("Yêu cầu đăng ký gói dịch vụ mới")
@@ -5,13 +5,16 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import vn.careermate.common.config.InternalAuthConfiguration;
 
 @SpringBootApplication
 @EnableDiscoveryClient
 @EnableFeignClients(basePackages = "vn.careermate.common.client")
 @EnableJpaAuditing
+@Import(InternalAuthConfiguration.class)
 @EntityScan("vn.careermate.notificationservice.model")
 @EnableJpaRepositories("vn.careermate.notificationservice.repository")
 public class NotificationServiceApplication {
@@ -25,6 +25,7 @@ public class SecurityConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/actuator/**").permitAll() // Health checks
+                .requestMatchers("/internal/**").permitAll() // Service-to-service, X-Internal-Token checked by InternalAuthConfiguration
                 .requestMatchers("/notifications/**").authenticated() // All notification endpoints require auth
                 .anyRequest().authenticated()
             )
@@ -0,0 +1,40 @@
+package vn.careermate.notificationservice.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import vn.careermate.common.dto.NotificationRequest;
+import vn.careermate.notificationservice.service.NotificationService;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service-to-service endpoints (not routed by the gateway)
+ */
+@Slf4j
+@RestController
+@RequestMapping("/internal/notifications")
+@RequiredArgsConstructor
+public class InternalNotificationController {
+
+    private final NotificationService notificationService;
+
+    /**
+     * Batch delivery from the other services' notification outbox; redelivered event ids are ignored
+     * POST /internal/notifications/batch  [NotificationRequest, ...]
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Integer>> createNotifications(@RequestBody List<NotificationRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            return ResponseEntity.ok(Map.of("received", 0, "created", 0));
+        }
+        if (requests.size() > 500) {
+            return ResponseEntity.badRequest().build();
+        }
+        int created = notificationService.createNotifications(requests);
+        log.debug("Outbox batch: {} received, {} created", requests.size(), created);
+        return ResponseEntity.ok(Map.of("received", requests.size(), "created", created));
+    }
+}
@@ -42,6 +42,27 @@ public class NotificationController {
         }
     }
 
+    /**
+     * Keyset feed for infinite scroll: GET /notifications/feed?cursor=&size=20&includeTotal=false
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<?> getMyNotificationsFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "true") boolean includeTotal
+    ) {
+        try {
+            UUID userId = getCurrentUserId();
+            return ResponseEntity.ok(notificationService.getUserNotificationsFeed(
+                    userId, cursor, Math.max(1, Math.min(size, 100)), includeTotal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error getting notifications feed: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body(Map.of("error", "Không thể tải thông báo"));
+        }
+    }
+
     @GetMapping("/unread-count")
     public ResponseEntity<Map<String, Long>> getUnreadCount() {
         try {
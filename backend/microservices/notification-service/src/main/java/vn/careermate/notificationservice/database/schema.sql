@@ -13,7 +13,12 @@ CREATE TABLE IF NOT EXISTS notificationservice.notifications (
     related_entity_id UUID,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
-    CONSTRAINT notifications_type_check CHECK (type IN (
+    CONSTRAINT notifications_status_check CHECK (status IN ('UNREAD', 'READ'))
+);
+
+-- Kept outside CREATE TABLE so re-running this file refreshes the list on existing databases
+ALTER TABLE notificationservice.notifications DROP CONSTRAINT IF EXISTS notifications_type_check;
+ALTER TABLE notificationservice.notifications ADD CONSTRAINT notifications_type_check CHECK (type IN (
         'ARTICLE_APPROVED', 'ARTICLE_REJECTED', 'ARTICLE_PENDING',
         'JOB_APPROVED', 'JOB_REJECTED', 'JOB_PENDING',
         'NEW_APPLICATION', 'APPLICATION_STATUS_CHANGED',
@@ -22,10 +27,8 @@ CREATE TABLE IF NOT EXISTS notificationservice.notifications (
         'SUBSCRIPTION_REQUEST', 'SUBSCRIPTION_APPROVED', 'SUBSCRIPTION_REJECTED',
         'JOB_HIDDEN', 'JOB_UNHIDDEN', 'JOB_DELETED',
         'ARTICLE_HIDDEN', 'ARTICLE_UNHIDDEN', 'ARTICLE_DELETED',
-        'CHALLENGE_COMPLETED'
-    )),
-    CONSTRAINT notifications_status_check CHECK (status IN ('UNREAD', 'READ'))
-);
+        'CHALLENGE_COMPLETED', 'JOB_EXPIRED'
+    ));
 
 CREATE INDEX IF NOT EXISTS idx_notifications_user_id ON notificationservice.notifications(user_id);
 CREATE INDEX IF NOT EXISTS idx_notifications_status ON notificationservice.notifications(status);
@@ -13,7 +13,10 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "notifications", schema = "notificationservice")
+@Table(name = "notifications", schema = "notificationservice", indexes = {
+    @Index(name = "idx_notifications_user_created", columnList = "user_id, created_at, id"),
+    @Index(name = "idx_notifications_source_event", columnList = "source_event_id", unique = true)
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -52,6 +55,9 @@ public class Notification {
     @Column(name = "related_entity_id")
     private UUID relatedEntityId; // ID của entity liên quan
 
+    @Column(name = "source_event_id")
+    private UUID sourceEventId; // Outbox event id of the sending service (dedupes redelivery)
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -81,6 +87,7 @@ public class Notification {
         JOB_HIDDEN,           // Admin ẩn tin tuyển dụng
         JOB_UNHIDDEN,         // Admin hiện lại tin tuyển dụng
         JOB_DELETED,          // Admin xóa tin tuyển dụng
+        JOB_EXPIRED,          // Tin tuyển dụng hết hạn và được đóng tự động
         ARTICLE_HIDDEN,       // Admin ẩn bài viết
         ARTICLE_UNHIDDEN,     // Admin hiện lại bài viết
         ARTICLE_DELETED,      // Admin xóa bài viết
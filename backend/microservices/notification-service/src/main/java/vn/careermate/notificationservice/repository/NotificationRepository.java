@@ -9,6 +9,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import vn.careermate.notificationservice.model.Notification;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
@@ -16,6 +18,23 @@ public interface NotificationRepository extends JpaRepository<Notification, UUID
 
     Page<Notification> findByUserIdOrderByCreatedAtDesc(UUID userId, Pageable pageable);
 
+    long countByUserId(UUID userId);
+
+    // Keyset feed, newest first (idx_notifications_user_created)
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFeedByUserId(@Param("userId") UUID userId, Pageable limit);
+
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND " +
+           "(n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFeedByUserIdAfter(@Param("userId") UUID userId,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") UUID id,
+                                             Pageable limit);
+
+    @Query("SELECT n.sourceEventId FROM Notification n WHERE n.sourceEventId IN :eventIds")
+    List<UUID> findExistingSourceEventIds(@Param("eventIds") java.util.Collection<UUID> eventIds);
+
     long countByUserIdAndStatus(UUID userId, Notification.NotificationStatus status);
 
     @Modifying
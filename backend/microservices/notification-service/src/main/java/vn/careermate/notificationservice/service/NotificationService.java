@@ -3,10 +3,14 @@ package vn.careermate.notificationservice.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import vn.careermate.common.client.UserServiceClient;
+import vn.careermate.common.dto.CursorPage;
+import vn.careermate.common.dto.NotificationRequest;
+import vn.careermate.common.dto.PageCursor;
 import vn.careermate.common.dto.UserDTO;
 import vn.careermate.notificationservice.model.Notification;
 import vn.careermate.notificationservice.repository.NotificationRepository;
@@ -41,11 +45,65 @@ public class NotificationService {
         return notificationRepository.save(notification);
     }
 
+    /**
+     * Store a batch delivered by another service's outbox; returns how many were created
+     * Event ids already stored (redelivery) and invalid requests are skipped, so one bad row can't block the batch.
+     */
+    @Transactional
+    public int createNotifications(List<NotificationRequest> requests) {
+        List<UUID> eventIds = requests.stream().map(NotificationRequest::getEventId).filter(java.util.Objects::nonNull).toList();
+        java.util.Set<UUID> seen = new java.util.HashSet<>(eventIds.isEmpty() ? List.of() : notificationRepository.findExistingSourceEventIds(eventIds));
+
+        List<Notification> notifications = new java.util.ArrayList<>();
+        for (NotificationRequest request : requests) {
+            if (request.getEventId() != null && !seen.add(request.getEventId())) {
+                continue;
+            }
+            Notification.NotificationType type;
+            try {
+                type = Notification.NotificationType.valueOf(request.getType());
+            } catch (Exception e) {
+                log.error("Skipping notification with unknown type {} (event {})", request.getType(), request.getEventId());
+                continue;
+            }
+            if (request.getUserId() == null) {
+                log.error("Skipping {} notification without user (event {})", request.getType(), request.getEventId());
+                continue;
+            }
+            notifications.add(Notification.builder()
+                    .userId(request.getUserId())
+                    .title(request.getTitle())
+                    .message(request.getMessage())
+                    .type(type)
+                    .status(Notification.NotificationStatus.UNREAD)
+                    .relatedEntityType(request.getRelatedEntityType())
+                    .relatedEntityId(request.getRelatedEntityId() != null ? request.getRelatedEntityId() : request.getRelatedId())
+                    .sourceEventId(request.getEventId())
+                    .build());
+        }
+        notificationRepository.saveAll(notifications);
+        return notifications.size();
+    }
+
     @Transactional(readOnly = true)
     public Page<Notification> getUserNotifications(UUID userId, Pageable pageable) {
         return notificationRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
     }
 
+    /**
+     * Keyset feed of a user's notifications; cursor is the nextCursor of the previous page (null for the first)
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Notification> getUserNotificationsFeed(UUID userId, String cursor, int size, boolean includeTotal) {
+        PageCursor after = PageCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Notification> rows = after == null
+                ? notificationRepository.findFeedByUserId(userId, limit)
+                : notificationRepository.findFeedByUserIdAfter(userId, after.createdAt(), after.id(), limit);
+        Long total = includeTotal ? notificationRepository.countByUserId(userId) : null;
+        return CursorPage.of(rows, size, n -> new PageCursor(n.getCreatedAt(), n.getId()), total);
+    }
+
     @Transactional(readOnly = true)
     public long getUnreadCount(UUID userId) {
         return notificationRepository.countByUserIdAndStatus(userId, Notification.NotificationStatus.UNREAD);
@@ -15,6 +15,12 @@ $mavenPath = "C:\Program Files\apache-maven-3.9.12\bin"
 $env:JAVA_HOME = $javaHome
 $env:PATH = "$mavenPath;$env:PATH"
 
+# Shared secret for /internal/** service-to-service calls; a random one is generated per run when not set
+# (set INTERNAL_AUTH_TOKEN permanently if single services are restarted separately)
+if (-not $env:INTERNAL_AUTH_TOKEN) {
+    $env:INTERNAL_AUTH_TOKEN = [Convert]::ToBase64String([byte[]](1..32 | ForEach-Object { Get-Random -Maximum 256 }))
+}
+
 # Danh sách services và ports
 $services = @(
     @{Name="eureka-server"; Port=8761; Path="eureka-server"; Order=1},
@@ -43,6 +43,8 @@ public class SecurityConfig {
                 .requestMatchers(AntPathRequestMatcher.antMatcher("/api/setup/**")).permitAll()
                 .requestMatchers(AntPathRequestMatcher.antMatcher("/recruiters/experts")).permitAll()
                 .requestMatchers(AntPathRequestMatcher.antMatcher("/api/recruiters/experts")).permitAll()
+                // Service-to-service endpoints: not routed by the gateway, X-Internal-Token checked by InternalAuthConfiguration
+                .requestMatchers(AntPathRequestMatcher.antMatcher("/internal/**")).permitAll()
                 .anyRequest().authenticated()
             )
             .sessionManagement(session -> session
@@ -0,0 +1,35 @@
+package vn.careermate.userservice.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import vn.careermate.common.dto.RecruiterProfileDTO;
+import vn.careermate.userservice.service.RecruiterProfileService;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Service-to-service endpoints for recruiter data (used by job-service for application lists and notifications)
+ * Not routed by the API gateway; callers authenticate with the internal service token.
+ */
+@RestController
+@RequestMapping("/internal/recruiters")
+@RequiredArgsConstructor
+public class InternalRecruiterController {
+
+    private final RecruiterProfileService recruiterProfileService;
+
+    /**
+     * Batch profile lookup: POST /internal/recruiters/profiles  [recruiterId, ...]; unknown ids are left out
+     */
+    @PostMapping("/profiles")
+    public ResponseEntity<List<RecruiterProfileDTO>> getRecruiterProfilesByIds(@RequestBody List<UUID> recruiterIds) {
+        if (recruiterIds != null && recruiterIds.size() > 500) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(recruiterProfileService.getRecruiterProfilesByIds(recruiterIds).stream()
+                .map(RecruiterProfileController::toRecruiterProfileDTO)
+                .toList());
+    }
+}
@@ -0,0 +1,59 @@
+package vn.careermate.userservice.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import vn.careermate.common.dto.CVDTO;
+import vn.careermate.common.dto.StudentProfileDTO;
+import vn.careermate.userservice.service.CVService;
+import vn.careermate.userservice.service.StudentProfileService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Service-to-service endpoints (used by ai-service for job recommendations and bulk CV analysis,
+ * and by job-service for applicant lists and notifications)
+ * Not routed by the API gateway; callers authenticate with the internal service token.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/internal/students")
+@RequiredArgsConstructor
+public class InternalStudentController {
+
+    private final CVService cvService;
+    private final StudentProfileService studentProfileService;
+
+    /**
+     * Batch profile lookup: one call per page of applications instead of one per row
+     * POST /internal/students/profiles  [studentId, ...]; unknown ids are left out
+     */
+    @PostMapping("/profiles")
+    public ResponseEntity<List<StudentProfileDTO>> getStudentProfilesByIds(@RequestBody List<UUID> studentIds) {
+        if (studentIds != null && studentIds.size() > 500) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(studentProfileService.getStudentProfilesByIds(studentIds).stream()
+                .map(StudentProfileController::toStudentProfileDTO)
+                .toList());
+    }
+
+    @PostMapping("/cv-owners")
+    public ResponseEntity<Map<UUID, UUID>> getCVOwners(@RequestBody List<UUID> cvIds) {
+        return ResponseEntity.ok(cvService.getCVOwners(cvIds));
+    }
+
+    // Analysis fields only; no personal data beyond the CV text the analysis needs
+    @PostMapping("/cvs")
+    public ResponseEntity<List<CVDTO>> getCVsByIds(@RequestBody List<UUID> cvIds) {
+        return ResponseEntity.ok(cvService.getCVsByIds(cvIds));
+    }
+
+    @PostMapping("/skills")
+    public ResponseEntity<Map<UUID, List<String>>> getStudentSkills(@RequestBody List<UUID> studentIds) {
+        return ResponseEntity.ok(studentProfileService.getSkillNames(studentIds));
+    }
+}
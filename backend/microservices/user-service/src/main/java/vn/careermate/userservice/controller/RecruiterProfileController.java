@@ -149,26 +149,13 @@ public class RecruiterProfileController {
             if (profile == null) {
                 return ResponseEntity.notFound().build();
             }
-            RecruiterProfileDTO dto = RecruiterProfileDTO.builder()
-                    .id(profile.getId())
-                    .userId(profile.getUser() != null ? profile.getUser().getId() : null)
-                    .fullName(profile.getUser() != null ? profile.getUser().getFullName() : null)
-                    .companyId(profile.getCompanyId())
-                    .position(profile.getPosition())
-                    .department(profile.getDepartment())
-                    .phone(profile.getPhone())
-                    .bio(profile.getBio())
-                    .linkedinUrl(null) // RecruiterProfile doesn't have linkedinUrl field
-                    .createdAt(profile.getCreatedAt())
-                    .updatedAt(profile.getUpdatedAt())
-                    .build();
-            return ResponseEntity.ok(dto);
+            return ResponseEntity.ok(toRecruiterProfileDTO(profile));
         } catch (Exception e) {
             log.error("Error getting recruiter profile: {}", e.getMessage(), e);
             return ResponseEntity.status(500).build();
         }
     }
-    
+
     @GetMapping("/profile/user/{userId}")
     @PreAuthorize("permitAll()")
     public ResponseEntity<RecruiterProfileDTO> getRecruiterProfileByUserId(@PathVariable UUID userId) {
@@ -308,4 +295,20 @@ public class RecruiterProfileController {
     public ResponseEntity<java.util.List<Map<String, Object>>> getExperts() {
         return ResponseEntity.ok(recruiterProfileService.getAllExperts());
     }
+
+    static RecruiterProfileDTO toRecruiterProfileDTO(RecruiterProfile profile) {
+        return RecruiterProfileDTO.builder()
+                .id(profile.getId())
+                .userId(profile.getUser() != null ? profile.getUser().getId() : null)
+                .fullName(profile.getUser() != null ? profile.getUser().getFullName() : null)
+                .companyId(profile.getCompanyId())
+                .position(profile.getPosition())
+                .department(profile.getDepartment())
+                .phone(profile.getPhone())
+                .bio(profile.getBio())
+                .linkedinUrl(null) // RecruiterProfile doesn't have linkedinUrl field
+                .createdAt(profile.getCreatedAt())
+                .updatedAt(profile.getUpdatedAt())
+                .build();
+    }
 }
@@ -125,20 +125,12 @@ public class StudentController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size
     ) {
-        log.warn("Get chat conversations endpoint has been moved to ai-service");
-        return ResponseEntity.status(410).body(Map.of(
-            "error", "This endpoint has been moved to ai-service",
-            "message", "Please use /api/ai/chat/conversations endpoint from ai-service"
-        ));
+        return ResponseEntity.ok(studentService.getChatConversations(PageRequest.of(page, size)));
     }
 
     @GetMapping("/chat/conversations/{conversationId}/messages")
     public ResponseEntity<?> getChatMessages(@PathVariable UUID conversationId) {
-        log.warn("Get chat messages endpoint has been moved to ai-service");
-        return ResponseEntity.status(410).body(Map.of(
-            "error", "This endpoint has been moved to ai-service",
-            "message", "Please use /api/ai/chat/conversations/" + conversationId + "/messages endpoint from ai-service"
-        ));
+        return ResponseEntity.ok(studentService.getChatMessages(conversationId));
     }
 
     @GetMapping("/recommendations")
@@ -146,11 +138,7 @@ public class StudentController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size
     ) {
-        log.warn("Get job recommendations endpoint has been moved to ai-service");
-        return ResponseEntity.status(410).body(Map.of(
-            "error", "This endpoint has been moved to ai-service",
-            "message", "Please use /api/ai/job-recommendations endpoint from ai-service"
-        ));
+        return ResponseEntity.ok(studentService.getJobRecommendations(PageRequest.of(page, size)));
     }
 
     @GetMapping("/recommendations/unviewed")
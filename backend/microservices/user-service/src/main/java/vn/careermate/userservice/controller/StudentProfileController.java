@@ -346,34 +346,7 @@ public class StudentProfileController {
             if (profile == null) {
                 return ResponseEntity.notFound().build();
             }
-            vn.careermate.common.dto.StudentProfileDTO dto = vn.careermate.common.dto.StudentProfileDTO.builder()
-                    .id(profile.getId())
-                    .userId(profile.getUser() != null ? profile.getUser().getId() : null)
-                    .dateOfBirth(profile.getDateOfBirth())
-                    .gender(profile.getGender())
-                    .address(profile.getAddress())
-                    .city(profile.getCity())
-                    .country(profile.getCountry())
-                    .university(profile.getUniversity())
-                    .major(profile.getMajor())
-                    .graduationYear(profile.getGraduationYear())
-                    .gpa(profile.getGpa())
-                    .bio(profile.getBio())
-                    .linkedinUrl(profile.getLinkedinUrl())
-                    .githubUrl(profile.getGithubUrl())
-                    .portfolioUrl(profile.getPortfolioUrl())
-                    .createdAt(profile.getCreatedAt())
-                    .updatedAt(profile.getUpdatedAt())
-                    .user(profile.getUser() != null ? vn.careermate.common.dto.UserDTO.builder()
-                            .id(profile.getUser().getId())
-                            .email(profile.getUser().getEmail())
-                            .fullName(profile.getUser().getFullName())
-                            .avatarUrl(profile.getUser().getAvatarUrl())
-                            .build() : null)
-                    .avatarUrl(profile.getAvatarUrl() != null ? profile.getAvatarUrl() : 
-                              (profile.getUser() != null ? profile.getUser().getAvatarUrl() : null))
-                    .build();
-            return ResponseEntity.ok(dto);
+            return ResponseEntity.ok(toStudentProfileDTO(profile));
         } catch (Exception e) {
             log.error("Error getting student profile by ID: {}", e.getMessage(), e);
             return ResponseEntity.status(500).build();
@@ -424,4 +397,34 @@ public class StudentProfileController {
             return ResponseEntity.status(500).build();
         }
     }
+
+    static vn.careermate.common.dto.StudentProfileDTO toStudentProfileDTO(StudentProfile profile) {
+        return vn.careermate.common.dto.StudentProfileDTO.builder()
+                .id(profile.getId())
+                .userId(profile.getUser() != null ? profile.getUser().getId() : null)
+                .dateOfBirth(profile.getDateOfBirth())
+                .gender(profile.getGender())
+                .address(profile.getAddress())
+                .city(profile.getCity())
+                .country(profile.getCountry())
+                .university(profile.getUniversity())
+                .major(profile.getMajor())
+                .graduationYear(profile.getGraduationYear())
+                .gpa(profile.getGpa())
+                .bio(profile.getBio())
+                .linkedinUrl(profile.getLinkedinUrl())
+                .githubUrl(profile.getGithubUrl())
+                .portfolioUrl(profile.getPortfolioUrl())
+                .createdAt(profile.getCreatedAt())
+                .updatedAt(profile.getUpdatedAt())
+                .user(profile.getUser() != null ? vn.careermate.common.dto.UserDTO.builder()
+                        .id(profile.getUser().getId())
+                        .email(profile.getUser().getEmail())
+                        .fullName(profile.getUser().getFullName())
+                        .avatarUrl(profile.getUser().getAvatarUrl())
+                        .build() : null)
+                .avatarUrl(profile.getAvatarUrl() != null ? profile.getAvatarUrl() : 
+                          (profile.getUser() != null ? profile.getUser().getAvatarUrl() : null))
+                .build();
+    }
 }
@@ -20,7 +20,8 @@ import java.util.UUID;
 @Entity
 @Table(name = "cvs", schema = "userservice", indexes = {
     @Index(name = "idx_cvs_student", columnList = "student_id"),
-    @Index(name = "idx_cvs_default", columnList = "student_id,is_default")
+    @Index(name = "idx_cvs_default", columnList = "student_id,is_default"),
+    @Index(name = "idx_cvs_analysis_dispatch", columnList = "analysis_status,analysis_next_attempt_at")
 })
 @Data
 @Builder
@@ -64,6 +65,18 @@ public class CV {
     @Column(name = "ai_score", precision = 5, scale = 2)
     private java.math.BigDecimal aiScore;
 
+    // Hand-off to ai-service's analysis queue: PENDING until accepted (QUEUED), FAILED after max attempts
+    @Column(name = "analysis_status", length = 20)
+    private String analysisStatus;
+
+    @JsonIgnore
+    @Column(name = "analysis_attempts")
+    private Integer analysisAttempts;
+
+    @JsonIgnore
+    @Column(name = "analysis_next_attempt_at")
+    private LocalDateTime analysisNextAttemptAt;
+
     @CreatedDate
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -1,9 +1,12 @@
 package vn.careermate.userservice.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import vn.careermate.userservice.model.CV;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -12,5 +15,8 @@ import java.util.UUID;
 public interface CVRepository extends JpaRepository<CV, UUID> {
     List<CV> findByStudentId(UUID studentId);
     Optional<CV> findByStudentIdAndIsDefaultTrue(UUID studentId);
+
+    @Query("SELECT c.id, c.student.id FROM CV c WHERE c.id IN :cvIds")
+    List<Object[]> findOwnerIdsByIdIn(@Param("cvIds") Collection<UUID> cvIds);
 }
 
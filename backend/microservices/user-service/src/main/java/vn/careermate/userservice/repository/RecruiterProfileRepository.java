@@ -32,6 +32,9 @@ public interface RecruiterProfileRepository extends JpaRepository<RecruiterProfi
     @Query("SELECT rp FROM RecruiterProfile rp LEFT JOIN FETCH rp.user")
     List<RecruiterProfile> findAllWithUser();
 
+    @Query("SELECT rp FROM RecruiterProfile rp LEFT JOIN FETCH rp.user WHERE rp.id IN :ids")
+    List<RecruiterProfile> findAllByIdWithUser(@Param("ids") java.util.Collection<UUID> ids);
+
     @Query("SELECT rp FROM RecruiterProfile rp LEFT JOIN FETCH rp.user WHERE rp.isExpert = true")
     List<RecruiterProfile> findByIsExpertTrue();
 }
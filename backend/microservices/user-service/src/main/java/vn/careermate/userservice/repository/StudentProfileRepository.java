@@ -16,4 +16,7 @@ public interface StudentProfileRepository extends JpaRepository<StudentProfile,
     java.util.Optional<StudentProfile> findWithUserByUserId(UUID userId);
 
     java.util.Optional<StudentProfile> findByUserId(UUID userId);
+
+    @org.springframework.data.jpa.repository.EntityGraph(attributePaths = {"user"})
+    java.util.List<StudentProfile> findWithUserByIdIn(java.util.Collection<UUID> ids);
 }
@@ -1,13 +1,19 @@
 package vn.careermate.userservice.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import vn.careermate.userservice.model.StudentSkill;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface StudentSkillRepository extends JpaRepository<StudentSkill, UUID> {
     List<StudentSkill> findByStudentId(UUID studentId);
+
+    @Query("SELECT s.student.id, s.skillName FROM StudentSkill s WHERE s.student.id IN :studentIds")
+    List<Object[]> findSkillNamesByStudentIdIn(@Param("studentIds") Collection<UUID> studentIds);
 }
@@ -0,0 +1,113 @@
+package vn.careermate.userservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import vn.careermate.common.client.AIServiceClient;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Hands uploaded CVs to ai-service's analysis queue
+ * uploadCV stores the CV as analysis_status = PENDING in the same transaction, so nothing is lost on restart
+ * or while ai-service is down. This poller claims due rows with a lease (committed before any HTTP call),
+ * sends them, then marks them QUEUED or reschedules them with exponential backoff (FAILED after max-attempts).
+ * ai-service dedupes pending jobs per CV, so a resend after an expired lease is harmless.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CVAnalysisDispatcher {
+
+    public static final String PENDING = "PENDING";
+    public static final String QUEUED = "QUEUED";
+    public static final String FAILED = "FAILED";
+
+    private static final String CLAIM_BATCH = """
+        UPDATE userservice.cvs c SET analysis_next_attempt_at = ?
+        WHERE c.id IN (
+            SELECT id FROM userservice.cvs
+            WHERE analysis_status = 'PENDING' AND analysis_next_attempt_at <= now()
+            ORDER BY analysis_next_attempt_at
+            LIMIT ? FOR UPDATE SKIP LOCKED)
+        RETURNING c.id, c.extracted_content, c.analysis_attempts
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AIServiceClient aiServiceClient;
+
+    @Value("${cv.analysis-dispatch.batch-size:50}")
+    private int batchSize;
+
+    @Value("${cv.analysis-dispatch.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${cv.analysis-dispatch.backoff-base-ms:5000}")
+    private long backoffBaseMs;
+
+    @Value("${cv.analysis-dispatch.backoff-max-ms:600000}")
+    private long backoffMaxMs;
+
+    // A claimed row becomes due again after the lease if the instance dies before recording the outcome
+    @Value("${cv.analysis-dispatch.lease-ms:120000}")
+    private long leaseMs;
+
+    @Scheduled(fixedDelayString = "${cv.analysis-dispatch.poll-interval-ms:2000}")
+    public void dispatchDue() {
+        List<PendingCV> batch;
+        try {
+            Timestamp leaseUntil = Timestamp.valueOf(LocalDateTime.now().plus(Duration.ofMillis(leaseMs)));
+            batch = jdbcTemplate.query(CLAIM_BATCH,
+                (rs, i) -> new PendingCV(rs.getObject("id", UUID.class), rs.getString("extracted_content"),
+                    rs.getObject("analysis_attempts") != null ? rs.getInt("analysis_attempts") : 0),
+                leaseUntil, batchSize);
+        } catch (Exception e) {
+            log.warn("Could not claim CVs for AI analysis: {}", e.getMessage());
+            return;
+        }
+
+        for (PendingCV cv : batch) {
+            dispatch(cv);
+        }
+    }
+
+    private void dispatch(PendingCV cv) {
+        if (cv.content() == null || cv.content().isBlank()) {
+            markStatus(cv.id(), FAILED);
+            return;
+        }
+        try {
+            aiServiceClient.analyzeCV(cv.id(), Map.of("content", cv.content()));
+            markStatus(cv.id(), QUEUED);
+        } catch (Exception e) {
+            int attempts = cv.attempts() + 1;
+            if (attempts >= maxAttempts) {
+                log.error("Giving up queueing CV {} for AI analysis after {} attempts: {}", cv.id(), attempts, e.getMessage());
+                jdbcTemplate.update("UPDATE userservice.cvs SET analysis_status = ?, analysis_attempts = ? WHERE id = ?",
+                    FAILED, attempts, cv.id());
+                return;
+            }
+            long delayMs = Math.min(backoffMaxMs, backoffBaseMs * (1L << Math.min(attempts - 1, 20)));
+            log.warn("Failed to queue CV {} for AI analysis (attempt {}), retrying in {} ms: {}",
+                cv.id(), attempts, delayMs, e.getMessage());
+            jdbcTemplate.update("UPDATE userservice.cvs SET analysis_attempts = ?, analysis_next_attempt_at = ? WHERE id = ?",
+                attempts, Timestamp.valueOf(LocalDateTime.now().plus(Duration.ofMillis(delayMs))), cv.id());
+        }
+    }
+
+    private void markStatus(UUID cvId, String status) {
+        jdbcTemplate.update("UPDATE userservice.cvs SET analysis_status = ?, analysis_next_attempt_at = NULL WHERE id = ?",
+            status, cvId);
+    }
+
+    private record PendingCV(UUID id, String content, int attempts) {
+    }
+}
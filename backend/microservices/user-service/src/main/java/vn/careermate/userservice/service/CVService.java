@@ -8,8 +8,8 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
-import vn.careermate.common.client.AIServiceClient;
 import vn.careermate.common.client.LearningServiceClient;
+import vn.careermate.common.dto.CVDTO;
 import vn.careermate.common.dto.CVTemplateDTO;
 import vn.careermate.userservice.service.FileStorageService;
 import vn.careermate.userservice.model.CV;
@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.util.*;
 
 import java.util.regex.Matcher;
@@ -40,7 +41,6 @@ public class CVService {
     private final StudentProfileRepository studentProfileRepository;
     private final UserRepository userRepository;
     private final FileStorageService fileStorageService;
-    private final AIServiceClient aiServiceClient;
     private final LearningServiceClient learningServiceClient;
     private final TextExtractionService textExtractionService;
 
@@ -98,7 +98,8 @@ public class CVService {
             // Continue without extracted text
         }
 
-        // Create CV record with extracted content
+        // Create CV record with extracted content; CVs with text are handed to ai-service by CVAnalysisDispatcher
+        boolean analyze = extractedText != null && !extractedText.trim().isEmpty();
         CV cv = CV.builder()
                 .student(student)
                 .fileUrl(filePath)
@@ -107,20 +108,27 @@ public class CVService {
                 .fileType(contentType)
                 .isDefault(false)
                 .extractedContent(extractedText)
+                .analysisStatus(analyze ? CVAnalysisDispatcher.PENDING : null)
+                .analysisAttempts(0)
+                .analysisNextAttemptAt(analyze ? LocalDateTime.now() : null)
                 .build();
 
-        cv = cvRepository.save(cv);
+        return cvRepository.save(cv);
+    }
 
-        // Analyze CV with AI (async) - via Feign Client
-        try {
-            // Use extracted content for analysis
-            aiServiceClient.analyzeCV(cv.getId(), extractedText);
-        } catch (Exception e) {
-            log.warn("Failed to analyze CV with AI service: {}", e.getMessage());
-            // Continue without AI analysis
+    /**
+     * Owning student id per CV id (service-to-service lookup)
+     */
+    @Transactional(readOnly = true)
+    public Map<UUID, UUID> getCVOwners(List<UUID> cvIds) {
+        Map<UUID, UUID> owners = new HashMap<>();
+        if (cvIds == null || cvIds.isEmpty()) {
+            return owners;
         }
-
-        return cv;
+        for (Object[] row : cvRepository.findOwnerIdsByIdIn(cvIds)) {
+            owners.put((UUID) row[0], (UUID) row[1]);
+        }
+        return owners;
     }
 
     @Transactional
@@ -200,6 +208,27 @@ public class CVService {
         }
     }
 
+    /**
+     * CVs by id in one query for ai-service's bulk analysis
+     * Only what the analysis reads (text, stored analysis, file name / type for the download fallback),
+     * not the owner or file location
+     */
+    @Transactional(readOnly = true)
+    public List<CVDTO> getCVsByIds(List<UUID> cvIds) {
+        if (cvIds == null || cvIds.isEmpty()) {
+            return List.of();
+        }
+        return cvRepository.findAllById(cvIds).stream()
+            .map(cv -> CVDTO.builder()
+                .id(cv.getId())
+                .fileName(cv.getFileName())
+                .fileType(cv.getFileType())
+                .extractedContent(cv.getExtractedContent())
+                .aiAnalysis(cv.getAiAnalysis())
+                .build())
+            .toList();
+    }
+
     @Transactional(readOnly = true)
     public CV getCV(UUID cvId) {
         // Find CV
@@ -74,6 +74,13 @@ public class RecruiterProfileService {
         return recruiterProfileRepository.findByIdWithCompany(recruiterId).orElse(null);
     }
 
+    public java.util.List<RecruiterProfile> getRecruiterProfilesByIds(java.util.Collection<UUID> recruiterIds) {
+        if (recruiterIds == null || recruiterIds.isEmpty()) {
+            return java.util.List.of();
+        }
+        return recruiterProfileRepository.findAllByIdWithUser(recruiterIds);
+    }
+
     public RecruiterProfile getMyProfile() {
         return getCurrentRecruiterProfile();
     }
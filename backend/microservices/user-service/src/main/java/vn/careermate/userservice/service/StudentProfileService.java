@@ -10,10 +10,15 @@ import org.springframework.web.multipart.MultipartFile;
 import vn.careermate.userservice.model.StudentProfile;
 import vn.careermate.userservice.model.User;
 import vn.careermate.userservice.repository.StudentProfileRepository;
+import vn.careermate.userservice.repository.StudentSkillRepository;
 import vn.careermate.userservice.repository.UserRepository;
 import vn.careermate.userservice.service.FileStorageService;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Slf4j
@@ -22,6 +27,7 @@ import java.util.UUID;
 public class StudentProfileService {
 
     private final StudentProfileRepository studentProfileRepository;
+    private final StudentSkillRepository studentSkillRepository;
     private final UserRepository userRepository;
     private final FileStorageService fileStorageService;
 
@@ -199,7 +205,29 @@ public class StudentProfileService {
         return studentProfileRepository.findWithUserById(studentId).orElse(null);
     }
 
+    public java.util.List<StudentProfile> getStudentProfilesByIds(java.util.Collection<UUID> studentIds) {
+        if (studentIds == null || studentIds.isEmpty()) {
+            return java.util.List.of();
+        }
+        return studentProfileRepository.findWithUserByIdIn(studentIds);
+    }
+
     public StudentProfile getStudentProfileByUserId(UUID userId) {
         return studentProfileRepository.findWithUserByUserId(userId).orElse(null);
     }
+
+    /**
+     * Skill names per student (service-to-service lookup)
+     */
+    @Transactional(readOnly = true)
+    public Map<UUID, List<String>> getSkillNames(List<UUID> studentIds) {
+        Map<UUID, List<String>> skills = new HashMap<>();
+        if (studentIds == null || studentIds.isEmpty()) {
+            return skills;
+        }
+        for (Object[] row : studentSkillRepository.findSkillNamesByStudentIdIn(studentIds)) {
+            skills.computeIfAbsent((UUID) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+        return skills;
+    }
 }
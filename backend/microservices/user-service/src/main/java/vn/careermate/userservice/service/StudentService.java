@@ -5,6 +5,7 @@ import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -15,6 +16,7 @@ import vn.careermate.common.client.AIServiceClient;
 import vn.careermate.common.client.JobServiceClient;
 import vn.careermate.common.dto.ApplicationDTO;
 import vn.careermate.common.dto.JobDTO;
+import vn.careermate.common.dto.JobRecommendationDTO;
 import vn.careermate.userservice.model.CV;
 import vn.careermate.userservice.repository.CVRepository;
 import vn.careermate.userservice.model.StudentProfile;
@@ -25,7 +27,9 @@ import vn.careermate.userservice.service.FileStorageService;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -527,76 +531,65 @@ public class StudentService {
     }
 
     // ========== AI CHAT CONVERSATIONS ==========
-    // TODO: Refactor to use AIServiceClient.getChatConversations() when ai-service is ready
+    // Stored in ai-service (ChatConversationService); conversations are owned by the user id
     public Page<Object> getChatConversations(Pageable pageable) {
-        log.warn("getChatConversations() is not available in microservice architecture. Use ai-service endpoints directly.");
-        return Page.empty(pageable);
-        /* Original implementation - commented for microservice refactoring
-        StudentProfile student = getCurrentStudentProfile();
-        if (student == null || student.getId() == null) {
+        UUID userId = getCurrentUserId();
+        try {
+            List<Object> conversations = aiServiceClient.getChatConversations(userId);
+            int from = (int) Math.min(pageable.getOffset(), conversations.size());
+            int to = Math.min(from + pageable.getPageSize(), conversations.size());
+            return new PageImpl<>(conversations.subList(from, to), pageable, conversations.size());
+        } catch (Exception e) {
+            log.error("Error loading chat conversations from ai-service: {}", e.getMessage());
             return Page.empty(pageable);
         }
-        return aiChatConversationRepository.findByStudentIdOrderByCreatedAtDesc(student.getId(), pageable);
-        */
     }
 
-    // TODO: Refactor to use AIServiceClient.createChatConversation() when ai-service is ready
-    @Transactional
     public Object createChatConversation(String role, String context) {
-        log.warn("createChatConversation() is not available in microservice architecture. Use ai-service endpoints directly.");
-        throw new RuntimeException("AI chat has been moved to ai-service. Please use /api/ai/chat/conversations endpoint.");
-        /* Original implementation - commented for microservice refactoring
-        StudentProfile student = getCurrentStudentProfile();
-        AIChatConversation conversation = AIChatConversation.builder()
-                .student(student)
-                .role(role)
-                .context(context)
-                .build();
-        return aiChatConversationRepository.save(conversation);
-        */
+        Map<String, String> request = new HashMap<>();
+        request.put("role", role);
+        request.put("context", context);
+        return aiServiceClient.createChatConversation(getCurrentUserId(), request);
     }
 
-    // TODO: Refactor to use AIServiceClient.getChatMessages() when ai-service is ready
     public List<Object> getChatMessages(UUID conversationId) {
-        log.warn("getChatMessages() is not available in microservice architecture. Use ai-service endpoints directly.");
-        return List.of();
-        /* Original implementation - commented for microservice refactoring
-        return aiChatMessageRepository.findByConversationIdOrderByCreatedAtAsc(conversationId);
-        */
+        return aiServiceClient.getChatMessages(conversationId, getCurrentUserId());
     }
 
-    // TODO: Refactor to use AIServiceClient.sendChatMessage() when ai-service is ready
-    @Transactional
+    // Only user turns are sent; ai-service stores the message and the answer together
     public Object saveChatMessage(UUID conversationId, String senderType, String message, Integer tokensUsed) {
-        log.warn("saveChatMessage() is not available in microservice architecture. Use ai-service endpoints directly.");
-        throw new RuntimeException("AI chat messages have been moved to ai-service. Please use /api/ai/chat/messages endpoint.");
-        /* Original implementation - commented for microservice refactoring
-        AIChatConversation conversation = aiChatConversationRepository.findById(conversationId)
-                .orElseThrow(() -> new RuntimeException("Conversation not found"));
-        
-        AIChatMessage chatMessage = AIChatMessage.builder()
-                .conversation(conversation)
-                .senderType(senderType)
-                .message(message)
-                .tokensUsed(tokensUsed)
-                .build();
-        
-        return aiChatMessageRepository.save(chatMessage);
-        */
+        if (senderType != null && !"user".equalsIgnoreCase(senderType)) {
+            throw new RuntimeException("Only user messages can be sent; answers are recorded by ai-service");
+        }
+        return aiServiceClient.sendChatMessage(conversationId, getCurrentUserId(), Map.of("message", message));
+    }
+
+    private UUID getCurrentUserId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || auth.getName() == null || "anonymousUser".equals(auth.getName())) {
+            throw new RuntimeException("Authentication required. Please login first.");
+        }
+        return userRepository.findByEmail(auth.getName())
+                .map(User::getId)
+                .orElseThrow(() -> new RuntimeException("User not found: " + auth.getName()));
     }
 
     // ========== JOB RECOMMENDATIONS ==========
-    // TODO: Refactor to use AIServiceClient.getJobRecommendations() when ai-service is ready
-    public Page<Object> getJobRecommendations(Pageable pageable) {
-        log.warn("getJobRecommendations() is not available in microservice architecture. Use ai-service endpoints directly.");
-        return Page.empty(pageable);
-        /* Original implementation - commented for microservice refactoring
+    // Precomputed by ai-service (JobRecommendationService); no AI call on this path
+    public Page<JobRecommendationDTO> getJobRecommendations(Pageable pageable) {
         StudentProfile student = getCurrentStudentProfile();
         if (student == null || student.getId() == null) {
             return Page.empty(pageable);
         }
-        return jobRecommendationRepository.findByStudentIdOrderByMatchScoreDescCreatedAtDesc(student.getId(), pageable);
-        */
+        try {
+            List<JobRecommendationDTO> recommendations = aiServiceClient.getJobRecommendations(student.getId());
+            int from = (int) Math.min(pageable.getOffset(), recommendations.size());
+            int to = Math.min(from + pageable.getPageSize(), recommendations.size());
+            return new PageImpl<>(recommendations.subList(from, to), pageable, recommendations.size());
+        } catch (Exception e) {
+            log.error("Error loading job recommendations from ai-service: {}", e.getMessage());
+            return Page.empty(pageable);
+        }
     }
 
     // TODO: Refactor to use AIServiceClient.markRecommendationViewed() when ai-service is ready
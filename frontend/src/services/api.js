@@ -214,6 +214,33 @@ class CareerMateAPI {
     return response.data;
   }
 
+  // Search with facet counts: { content, totalElements, totalPages, number, size, facets }
+  // filters: { keyword, location, jobType, experienceLevel, minSalary, maxSalary }
+  async searchJobsFaceted(filters = {}, page = 0, size = 10) {
+    const params = new URLSearchParams();
+    Object.entries(filters).forEach(([key, value]) => {
+      if (value !== undefined && value !== null && value !== '') params.append(key, value);
+    });
+    params.append('page', page);
+    params.append('size', size);
+
+    const response = await this.client.get(`/jobs/search?${params}`);
+    return response.data;
+  }
+
+  // Infinite scroll: pass back nextCursor (null for the first page)
+  async searchJobsFeed(filters = {}, cursor = null, size = 20, includeTotal = false) {
+    const params = new URLSearchParams();
+    Object.entries(filters).forEach(([key, value]) => {
+      if (value !== undefined && value !== null && value !== '') params.append(key, value);
+    });
+    if (cursor) params.append('cursor', cursor);
+    params.append('size', size);
+    params.append('includeTotal', includeTotal);
+    const response = await this.client.get(`/jobs/feed?${params.toString()}`);
+    return response.data;
+  }
+
   async getJobById(jobId) {
     // Updated: Use /api/jobs/{jobId} instead of /api/students/jobs/{jobId} (moved to job-service)
     const response = await this.client.get(`/jobs/${jobId}`);
@@ -359,6 +386,13 @@ class CareerMateAPI {
     return response.data;
   }
 
+  async getJobApplicantsFeed(jobId, cursor = null, size = 20, includeTotal = false) {
+    const params = new URLSearchParams({ size, includeTotal });
+    if (cursor) params.append('cursor', cursor);
+    const response = await this.client.get(`/applications/job/${jobId}/feed?${params.toString()}`);
+    return response.data;
+  }
+
   async getRecruiterJobStats(recruiterId) {
     const response = await this.client.get(`/jobs/recruiter/stats?recruiterId=${recruiterId}`);
     return response.data;
@@ -383,6 +417,15 @@ class CareerMateAPI {
     return response.data;
   }
 
+  async updateApplicationStatuses(applicationIds, status, note = '') {
+    const response = await this.client.post('/applications/status/bulk', {
+      applicationIds,
+      status,
+      notes: note
+    });
+    return response.data;
+  }
+
   // Recruiter Profile APIs
   async getRecruiterProfile() {
     const response = await this.client.get('/recruiters/profile');
@@ -1265,6 +1308,13 @@ class CareerMateAPI {
     return response.data;
   }
 
+  async getNotificationsFeed(cursor = null, size = 20, includeTotal = false) {
+    const params = new URLSearchParams({ size, includeTotal });
+    if (cursor) params.append('cursor', cursor);
+    const response = await this.client.get(`/notifications/feed?${params.toString()}`);
+    return response.data;
+  }
+
   async getUnreadNotificationCount() {
     const response = await this.client.get('/notifications/unread-count');
     return response.data;